@@ -43,7 +43,11 @@ import org.apache.lucene.facet.taxonomy.TaxonomyReader;
 import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.ConcurrentQueryCache;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.QueryCache;
+import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.RAMDirectory;
@@ -72,6 +76,10 @@ import org.apache.lucene.util.IOUtils;
  *  <li><b>log.queries</b>=&lt;whether queries should be printed| Default: false&gt;
  *  <li><b>directory</b>=&lt;type of directory to use for the index| Default: RAMDirectory&gt;
  *  <li><b>taxonomy.directory</b>=&lt;type of directory for taxonomy index| Default: RAMDirectory&gt;
+ *  <li><b>query.cache</b>=&lt;query cache to use for searching: none, lru or concurrent| Default: none&gt;
+ *  <li><b>query.cache.size</b>=&lt;max number of cached queries| Default: 1000&gt;
+ *  <li><b>query.cache.ram.mb</b>=&lt;max memory usage of the query cache| Default: 32&gt;
+ *  <li><b>query.cache.policy</b>=&lt;caching policy: usage or always| Default: usage&gt;
  * </ul>
  */
 public class PerfRunData implements Closeable {
@@ -349,13 +357,32 @@ public class PerfRunData implements Closeable {
       // Hold reference to new IR
       indexReader.incRef();
       indexSearcher = new IndexSearcher(indexReader);
-      // TODO Some day we should make the query cache in this module configurable and control clearing the cache
-      indexSearcher.setQueryCache(null);
+      indexSearcher.setQueryCache(createQueryCache());
+      if ("always".equals(config.get("query.cache.policy", "usage"))) {
+        indexSearcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+      }
     } else {
       indexSearcher = null;
     }
   }
 
+  /** Create the query cache that is configured through the <b>query.cache</b> property. */
+  private QueryCache createQueryCache() {
+    final String type = config.get("query.cache", "none");
+    final int maxSize = config.get("query.cache.size", 1000);
+    final long maxRamBytesUsed = (long) (config.get("query.cache.ram.mb", 32d) * 1024 * 1024);
+    switch (type) {
+      case "none":
+        return null;
+      case "lru":
+        return new LRUQueryCache(maxSize, maxRamBytesUsed);
+      case "concurrent":
+        return new ConcurrentQueryCache(maxSize, maxRamBytesUsed);
+      default:
+        throw new IllegalArgumentException("Unknown query cache type: " + type + ", expected one of none, lru or concurrent");
+    }
+  }
+
   /**
    * @return Returns the indexWriter.
    */
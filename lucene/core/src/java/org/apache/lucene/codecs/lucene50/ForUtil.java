@@ -46,9 +46,21 @@ final class ForUtil {
    */
   static final int MAX_ENCODED_SIZE = BLOCK_SIZE * 4;
 
+  /**
+   * Upper limit of the number of longs that might be required to stored
+   * <code>BLOCK_SIZE</code> encoded values as longs.
+   */
+  static final int MAX_ENCODED_LONGS = MAX_ENCODED_SIZE / Long.BYTES;
+
+  /**
+   * Blocks of up to this number of bits per value are decoded from bytes, wider
+   * ones from longs.
+   */
+  private static final int MAX_BYTE_DECODED_BITS = 8;
+
   /**
    * Upper limit of the number of values that might be decoded in a single call to
-   * {@link #readBlock(IndexInput, byte[], int[])}. Although values after
+   * {@link #readBlock(IndexInput, byte[], long[], int[])}. Although values after
    * <code>BLOCK_SIZE</code> are garbage, it is necessary to allocate value buffers
    * whose size is {@code >= MAX_DATA_SIZE} to avoid {@link ArrayIndexOutOfBoundsException}s.
    */
@@ -78,6 +90,14 @@ final class ForUtil {
     return (int) Math.ceil((float) BLOCK_SIZE / decoder.byteValueCount());
   }
 
+  /**
+   * Compute the number of iterations required to decode <code>BLOCK_SIZE</code>
+   * values from longs with the provided {@link Decoder}.
+   */
+  private static int computeLongIterations(PackedInts.Decoder decoder) {
+    return (int) Math.ceil((float) BLOCK_SIZE / decoder.longValueCount());
+  }
+
   /**
    * Compute the number of bytes required to encode a block of values that require
    * <code>bitsPerValue</code> bits per value with format <code>format</code>.
@@ -92,6 +112,7 @@ final class ForUtil {
   private final PackedInts.Encoder[] encoders;
   private final PackedInts.Decoder[] decoders;
   private final int[] iterations;
+  private final int[] longIterations;
 
   /**
    * Create a new {@link ForUtil} instance and save state into <code>out</code>.
@@ -102,6 +123,7 @@ final class ForUtil {
     encoders = new PackedInts.Encoder[33];
     decoders = new PackedInts.Decoder[33];
     iterations = new int[33];
+    longIterations = new int[33];
 
     for (int bpv = 1; bpv <= 32; ++bpv) {
       final FormatAndBits formatAndBits = PackedInts.fastestFormatAndBits(
@@ -114,6 +136,7 @@ final class ForUtil {
       decoders[bpv] = PackedInts.getDecoder(
           formatAndBits.format, PackedInts.VERSION_CURRENT, formatAndBits.bitsPerValue);
       iterations[bpv] = computeIterations(decoders[bpv]);
+      longIterations[bpv] = computeLongIterations(decoders[bpv]);
 
       out.writeVInt(formatAndBits.format.getId() << 5 | (formatAndBits.bitsPerValue - 1));
     }
@@ -129,6 +152,7 @@ final class ForUtil {
     encoders = new PackedInts.Encoder[33];
     decoders = new PackedInts.Decoder[33];
     iterations = new int[33];
+    longIterations = new int[33];
 
     for (int bpv = 1; bpv <= 32; ++bpv) {
       final int code = in.readVInt();
@@ -143,6 +167,7 @@ final class ForUtil {
       decoders[bpv] = PackedInts.getDecoder(
           format, packedIntsVersion, bitsPerValue);
       iterations[bpv] = computeIterations(decoders[bpv]);
+      longIterations[bpv] = computeLongIterations(decoders[bpv]);
     }
   }
 
@@ -177,13 +202,21 @@ final class ForUtil {
 
   /**
    * Read the next block of data (<code>For</code> format).
+   * <p>
+   * Encoded blocks are always a whole number of big-endian longs, whatever the
+   * format and number of bits per value. Wide values are read as longs and
+   * decoded with the unrolled long decoders of {@link PackedInts}, which extract
+   * each value from at most two words instead of assembling it byte by byte.
+   * Blocks of up to {@link #MAX_BYTE_DECODED_BITS} bits per value are read and
+   * decoded as bytes, as before.
    *
-   * @param in        the input to use to read data
-   * @param encoded   a buffer that can be used to store encoded data
-   * @param decoded   where to write decoded data
+   * @param in            the input to use to read data
+   * @param encoded       a buffer that can be used to store encoded data
+   * @param encodedLongs  a buffer of at least {@link #MAX_ENCODED_LONGS} longs that can be used to store encoded data
+   * @param decoded       where to write decoded data
    * @throws IOException If there is a low-level I/O error
    */
-  void readBlock(IndexInput in, byte[] encoded, int[] decoded) throws IOException {
+  void readBlock(IndexInput in, byte[] encoded, long[] encodedLongs, int[] decoded) throws IOException {
     final int numBits = in.readByte();
     assert numBits <= 32 : numBits;
 
@@ -194,13 +227,28 @@ final class ForUtil {
     }
 
     final int encodedSize = encodedSizes[numBits];
-    in.readBytes(encoded, 0, encodedSize);
-
     final PackedInts.Decoder decoder = decoders[numBits];
-    final int iters = iterations[numBits];
-    assert iters * decoder.byteValueCount() >= BLOCK_SIZE;
 
-    decoder.decode(encoded, 0, decoded, 0, iters);
+    if (numBits <= MAX_BYTE_DECODED_BITS) {
+      in.readBytes(encoded, 0, encodedSize);
+
+      final int iters = iterations[numBits];
+      assert iters * decoder.byteValueCount() >= BLOCK_SIZE;
+
+      decoder.decode(encoded, 0, decoded, 0, iters);
+    } else {
+      assert encodedSize % Long.BYTES == 0 : encodedSize;
+      final int numLongs = encodedSize >>> 3;
+      for (int i = 0; i < numLongs; ++i) {
+        encodedLongs[i] = in.readLong();
+      }
+
+      final int iters = longIterations[numBits];
+      assert iters * decoder.longValueCount() >= BLOCK_SIZE;
+      assert iters * decoder.longBlockCount() <= numLongs;
+
+      decoder.decode(encodedLongs, 0, decoded, 0, iters);
+    }
   }
 
   /**
@@ -196,9 +196,9 @@ import org.apache.lucene.util.packed.PackedInts;
  *       <sup>NumSkipLevels-1</sup>, SkipLevel&gt;, SkipDatum?</li>
  *   <li>SkipLevel --&gt; &lt;SkipDatum&gt; <sup>TrimmedDocFreq/(PackedBlockSize^(Level + 1))</sup></li>
  *   <li>SkipDatum --&gt; DocSkip, DocFPSkip, &lt;PosFPSkip, PosBlockOffset, PayLength?, 
- *                        PayFPSkip?&gt;?, SkipChildLevelPointer?</li>
+ *                        PayFPSkip?&gt;?, MaxFreq?, SkipChildLevelPointer?</li>
  *   <li>PackedDocDeltaBlock, PackedFreqBlock --&gt; {@link PackedInts PackedInts}</li>
- *   <li>DocDelta, Freq, DocSkip, DocFPSkip, PosFPSkip, PosBlockOffset, PayByteUpto, PayFPSkip 
+ *   <li>DocDelta, Freq, DocSkip, DocFPSkip, PosFPSkip, PosBlockOffset, PayByteUpto, PayFPSkip, MaxFreq 
  *       --&gt; 
  *   {@link DataOutput#writeVInt VInt}</li>
  *   <li>SkipChildLevelPointer --&gt; {@link DataOutput#writeVLong VLong}</li>
@@ -259,6 +259,10 @@ import org.apache.lucene.util.packed.PackedInts;
  *       current term's TermFreqs, and stored as a difference sequence.</li>
  *   <li>PayByteUpto indicates the start offset of the current payload. It is equivalent to
  *       the sum of the payload lengths in the current block up to PosBlockOffset</li>
+ *   <li>MaxFreq is the maximum term frequency of the documents that the skip entry covers, that is
+ *       the documents after the previous SkipDatum of the same level, up to and including DocSkip.
+ *       It is only stored when frequencies are indexed, and allows scorers to compute an upper
+ *       bound of the scores of a block without decoding it.</li>
  * </ul>
  * </dd>
  * </dl>
@@ -384,7 +388,8 @@ public final class Lucene50PostingsFormat extends PostingsFormat {
 
   // Increment version to change it
   final static int VERSION_START = 0;
-  final static int VERSION_CURRENT = VERSION_START;
+  final static int VERSION_BLOCK_MAX_FREQ = 1;
+  final static int VERSION_CURRENT = VERSION_BLOCK_MAX_FREQ;
 
   private final int minTermBlockSize;
   private final int maxTermBlockSize;
@@ -24,6 +24,7 @@ import org.apache.lucene.codecs.BlockTermState;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.PostingsReaderBase;
 import org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.IntBlockTermState;
+import org.apache.lucene.index.BlockMaxPostingsEnum;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexOptions;
@@ -37,6 +38,7 @@ import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
 
 import static org.apache.lucene.codecs.lucene50.ForUtil.MAX_DATA_SIZE;
+import static org.apache.lucene.codecs.lucene50.ForUtil.MAX_ENCODED_LONGS;
 import static org.apache.lucene.codecs.lucene50.ForUtil.MAX_ENCODED_SIZE;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZE;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.DOC_CODEC;
@@ -44,6 +46,7 @@ import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.MAX_SKIP_
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.PAY_CODEC;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.POS_CODEC;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.TERMS_CODEC;
+import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.VERSION_BLOCK_MAX_FREQ;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.VERSION_CURRENT;
 import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.VERSION_START;
 
@@ -234,8 +237,9 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     }
   }
 
-  final class BlockDocsEnum extends PostingsEnum {
+  final class BlockDocsEnum extends BlockMaxPostingsEnum {
     private final byte[] encoded;
+    private final long[] encodedLongs;
     
     private final int[] docDeltaBuffer = new int[MAX_DATA_SIZE];
     private final int[] freqBuffer = new int[MAX_DATA_SIZE];
@@ -275,6 +279,12 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     private boolean needsFreq; // true if the caller actually needs frequencies
     private int singletonDocID; // docid when there is a single pulsed posting, otherwise -1
 
+    // a second skipper, only used to read max freqs of blocks, so that
+    // advanceShallow does not interfere with the position of the enum
+    private Lucene50SkipReader maxFreqSkipper;
+    private boolean maxFreqSkipped;
+    private int maxFreq;
+
     public BlockDocsEnum(FieldInfo fieldInfo) throws IOException {
       this.startDocIn = Lucene50PostingsReader.this.docIn;
       this.docIn = null;
@@ -282,7 +292,8 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       indexHasPos = fieldInfo.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS) >= 0;
       indexHasOffsets = fieldInfo.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS) >= 0;
       indexHasPayloads = fieldInfo.hasPayloads();
-      encoded = new byte[MAX_ENCODED_SIZE];    
+      encoded = new byte[MAX_ENCODED_SIZE];
+      encodedLongs = new long[MAX_ENCODED_LONGS];
     }
 
     public boolean canReuse(IndexInput docIn, FieldInfo fieldInfo) {
@@ -316,8 +327,61 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       nextSkipDoc = BLOCK_SIZE - 1; // we won't skip if target is found in first block
       docBufferUpto = BLOCK_SIZE;
       skipped = false;
+      maxFreqSkipped = false;
+      maxFreq = termMaxFreq();
       return this;
     }
+
+    /** Upper bound of the freq across all docs of the postings list: all
+     *  documents but one have a freq of at least 1. */
+    private int termMaxFreq() {
+      if (indexHasFreq == false) {
+        return 1;
+      }
+      return (int) Math.min(Integer.MAX_VALUE, totalTermFreq - docFreq + 1);
+    }
+
+    @Override
+    public int advanceShallow(int target) throws IOException {
+      if (docFreq <= BLOCK_SIZE || indexHasFreq == false || version < VERSION_BLOCK_MAX_FREQ) {
+        // no skip data, or no max freqs in the skip data
+        return NO_MORE_DOCS;
+      }
+
+      if (maxFreqSkipper == null) {
+        maxFreqSkipper = new Lucene50SkipReader(docIn.clone(),
+                                                MAX_SKIP_LEVELS,
+                                                true,
+                                                indexHasPos,
+                                                indexHasOffsets,
+                                                indexHasPayloads);
+      }
+
+      if (maxFreqSkipped == false) {
+        assert skipOffset != -1;
+        maxFreqSkipper.init(docTermStartFP+skipOffset, docTermStartFP, 0, 0, docFreq);
+        maxFreqSkipped = true;
+        // skip entries are recorded on the last doc of full blocks, which is
+        // always >= 1, so this is enough to load the first entry
+        maxFreqSkipper.skipTo(Math.max(1, target));
+      } else if (target > maxFreqSkipper.getNextSkipDoc()) {
+        maxFreqSkipper.skipTo(target);
+      }
+
+      final int blockMaxFreq = maxFreqSkipper.getMaxFreq();
+      if (blockMaxFreq == -1) {
+        // we are on the last block, which has no skip entry
+        maxFreq = termMaxFreq();
+        return NO_MORE_DOCS;
+      }
+      maxFreq = blockMaxFreq;
+      return maxFreqSkipper.getNextSkipDoc();
+    }
+
+    @Override
+    public int getMaxFreq() {
+      return maxFreq;
+    }
     
     @Override
     public int freq() throws IOException {
@@ -354,11 +418,11 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       assert left > 0;
 
       if (left >= BLOCK_SIZE) {
-        forUtil.readBlock(docIn, encoded, docDeltaBuffer);
+        forUtil.readBlock(docIn, encoded, encodedLongs, docDeltaBuffer);
 
         if (indexHasFreq) {
           if (needsFreq) {
-            forUtil.readBlock(docIn, encoded, freqBuffer);
+            forUtil.readBlock(docIn, encoded, encodedLongs, freqBuffer);
           } else {
             forUtil.skipBlock(docIn); // skip over freqs
           }
@@ -403,6 +467,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           // Lazy init: first time this enum has ever been used for skipping
           skipper = new Lucene50SkipReader(docIn.clone(),
                                            MAX_SKIP_LEVELS,
+                                           indexHasFreq && version >= VERSION_BLOCK_MAX_FREQ,
                                            indexHasPos,
                                            indexHasOffsets,
                                            indexHasPayloads);
@@ -471,6 +536,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
   final class BlockPostingsEnum extends PostingsEnum {
     
     private final byte[] encoded;
+    private final long[] encodedLongs;
 
     private final int[] docDeltaBuffer = new int[MAX_DATA_SIZE];
     private final int[] freqBuffer = new int[MAX_DATA_SIZE];
@@ -535,6 +601,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       this.docIn = null;
       this.posIn = Lucene50PostingsReader.this.posIn.clone();
       encoded = new byte[MAX_ENCODED_SIZE];
+      encodedLongs = new long[MAX_ENCODED_LONGS];
       indexHasOffsets = fieldInfo.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS) >= 0;
       indexHasPayloads = fieldInfo.hasPayloads();
     }
@@ -598,8 +665,8 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       assert left > 0;
 
       if (left >= BLOCK_SIZE) {
-        forUtil.readBlock(docIn, encoded, docDeltaBuffer);
-        forUtil.readBlock(docIn, encoded, freqBuffer);
+        forUtil.readBlock(docIn, encoded, encodedLongs, docDeltaBuffer);
+        forUtil.readBlock(docIn, encoded, encodedLongs, freqBuffer);
       } else if (docFreq == 1) {
         docDeltaBuffer[0] = singletonDocID;
         freqBuffer[0] = (int) totalTermFreq;
@@ -635,7 +702,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           }
         }
       } else {
-        forUtil.readBlock(posIn, encoded, posDeltaBuffer);
+        forUtil.readBlock(posIn, encoded, encodedLongs, posDeltaBuffer);
       }
     }
 
@@ -668,6 +735,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           // Lazy init: first time this enum has ever been used for skipping
           skipper = new Lucene50SkipReader(docIn.clone(),
                                            MAX_SKIP_LEVELS,
+                                           version >= VERSION_BLOCK_MAX_FREQ,
                                            true,
                                            indexHasOffsets,
                                            indexHasPayloads);
@@ -803,6 +871,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
   final class EverythingEnum extends PostingsEnum {
     
     private final byte[] encoded;
+    private final long[] encodedLongs;
 
     private final int[] docDeltaBuffer = new int[MAX_DATA_SIZE];
     private final int[] freqBuffer = new int[MAX_DATA_SIZE];
@@ -888,6 +957,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       this.posIn = Lucene50PostingsReader.this.posIn.clone();
       this.payIn = Lucene50PostingsReader.this.payIn.clone();
       encoded = new byte[MAX_ENCODED_SIZE];
+      encodedLongs = new long[MAX_ENCODED_LONGS];
       indexHasOffsets = fieldInfo.getIndexOptions().compareTo(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS) >= 0;
       if (indexHasOffsets) {
         offsetStartDeltaBuffer = new int[MAX_DATA_SIZE];
@@ -974,8 +1044,8 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       assert left > 0;
 
       if (left >= BLOCK_SIZE) {
-        forUtil.readBlock(docIn, encoded, docDeltaBuffer);
-        forUtil.readBlock(docIn, encoded, freqBuffer);
+        forUtil.readBlock(docIn, encoded, encodedLongs, docDeltaBuffer);
+        forUtil.readBlock(docIn, encoded, encodedLongs, freqBuffer);
       } else if (docFreq == 1) {
         docDeltaBuffer[0] = singletonDocID;
         freqBuffer[0] = (int) totalTermFreq;
@@ -1021,11 +1091,11 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
         }
         payloadByteUpto = 0;
       } else {
-        forUtil.readBlock(posIn, encoded, posDeltaBuffer);
+        forUtil.readBlock(posIn, encoded, encodedLongs, posDeltaBuffer);
 
         if (indexHasPayloads) {
           if (needsPayloads) {
-            forUtil.readBlock(payIn, encoded, payloadLengthBuffer);
+            forUtil.readBlock(payIn, encoded, encodedLongs, payloadLengthBuffer);
             int numBytes = payIn.readVInt();
 
             if (numBytes > payloadBytes.length) {
@@ -1043,8 +1113,8 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
 
         if (indexHasOffsets) {
           if (needsOffsets) {
-            forUtil.readBlock(payIn, encoded, offsetStartDeltaBuffer);
-            forUtil.readBlock(payIn, encoded, offsetLengthBuffer);
+            forUtil.readBlock(payIn, encoded, encodedLongs, offsetStartDeltaBuffer);
+            forUtil.readBlock(payIn, encoded, encodedLongs, offsetLengthBuffer);
           } else {
             // this works, because when writing a vint block we always force the first length to be written
             forUtil.skipBlock(payIn); // skip over starts
@@ -1084,6 +1154,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           // Lazy init: first time this enum has ever been used for skipping
           skipper = new Lucene50SkipReader(docIn.clone(),
                                         MAX_SKIP_LEVELS,
+                                        version >= VERSION_BLOCK_MAX_FREQ,
                                         true,
                                         indexHasOffsets,
                                         indexHasPayloads);
@@ -51,6 +51,9 @@ import static org.apache.lucene.codecs.lucene50.Lucene50PostingsFormat.BLOCK_SIZ
  *
  * Therefore, we'll trim df before passing it to the interface. see trim(int)
  *
+ * When the postings were written with {@link Lucene50PostingsFormat#VERSION_BLOCK_MAX_FREQ}
+ * or later and frequencies are indexed, every skip entry also records the maximum term
+ * frequency of the documents it covers, see {@link #getMaxFreq()}.
  */
 final class Lucene50SkipReader extends MultiLevelSkipListReader {
   private long docPointer[];
@@ -58,6 +61,7 @@ final class Lucene50SkipReader extends MultiLevelSkipListReader {
   private long payPointer[];
   private int posBufferUpto[];
   private int payloadByteUpto[];
+  private int maxFreq[];
 
   private long lastPosPointer;
   private long lastPayPointer;
@@ -65,9 +69,14 @@ final class Lucene50SkipReader extends MultiLevelSkipListReader {
   private long lastDocPointer;
   private int lastPosBufferUpto;
 
-  public Lucene50SkipReader(IndexInput skipStream, int maxSkipLevels, boolean hasPos, boolean hasOffsets, boolean hasPayloads) {
+  public Lucene50SkipReader(IndexInput skipStream, int maxSkipLevels, boolean hasMaxFreqs, boolean hasPos, boolean hasOffsets, boolean hasPayloads) {
     super(skipStream, maxSkipLevels, BLOCK_SIZE, 8);
     docPointer = new long[maxSkipLevels];
+    if (hasMaxFreqs) {
+      maxFreq = new int[maxSkipLevels];
+    } else {
+      maxFreq = null;
+    }
     if (hasPos) {
       posPointer = new long[maxSkipLevels];
       posBufferUpto = new int[maxSkipLevels];
@@ -142,6 +151,17 @@ final class Lucene50SkipReader extends MultiLevelSkipListReader {
     return skipDoc[0];
   }
 
+  /** Returns the maximum term frequency of the documents between the last skip
+   *  entry and {@link #getNextSkipDoc()} (inclusive), or {@code -1} if unknown:
+   *  either because max freqs were not recorded, or because the skip list is
+   *  exhausted. */
+  public int getMaxFreq() {
+    if (maxFreq == null || skipDoc[0] == Integer.MAX_VALUE) {
+      return -1;
+    }
+    return maxFreq[0];
+  }
+
   @Override
   protected void seekChild(int level) throws IOException {
     super.seekChild(level);
@@ -192,6 +212,10 @@ final class Lucene50SkipReader extends MultiLevelSkipListReader {
         payPointer[level] += skipStream.readVLong();
       }
     }
+
+    if (maxFreq != null) {
+      maxFreq[level] = skipStream.readVInt();
+    }
     return delta;
   }
 }
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+
+/**
+ * A {@link PostingsEnum} that exposes per-block upper bounds of the term
+ * frequency, which scorers may use in order to skip over blocks of documents
+ * that cannot produce competitive scores.
+ * <p>
+ * Shallow advancing is independent from the regular iteration: calling
+ * {@link #advanceShallow(int)} never changes the {@link #docID() current doc}.
+ * However, targets passed to {@link #advanceShallow(int)} must be
+ * non-decreasing.
+ * @lucene.experimental
+ */
+public abstract class BlockMaxPostingsEnum extends PostingsEnum {
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected BlockMaxPostingsEnum() {
+  }
+
+  /**
+   * Move the block-level metadata of this enum to the block that contains
+   * {@code target}, without decoding any documents, and return the last doc
+   * ID (inclusive) of that block, or {@link #NO_MORE_DOCS} if the block
+   * spans until the end of the postings list.
+   */
+  public abstract int advanceShallow(int target) throws IOException;
+
+  /**
+   * Return an upper bound of the term frequency of the documents of the
+   * block that the last call to {@link #advanceShallow(int)} moved to, or of
+   * all documents of the postings list if {@link #advanceShallow(int)} has
+   * not been called yet.
+   */
+  public abstract int getMaxFreq();
+
+}
@@ -24,6 +24,10 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,6 +40,7 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InfoStream;
 import org.apache.lucene.util.PriorityQueue;
@@ -72,8 +77,20 @@ class BufferedUpdatesStream implements Accountable {
   private final AtomicLong bytesUsed = new AtomicLong();
   private final AtomicInteger numTerms = new AtomicInteger();
 
+  // if not null, term deletes are resolved concurrently per segment with this executor
+  private final ExecutorService executor;
+
+  // set on executor threads while they resolve term deletes on behalf of
+  // the thread that holds the IndexWriter lock; used only by assert
+  private static final ThreadLocal<Boolean> resolvingForWriter = new ThreadLocal<>();
+
   public BufferedUpdatesStream(InfoStream infoStream) {
+    this(infoStream, null);
+  }
+
+  public BufferedUpdatesStream(InfoStream infoStream, ExecutorService executor) {
     this.infoStream = infoStream;
+    this.executor = executor;
   }
 
   // Appends a new packet of buffered deletes to the stream,
@@ -284,7 +301,11 @@ class BufferedUpdatesStream implements Accountable {
         if (segStates == null) {
           segStates = openSegmentStates(pool, infos);
         }
-        totTermVisitedCount += applyTermDeletes(coalescedUpdates, segStates);
+        if (executor != null && segStates.length > 1) {
+          totTermVisitedCount += applyTermDeletesConcurrently(coalescedUpdates, segStates);
+        } else {
+          totTermVisitedCount += applyTermDeletes(coalescedUpdates, segStates);
+        }
       }
 
       assert checkDeleteStats();
@@ -605,6 +626,142 @@ class BufferedUpdatesStream implements Accountable {
     return delTermVisitedCount;
   }
 
+  /** Resolves the term deletes of each segment in its own task on the executor, and waits for all of them;
+   *  the calling thread holds the IndexWriter lock on behalf of the tasks. */
+  private long applyTermDeletesConcurrently(CoalescedUpdates updates, SegmentState[] segStates) throws IOException {
+
+    long startNS = System.nanoTime();
+
+    List<FutureTask<Long>> tasks = new ArrayList<>(segStates.length);
+    for (SegmentState state : segStates) {
+      FutureTask<Long> task = new FutureTask<>(() -> {
+        resolvingForWriter.set(Boolean.TRUE);
+        try {
+          return applyTermDeletes(updates, state);
+        } finally {
+          resolvingForWriter.remove();
+        }
+      });
+      tasks.add(task);
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException ree) {
+        // e.g. the executor was shut down: resolve this segment ourselves
+        task.run();
+      }
+    }
+
+    // Wait for all tasks even if one fails or we are interrupted: once we return,
+    // the segments are no longer protected by the IndexWriter lock:
+    long delTermVisitedCount = 0;
+    Throwable firstExc = null;
+    boolean interrupted = false;
+    for (FutureTask<Long> task : tasks) {
+      while (true) {
+        try {
+          delTermVisitedCount = Math.max(delTermVisitedCount, task.get());
+          break;
+        } catch (InterruptedException ie) {
+          interrupted = true;
+        } catch (ExecutionException ee) {
+          if (firstExc == null) {
+            firstExc = ee.getCause();
+          }
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (firstExc != null) {
+      throw IOUtils.rethrowAlways(firstExc);
+    }
+
+    if (infoStream.isEnabled("BD")) {
+      infoStream.message("BD",
+                         String.format(Locale.ROOT, "applyTermDeletes took %.1f msec for %d segments and %d packets; %d del terms visited; concurrent",
+                                       (System.nanoTime()-startNS)/1000000.,
+                                       segStates.length,
+                                       updates.terms.size(),
+                                       delTermVisitedCount));
+    }
+
+    return delTermVisitedCount;
+  }
+
+  /** Resolves the deleted terms to docIDs for deletion in a single segment; returns the number of visited deleted terms. */
+  private static long applyTermDeletes(CoalescedUpdates updates, SegmentState state) throws IOException {
+
+    long delTermVisitedCount = 0;
+
+    FieldTermIterator iter = updates.termIterator();
+
+    String field = null;
+    TermsEnum termsEnum = null;
+    BytesRefBuilder lastTerm = new BytesRefBuilder();
+
+    BytesRef term;
+
+    while ((term = iter.next()) != null) {
+
+      if (iter.field() != field) {
+        // field changed
+        field = iter.field();
+        Terms terms = state.reader.fields().terms(field);
+        termsEnum = terms == null ? null : terms.iterator();
+        lastTerm.clear();
+      } else if (lastTerm.get().equals(term)) {
+        // the same term of an older packet: the first one had the newest delGen
+        continue;
+      }
+      lastTerm.copyBytes(term);
+
+      delTermVisitedCount++;
+
+      if (termsEnum == null) {
+        continue;
+      }
+
+      long delGen = iter.delGen();
+
+      assert state.delGen != delGen;
+
+      if (state.delGen < delGen && termsEnum.seekExact(term)) {
+
+        // we don't need term frequencies for this
+        final Bits acceptDocs = state.rld.getLiveDocs();
+        state.postingsEnum = termsEnum.postings(state.postingsEnum, PostingsEnum.NONE);
+
+        assert state.postingsEnum != null;
+
+        while (true) {
+          final int docID = state.postingsEnum.nextDoc();
+          if (docID == DocIdSetIterator.NO_MORE_DOCS) {
+            break;
+          }
+          if (acceptDocs != null && acceptDocs.get(docID) == false) {
+            continue;
+          }
+          if (!state.any) {
+            state.rld.initWritableLiveDocs();
+            state.any = true;
+          }
+
+          // NOTE: no limit check on the docID, see applyTermDeletes(CoalescedUpdates, SegmentState[])
+          state.rld.delete(docID);
+        }
+      }
+    }
+
+    return delTermVisitedCount;
+  }
+
+  /** Returns true if the calling thread resolves term deletes on behalf of a thread that holds the IndexWriter lock. */
+  static boolean isResolvingForWriter() {
+    return resolvingForWriter.get() != null;
+  }
+
   private synchronized void applyDocValuesUpdatesList(List<List<DocValuesUpdate>> updates, 
       SegmentState segState, DocValuesFieldUpdates.Container dvUpdatesContainer) throws IOException {
     // we walk backwards through the segments, appending deletion packets to the coalesced updates, so we must apply the packets in reverse
@@ -102,7 +102,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
   protected int mergeThreadCount;
 
   /** Floor for IO write rate limit (we will never go any lower than this) */
-  private static final double MIN_MERGE_MB_PER_SEC = 5.0;
+  static final double MIN_MERGE_MB_PER_SEC = 5.0;
 
   /** Ceiling for IO write rate limit (we will never go any higher than this) */
   private static final double MAX_MERGE_MB_PER_SEC = 10240.0;
@@ -330,12 +330,18 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
       }
     }
 
+    final int maxBigMergeThreadCount = getMaxBigMergeThreadCount();
+    final double bigMergeMBPerSec = getBigMergeMBPerSec();
+
     long now = System.nanoTime();
 
     StringBuilder message;
     if (verbose()) {
       message = new StringBuilder();
       message.append(String.format(Locale.ROOT, "updateMergeThreads ioThrottle=%s targetMBPerSec=%.1f MB/sec", doAutoIOThrottle, targetMBPerSec));
+      if (maxBigMergeThreadCount != maxThreadCount || bigMergeMBPerSec != targetMBPerSec) {
+        message.append(String.format(Locale.ROOT, " (big merges: maxThreadCount=%d rate=%s)", maxBigMergeThreadCount, rateToString(bigMergeMBPerSec)));
+      }
     } else {
       message = null;
     }
@@ -346,7 +352,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
       OneMerge merge = mergeThread.merge;
 
       // pause the thread if maxThreadCount is smaller than the number of merge threads.
-      final boolean doPause = threadIdx < bigMergeCount - maxThreadCount;
+      final boolean doPause = threadIdx < bigMergeCount - maxBigMergeThreadCount;
 
       double newMBPerSec;
       if (doPause) {
@@ -359,7 +365,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
         // Don't rate limit small merges:
         newMBPerSec = Double.POSITIVE_INFINITY;
       } else {
-        newMBPerSec = targetMBPerSec;
+        newMBPerSec = bigMergeMBPerSec;
       }
 
       MergeRateLimiter rateLimiter = mergeThread.rateLimiter;
@@ -407,6 +413,25 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     }
   }
 
+  /**
+   * Returns how many big merges (merges of more than 50 MB) {@link #updateMergeThreads}
+   * lets run at once; the largest ones beyond that are paused.  The default returns
+   * {@link #getMaxThreadCount}.  Subclasses may return less, down to 0 which pauses
+   * all big merges while smaller merges keep running.
+   */
+  protected synchronized int getMaxBigMergeThreadCount() {
+    return maxThreadCount;
+  }
+
+  /**
+   * Returns the IO rate limit {@link #updateMergeThreads} applies to big merges that
+   * are not forced merges, while auto IO throttling is enabled.  The default returns
+   * {@link #targetMBPerSec}.  Subclasses may return a lower rate.
+   */
+  protected synchronized double getBigMergeMBPerSec() {
+    return targetMBPerSec;
+  }
+
   private synchronized void initDynamicDefaults(IndexWriter writer) throws IOException {
     if (maxThreadCount == AUTO_DETECT_MERGES_AND_THREADS) {
       boolean spins = IOUtils.spins(writer.getDirectory());
@@ -17,8 +17,11 @@
 package org.apache.lucene.index;
 
 import org.apache.lucene.util.ThreadInterruptedException;
-import java.util.ArrayList;
+
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -35,6 +38,12 @@ import java.util.concurrent.locks.ReentrantLock;
  * is reusing the flushing {@link DocumentsWriterPerThread}s ThreadState with a
  * new {@link DocumentsWriterPerThread} instance.
  * </p>
+ * <p>
+ * Checking out and returning a {@link ThreadState} does not take a lock on the
+ * pool: free states are kept on a concurrent stack, and the list of all states
+ * is copy-on-write since it only grows when all states are in use. Only creating
+ * a new state and aborting synchronize on the pool.
+ * </p>
  */
 final class DocumentsWriterPerThreadPool {
   
@@ -106,16 +115,17 @@ final class DocumentsWriterPerThreadPool {
     }
   }
 
-  private final List<ThreadState> threadStates = new ArrayList<>();
+  private final List<ThreadState> threadStates = new CopyOnWriteArrayList<>();
 
-  private final List<ThreadState> freeList = new ArrayList<>();
+  // free thread states, most recently released first
+  private final ConcurrentLinkedDeque<ThreadState> freeList = new ConcurrentLinkedDeque<>();
 
   private boolean aborted;
 
   /**
    * Returns the active number of {@link ThreadState} instances.
    */
-  synchronized int getActiveThreadStateCount() {
+  int getActiveThreadStateCount() {
     return threadStates.size();
   }
 
@@ -165,35 +175,33 @@ final class DocumentsWriterPerThreadPool {
 
   /** This method is used by DocumentsWriter/FlushControl to obtain a ThreadState to do an indexing operation (add/updateDocument). */
   ThreadState getAndLock(Thread requestingThread, DocumentsWriter documentsWriter) {
-    ThreadState threadState = null;
-    synchronized (this) {
-      if (freeList.isEmpty()) {
-        // ThreadState is already locked before return by this method:
-        return newThreadState();
-      } else {
-        // Important that we are LIFO here! This way if number of concurrent indexing threads was once high, but has now reduced, we only use a
-        // limited number of thread states:
-        threadState = freeList.remove(freeList.size()-1);
-
-        if (threadState.dwpt == null) {
-          // This thread-state is not initialized, e.g. it
-          // was just flushed. See if we can instead find
-          // another free thread state that already has docs
-          // indexed. This way if incoming thread concurrency
-          // has decreased, we don't leave docs
-          // indefinitely buffered, tying up RAM.  This
-          // will instead get those thread states flushed,
-          // freeing up RAM for larger segment flushes:
-          for(int i=0;i<freeList.size();i++) {
-            ThreadState ts = freeList.get(i);
-            if (ts.dwpt != null) {
-              // Use this one instead, and swap it with
-              // the un-initialized one:
-              freeList.set(i, threadState);
-              threadState = ts;
-              break;
-            }
-          }
+    // Important that we are LIFO here! This way if number of concurrent indexing threads was once high, but has now reduced, we only use a
+    // limited number of thread states:
+    ThreadState threadState = freeList.pollFirst();
+    if (threadState == null) {
+      // ThreadState is already locked before return by this method:
+      return newThreadState();
+    }
+
+    if (threadState.dwpt == null) {
+      // This thread-state is not initialized, e.g. it
+      // was just flushed. See if we can instead find
+      // another free thread state that already has docs
+      // indexed. This way if incoming thread concurrency
+      // has decreased, we don't leave docs
+      // indefinitely buffered, tying up RAM.  This
+      // will instead get those thread states flushed,
+      // freeing up RAM for larger segment flushes.
+      // The dwpt is read without holding the state's lock,
+      // which is fine since this is only a hint:
+      for (Iterator<ThreadState> it = freeList.iterator(); it.hasNext(); ) {
+        ThreadState ts = it.next();
+        if (ts.dwpt != null && freeList.removeFirstOccurrence(ts)) {
+          // Use this one instead, and put the un-initialized
+          // one at the least recently used end:
+          freeList.addLast(threadState);
+          threadState = ts;
+          break;
         }
       }
     }
@@ -206,12 +214,7 @@ final class DocumentsWriterPerThreadPool {
 
   void release(ThreadState state) {
     state.unlock();
-    synchronized (this) {
-      freeList.add(state);
-      // In case any thread is waiting, wake one of them up since we just released a thread state; notify() should be sufficient but we do
-      // notifyAll defensively:
-      notifyAll();
-    }
+    freeList.addFirst(state);
   }
   
   /**
@@ -223,12 +226,12 @@ final class DocumentsWriterPerThreadPool {
    * @return the <i>i</i>th active {@link ThreadState} where <i>i</i> is the
    *         given ord.
    */
-  synchronized ThreadState getThreadState(int ord) {
+  ThreadState getThreadState(int ord) {
     return threadStates.get(ord);
   }
 
   // TODO: merge this with getActiveThreadStateCount: they are the same!
-  synchronized int getMaxThreadStates() {
+  int getMaxThreadStates() {
     return threadStates.size();
   }
 }
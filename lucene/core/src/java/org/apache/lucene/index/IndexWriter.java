@@ -809,7 +809,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       mergeScheduler.setInfoStream(infoStream);
       codec = config.getCodec();
 
-      bufferedUpdatesStream = new BufferedUpdatesStream(infoStream);
+      bufferedUpdatesStream = new BufferedUpdatesStream(infoStream, config.getApplyDeletesExecutor());
       poolReaders = config.getReaderPooling();
 
       OpenMode mode = config.getOpenMode();
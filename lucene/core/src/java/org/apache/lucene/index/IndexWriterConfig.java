@@ -20,6 +20,7 @@ package org.apache.lucene.index;
 import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -480,6 +481,23 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return this;
   }
 
+  /**
+   * Sets the {@link ExecutorService} used to apply buffered delete terms to
+   * several segments concurrently, when deletes are resolved on refresh,
+   * commit or merge.  Deletes by query and doc values updates are still
+   * applied one segment at a time.  The executor is not shut down by
+   * {@link IndexWriter}.  Default is <code>null</code>, to apply all
+   * deletes in the calling thread.
+   *
+   * <p>Only takes effect when IndexWriter is first created.
+   *
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setApplyDeletesExecutor(ExecutorService applyDeletesExecutor) {
+    this.applyDeletesExecutor = applyDeletesExecutor;
+    return this;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder(super.toString());
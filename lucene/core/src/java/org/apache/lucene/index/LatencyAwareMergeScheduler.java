@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * A {@link ConcurrentMergeScheduler} that holds back big merges while searches are slow.
+ *
+ * <p>While merges are running, this scheduler periodically reads the recent search
+ * latency from a {@link LatencySignal} that the application feeds, and compares it
+ * to a target latency:
+ * <ul>
+ *   <li>At or below {@link #setTargetLatencyMillis target latency}, merges run exactly
+ *       as with {@link ConcurrentMergeScheduler}.
+ *   <li>Above the target, the IO rate limit of big merges is divided by the ratio of
+ *       the latency to the target, and so is the number of big merges that run at once.
+ *   <li>At or above {@link #setPeakLatencyMillis peak latency}, all big merges are
+ *       paused until the latency goes down again.
+ * </ul>
+ *
+ * <p>Big merges are merges of more than 50 MB, see
+ * {@link ConcurrentMergeScheduler#getMaxBigMergeThreadCount}.  Smaller merges are never
+ * throttled nor paused, so the number of segments stays bounded while big merges are
+ * held back.  As with {@link ConcurrentMergeScheduler}, indexing threads are stalled
+ * once more than {@link #getMaxMergeCount} merges are pending.
+ *
+ * <p>Without a latency signal, or once the writer is closing, this scheduler behaves
+ * like {@link ConcurrentMergeScheduler}.
+ *
+ * @lucene.experimental
+ */
+public class LatencyAwareMergeScheduler extends ConcurrentMergeScheduler {
+
+  /** Source of the search latency that merges are throttled on. */
+  @FunctionalInterface
+  public interface LatencySignal {
+    /**
+     * Returns the recent search latency in milliseconds, or 0 if there were no searches.
+     * This is called from a background thread, once per
+     * {@link LatencyAwareMergeScheduler#setUpdateIntervalMillis update interval} while
+     * merges are running.
+     */
+    double getLatencyMillis();
+  }
+
+  /** Default {@link #setTargetLatencyMillis target latency}. */
+  public static final double DEFAULT_TARGET_LATENCY_MILLIS = 100;
+
+  /** Default {@link #setPeakLatencyMillis peak latency}. */
+  public static final double DEFAULT_PEAK_LATENCY_MILLIS = 500;
+
+  /** Default {@link #setUpdateIntervalMillis update interval}. */
+  public static final long DEFAULT_UPDATE_INTERVAL_MILLIS = 1000;
+
+  private volatile LatencySignal latencySignal;
+  private double targetLatencyMillis = DEFAULT_TARGET_LATENCY_MILLIS;
+  private double peakLatencyMillis = DEFAULT_PEAK_LATENCY_MILLIS;
+  private volatile long updateIntervalMillis = DEFAULT_UPDATE_INTERVAL_MILLIS;
+
+  /** Last latency read from the signal */
+  private double latencyMillis;
+
+  /** true once the writer waits for its merges to finish */
+  private boolean closing;
+
+  private Thread monitorThread;
+
+  /** Sole constructor, with all settings set to default values. */
+  public LatencyAwareMergeScheduler() {
+  }
+
+  /** Sets the source of the search latency; {@code null} turns off latency based throttling. */
+  public synchronized void setLatencySignal(LatencySignal latencySignal) {
+    this.latencySignal = latencySignal;
+    if (latencySignal == null) {
+      latencyMillis = 0;
+      updateMergeThreads();
+    } else {
+      maybeStartMonitor();
+    }
+  }
+
+  /** Returns the source of the search latency, or {@code null} if none was set. */
+  public LatencySignal getLatencySignal() {
+    return latencySignal;
+  }
+
+  /** Sets the search latency above which big merges are throttled
+   *  (default: {@value #DEFAULT_TARGET_LATENCY_MILLIS}). */
+  public synchronized void setTargetLatencyMillis(double targetLatencyMillis) {
+    if (targetLatencyMillis <= 0) {
+      throw new IllegalArgumentException("targetLatencyMillis must be > 0; got: " + targetLatencyMillis);
+    }
+    this.targetLatencyMillis = targetLatencyMillis;
+    updateMergeThreads();
+  }
+
+  /** Returns the search latency above which big merges are throttled. */
+  public synchronized double getTargetLatencyMillis() {
+    return targetLatencyMillis;
+  }
+
+  /** Sets the search latency from which on all big merges are paused
+   *  (default: {@value #DEFAULT_PEAK_LATENCY_MILLIS}). */
+  public synchronized void setPeakLatencyMillis(double peakLatencyMillis) {
+    if (peakLatencyMillis <= 0) {
+      throw new IllegalArgumentException("peakLatencyMillis must be > 0; got: " + peakLatencyMillis);
+    }
+    this.peakLatencyMillis = peakLatencyMillis;
+    updateMergeThreads();
+  }
+
+  /** Returns the search latency from which on all big merges are paused. */
+  public synchronized double getPeakLatencyMillis() {
+    return peakLatencyMillis;
+  }
+
+  /** Sets how often the latency signal is read while merges are running
+   *  (default: {@value #DEFAULT_UPDATE_INTERVAL_MILLIS}). */
+  public void setUpdateIntervalMillis(long updateIntervalMillis) {
+    if (updateIntervalMillis <= 0) {
+      throw new IllegalArgumentException("updateIntervalMillis must be > 0; got: " + updateIntervalMillis);
+    }
+    this.updateIntervalMillis = updateIntervalMillis;
+  }
+
+  /** Returns how often the latency signal is read while merges are running. */
+  public long getUpdateIntervalMillis() {
+    return updateIntervalMillis;
+  }
+
+  /** Returns the search latency that was last read from the signal. */
+  public synchronized double getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  @Override
+  public synchronized void merge(IndexWriter writer, MergeTrigger trigger, boolean newMergesFound) throws IOException {
+    if (trigger == MergeTrigger.CLOSING) {
+      // Never hold back the merges the writer waits for on close:
+      closing = true;
+    }
+    super.merge(writer, trigger, newMergesFound);
+    maybeStartMonitor();
+  }
+
+  @Override
+  public void close() {
+    Thread monitor;
+    synchronized (this) {
+      closing = true;
+      // Resume paused merges, else we would wait for them forever:
+      updateMergeThreads();
+      monitor = monitorThread;
+    }
+    if (monitor != null) {
+      monitor.interrupt();
+    }
+    super.close();
+  }
+
+  @Override
+  protected synchronized int getMaxBigMergeThreadCount() {
+    int count = super.getMaxBigMergeThreadCount();
+    double load = getLoad();
+    if (load <= 1.0 || count <= 0) {
+      return count;
+    } else if (latencyMillis >= peakLatencyMillis) {
+      return 0;
+    } else {
+      return Math.max(1, (int) (count / load));
+    }
+  }
+
+  @Override
+  protected synchronized double getBigMergeMBPerSec() {
+    double mbPerSec = super.getBigMergeMBPerSec();
+    double load = getLoad();
+    if (load <= 1.0) {
+      return mbPerSec;
+    }
+    return Math.min(mbPerSec, Math.max(MIN_MERGE_MB_PER_SEC, mbPerSec / load));
+  }
+
+  /** Ratio of the last read latency to the target latency, 0 if merges are not throttled. */
+  private double getLoad() {
+    if (closing || latencySignal == null) {
+      return 0;
+    }
+    return latencyMillis / targetLatencyMillis;
+  }
+
+  /** Reads the latency signal and throttles the running merges accordingly. */
+  void updateLatency() {
+    LatencySignal signal = latencySignal;
+    // read outside of the lock, the signal may take a while:
+    double latency = signal == null ? 0 : signal.getLatencyMillis();
+    synchronized (this) {
+      if (signal != latencySignal) {
+        return;
+      }
+      int oldMaxBigMergeThreadCount = getMaxBigMergeThreadCount();
+      double oldBigMergeMBPerSec = getBigMergeMBPerSec();
+      latencyMillis = latency;
+      int newMaxBigMergeThreadCount = getMaxBigMergeThreadCount();
+      double newBigMergeMBPerSec = getBigMergeMBPerSec();
+      if (oldMaxBigMergeThreadCount != newMaxBigMergeThreadCount || oldBigMergeMBPerSec != newBigMergeMBPerSec) {
+        if (verbose()) {
+          message(String.format(Locale.ROOT, "search latency %.1f msec: run %d big merges at %.1f MB/sec",
+                                latency, newMaxBigMergeThreadCount, newBigMergeMBPerSec));
+        }
+        updateMergeThreads();
+      }
+    }
+  }
+
+  /** Starts the thread that reads the latency signal, unless it is running already or there is nothing to throttle. */
+  private synchronized void maybeStartMonitor() {
+    if (monitorThread != null || closing || latencySignal == null || mergeThreads.isEmpty()) {
+      return;
+    }
+    monitorThread = new Thread(this::runMonitor, "Lucene Merge Throttle Thread");
+    monitorThread.setDaemon(true);
+    monitorThread.start();
+  }
+
+  private void runMonitor() {
+    try {
+      while (true) {
+        synchronized (this) {
+          if (closing || latencySignal == null || mergeThreads.isEmpty()) {
+            // merge() starts a new one once there are merges again
+            monitorThread = null;
+            return;
+          }
+        }
+        updateLatency();
+        Thread.sleep(updateIntervalMillis);
+      }
+    } catch (InterruptedException ie) {
+      // closed
+      synchronized (this) {
+        if (monitorThread == Thread.currentThread()) {
+          monitorThread = null;
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(super.toString());
+    sb.append(", targetLatencyMillis=").append(getTargetLatencyMillis()).append(", ");
+    sb.append("peakLatencyMillis=").append(getPeakLatencyMillis());
+    return sb.toString();
+  }
+}
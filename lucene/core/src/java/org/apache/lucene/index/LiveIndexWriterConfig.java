@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.codecs.Codec;
@@ -104,6 +105,9 @@ public class LiveIndexWriterConfig {
   /** The field names involved in the index sort */
   protected Set<String> indexSortFields = Collections.emptySet();
 
+  /** Executor to resolve buffered delete terms against several segments at once, or null. */
+  protected ExecutorService applyDeletesExecutor = null;
+
   // used by IndexWriterConfig
   LiveIndexWriterConfig(Analyzer analyzer) {
     this.analyzer = analyzer;
@@ -470,6 +474,15 @@ public class LiveIndexWriterConfig {
     return indexSortFields;
   }
 
+  /**
+   * Returns the {@link ExecutorService} used to apply buffered delete terms
+   * to several segments concurrently, or <code>null</code> if they are
+   * applied one segment at a time.
+   */
+  public ExecutorService getApplyDeletesExecutor() {
+    return applyDeletesExecutor;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -493,6 +506,7 @@ public class LiveIndexWriterConfig {
     sb.append("useCompoundFile=").append(getUseCompoundFile()).append("\n");
     sb.append("commitOnClose=").append(getCommitOnClose()).append("\n");
     sb.append("indexSort=").append(getIndexSort()).append("\n");
+    sb.append("applyDeletesExecutor=").append(getApplyDeletesExecutor()).append("\n");
     return sb.toString();
   }
 }
@@ -160,7 +160,7 @@ class ReadersAndUpdates {
 
   public synchronized boolean delete(int docID) {
     assert liveDocs != null;
-    assert Thread.holdsLock(writer);
+    assert Thread.holdsLock(writer) || BufferedUpdatesStream.isResolvingForWriter();
     assert docID >= 0 && docID < liveDocs.length() : "out of bounds: docid=" + docID + " liveDocsLength=" + liveDocs.length() + " seg=" + info.info.name + " maxDoc=" + info.info.maxDoc();
     assert !liveDocsShared;
     final boolean didDelete = liveDocs.get(docID);
@@ -210,7 +210,7 @@ class ReadersAndUpdates {
   }
 
   public synchronized void initWritableLiveDocs() throws IOException {
-    assert Thread.holdsLock(writer);
+    assert Thread.holdsLock(writer) || BufferedUpdatesStream.isResolvingForWriter();
     assert info.info.maxDoc() > 0;
     //System.out.println("initWritableLivedocs seg=" + info + " liveDocs=" + liveDocs + " shared=" + shared);
     if (liveDocsShared) {
@@ -230,7 +230,7 @@ class ReadersAndUpdates {
   }
 
   public synchronized Bits getLiveDocs() {
-    assert Thread.holdsLock(writer);
+    assert Thread.holdsLock(writer) || BufferedUpdatesStream.isResolvingForWriter();
     return liveDocs;
   }
 
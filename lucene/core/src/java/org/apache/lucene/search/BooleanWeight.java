@@ -225,6 +225,7 @@ final class BooleanWeight extends Weight {
   // pkg-private for forcing use of BooleanScorer in tests
   BulkScorer optionalBulkScorer(LeafReaderContext context) throws IOException {
     List<BulkScorer> optional = new ArrayList<BulkScorer>();
+    List<Weight> optionalWeights = new ArrayList<>();
     Iterator<BooleanClause> cIter = query.iterator();
     for (Weight w  : weights) {
       BooleanClause c =  cIter.next();
@@ -235,6 +236,7 @@ final class BooleanWeight extends Weight {
 
       if (subScorer != null) {
         optional.add(subScorer);
+        optionalWeights.add(w);
       }
     }
 
@@ -255,7 +257,13 @@ final class BooleanWeight extends Weight {
       }
     }
 
-    return new BooleanScorer(this, disableCoord, maxCoord, optional, Math.max(1, query.getMinimumNumberShouldMatch()), needsScores);
+    BulkScorer booleanScorer = new BooleanScorer(this, disableCoord, maxCoord, optional, Math.max(1, query.getMinimumNumberShouldMatch()), needsScores);
+    if (needsScores && disableCoord && query.getMinimumNumberShouldMatch() <= 1) {
+      // scores are a plain sum of the scores of the clauses: collectors that
+      // set a minimum competitive score may skip non-competitive documents
+      return new TopScoresBulkScorer(this, booleanScorer, optionalWeights, context);
+    }
+    return booleanScorer;
   }
 
   // Return a BulkScorer for the required clauses only,
@@ -0,0 +1,690 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A {@link QueryCache} that is designed for highly concurrent search
+ * workloads. Unlike {@link LRUQueryCache}, lookups and insertions never take
+ * a global lock: cached {@link DocIdSet}s are stored in one concurrent map per
+ * segment core key, and queries are evicted using the CLOCK algorithm, an
+ * approximation of LRU that gives recently used queries a second chance
+ * instead of maintaining an exact access order. Evictions are performed by a
+ * single thread at a time, other threads never wait for them to complete, so
+ * the configured maximum size and number of bytes used may be exceeded
+ * briefly under contention.
+ *
+ * Like {@link LRUQueryCache}, this cache exposes global statistics and
+ * callbacks that can be overridden in order to compute more fine-grained
+ * statistics: {@link #onHit}, {@link #onMiss}, {@link #onQueryCache},
+ * {@link #onQueryEviction}, {@link #onDocIdSetCache},
+ * {@link #onDocIdSetEviction} and {@link #onClear}. Note that these callbacks
+ * may be called concurrently from several threads.
+ *
+ * @see LRUQueryCache
+ * @see QueryCachingPolicy
+ * @lucene.experimental
+ */
+public class ConcurrentQueryCache implements QueryCache, Accountable {
+
+  // memory usage of the entry of a query in the clock
+  static final long CACHED_QUERY_RAM_BYTES_USED =
+      LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY
+      + RamUsageEstimator.shallowSizeOfInstance(CachedQuery.class)
+      + RamUsageEstimator.shallowSizeOfInstance(AtomicBoolean.class);
+
+  private final int maxSize;
+  private final long maxRamBytesUsed;
+  private final Predicate<LeafReaderContext> leavesToCache;
+  // maps queries that are contained in the cache to a singleton that also
+  // holds the reference bit of the CLOCK algorithm. Per-leaf caches are only
+  // allowed to store queries that are contained in this map, so entries are
+  // first removed from this map and then from the per-leaf caches
+  private final ConcurrentMap<Query, CachedQuery> uniqueQueries;
+  private final ConcurrentMap<Object, LeafCache> cache;
+  // only one thread performs evictions at a time
+  private final ReentrantLock evictionLock;
+  // the hand of the clock, only accessed under the eviction lock
+  private Iterator<CachedQuery> clockHand;
+
+  private final AtomicLong ramBytesUsed;
+  private final AtomicLong cacheSize;
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  private final LongAdder cacheCount;
+
+  /**
+   * Expert: Create a new instance that will cache at most <code>maxSize</code>
+   * queries with at most <code>maxRamBytesUsed</code> bytes of memory, only on
+   * leaves that satisfy {@code leavesToCache};
+   */
+  public ConcurrentQueryCache(int maxSize, long maxRamBytesUsed,
+      Predicate<LeafReaderContext> leavesToCache) {
+    this.maxSize = maxSize;
+    this.maxRamBytesUsed = maxRamBytesUsed;
+    this.leavesToCache = leavesToCache;
+    uniqueQueries = new ConcurrentHashMap<>();
+    cache = new ConcurrentHashMap<>();
+    evictionLock = new ReentrantLock();
+    ramBytesUsed = new AtomicLong();
+    cacheSize = new AtomicLong();
+    hitCount = new LongAdder();
+    missCount = new LongAdder();
+    cacheCount = new LongAdder();
+  }
+
+  /**
+   * Create a new instance that will cache at most <code>maxSize</code> queries
+   * with at most <code>maxRamBytesUsed</code> bytes of memory. Queries will
+   * only be cached on leaves that have more than 10k documents and have more
+   * than 3% of the total number of documents in the index, like
+   * {@link LRUQueryCache#LRUQueryCache(int, long)}.
+   */
+  public ConcurrentQueryCache(int maxSize, long maxRamBytesUsed) {
+    this(maxSize, maxRamBytesUsed, new LRUQueryCache.MinSegmentSizePredicate(10000, .03f));
+  }
+
+  /**
+   * Expert: callback when there is a cache hit on a given query.
+   * Implementing this method is typically useful in order to compute more
+   * fine-grained statistics about the query cache.
+   * @see #onMiss
+   * @lucene.experimental
+   */
+  protected void onHit(Object readerCoreKey, Query query) {
+    hitCount.increment();
+  }
+
+  /**
+   * Expert: callback when there is a cache miss on a given query.
+   * @see #onHit
+   * @lucene.experimental
+   */
+  protected void onMiss(Object readerCoreKey, Query query) {
+    assert query != null;
+    missCount.increment();
+  }
+
+  /**
+   * Expert: callback when a query is added to this cache.
+   * Implementing this method is typically useful in order to compute more
+   * fine-grained statistics about the query cache.
+   * @see #onQueryEviction
+   * @lucene.experimental
+   */
+  protected void onQueryCache(Query query, long ramBytesUsed) {
+    this.ramBytesUsed.addAndGet(ramBytesUsed);
+  }
+
+  /**
+   * Expert: callback when a query is evicted from this cache.
+   * @see #onQueryCache
+   * @lucene.experimental
+   */
+  protected void onQueryEviction(Query query, long ramBytesUsed) {
+    this.ramBytesUsed.addAndGet(-ramBytesUsed);
+  }
+
+  /**
+   * Expert: callback when a {@link DocIdSet} is added to this cache.
+   * Implementing this method is typically useful in order to compute more
+   * fine-grained statistics about the query cache.
+   * @see #onDocIdSetEviction
+   * @lucene.experimental
+   */
+  protected void onDocIdSetCache(Object readerCoreKey, long ramBytesUsed) {
+    cacheSize.incrementAndGet();
+    cacheCount.increment();
+    this.ramBytesUsed.addAndGet(ramBytesUsed);
+  }
+
+  /**
+   * Expert: callback when one or more {@link DocIdSet}s are removed from this
+   * cache.
+   * @see #onDocIdSetCache
+   * @lucene.experimental
+   */
+  protected void onDocIdSetEviction(Object readerCoreKey, int numEntries, long sumRamBytesUsed) {
+    this.ramBytesUsed.addAndGet(-sumRamBytesUsed);
+    cacheSize.addAndGet(-numEntries);
+  }
+
+  /**
+   * Expert: callback when the cache has been completely cleared. Unlike
+   * {@link LRUQueryCache}, all removed entries have already been reported
+   * through {@link #onQueryEviction} and {@link #onDocIdSetEviction} when this
+   * method is called.
+   * @lucene.experimental
+   */
+  protected void onClear() {
+  }
+
+  /** Whether evictions are required. */
+  boolean requiresEviction() {
+    final int size = uniqueQueries.size();
+    if (size == 0) {
+      return false;
+    } else {
+      return size > maxSize || ramBytesUsed() > maxRamBytesUsed;
+    }
+  }
+
+  DocIdSet get(Query key, LeafReaderContext context) {
+    assert key instanceof BoostQuery == false;
+    assert key instanceof ConstantScoreQuery == false;
+    final Object readerKey = context.reader().getCoreCacheKey();
+    final LeafCache leafCache = cache.get(readerKey);
+    if (leafCache == null) {
+      onMiss(readerKey, key);
+      return null;
+    }
+    final CachedQuery cachedQuery = uniqueQueries.get(key);
+    if (cachedQuery == null) {
+      onMiss(readerKey, key);
+      return null;
+    }
+    // avoid a volatile write if the bit is already set
+    if (cachedQuery.referenced == false) {
+      cachedQuery.referenced = true;
+    }
+    final DocIdSet cached = leafCache.get(cachedQuery);
+    if (cached == null) {
+      onMiss(readerKey, cachedQuery.query);
+    } else {
+      onHit(readerKey, cachedQuery.query);
+    }
+    return cached;
+  }
+
+  void putIfAbsent(Query query, LeafReaderContext context, DocIdSet set) {
+    assert query instanceof BoostQuery == false;
+    assert query instanceof ConstantScoreQuery == false;
+    CachedQuery cachedQuery = uniqueQueries.get(query);
+    if (cachedQuery == null) {
+      final CachedQuery newCachedQuery = new CachedQuery(query);
+      cachedQuery = uniqueQueries.putIfAbsent(query, newCachedQuery);
+      if (cachedQuery == null) {
+        cachedQuery = newCachedQuery;
+        onQueryCache(query, CACHED_QUERY_RAM_BYTES_USED + ramBytesUsed(query));
+      }
+    }
+
+    final Object key = context.reader().getCoreCacheKey();
+    LeafCache leafCache = cache.get(key);
+    if (leafCache == null) {
+      final LeafCache newLeafCache = new LeafCache(key);
+      leafCache = cache.putIfAbsent(key, newLeafCache);
+      if (leafCache == null) {
+        leafCache = newLeafCache;
+        ramBytesUsed.addAndGet(LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY);
+        // we just created a new leaf cache, need to register a close listener
+        context.reader().addCoreClosedListener(this::clearCoreCacheKey);
+      }
+    }
+
+    leafCache.putIfAbsent(cachedQuery, set);
+    // the query or the leaf might have been removed concurrently, in which
+    // case the entry that we just added would never be evicted
+    if (cachedQuery.isEvicted() || cache.get(key) != leafCache) {
+      leafCache.remove(cachedQuery);
+    }
+
+    evictIfNecessary();
+  }
+
+  void evictIfNecessary() {
+    // if another thread is already evicting, let it do the job rather than waiting
+    if (requiresEviction() && evictionLock.tryLock()) {
+      try {
+        // referenced queries get a second chance, but only for one revolution
+        // of the clock so that eviction terminates even if all queries keep
+        // being used concurrently
+        int secondChances = uniqueQueries.size();
+        while (requiresEviction()) {
+          if (clockHand == null || clockHand.hasNext() == false) {
+            clockHand = uniqueQueries.values().iterator();
+            if (clockHand.hasNext() == false) {
+              break;
+            }
+          }
+          final CachedQuery cachedQuery = clockHand.next();
+          if (cachedQuery.referenced && secondChances-- > 0) {
+            cachedQuery.referenced = false;
+          } else {
+            evict(cachedQuery);
+          }
+        }
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void evict(CachedQuery cachedQuery) {
+    if (cachedQuery.markEvicted() == false) {
+      // already evicted by another thread
+      return;
+    }
+    if (uniqueQueries.remove(cachedQuery.query, cachedQuery) == false) {
+      // the hash of the query changed since it has been put into the cache
+      throw new ConcurrentModificationException("Removal from the cache failed! This " +
+          "is probably due to a query which has been modified after having been put into " +
+          " the cache or a badly implemented clone(). Query class: [" + cachedQuery.query.getClass() +
+          "], query: [" + cachedQuery.query + "]");
+    }
+    onQueryEviction(cachedQuery.query, CACHED_QUERY_RAM_BYTES_USED + ramBytesUsed(cachedQuery.query));
+    for (LeafCache leafCache : cache.values()) {
+      leafCache.remove(cachedQuery);
+    }
+  }
+
+  /**
+   * Remove all cache entries for the given core cache key.
+   */
+  public void clearCoreCacheKey(Object coreKey) {
+    final LeafCache leafCache = cache.remove(coreKey);
+    if (leafCache != null) {
+      ramBytesUsed.addAndGet(-LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY);
+      leafCache.clear();
+    }
+  }
+
+  /**
+   * Remove all cache entries for the given query.
+   */
+  public void clearQuery(Query query) {
+    final CachedQuery cachedQuery = uniqueQueries.get(query);
+    if (cachedQuery != null) {
+      evict(cachedQuery);
+    }
+  }
+
+  /**
+   * Clear the content of this cache.
+   */
+  public void clear() {
+    for (Object coreKey : cache.keySet()) {
+      clearCoreCacheKey(coreKey);
+    }
+    for (CachedQuery cachedQuery : uniqueQueries.values()) {
+      evict(cachedQuery);
+    }
+    onClear();
+  }
+
+  // pkg-private for testing
+  // only works when there are no concurrent modifications
+  void assertConsistent() {
+    if (requiresEviction()) {
+      throw new AssertionError("requires evictions: size=" + uniqueQueries.size()
+          + ", maxSize=" + maxSize + ", ramBytesUsed=" + ramBytesUsed() + ", maxRamBytesUsed=" + maxRamBytesUsed);
+    }
+    for (LeafCache leafCache : cache.values()) {
+      for (CachedQuery cachedQuery : leafCache.cache.keySet()) {
+        if (uniqueQueries.get(cachedQuery.query) != cachedQuery) {
+          throw new AssertionError("One leaf cache contains more keys than the top-level cache: " + cachedQuery.query);
+        }
+      }
+    }
+    long recomputedRamBytesUsed =
+          LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY * cache.size()
+        + CACHED_QUERY_RAM_BYTES_USED * uniqueQueries.size();
+    for (Query query : uniqueQueries.keySet()) {
+      recomputedRamBytesUsed += ramBytesUsed(query);
+    }
+    long recomputedCacheSize = 0;
+    for (LeafCache leafCache : cache.values()) {
+      recomputedRamBytesUsed += LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY * leafCache.cache.size();
+      for (DocIdSet set : leafCache.cache.values()) {
+        recomputedRamBytesUsed += set.ramBytesUsed();
+      }
+      recomputedCacheSize += leafCache.cache.size();
+    }
+    if (recomputedRamBytesUsed != ramBytesUsed()) {
+      throw new AssertionError("ramBytesUsed mismatch : " + ramBytesUsed() + " != " + recomputedRamBytesUsed);
+    }
+    if (recomputedCacheSize != getCacheSize()) {
+      throw new AssertionError("cacheSize mismatch : " + getCacheSize() + " != " + recomputedCacheSize);
+    }
+  }
+
+  @Override
+  public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+    while (weight instanceof CachingWrapperWeight) {
+      weight = ((CachingWrapperWeight) weight).in;
+    }
+
+    return new CachingWrapperWeight(weight, policy);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesUsed.get();
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Accountables.namedAccountables("segment", cache);
+  }
+
+  /**
+   * Return the number of bytes used by the given query. The default
+   * implementation returns {@link Accountable#ramBytesUsed()} if the query
+   * implements {@link Accountable} and <code>1024</code> otherwise.
+   */
+  protected long ramBytesUsed(Query query) {
+    if (query instanceof Accountable) {
+      return ((Accountable) query).ramBytesUsed();
+    }
+    return LRUQueryCache.QUERY_DEFAULT_RAM_BYTES_USED;
+  }
+
+  /**
+   * Default cache implementation: uses {@link org.apache.lucene.util.RoaringDocIdSet}
+   * for sets that have a density &lt; 1% and a {@link org.apache.lucene.util.BitDocIdSet}
+   * over a {@link org.apache.lucene.util.FixedBitSet} otherwise.
+   */
+  protected DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+    if (scorer.cost() * 100 >= maxDoc) {
+      return LRUQueryCache.cacheIntoBitSet(scorer, maxDoc);
+    } else {
+      return LRUQueryCache.cacheIntoRoaringDocIdSet(scorer, maxDoc);
+    }
+  }
+
+  /**
+   * Return the total number of times that a {@link Query} has been looked up
+   * in this {@link QueryCache}.
+   * @see LRUQueryCache#getTotalCount()
+   */
+  public final long getTotalCount() {
+    return getHitCount() + getMissCount();
+  }
+
+  /**
+   * Over the {@link #getTotalCount() total} number of times that a query has
+   * been looked up, return how many times a cached {@link DocIdSet} has been
+   * found and returned.
+   */
+  public final long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Over the {@link #getTotalCount() total} number of times that a query has
+   * been looked up, return how many times this query was not contained in the
+   * cache.
+   */
+  public final long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Return the total number of {@link DocIdSet}s which are currently stored
+   * in the cache.
+   */
+  public final long getCacheSize() {
+    return cacheSize.get();
+  }
+
+  /**
+   * Return the total number of cache entries that have been generated and put
+   * in the cache.
+   * @see LRUQueryCache#getCacheCount()
+   */
+  public final long getCacheCount() {
+    return cacheCount.sum();
+  }
+
+  /**
+   * Return the number of cache entries that have been removed from the cache
+   * either in order to stay under the maximum configured size/ram usage, or
+   * because a segment has been closed.
+   */
+  public final long getEvictionCount() {
+    return getCacheCount() - getCacheSize();
+  }
+
+  /** The singleton of a cached query together with its CLOCK reference bit.
+   *  Leaf caches are keyed by identity on purpose so that they never return
+   *  entries of an evicted query that has been cached again since then. */
+  private static final class CachedQuery {
+
+    final Query query;
+    // set on every access, cleared when the clock hand passes by
+    volatile boolean referenced;
+    private final AtomicBoolean evicted;
+
+    CachedQuery(Query query) {
+      this.query = query;
+      this.referenced = true;
+      this.evicted = new AtomicBoolean();
+    }
+
+    /** Mark this query as evicted, return false if it had already been evicted. */
+    boolean markEvicted() {
+      return evicted.compareAndSet(false, true);
+    }
+
+    boolean isEvicted() {
+      return evicted.get();
+    }
+
+  }
+
+  // thread-safe
+  private class LeafCache implements Accountable {
+
+    private final Object key;
+    private final ConcurrentMap<CachedQuery, DocIdSet> cache;
+    private final AtomicLong ramBytesUsed;
+
+    LeafCache(Object key) {
+      this.key = key;
+      cache = new ConcurrentHashMap<>();
+      ramBytesUsed = new AtomicLong();
+    }
+
+    DocIdSet get(CachedQuery query) {
+      return cache.get(query);
+    }
+
+    void putIfAbsent(CachedQuery query, DocIdSet set) {
+      if (cache.putIfAbsent(query, set) == null) {
+        // the set was actually put
+        final long ramBytesUsed = LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY + set.ramBytesUsed();
+        this.ramBytesUsed.addAndGet(ramBytesUsed);
+        onDocIdSetCache(key, ramBytesUsed);
+      }
+    }
+
+    void remove(CachedQuery query) {
+      final DocIdSet removed = cache.remove(query);
+      if (removed != null) {
+        final long ramBytesUsed = LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY + removed.ramBytesUsed();
+        this.ramBytesUsed.addAndGet(-ramBytesUsed);
+        onDocIdSetEviction(key, 1, ramBytesUsed);
+      }
+    }
+
+    void clear() {
+      int numEntries = 0;
+      long sumRamBytesUsed = 0;
+      for (CachedQuery query : cache.keySet()) {
+        final DocIdSet removed = cache.remove(query);
+        if (removed != null) {
+          numEntries++;
+          sumRamBytesUsed += LRUQueryCache.HASHTABLE_RAM_BYTES_PER_ENTRY + removed.ramBytesUsed();
+        }
+      }
+      if (numEntries > 0) {
+        this.ramBytesUsed.addAndGet(-sumRamBytesUsed);
+        onDocIdSetEviction(key, numEntries, sumRamBytesUsed);
+      }
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return ramBytesUsed.get();
+    }
+
+  }
+
+  private class CachingWrapperWeight extends ConstantScoreWeight {
+
+    private final Weight in;
+    private final QueryCachingPolicy policy;
+    // we use an AtomicBoolean because Weight.scorer may be called from multiple
+    // threads when IndexSearcher is created with threads
+    private final AtomicBoolean used;
+
+    CachingWrapperWeight(Weight in, QueryCachingPolicy policy) {
+      super(in.getQuery());
+      this.in = in;
+      this.policy = policy;
+      used = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void extractTerms(Set<Term> terms) {
+      in.extractTerms(terms);
+    }
+
+    private boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
+      // The worst-case (dense) is a bit set which needs one bit per document
+      final long worstCaseRamUsage = maxDoc / 8;
+      // only cache on an IndexReader if we have available room for
+      // 5 different filters on this reader to avoid excessive trashing,
+      // see LRUQueryCache
+      return worstCaseRamUsage * 5 < maxRamBytesUsed;
+    }
+
+    private DocIdSet cache(LeafReaderContext context) throws IOException {
+      final BulkScorer scorer = in.bulkScorer(context);
+      if (scorer == null) {
+        return DocIdSet.EMPTY;
+      } else {
+        return cacheImpl(scorer, context.reader().maxDoc());
+      }
+    }
+
+    /** Check whether this segment is eligible for caching, regardless of the query. */
+    private boolean shouldCache(LeafReaderContext context) throws IOException {
+      return cacheEntryHasReasonableWorstCaseSize(ReaderUtil.getTopLevelContext(context).reader().maxDoc())
+          && leavesToCache.test(context);
+    }
+
+    /** Return the cached {@link DocIdSet}, computing it if the policy says so,
+     *  or null if the query should not be cached. */
+    private DocIdSet getOrCache(LeafReaderContext context) throws IOException {
+      DocIdSet docIdSet = get(in.getQuery(), context);
+      if (docIdSet == null && policy.shouldCache(in.getQuery())) {
+        docIdSet = cache(context);
+        putIfAbsent(in.getQuery(), context, docIdSet);
+      }
+      return docIdSet;
+    }
+
+    @Override
+    public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+      if (used.compareAndSet(false, true)) {
+        policy.onUse(getQuery());
+      }
+      if (shouldCache(context) == false) {
+        return in.scorerSupplier(context);
+      }
+
+      final DocIdSet docIdSet = getOrCache(context);
+      if (docIdSet == null) {
+        return in.scorerSupplier(context);
+      }
+      if (docIdSet == DocIdSet.EMPTY) {
+        return null;
+      }
+      final DocIdSetIterator disi = docIdSet.iterator();
+      if (disi == null) {
+        return null;
+      }
+
+      return new ScorerSupplier() {
+        @Override
+        public Scorer get(boolean randomAccess) throws IOException {
+          return new ConstantScoreScorer(CachingWrapperWeight.this, 0f, disi);
+        }
+
+        @Override
+        public long cost() {
+          return disi.cost();
+        }
+      };
+    }
+
+    @Override
+    public Scorer scorer(LeafReaderContext context) throws IOException {
+      ScorerSupplier scorerSupplier = scorerSupplier(context);
+      if (scorerSupplier == null) {
+        return null;
+      }
+      return scorerSupplier.get(false);
+    }
+
+    @Override
+    public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+      if (used.compareAndSet(false, true)) {
+        policy.onUse(getQuery());
+      }
+      if (shouldCache(context) == false) {
+        return in.bulkScorer(context);
+      }
+
+      final DocIdSet docIdSet = getOrCache(context);
+      if (docIdSet == null) {
+        return in.bulkScorer(context);
+      }
+      if (docIdSet == DocIdSet.EMPTY) {
+        return null;
+      }
+      final DocIdSetIterator disi = docIdSet.iterator();
+      if (disi == null) {
+        return null;
+      }
+
+      return new DefaultBulkScorer(new ConstantScoreScorer(this, 0f, disi));
+    }
+
+  }
+}
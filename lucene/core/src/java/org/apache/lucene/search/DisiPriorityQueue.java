@@ -115,6 +115,11 @@ public final class DisiPriorityQueue implements Iterable<DisiWrapper> {
     return result;
   }
 
+  public void clear() {
+    Arrays.fill(heap, null);
+    size = 0;
+  }
+
   public DisiWrapper updateTop() {
     downHeap(size);
     return heap[0];
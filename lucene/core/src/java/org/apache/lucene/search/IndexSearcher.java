@@ -312,6 +312,75 @@ public class IndexSearcher {
     }
     return slices;
   }
+
+  /**
+   * Expert: Creates at most {@code numSlices} slices that hold about the same
+   * number of documents, splitting leaves into ranges of doc IDs if necessary.
+   * This allows a single query to make use of several threads even if the
+   * index has few large segments, for instance after a force merge. In order
+   * to use this slicing mode, override {@link #slices(List)} as follows:
+   * <pre class="prettyprint">
+   * IndexSearcher searcher = new IndexSearcher(reader, executor) {
+   *   &#64;Override
+   *   protected LeafSlice[] slices(List&lt;LeafReaderContext&gt; leaves) {
+   *     return balancedSlices(leaves, numThreads);
+   *   }
+   * };
+   * </pre>
+   * Collectors must be able to collect ranges of doc IDs of the same leaf
+   * with different collector instances and the results must be merged
+   * through a {@link CollectorManager}, see {@link #search(Query, CollectorManager)}.
+   * @lucene.experimental
+   */
+  public static LeafSlice[] balancedSlices(List<LeafReaderContext> leaves, int numSlices) {
+    if (numSlices < 1) {
+      throw new IllegalArgumentException("numSlices must be >= 1, got " + numSlices);
+    }
+    long totalDocs = 0;
+    for (LeafReaderContext ctx : leaves) {
+      totalDocs += ctx.reader().maxDoc();
+    }
+    final long docsPerSlice = Math.max(1, (totalDocs + numSlices - 1) / numSlices);
+
+    final List<LeafSlice> slices = new ArrayList<>();
+    final List<LeafReaderContext> sliceLeaves = new ArrayList<>();
+    final List<Integer> sliceMinDocs = new ArrayList<>();
+    final List<Integer> sliceMaxDocs = new ArrayList<>();
+    long sliceDocs = 0;
+    for (LeafReaderContext ctx : leaves) {
+      final int maxDoc = ctx.reader().maxDoc();
+      int minDoc = 0;
+      do {
+        final int numDocs = (int) Math.min(maxDoc - minDoc, docsPerSlice - sliceDocs);
+        sliceLeaves.add(ctx);
+        sliceMinDocs.add(minDoc);
+        sliceMaxDocs.add(minDoc + numDocs);
+        minDoc += numDocs;
+        sliceDocs += numDocs;
+        if (sliceDocs >= docsPerSlice) {
+          slices.add(newLeafSlice(sliceLeaves, sliceMinDocs, sliceMaxDocs));
+          sliceLeaves.clear();
+          sliceMinDocs.clear();
+          sliceMaxDocs.clear();
+          sliceDocs = 0;
+        }
+      } while (minDoc < maxDoc);
+    }
+    if (sliceLeaves.isEmpty() == false) {
+      slices.add(newLeafSlice(sliceLeaves, sliceMinDocs, sliceMaxDocs));
+    }
+    return slices.toArray(new LeafSlice[slices.size()]);
+  }
+
+  private static LeafSlice newLeafSlice(List<LeafReaderContext> leaves, List<Integer> minDocs, List<Integer> maxDocs) {
+    final int[] minDocsArray = new int[minDocs.size()];
+    final int[] maxDocsArray = new int[maxDocs.size()];
+    for (int i = 0; i < minDocsArray.length; ++i) {
+      minDocsArray[i] = minDocs.get(i);
+      maxDocsArray[i] = maxDocs.get(i);
+    }
+    return new LeafSlice(leaves.toArray(new LeafReaderContext[leaves.size()]), minDocsArray, maxDocsArray);
+  }
   
   /** Return the {@link IndexReader} this searches. */
   public IndexReader getIndexReader() {
@@ -602,12 +671,12 @@ public class IndexSearcher {
       final Weight weight = createNormalizedWeight(query, needsScores);
       final List<Future<C>> topDocsFutures = new ArrayList<>(leafSlices.length);
       for (int i = 0; i < leafSlices.length; ++i) {
-        final LeafReaderContext[] leaves = leafSlices[i].leaves;
+        final LeafSlice slice = leafSlices[i];
         final C collector = collectors.get(i);
         topDocsFutures.add(executor.submit(new Callable<C>() {
           @Override
           public C call() throws Exception {
-            search(Arrays.asList(leaves), weight, collector);
+            search(slice, weight, collector);
             return collector;
           }
         }));
@@ -674,6 +743,39 @@ public class IndexSearcher {
     }
   }
 
+  private void search(LeafSlice slice, Weight weight, Collector collector) throws IOException {
+    if (slice.isPartitioned() == false) {
+      search(Arrays.asList(slice.leaves), weight, collector);
+      return;
+    }
+
+    for (int i = 0; i < slice.leaves.length; ++i) {
+      final LeafReaderContext ctx = slice.leaves[i];
+      final int minDoc = slice.minDocs[i];
+      final int maxDoc = slice.maxDocs[i] == ctx.reader().maxDoc() ? DocIdSetIterator.NO_MORE_DOCS : slice.maxDocs[i];
+      if (minDoc >= maxDoc) {
+        continue;
+      }
+      final LeafCollector leafCollector;
+      try {
+        leafCollector = collector.getLeafCollector(ctx);
+      } catch (CollectionTerminatedException e) {
+        // there is no doc of interest in this reader context
+        // continue with the following leaf
+        continue;
+      }
+      BulkScorer scorer = weight.bulkScorer(ctx);
+      if (scorer != null) {
+        try {
+          scorer.score(leafCollector, ctx.reader().getLiveDocs(), minDoc, maxDoc);
+        } catch (CollectionTerminatedException e) {
+          // collection was terminated prematurely
+          // continue with the following leaf
+        }
+      }
+    }
+  }
+
   /** Expert: called to re-write queries into primitive queries.
    * @throws BooleanQuery.TooManyClauses If a query would exceed 
    *         {@link BooleanQuery#getMaxClauseCount()} clauses.
@@ -772,9 +874,46 @@ public class IndexSearcher {
    */
   public static class LeafSlice {
     final LeafReaderContext[] leaves;
+    // doc IDs in [minDocs[i], maxDocs[i]) are searched on leaves[i]
+    final int[] minDocs;
+    final int[] maxDocs;
     
     public LeafSlice(LeafReaderContext... leaves) {
       this.leaves = leaves;
+      this.minDocs = new int[leaves.length];
+      this.maxDocs = new int[leaves.length];
+      for (int i = 0; i < leaves.length; ++i) {
+        maxDocs[i] = leaves[i].reader().maxDoc();
+      }
+    }
+
+    /**
+     * Create a slice that only searches doc IDs between {@code minDocs[i]}
+     * (inclusive) and {@code maxDocs[i]} (exclusive) on {@code leaves[i]}.
+     */
+    public LeafSlice(LeafReaderContext[] leaves, int[] minDocs, int[] maxDocs) {
+      if (leaves.length != minDocs.length || leaves.length != maxDocs.length) {
+        throw new IllegalArgumentException("leaves, minDocs and maxDocs must have the same length");
+      }
+      for (int i = 0; i < leaves.length; ++i) {
+        if (minDocs[i] < 0 || minDocs[i] > maxDocs[i] || maxDocs[i] > leaves[i].reader().maxDoc()) {
+          throw new IllegalArgumentException("Illegal doc ID range [" + minDocs[i] + ", " + maxDocs[i]
+              + ") for a leaf that has maxDoc=" + leaves[i].reader().maxDoc());
+        }
+      }
+      this.leaves = leaves;
+      this.minDocs = minDocs;
+      this.maxDocs = maxDocs;
+    }
+
+    /** Return whether this slice only searches a subset of the docs of some leaves. */
+    boolean isPartitioned() {
+      for (int i = 0; i < leaves.length; ++i) {
+        if (minDocs[i] != 0 || maxDocs[i] != leaves[i].reader().maxDoc()) {
+          return true;
+        }
+      }
+      return false;
     }
   }
 
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+/**
+ * A {@link Scorer} for pure disjunctions that skips over documents that
+ * cannot be competitive given the minimum score passed to
+ * {@link #setMinCompetitiveScore(float)}.
+ * <p>
+ * This implements the MAXSCORE algorithm on top of block-level score upper
+ * bounds: the doc ID space is split into windows that end on the first block
+ * boundary of the sub scorers, see {@link Scorer#advanceShallow(int)}. On each
+ * window, sub scorers are sorted by their maximum score and the longest
+ * prefix whose sum of maximum scores is less than the minimum competitive
+ * score is made <em>non-essential</em>: only the essential scorers are used
+ * to find candidates, while non-essential scorers are only advanced to
+ * candidates whose score may still be competitive. Windows where the sum
+ * of the maximum scores of all scorers is not competitive are skipped
+ * entirely.
+ * <p>
+ * Until a minimum competitive score is set, this scorer behaves like a
+ * regular disjunction.
+ */
+final class MaxScoreSumScorer extends Scorer {
+
+  /** Return whether the given scorers can be used with a {@link MaxScoreSumScorer}. */
+  static boolean canUse(List<Scorer> scorers) throws IOException {
+    for (Scorer scorer : scorers) {
+      if (scorer.twoPhaseIterator() != null) {
+        return false;
+      }
+      final float maxScore = scorer.getMaxScore(NO_MORE_DOCS);
+      if (Float.isFinite(maxScore) == false || maxScore < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static class MaxScoreWrapper extends DisiWrapper {
+    float maxScore; // max score on the current window
+
+    MaxScoreWrapper(Scorer scorer) {
+      super(scorer);
+    }
+  }
+
+  private static final Comparator<MaxScoreWrapper> BY_MAX_SCORE = new Comparator<MaxScoreWrapper>() {
+    @Override
+    public int compare(MaxScoreWrapper a, MaxScoreWrapper b) {
+      return Float.compare(a.maxScore, b.maxScore);
+    }
+  };
+
+  // all clauses, sorted by max score on the current window
+  private final MaxScoreWrapper[] clauses;
+  // sums of the max scores of clauses[0..i]
+  private final double[] maxScoreSums;
+  // clauses[firstEssential:] are the clauses that are needed to find candidates
+  private int firstEssential;
+  private final DisiPriorityQueue essentialQueue;
+  private final long cost;
+
+  private float minCompetitiveScore;
+  private boolean windowNeedsUpdate = true;
+  private int windowEnd = -1;
+
+  private int doc = -1;
+  private float score;
+  private int freq;
+
+  MaxScoreSumScorer(Weight weight, List<Scorer> scorers) throws IOException {
+    super(weight);
+    if (scorers.size() <= 1) {
+      throw new IllegalArgumentException("There must be at least 2 scorers");
+    }
+    assert canUse(scorers);
+    clauses = new MaxScoreWrapper[scorers.size()];
+    long cost = 0;
+    for (int i = 0; i < clauses.length; ++i) {
+      clauses[i] = new MaxScoreWrapper(scorers.get(i));
+      cost += clauses[i].cost;
+    }
+    this.cost = cost;
+    maxScoreSums = new double[clauses.length];
+    essentialQueue = new DisiPriorityQueue(clauses.length);
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) {
+    if (minScore > minCompetitiveScore) {
+      minCompetitiveScore = minScore;
+      windowNeedsUpdate = true;
+    }
+  }
+
+  @Override
+  public int docID() {
+    return doc;
+  }
+
+  @Override
+  public float score() throws IOException {
+    return score;
+  }
+
+  @Override
+  public int freq() throws IOException {
+    return freq;
+  }
+
+  @Override
+  public Collection<ChildScorer> getChildren() throws IOException {
+    List<ChildScorer> children = new ArrayList<>();
+    for (MaxScoreWrapper clause : clauses) {
+      if (clause.doc == doc) {
+        children.add(new ChildScorer(clause.scorer, "SHOULD"));
+      }
+    }
+    return children;
+  }
+
+  @Override
+  public DocIdSetIterator iterator() {
+    return new DocIdSetIterator() {
+
+      @Override
+      public int docID() {
+        return doc;
+      }
+
+      @Override
+      public int nextDoc() throws IOException {
+        return advance(doc + 1);
+      }
+
+      @Override
+      public int advance(int target) throws IOException {
+        return doc = doAdvance(target);
+      }
+
+      @Override
+      public long cost() {
+        return cost;
+      }
+    };
+  }
+
+  private int doAdvance(int target) throws IOException {
+    while (true) {
+      if (windowNeedsUpdate || target > windowEnd) {
+        if (updateWindow(target) == false) {
+          // no document of this window may be competitive
+          if (windowEnd == NO_MORE_DOCS) {
+            return NO_MORE_DOCS;
+          }
+          target = windowEnd + 1;
+          continue;
+        }
+      }
+
+      DisiWrapper top = essentialQueue.top();
+      while (top.doc < target) {
+        top.doc = top.iterator.advance(target);
+        top = essentialQueue.updateTop();
+      }
+
+      final int candidate = top.doc;
+      if (candidate == NO_MORE_DOCS) {
+        if (windowEnd == NO_MORE_DOCS) {
+          return NO_MORE_DOCS;
+        }
+        // non-essential clauses of this window may become essential on the next one
+        target = windowEnd + 1;
+      } else if (candidate > windowEnd) {
+        target = windowEnd + 1;
+      } else if (scoreCandidate(candidate)) {
+        return candidate;
+      } else {
+        target = candidate + 1;
+      }
+    }
+  }
+
+  /** Compute the score of the candidate, or return false if it is not competitive. */
+  private boolean scoreCandidate(int candidate) throws IOException {
+    double score = 0;
+    int freq = 0;
+    for (DisiWrapper w = essentialQueue.topList(); w != null; w = w.next) {
+      score += w.scorer.score();
+      freq++;
+    }
+
+    // check non-essential clauses by decreasing max score, and stop as soon
+    // as the candidate may not be competitive anymore
+    for (int i = firstEssential - 1; i >= 0; --i) {
+      if ((float) (score + maxScoreSums[i]) < minCompetitiveScore) {
+        return false;
+      }
+      final MaxScoreWrapper clause = clauses[i];
+      if (clause.doc < candidate) {
+        clause.doc = clause.iterator.advance(candidate);
+      }
+      if (clause.doc == candidate) {
+        score += clause.scorer.score();
+        freq++;
+      }
+    }
+
+    this.score = (float) score;
+    this.freq = freq;
+    return true;
+  }
+
+  /** Compute the next window, which starts at {@code target}, and partition
+   *  clauses into essential and non-essential clauses. Return false if no
+   *  document of this window may be competitive. */
+  private boolean updateWindow(int target) throws IOException {
+    windowNeedsUpdate = false;
+
+    if (minCompetitiveScore == 0) {
+      // all matches are competitive: behave like a regular disjunction
+      windowEnd = NO_MORE_DOCS;
+      firstEssential = 0;
+    } else {
+      int windowEnd = NO_MORE_DOCS;
+      for (MaxScoreWrapper clause : clauses) {
+        if (clause.doc != NO_MORE_DOCS) {
+          windowEnd = Math.min(windowEnd, clause.scorer.advanceShallow(Math.max(target, clause.doc)));
+        }
+      }
+      assert windowEnd >= target;
+      this.windowEnd = windowEnd;
+
+      for (MaxScoreWrapper clause : clauses) {
+        if (clause.doc == NO_MORE_DOCS || clause.doc > windowEnd) {
+          // the clause does not match any doc of this window
+          clause.maxScore = 0;
+        } else {
+          clause.maxScore = clause.scorer.getMaxScore(windowEnd);
+        }
+      }
+      Arrays.sort(clauses, BY_MAX_SCORE);
+
+      double sum = 0;
+      firstEssential = 0;
+      for (MaxScoreWrapper clause : clauses) {
+        sum += clause.maxScore;
+        if ((float) sum >= minCompetitiveScore) {
+          break;
+        }
+        maxScoreSums[firstEssential++] = sum;
+      }
+
+      if (firstEssential == clauses.length) {
+        return false;
+      }
+    }
+
+    essentialQueue.clear();
+    for (int i = firstEssential; i < clauses.length; ++i) {
+      essentialQueue.add(clauses[i]);
+    }
+    return true;
+  }
+
+}
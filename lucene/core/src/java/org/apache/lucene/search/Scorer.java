@@ -146,4 +146,47 @@ public abstract class Scorer {
   public TwoPhaseIterator twoPhaseIterator() {
     return null;
   }
+
+  /**
+   * Optional method: Tell the scorer that its iterator may safely ignore all
+   * documents whose score is less than the given {@code minScore}. This is a
+   * no-op by default.
+   *
+   * This method may only be called from collectors that use
+   * {@link TopScoreDocCollector#create(int, ScoreDoc, boolean) no exact hit count},
+   * since documents that are skipped are not collected at all.
+   * @lucene.experimental
+   */
+  public void setMinCompetitiveScore(float minScore) throws IOException {
+    // no-op by default
+  }
+
+  /**
+   * Advance the block-level metadata of this scorer to the block that
+   * contains {@code target}, without advancing the {@link #iterator()}, and
+   * return the last doc ID (inclusive) of that block.
+   * Targets must be non-decreasing across calls.
+   *
+   * The default implementation returns {@link DocIdSetIterator#NO_MORE_DOCS}:
+   * the whole doc ID space is a single block.
+   * @lucene.experimental
+   */
+  public int advanceShallow(int target) throws IOException {
+    return DocIdSetIterator.NO_MORE_DOCS;
+  }
+
+  /**
+   * Return an upper bound of the score of the documents between the last
+   * target that has been passed to {@link #advanceShallow(int)} (or the
+   * current doc if {@link #advanceShallow(int)} has not been called) and
+   * {@code upTo} (inclusive). {@code upTo} must not be greater than the value
+   * returned by the last call to {@link #advanceShallow(int)}.
+   *
+   * The default implementation returns {@link Float#POSITIVE_INFINITY}, which
+   * means that no bound is known.
+   * @lucene.experimental
+   */
+  public float getMaxScore(int upTo) throws IOException {
+    return Float.POSITIVE_INFINITY;
+  }
 }
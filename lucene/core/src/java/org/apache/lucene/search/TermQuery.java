@@ -103,7 +103,10 @@ public class TermQuery extends Query {
       }
       PostingsEnum docs = termsEnum.postings(null, needsScores ? PostingsEnum.FREQS : PostingsEnum.NONE);
       assert docs != null;
-      return new TermScorer(this, docs, similarity.simScorer(stats, context));
+      final long totalTermFreq = termsEnum.totalTermFreq();
+      // all documents but one have a freq of at least 1
+      final float maxFreq = totalTermFreq == -1 ? Float.POSITIVE_INFINITY : totalTermFreq - termsEnum.docFreq() + 1;
+      return new TermScorer(this, docs, similarity.simScorer(stats, context), maxFreq);
     }
 
     /**
@@ -19,6 +19,7 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 
+import org.apache.lucene.index.BlockMaxPostingsEnum;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.search.similarities.Similarity;
 
@@ -27,6 +28,9 @@ import org.apache.lucene.search.similarities.Similarity;
 final class TermScorer extends Scorer {
   private final PostingsEnum postingsEnum;
   private final Similarity.SimScorer docScorer;
+  private final BlockMaxPostingsEnum blockMaxPostingsEnum; // null if the postings do not expose block max freqs
+  private final float maxFreq;
+  private int shallowUpTo = -1; // last doc of the block that advanceShallow moved to
 
   /**
    * Construct a <code>TermScorer</code>.
@@ -40,9 +44,34 @@ final class TermScorer extends Scorer {
    *          to be used for score computations.
    */
   TermScorer(Weight weight, PostingsEnum td, Similarity.SimScorer docScorer) {
+    this(weight, td, docScorer, Float.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Construct a <code>TermScorer</code> that knows an upper bound of the
+   * frequency of the term across documents.
+   *
+   * @param weight
+   *          The weight of the <code>Term</code> in the query.
+   * @param td
+   *          An iterator over the documents matching the <code>Term</code>.
+   * @param docScorer
+   *          The <code>Similarity.SimScorer</code> implementation
+   *          to be used for score computations.
+   * @param maxFreq
+   *          An upper bound of the frequency of the term in any document.
+   */
+  TermScorer(Weight weight, PostingsEnum td, Similarity.SimScorer docScorer, float maxFreq) {
     super(weight);
     this.docScorer = docScorer;
     this.postingsEnum = td;
+    if (td instanceof BlockMaxPostingsEnum) {
+      blockMaxPostingsEnum = (BlockMaxPostingsEnum) td;
+      this.maxFreq = Math.min(maxFreq, blockMaxPostingsEnum.getMaxFreq());
+    } else {
+      blockMaxPostingsEnum = null;
+      this.maxFreq = maxFreq;
+    }
   }
 
   @Override
@@ -66,6 +95,22 @@ final class TermScorer extends Scorer {
     return docScorer.score(postingsEnum.docID(), postingsEnum.freq());
   }
 
+  @Override
+  public int advanceShallow(int target) throws IOException {
+    if (blockMaxPostingsEnum == null) {
+      return DocIdSetIterator.NO_MORE_DOCS;
+    }
+    return shallowUpTo = blockMaxPostingsEnum.advanceShallow(target);
+  }
+
+  @Override
+  public float getMaxScore(int upTo) throws IOException {
+    if (blockMaxPostingsEnum != null && upTo <= shallowUpTo) {
+      return docScorer.maxScore(Math.min(maxFreq, blockMaxPostingsEnum.getMaxFreq()));
+    }
+    return docScorer.maxScore(maxFreq);
+  }
+
   /** Returns a string representation of this <code>TermScorer</code>. */
   @Override
   public String toString() { return "scorer(" + weight + ")[" + super.toString() + "]"; }
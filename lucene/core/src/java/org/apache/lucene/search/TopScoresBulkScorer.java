@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Bits;
+
+/**
+ * {@link BulkScorer} for pure disjunctions that scores with a
+ * {@link BooleanScorer} until the collector sets a minimum competitive score
+ * through {@link Scorer#setMinCompetitiveScore(float)}, and then switches to a
+ * {@link MaxScoreSumScorer} in order to skip over non-competitive documents.
+ * Collectors that never set a minimum competitive score keep the throughput
+ * of {@link BooleanScorer}.
+ */
+final class TopScoresBulkScorer extends BulkScorer {
+
+  // how many docs to score with BooleanScorer before checking whether a
+  // minimum competitive score has been set
+  private static final int INTERVAL = BooleanScorer.SIZE;
+
+  private final BooleanWeight weight;
+  private final BulkScorer in;
+  private final List<Weight> optionalWeights;
+  private final LeafReaderContext context;
+  private final MinCompetitiveScoreRecorder recorder;
+  private boolean canSwitch = true;
+  private Scorer scorer; // non-null once we switched to MaxScoreSumScorer
+
+  TopScoresBulkScorer(BooleanWeight weight, BulkScorer in, List<Weight> optionalWeights, LeafReaderContext context) {
+    this.weight = weight;
+    this.in = in;
+    this.optionalWeights = optionalWeights;
+    this.context = context;
+    this.recorder = new MinCompetitiveScoreRecorder(weight);
+  }
+
+  @Override
+  public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+    if (scorer == null) {
+      if (canSwitch == false) {
+        return in.score(collector, acceptDocs, min, max);
+      }
+
+      final LeafCollector recordingCollector = new FilterLeafCollector(collector) {
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+          recorder.in = scorer;
+          super.setScorer(recorder);
+        }
+      };
+      // always delegate at least once since min == max is legal
+      do {
+        final int intervalMax = (int) Math.min(max, (long) min + INTERVAL);
+        min = in.score(recordingCollector, acceptDocs, min, intervalMax);
+        if (min < max && recorder.minCompetitiveScore > 0) {
+          scorer = maxScoreScorer();
+          if (scorer == null) {
+            canSwitch = false;
+            return in.score(collector, acceptDocs, min, max);
+          }
+          scorer.setMinCompetitiveScore(recorder.minCompetitiveScore);
+          break;
+        }
+      } while (min < max);
+      if (scorer == null) {
+        return min;
+      }
+    }
+
+    collector.setScorer(scorer);
+    final DocIdSetIterator iterator = scorer.iterator();
+    int doc = iterator.docID();
+    if (doc < min) {
+      doc = iterator.advance(min);
+    }
+    while (doc < max) {
+      if (acceptDocs == null || acceptDocs.get(doc)) {
+        collector.collect(doc);
+      }
+      doc = iterator.nextDoc();
+    }
+    return doc;
+  }
+
+  /** Create a {@link MaxScoreSumScorer} over the optional clauses, or return
+   *  null if some clauses do not expose bounds of their scores. */
+  private Scorer maxScoreScorer() throws IOException {
+    final List<Scorer> scorers = new ArrayList<>();
+    for (Weight w : optionalWeights) {
+      final Scorer scorer = w.scorer(context);
+      if (scorer != null) {
+        scorers.add(scorer);
+      }
+    }
+    if (scorers.size() < 2 || MaxScoreSumScorer.canUse(scorers) == false) {
+      return null;
+    }
+    return new MaxScoreSumScorer(weight, scorers);
+  }
+
+  @Override
+  public long cost() {
+    return in.cost();
+  }
+
+  /** A {@link Scorer} that records calls to {@link #setMinCompetitiveScore(float)}. */
+  private static final class MinCompetitiveScoreRecorder extends Scorer {
+    Scorer in;
+    float minCompetitiveScore;
+
+    MinCompetitiveScoreRecorder(Weight weight) {
+      super(weight);
+    }
+
+    @Override
+    public void setMinCompetitiveScore(float minScore) throws IOException {
+      minCompetitiveScore = Math.max(minCompetitiveScore, minScore);
+      in.setMinCompetitiveScore(minScore);
+    }
+
+    @Override
+    public int docID() {
+      return in.docID();
+    }
+
+    @Override
+    public float score() throws IOException {
+      return in.score();
+    }
+
+    @Override
+    public int freq() throws IOException {
+      return in.freq();
+    }
+
+    @Override
+    public Collection<ChildScorer> getChildren() throws IOException {
+      return in.getChildren();
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return in.iterator();
+    }
+
+    @Override
+    public TwoPhaseIterator twoPhaseIterator() {
+      return in.twoPhaseIterator();
+    }
+  }
+}
@@ -229,12 +229,24 @@ public class BM25Similarity extends Similarity {
     private final float weightValue; // boost * idf * (k1 + 1)
     private final NumericDocValues norms;
     private final float[] cache;
+    // smallest norm factor of the cache, i.e. over all 256 encodable norms rather than the norms
+    // that occur in this segment, so it bounds the scores of any document
+    private final float minNorm;
     
     BM25DocScorer(BM25Stats stats, NumericDocValues norms) throws IOException {
       this.stats = stats;
       this.weightValue = stats.weight * (k1 + 1);
       this.cache = stats.cache;
       this.norms = norms;
+      if (norms == null) {
+        minNorm = k1;
+      } else {
+        float min = Float.POSITIVE_INFINITY;
+        for (float norm : cache) {
+          min = Math.min(min, norm);
+        }
+        minNorm = min;
+      }
     }
     
     @Override
@@ -243,6 +255,23 @@ public class BM25Similarity extends Similarity {
       float norm = norms == null ? k1 : cache[(byte)norms.get(doc) & 0xFF];
       return weightValue * freq / (freq + norm);
     }
+
+    @Override
+    public float maxScore(float maxFreq) {
+      if (weightValue <= 0) {
+        // negative boost: scores are never positive
+        return 0f;
+      }
+      // scores increase with freq and decrease with the norm
+      final double tf;
+      if (Float.isInfinite(maxFreq) || minNorm == 0) {
+        tf = 1;
+      } else {
+        tf = maxFreq / (maxFreq + (double) minNorm);
+      }
+      // scores are computed with floats: give some room for rounding errors
+      return (float) (weightValue * tf * (1 + 1e-6));
+    }
     
     @Override
     public Explanation explain(int doc, Explanation freq) {
@@ -30,15 +30,24 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 
+import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.ByteBufferGuard.BufferCleaner;
 import org.apache.lucene.util.Constants;
+import org.apache.lucene.util.InfoStream;
 import org.apache.lucene.util.SuppressForbidden;
 
 /** File-based {@link Directory} implementation that uses
@@ -92,7 +101,34 @@ import org.apache.lucene.util.SuppressForbidden;
  */
 public class MMapDirectory extends FSDirectory {
   private boolean useUnmapHack = UNMAP_SUPPORTED;
-  private boolean preload;
+  private BiPredicate<String,IOContext> preload = NO_FILES;
+  private BiFunction<String,IOContext,ReadAdvice> readAdvice = NORMAL_ADVICE;
+  private final AtomicBoolean adviceFailureReported = new AtomicBoolean();
+
+  /**
+   * Hint about the way a mapped file is going to be accessed, which may be
+   * passed on to the operating system (e.g. as <code>madvise</code> flags) so
+   * that it can tune read-ahead and page-cache retention.
+   * @see #setReadAdvice(BiFunction)
+   * @see #advise(MappedByteBuffer, ReadAdvice)
+   */
+  public enum ReadAdvice {
+    /** No special treatment; the operating system's default read-ahead applies. */
+    NORMAL,
+    /** Pages are accessed in random order, so read-ahead is mostly wasted. */
+    RANDOM,
+    /** Pages are read sequentially and are unlikely to be needed again soon. */
+    SEQUENTIAL
+  }
+
+  /** Argument for {@link #setPreload(BiPredicate)} that preloads all files. */
+  public static final BiPredicate<String,IOContext> ALL_FILES = (name, context) -> true;
+
+  /** Argument for {@link #setPreload(BiPredicate)} that preloads no files. */
+  public static final BiPredicate<String,IOContext> NO_FILES = (name, context) -> false;
+
+  /** Argument for {@link #setReadAdvice(BiFunction)} that gives every file {@link ReadAdvice#NORMAL} advice. */
+  public static final BiFunction<String,IOContext,ReadAdvice> NORMAL_ADVICE = (name, context) -> ReadAdvice.NORMAL;
 
   /** 
    * Default max chunk size.
@@ -208,17 +244,73 @@ public class MMapDirectory extends FSDirectory {
    * into physical memory on init. The behavior is best-effort 
    * and operating system dependent.
    * @see MappedByteBuffer#load
+   * @see #setPreload(BiPredicate)
    */
   public void setPreload(boolean preload) {
-    this.preload = preload;
+    this.preload = preload ? ALL_FILES : NO_FILES;
+  }
+
+  /**
+   * Configures which files are loaded into physical memory when they are
+   * opened, based on the file name and the {@link IOContext} it is opened
+   * with. This is useful to preload only the small, hot parts of an index
+   * (e.g. terms indexes) without paying for the rest.
+   * @see #setPreload(boolean)
+   * @see #preloadExtensions(Set)
+   */
+  public void setPreload(BiPredicate<String,IOContext> preload) {
+    this.preload = Objects.requireNonNull(preload);
   }
   
   /**
-   * Returns {@code true} if mapped pages should be loaded.
+   * Returns {@code true} if mapped pages of all files should be loaded.
    * @see #setPreload
    */
   public boolean getPreload() {
-    return preload;
+    return preload == ALL_FILES;
+  }
+
+  /**
+   * Configures the {@link ReadAdvice} of each opened file, based on the file
+   * name and the {@link IOContext} it is opened with. For instance merges,
+   * which read each file once from start to end, can use
+   * {@link ReadAdvice#SEQUENTIAL} so that they do not evict the pages that
+   * searches need from the page cache.
+   * <p>
+   * This class itself can not pass advice to the operating system and only
+   * hands it to {@link #advise(MappedByteBuffer, ReadAdvice)}, which
+   * subclasses with access to native code may override.
+   * @see #readAdviceByExtension(Map, ReadAdvice)
+   */
+  public void setReadAdvice(BiFunction<String,IOContext,ReadAdvice> readAdvice) {
+    this.readAdvice = Objects.requireNonNull(readAdvice);
+  }
+
+  /**
+   * Returns a preload policy that preloads files with the given extensions
+   * (without the leading dot, e.g. {@code "tip"}), whatever the context.
+   * Note that files in a compound file are mapped through the compound file,
+   * so its extension applies instead.
+   */
+  public static BiPredicate<String,IOContext> preloadExtensions(Set<String> extensions) {
+    final Set<String> exts = new HashSet<>(extensions);
+    return (name, context) -> exts.contains(IndexFileNames.getExtension(name));
+  }
+
+  /**
+   * Returns a read advice policy that uses <code>mergeAdvice</code> for files
+   * opened for merging, if it is not null, and otherwise looks up the advice by
+   * the file's extension, falling back to {@link ReadAdvice#NORMAL}.
+   */
+  public static BiFunction<String,IOContext,ReadAdvice> readAdviceByExtension(
+      Map<String,ReadAdvice> byExtension, ReadAdvice mergeAdvice) {
+    final Map<String,ReadAdvice> advice = new HashMap<>(byExtension);
+    return (name, context) -> {
+      if (mergeAdvice != null && context.context == IOContext.Context.MERGE) {
+        return mergeAdvice;
+      }
+      return advice.getOrDefault(IndexFileNames.getExtension(name), ReadAdvice.NORMAL);
+    };
   }
   
   /**
@@ -239,13 +331,14 @@ public class MMapDirectory extends FSDirectory {
       final String resourceDescription = "MMapIndexInput(path=\"" + path.toString() + "\")";
       final boolean useUnmap = getUseUnmap();
       return ByteBufferIndexInput.newInstance(resourceDescription,
-          map(resourceDescription, c, 0, c.size()), 
+          map(resourceDescription, c, 0, c.size(), preload.test(name, context), readAdvice.apply(name, context)), 
           c.size(), chunkSizePower, new ByteBufferGuard(resourceDescription, useUnmap ? CLEANER : null));
     }
   }
 
   /** Maps a file into a set of buffers */
-  final ByteBuffer[] map(String resourceDescription, FileChannel fc, long offset, long length) throws IOException {
+  final ByteBuffer[] map(String resourceDescription, FileChannel fc, long offset, long length,
+      boolean preload, ReadAdvice advice) throws IOException {
     if ((length >>> chunkSizePower) >= Integer.MAX_VALUE)
       throw new IllegalArgumentException("RandomAccessFile too big for chunk size: " + resourceDescription);
     
@@ -268,6 +361,14 @@ public class MMapDirectory extends FSDirectory {
       } catch (IOException ioe) {
         throw convertMapFailedIOException(ioe, resourceDescription, bufSize);
       }
+      if (advice != ReadAdvice.NORMAL) {
+        try {
+          advise(buffer, advice);
+        } catch (IOException ioe) {
+          // advice is only a hint, the buffer works just as well without it
+          reportAdviceFailure(resourceDescription, advice, ioe);
+        }
+      }
       if (preload) {
         buffer.load();
       }
@@ -278,6 +379,27 @@ public class MMapDirectory extends FSDirectory {
     return buffers;
   }
   
+  /**
+   * Passes the {@link ReadAdvice} of a file on to the operating system, for
+   * each buffer the file is mapped into. Java offers no way to do this, so
+   * the default implementation does nothing.
+   * @throws IOException if the advice could not be applied; the file is
+   *         opened anyway, and the first such failure of this directory is
+   *         reported to the default {@link InfoStream}
+   */
+  protected void advise(MappedByteBuffer buffer, ReadAdvice advice) throws IOException {
+  }
+
+  private void reportAdviceFailure(String resourceDescription, ReadAdvice advice, IOException ioe) {
+    if (adviceFailureReported.compareAndSet(false, true)) {
+      final InfoStream infoStream = InfoStream.getDefault();
+      if (infoStream.isEnabled("MMapDirectory")) {
+        infoStream.message("MMapDirectory", "could not apply " + advice + " read advice to " + resourceDescription
+            + ", further failures of this directory are not reported: " + ioe);
+      }
+    }
+  }
+
   private IOException convertMapFailedIOException(IOException ioe, String resourceDescription, int bufSize) {
     final String originalMessage;
     final Throwable originalCause;
@@ -23,11 +23,17 @@ import org.apache.lucene.codecs.blocktree.FieldReader;
 import org.apache.lucene.codecs.blocktree.Stats;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.BasePostingsFormatTestCase;
+import org.apache.lucene.index.BlockMaxPostingsEnum;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.TestUtil;
 
 /**
@@ -65,6 +71,64 @@ public class TestBlockPostingsFormat extends BasePostingsFormatTestCase {
     d.close();
   }
 
+  public void testBlockMaxFreqs() throws Exception {
+    Directory d = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setCodec(getCodec());
+    IndexWriter w = new IndexWriter(d, iwc);
+    final int numDocs = atLeast(1000);
+    final int[] freqs = new int[numDocs];
+    for (int i = 0; i < numDocs; i++) {
+      freqs[i] = TestUtil.nextInt(random(), 1, 20);
+      StringBuilder text = new StringBuilder();
+      for (int j = 0; j < freqs[i]; j++) {
+        text.append("a ");
+      }
+      Document doc = new Document();
+      doc.add(new TextField("field", text.toString(), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+
+    DirectoryReader r = DirectoryReader.open(w);
+    assertEquals(1, r.leaves().size());
+    TermsEnum termsEnum = r.leaves().get(0).reader().terms("field").iterator();
+    assertTrue(termsEnum.seekExact(new BytesRef("a")));
+    PostingsEnum postings = termsEnum.postings(null, PostingsEnum.FREQS);
+    assertTrue(postings instanceof BlockMaxPostingsEnum);
+    BlockMaxPostingsEnum blockMaxPostings = (BlockMaxPostingsEnum) postings;
+
+    int numBlocks = 0;
+    for (int target = 0; target < numDocs; ) {
+      final int blockEnd = blockMaxPostings.advanceShallow(target);
+      assertTrue(blockEnd >= target);
+      final int maxFreq = blockMaxPostings.getMaxFreq();
+      int actualMaxFreq = 0;
+      for (int doc = target; doc < numDocs && doc <= blockEnd; ++doc) {
+        actualMaxFreq = Math.max(actualMaxFreq, freqs[doc]);
+      }
+      assertTrue(maxFreq >= actualMaxFreq);
+      if (blockEnd == DocIdSetIterator.NO_MORE_DOCS) {
+        break;
+      }
+      numBlocks++;
+      target = blockEnd + TestUtil.nextInt(random(), 1, 3);
+    }
+    // all blocks but the last one have a skip entry
+    assertTrue(numBlocks > 0);
+
+    // shallow advancing does not move the enum
+    assertEquals(-1, postings.docID());
+    for (int doc = 0; doc < numDocs; ++doc) {
+      assertEquals(doc, postings.nextDoc());
+      assertEquals(freqs[doc], postings.freq());
+    }
+
+    r.close();
+    w.close();
+    d.close();
+  }
+
   private void shouldFail(int minItemsInBlock, int maxItemsInBlock) {
     expectThrows(IllegalArgumentException.class, () -> {
       new Lucene50PostingsFormat(minItemsInBlock, maxItemsInBlock);
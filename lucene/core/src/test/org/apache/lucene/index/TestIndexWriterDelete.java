@@ -21,10 +21,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -45,6 +48,7 @@ import org.apache.lucene.store.MockDirectoryWrapper;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 @SuppressCodecs("SimpleText") // too slow here
@@ -1400,4 +1404,60 @@ public class TestIndexWriterDelete extends LuceneTestCase {
     w.close();
     dir.close();
   }
+
+  public void testApplyDeletesConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 4),
+                                                            new NamedThreadFactory("testApplyDeletesConcurrently"));
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setApplyDeletesExecutor(executor);
+    iwc.setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 10));
+    IndexWriter w = new IndexWriter(dir, iwc);
+
+    int numIDs = atLeast(100);
+    // version of the live doc of each id, or -1 if it was deleted
+    int[] versions = new int[numIDs];
+    Arrays.fill(versions, -1);
+    DirectoryReader r = DirectoryReader.open(w);
+    int iters = atLeast(1000);
+    for (int iter = 0; iter < iters; iter++) {
+      int id = random().nextInt(numIDs);
+      if (random().nextInt(5) == 0) {
+        w.deleteDocuments(new Term("id", "" + id));
+        versions[id] = -1;
+      } else {
+        Document doc = new Document();
+        doc.add(newStringField("id", "" + id, Field.Store.NO));
+        doc.add(newStringField("version", "" + iter, Field.Store.NO));
+        w.updateDocument(new Term("id", "" + id), doc);
+        versions[id] = iter;
+      }
+
+      if (random().nextInt(50) == 0 || iter == iters - 1) {
+        DirectoryReader r2 = DirectoryReader.openIfChanged(r, w);
+        if (r2 != null) {
+          r.close();
+          r = r2;
+        }
+        IndexSearcher s = newSearcher(r);
+        int expectedNumDocs = 0;
+        for (int i = 0; i < numIDs; i++) {
+          if (versions[i] == -1) {
+            assertEquals(0, s.count(new TermQuery(new Term("id", "" + i))));
+          } else {
+            expectedNumDocs++;
+            assertEquals(1, s.count(new TermQuery(new Term("id", "" + i))));
+            assertEquals(1, s.count(new TermQuery(new Term("version", "" + versions[i]))));
+          }
+        }
+        assertEquals(expectedNumDocs, r.numDocs());
+      }
+    }
+
+    r.close();
+    w.close();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    dir.close();
+  }
 }
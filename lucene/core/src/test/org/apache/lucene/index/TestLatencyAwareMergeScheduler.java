@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestLatencyAwareMergeScheduler extends LuceneTestCase {
+
+  private volatile double latencyMillis;
+
+  public void testThrottleFromLatency() throws Exception {
+    LatencyAwareMergeScheduler ms = new LatencyAwareMergeScheduler();
+    ms.setMaxMergesAndThreads(6, 4);
+    ms.setTargetLatencyMillis(100);
+    ms.setPeakLatencyMillis(500);
+    double mbPerSec = ms.getBigMergeMBPerSec();
+
+    // no signal: same as ConcurrentMergeScheduler
+    latencyMillis = 1000;
+    ms.updateLatency();
+    assertEquals(4, ms.getMaxBigMergeThreadCount());
+    assertEquals(mbPerSec, ms.getBigMergeMBPerSec(), 0.0);
+
+    ms.setLatencySignal(() -> latencyMillis);
+
+    latencyMillis = 50;
+    ms.updateLatency();
+    assertEquals(50, ms.getLatencyMillis(), 0.0);
+    assertEquals(4, ms.getMaxBigMergeThreadCount());
+    assertEquals(mbPerSec, ms.getBigMergeMBPerSec(), 0.0);
+
+    latencyMillis = 200;
+    ms.updateLatency();
+    assertEquals(2, ms.getMaxBigMergeThreadCount());
+    assertEquals(mbPerSec / 2, ms.getBigMergeMBPerSec(), 0.0);
+
+    latencyMillis = 450;
+    ms.updateLatency();
+    assertEquals(1, ms.getMaxBigMergeThreadCount());
+    assertEquals(ConcurrentMergeScheduler.MIN_MERGE_MB_PER_SEC, ms.getBigMergeMBPerSec(), 0.0);
+
+    latencyMillis = 500;
+    ms.updateLatency();
+    assertEquals(0, ms.getMaxBigMergeThreadCount());
+
+    latencyMillis = 0;
+    ms.updateLatency();
+    assertEquals(4, ms.getMaxBigMergeThreadCount());
+    assertEquals(mbPerSec, ms.getBigMergeMBPerSec(), 0.0);
+
+    latencyMillis = 1000;
+    ms.updateLatency();
+    assertEquals(0, ms.getMaxBigMergeThreadCount());
+    ms.setLatencySignal(null);
+    assertEquals(4, ms.getMaxBigMergeThreadCount());
+  }
+
+  public void testIndexDuringPeak() throws Exception {
+    Directory dir = newDirectory();
+    LatencyAwareMergeScheduler ms = new LatencyAwareMergeScheduler();
+    ms.setUpdateIntervalMillis(10);
+    latencyMillis = 10000;
+    ms.setLatencySignal(() -> latencyMillis);
+
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setMergeScheduler(ms);
+    iwc.setMaxBufferedDocs(2);
+    iwc.setMergePolicy(newLogMergePolicy(2));
+    IndexWriter w = new IndexWriter(dir, iwc);
+    int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new TextField("field", "doc " + i, Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.close();
+    // closing never holds back merges
+    assertEquals(ms.getMaxThreadCount(), ms.getMaxBigMergeThreadCount());
+
+    DirectoryReader r = DirectoryReader.open(dir);
+    assertEquals(numDocs, r.numDocs());
+    r.close();
+    dir.close();
+  }
+
+  public void testInvalidSettings() throws Exception {
+    LatencyAwareMergeScheduler ms = new LatencyAwareMergeScheduler();
+    expectThrows(IllegalArgumentException.class, () -> ms.setTargetLatencyMillis(0));
+    expectThrows(IllegalArgumentException.class, () -> ms.setPeakLatencyMillis(-1));
+    expectThrows(IllegalArgumentException.class, () -> ms.setUpdateIntervalMillis(0));
+  }
+}
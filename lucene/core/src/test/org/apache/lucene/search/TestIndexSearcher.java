@@ -19,6 +19,7 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -30,6 +31,7 @@ import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
@@ -118,6 +120,75 @@ public class TestIndexSearcher extends LuceneTestCase {
     TestUtil.shutdownExecutorService(service);
   }
 
+  public void testBalancedSlices() throws Exception {
+    final int numSlices = TestUtil.nextInt(random(), 1, 10);
+    final IndexSearcher.LeafSlice[] slices = IndexSearcher.balancedSlices(reader.leaves(), numSlices);
+    assertTrue(slices.length <= numSlices);
+    final int docsPerSlice = (reader.maxDoc() + numSlices - 1) / numSlices;
+    // every doc ID is searched exactly once, in order
+    int nextDoc = 0;
+    for (int i = 0; i < slices.length; ++i) {
+      final IndexSearcher.LeafSlice slice = slices[i];
+      int sliceDocs = 0;
+      for (int j = 0; j < slice.leaves.length; ++j) {
+        assertEquals(nextDoc, slice.leaves[j].docBase + slice.minDocs[j]);
+        nextDoc = slice.leaves[j].docBase + slice.maxDocs[j];
+        sliceDocs += slice.maxDocs[j] - slice.minDocs[j];
+      }
+      if (i < slices.length - 1) {
+        assertEquals(docsPerSlice, sliceDocs);
+      } else {
+        assertTrue(sliceDocs <= docsPerSlice);
+      }
+    }
+    assertEquals(reader.maxDoc(), nextDoc);
+
+    expectThrows(IllegalArgumentException.class, () -> {
+      IndexSearcher.balancedSlices(reader.leaves(), 0);
+    });
+  }
+
+  public void testIntraSegmentSlices() throws Exception {
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestIndexSearcher"));
+    final int numSlices = TestUtil.nextInt(random(), 2, 8);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    IndexSearcher slicedSearcher = new IndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return balancedSlices(leaves, numSlices);
+      }
+    };
+    // slices hold ranges of doc IDs
+    assertTrue(slicedSearcher.leafSlices.length > reader.leaves().size());
+
+    Query queries[] = new Query[] {
+        new MatchAllDocsQuery(),
+        new TermQuery(new Term("field2", "true")),
+        new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("field", "1")), Occur.SHOULD)
+            .add(new TermQuery(new Term("field", "42")), Occur.SHOULD)
+            .add(new TermQuery(new Term("field2", "false")), Occur.SHOULD)
+            .build()
+    };
+    final Sort sort = new Sort(new SortField("field2", SortField.Type.STRING), SortField.FIELD_DOC);
+    for (Query query : queries) {
+      final int n = TestUtil.nextInt(random(), 1, 120);
+      assertEquals(searcher.count(query), slicedSearcher.count(query));
+      CheckHits.checkEqual(query, searcher.search(query, n).scoreDocs, slicedSearcher.search(query, n).scoreDocs);
+      TopDocs expected = searcher.search(query, n, sort);
+      TopDocs actual = slicedSearcher.search(query, n, sort);
+      assertEquals(expected.totalHits, actual.totalHits);
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+      }
+    }
+
+    TestUtil.shutdownExecutorService(service);
+  }
+
   @Test
   public void testSearchAfterPassedMaxDoc() throws Exception {
     // LUCENE-5128: ensure we get a meaningful message if searchAfter exceeds maxDoc
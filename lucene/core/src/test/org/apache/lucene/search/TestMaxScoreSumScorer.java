@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestMaxScoreSumScorer extends LuceneTestCase {
+
+  private static final String[] TERMS = new String[] { "a", "b", "c", "d", "e" };
+
+  private Directory dir;
+  private IndexReader reader;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    // block-max metadata is only recorded by the default postings format
+    iwc.setCodec(TestUtil.getDefaultCodec());
+    iwc.setSimilarity(new BM25Similarity());
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(3000);
+    for (int i = 0; i < numDocs; ++i) {
+      StringBuilder text = new StringBuilder();
+      for (int j = 0; j < TERMS.length; ++j) {
+        // term j is rarer and rarer
+        if (random().nextInt(1 + j * 3) == 0) {
+          final int freq = random().nextInt(10) == 0 ? TestUtil.nextInt(random(), 2, 20) : 1;
+          for (int k = 0; k < freq; ++k) {
+            text.append(TERMS[j]).append(' ');
+          }
+        }
+      }
+      // filler terms to get varying lengths
+      final int numFillers = random().nextInt(10);
+      for (int k = 0; k < numFillers; ++k) {
+        text.append('z').append(' ');
+      }
+      Document doc = new Document();
+      doc.add(new TextField("f", text.toString(), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.forceMerge(1);
+    }
+    reader = DirectoryReader.open(w);
+    w.close();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    reader.close();
+    dir.close();
+    super.tearDown();
+  }
+
+  private static Query randomDisjunction() {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    builder.setDisableCoord(true);
+    final int numClauses = TestUtil.nextInt(random(), 2, TERMS.length);
+    for (int i = 0; i < numClauses; ++i) {
+      Query q = new TermQuery(new Term("f", TERMS[random().nextInt(TERMS.length)]));
+      if (random().nextInt(4) == 0) {
+        q = new BoostQuery(q, TestUtil.nextInt(random(), 1, 5));
+      }
+      builder.add(q, BooleanClause.Occur.SHOULD);
+    }
+    return builder.build();
+  }
+
+  public void testSameTopHits() throws IOException {
+    IndexSearcher searcher = newSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+    searcher.setQueryCache(null);
+    for (int iter = 0; iter < 30; ++iter) {
+      final Query query = randomDisjunction();
+      final int numHits = TestUtil.nextInt(random(), 1, 20);
+
+      TopScoreDocCollector exactCollector = TopScoreDocCollector.create(numHits, null, true);
+      searcher.search(query, exactCollector);
+      TopDocs expected = exactCollector.topDocs();
+
+      TopScoreDocCollector topScoresCollector = TopScoreDocCollector.create(numHits, null, false);
+      searcher.search(query, topScoresCollector);
+      TopDocs actual = topScoresCollector.topDocs();
+
+      assertTrue(actual.totalHits <= expected.totalHits);
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        assertEquals(query.toString(), expected.scoreDocs[i].score, actual.scoreDocs[i].score, 1e-5f);
+      }
+    }
+  }
+
+  public void testSkipsNonCompetitiveDocs() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+    searcher.setQueryCache(null);
+    // a frequent term and a rare term: once the rare term fills the top hits,
+    // docs that only match the frequent term are not competitive
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    builder.setDisableCoord(true);
+    builder.add(new TermQuery(new Term("f", "a")), BooleanClause.Occur.SHOULD);
+    builder.add(new BoostQuery(new TermQuery(new Term("f", "e")), 100), BooleanClause.Occur.SHOULD);
+    final Query query = builder.build();
+
+    final Weight weight = searcher.createNormalizedWeight(query, true);
+    for (LeafReaderContext ctx : reader.leaves()) {
+      List<Scorer> scorers = new ArrayList<>();
+      for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+        Scorer scorer = searcher.createNormalizedWeight(clause.getQuery(), true).scorer(ctx);
+        if (scorer != null) {
+          scorers.add(scorer);
+        }
+      }
+      if (scorers.size() < 2) {
+        continue;
+      }
+      assertTrue(MaxScoreSumScorer.canUse(scorers));
+      MaxScoreSumScorer scorer = new MaxScoreSumScorer(weight, scorers);
+      // the boosted clause alone is competitive, documents that only match "a" are not
+      final float minScore = scorers.get(0).getMaxScore(DocIdSetIterator.NO_MORE_DOCS) + Math.ulp(1f) * 1000;
+      scorer.setMinCompetitiveScore(minScore);
+      DocIdSetIterator it = scorer.iterator();
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        assertTrue(scorer.score() >= minScore);
+        boolean matchesRareTerm = false;
+        for (Scorer.ChildScorer child : scorer.getChildren()) {
+          if (child.child == scorers.get(1)) {
+            matchesRareTerm = true;
+          }
+        }
+        assertTrue(matchesRareTerm);
+      }
+    }
+  }
+
+}
@@ -18,10 +18,18 @@ package org.apache.lucene.store;
 
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.function.BiPredicate;
 
+import org.apache.lucene.util.InfoStream;
 import org.junit.Ignore;
 
 /**
@@ -32,9 +40,109 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
   @Override
   protected Directory getDirectory(Path path) throws IOException {
     MMapDirectory m = new MMapDirectory(path);
-    m.setPreload(random().nextBoolean());
+    switch (random().nextInt(3)) {
+      case 0:
+        m.setPreload(random().nextBoolean());
+        break;
+      case 1:
+        m.setPreload(MMapDirectory.preloadExtensions(Collections.singleton("tip")));
+        break;
+      default:
+        // may be called from other threads than the test's
+        final Random random = new Random(random().nextLong());
+        m.setPreload((name, context) -> random.nextBoolean());
+        break;
+    }
+    if (random().nextBoolean()) {
+      m.setReadAdvice(MMapDirectory.readAdviceByExtension(
+          Collections.singletonMap("doc", MMapDirectory.ReadAdvice.RANDOM), MMapDirectory.ReadAdvice.SEQUENTIAL));
+    }
     return m;
   }
+
+  public void testReadAdvicePolicy() throws Exception {
+    final List<MMapDirectory.ReadAdvice> advised = new ArrayList<>();
+    final Path path = createTempDir("testReadAdvicePolicy");
+    try (MMapDirectory dir = new MMapDirectory(path) {
+      @Override
+      protected void advise(MappedByteBuffer buffer, ReadAdvice advice) {
+        advised.add(advice);
+      }
+    }) {
+      dir.setReadAdvice(MMapDirectory.readAdviceByExtension(
+          Collections.singletonMap("doc", MMapDirectory.ReadAdvice.RANDOM), MMapDirectory.ReadAdvice.SEQUENTIAL));
+      for (String name : new String[] {"_0.doc", "_0.tim"}) {
+        try (IndexOutput out = dir.createOutput(name, IOContext.DEFAULT)) {
+          out.writeInt(42);
+        }
+      }
+
+      advised.clear();
+      dir.openInput("_0.doc", IOContext.DEFAULT).close();
+      assertEquals(Collections.singleton(MMapDirectory.ReadAdvice.RANDOM), new HashSet<>(advised));
+
+      // no advice needs to be given for NORMAL files
+      advised.clear();
+      dir.openInput("_0.tim", IOContext.DEFAULT).close();
+      assertTrue(advised.isEmpty());
+
+      final IOContext merge = new IOContext(new MergeInfo(1, 4, false, 1));
+      advised.clear();
+      dir.openInput("_0.doc", merge).close();
+      assertEquals(Collections.singleton(MMapDirectory.ReadAdvice.SEQUENTIAL), new HashSet<>(advised));
+      advised.clear();
+      dir.openInput("_0.tim", merge).close();
+      assertEquals(Collections.singleton(MMapDirectory.ReadAdvice.SEQUENTIAL), new HashSet<>(advised));
+    }
+  }
+
+  public void testReadAdviceFailureIsNotFatal() throws Exception {
+    final List<String> messages = new ArrayList<>();
+    final InfoStream previous = InfoStream.getDefault();
+    InfoStream.setDefault(new InfoStream() {
+      @Override
+      public void message(String component, String message) {
+        messages.add(message);
+      }
+
+      @Override
+      public boolean isEnabled(String component) {
+        return "MMapDirectory".equals(component);
+      }
+
+      @Override
+      public void close() {}
+    });
+    final Path path = createTempDir("testReadAdviceFailureIsNotFatal");
+    try (MMapDirectory dir = new MMapDirectory(path) {
+      @Override
+      protected void advise(MappedByteBuffer buffer, ReadAdvice advice) throws IOException {
+        throw new IOException("Invalid argument");
+      }
+    }) {
+      dir.setReadAdvice((name, context) -> MMapDirectory.ReadAdvice.RANDOM);
+      try (IndexOutput out = dir.createOutput("_0.doc", IOContext.DEFAULT)) {
+        out.writeInt(42);
+      }
+      for (int i = 0; i < 2; i++) {
+        try (IndexInput in = dir.openInput("_0.doc", IOContext.DEFAULT)) {
+          assertEquals(42, in.readInt());
+        }
+      }
+      assertEquals(messages.toString(), 1, messages.size());
+      assertTrue(messages.get(0), messages.get(0).contains("Invalid argument"));
+    } finally {
+      InfoStream.setDefault(previous);
+    }
+  }
+
+  public void testPreloadExtensions() {
+    final BiPredicate<String,IOContext> preload = MMapDirectory.preloadExtensions(new HashSet<>(Arrays.asList("tip", "dvd")));
+    assertTrue(preload.test("_0.tip", IOContext.READ));
+    assertTrue(preload.test("_1_Lucene54_0.dvd", IOContext.DEFAULT));
+    assertFalse(preload.test("_0.tim", IOContext.READ));
+    assertFalse(preload.test("segments_1", IOContext.READ));
+  }
   
   @Override
   public void setUp() throws Exception {
@@ -88,6 +88,39 @@ public abstract class Expression {
    */
   public abstract double evaluate(DoubleValues[] functionValues);
 
+  /**
+   * Evaluates the expression for a block of documents.
+   * <p>
+   * The default implementation calls {@link #evaluate(DoubleValues[])} for each document,
+   * expressions compiled by {@link JavascriptCompiler} compute the whole block in a single loop.
+   *
+   * @param values The values of each element of {@link #variables}: {@code values[i][j]} is the
+   *        value of {@code variables[i]} for the {@code j}-th document of the block.
+   * @param count The number of documents in the block.
+   * @param result Receives the computed value of the expression for each document of the block.
+   */
+  public void evaluate(double[][] values, int count, double[] result) {
+    final int[] current = new int[1];
+    final DoubleValues[] functionValues = new DoubleValues[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final double[] column = values[i];
+      functionValues[i] = new DoubleValues() {
+        @Override
+        public double doubleValue() {
+          return column[current[0]];
+        }
+
+        @Override
+        public boolean advanceExact(int doc) {
+          return true;
+        }
+      };
+    }
+    for (current[0] = 0; current[0] < count; current[0]++) {
+      result[current[0]] = evaluate(functionValues);
+    }
+  }
+
   /**
    * Get a DoubleValuesSource which can compute the value of this expression in the context of the given bindings.
    * @param bindings Bindings to use for external values in this expression
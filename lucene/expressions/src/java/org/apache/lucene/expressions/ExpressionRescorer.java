@@ -25,11 +25,17 @@ import java.util.List;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.DoubleValues;
+import org.apache.lucene.search.DoubleValuesSource;
 import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Rescorer;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.SortRescorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
 
 /**
  * A {@link Rescorer} that uses an expression to re-score
@@ -46,13 +52,107 @@ class ExpressionRescorer extends SortRescorer {
 
   private final Expression expression;
   private final Bindings bindings;
+  private final SortField sortField;
+  private final DoubleValuesSource[] variables;
 
   /** Uses the provided {@link Expression} to assign second
    *  pass scores. */
   public ExpressionRescorer(Expression expression, Bindings bindings) {
-    super(new Sort(expression.getSortField(bindings, true)));
+    this(expression, bindings, expression.getSortField(bindings, true));
+  }
+
+  private ExpressionRescorer(Expression expression, Bindings bindings, SortField sortField) {
+    super(new Sort(sortField));
     this.expression = expression;
     this.bindings = bindings;
+    this.sortField = sortField;
+    this.variables = new DoubleValuesSource[expression.variables.length];
+    for (int i = 0; i < variables.length; i++) {
+      variables[i] = bindings.getDoubleValuesSource(expression.variables[i]);
+    }
+  }
+
+  /** Sorts the hits by the value of the expression like {@link SortRescorer}, but evaluates the
+   *  expression for all hits of a segment at once with {@link Expression#evaluate(double[][], int, double[])}. */
+  @Override
+  public TopDocs rescore(IndexSearcher searcher, TopDocs firstPassTopDocs, int topN) throws IOException {
+
+    // Copy ScoreDoc[] and sort by ascending docID:
+    ScoreDoc[] hits = firstPassTopDocs.scoreDocs.clone();
+    Arrays.sort(hits, (a, b) -> a.doc - b.doc);
+
+    List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+
+    FieldDoc[] rescored = new FieldDoc[hits.length];
+    float maxScore = Float.NEGATIVE_INFINITY;
+    int hitUpto = 0;
+    while (hitUpto < hits.length) {
+      LeafReaderContext readerContext = leaves.get(ReaderUtil.subIndex(hits[hitUpto].doc, leaves));
+      int endDoc = readerContext.docBase + readerContext.reader().maxDoc();
+      int hitEnd = hitUpto + 1;
+      while (hitEnd < hits.length && hits[hitEnd].doc < endDoc) {
+        hitEnd++;
+      }
+      double[] values = evaluate(readerContext, hits, hitUpto, hitEnd);
+      for (int i = hitUpto; i < hitEnd; i++) {
+        rescored[i] = new FieldDoc(hits[i].doc, hits[i].score, new Object[] {values[i - hitUpto]});
+        maxScore = Math.max(maxScore, hits[i].score);
+      }
+      hitUpto = hitEnd;
+    }
+
+    // Same order as a TopFieldCollector sorting by the expression in reverse:
+    Arrays.sort(rescored, (a, b) -> {
+      int cmp = Double.compare((Double) b.fields[0], (Double) a.fields[0]);
+      return cmp != 0 ? cmp : a.doc - b.doc;
+    });
+    if (topN < rescored.length) {
+      rescored = Arrays.copyOf(rescored, topN);
+    }
+
+    return new TopFieldDocs(hits.length, rescored, new SortField[] {sortField},
+        hits.length == 0 ? Float.NaN : maxScore);
+  }
+
+  /** Computes the value of the expression for the hits in {@code [from, to)}, which all belong to the given segment. */
+  private double[] evaluate(LeafReaderContext readerContext, ScoreDoc[] hits, int from, int to) throws IOException {
+    final int count = to - from;
+    final int docBase = readerContext.docBase;
+    final double[][] columns = new double[variables.length][];
+    for (int i = 0; i < variables.length; i++) {
+      final double[] column = new double[count];
+      DoubleValues values = variables[i].getValues(readerContext, scores(hits, from, to, docBase));
+      for (int j = 0; j < count; j++) {
+        if (values.advanceExact(hits[from + j].doc - docBase)) {
+          column[j] = values.doubleValue();
+        }
+      }
+      columns[i] = column;
+    }
+    final double[] result = new double[count];
+    expression.evaluate(columns, count, result);
+    return result;
+  }
+
+  /** Returns the first pass scores of the hits in {@code [from, to)}, which must be advanced to in order. */
+  private static DoubleValues scores(ScoreDoc[] hits, int from, int to, int docBase) {
+    return new DoubleValues() {
+      int upto = from - 1;
+
+      @Override
+      public double doubleValue() throws IOException {
+        return hits[upto].score;
+      }
+
+      @Override
+      public boolean advanceExact(int target) throws IOException {
+        while (upto < to - 1 && hits[upto + 1].doc - docBase <= target) {
+          upto++;
+        }
+        assert upto >= from && hits[upto].doc - docBase == target;
+        return true;
+      }
+    };
   }
 
   private static DoubleValues scores(int doc, float score) {
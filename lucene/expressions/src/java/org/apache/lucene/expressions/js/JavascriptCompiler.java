@@ -33,6 +33,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.IntConsumer;
 
 import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CommonTokenStream;
@@ -94,10 +95,12 @@ public final class JavascriptCompiler {
   
   static final Type EXPRESSION_TYPE = Type.getType(Expression.class);
   static final Type FUNCTION_VALUES_TYPE = Type.getType(DoubleValues.class);
+  static final Type DOUBLE_ARRAY_TYPE = Type.getType(double[].class);
 
   private static final org.objectweb.asm.commons.Method
     EXPRESSION_CTOR = getAsmMethod(void.class, "<init>", String.class, String[].class),
-    EVALUATE_METHOD = getAsmMethod(double.class, "evaluate", DoubleValues[].class);
+    EVALUATE_METHOD = getAsmMethod(double.class, "evaluate", DoubleValues[].class),
+    EVALUATE_BLOCK_METHOD = getAsmMethod(void.class, "evaluate", double[][].class, int.class, double[].class);
 
   static final org.objectweb.asm.commons.Method DOUBLE_VAL_METHOD = getAsmMethod(double.class, "doubleValue");
   
@@ -247,7 +250,51 @@ public final class JavascriptCompiler {
     
     final GeneratorAdapter gen = new GeneratorAdapter(Opcodes.ACC_PUBLIC,
         EVALUATE_METHOD, null, null, classWriter);
+    generateExpression(parseTree, gen, externalsMap, index -> {
+      gen.loadArg(0);
+      gen.push(index);
+      gen.arrayLoad(FUNCTION_VALUES_TYPE);
+      gen.invokeVirtual(FUNCTION_VALUES_TYPE, DOUBLE_VAL_METHOD);
+    });
+    gen.returnValue();
+    gen.endMethod();
+
+    // the same expression in a loop over a block of documents, reading the variables from the columns:
+    final GeneratorAdapter blockGen = new GeneratorAdapter(Opcodes.ACC_PUBLIC,
+        EVALUATE_BLOCK_METHOD, null, null, classWriter);
+    final int doc = blockGen.newLocal(Type.INT_TYPE);
+    final Label loop = new Label(), end = new Label();
+    blockGen.push(0);
+    blockGen.storeLocal(doc);
+    blockGen.mark(loop);
+    blockGen.loadLocal(doc);
+    blockGen.loadArg(1);
+    blockGen.ifICmp(GeneratorAdapter.GE, end);
+    blockGen.loadArg(2);
+    blockGen.loadLocal(doc);
+    generateExpression(parseTree, blockGen, externalsMap, index -> {
+      blockGen.loadArg(0);
+      blockGen.push(index);
+      blockGen.arrayLoad(DOUBLE_ARRAY_TYPE);
+      blockGen.loadLocal(doc);
+      blockGen.arrayLoad(Type.DOUBLE_TYPE);
+    });
+    blockGen.arrayStore(Type.DOUBLE_TYPE);
+    blockGen.iinc(doc, 1);
+    blockGen.goTo(loop);
+    blockGen.mark(end);
+    blockGen.returnValue();
+    blockGen.endMethod();
     
+    classWriter.visitEnd();
+  }
+
+  /**
+   * Sends the bytecode computing the value of the expression to the given {@link GeneratorAdapter},
+   * using {@code pushVariable} to push the value of the external variable with the given index.
+   */
+  private void generateExpression(final ParseTree parseTree, final GeneratorAdapter gen,
+      final Map<String, Integer> externalsMap, final IntConsumer pushVariable) throws ParseException {
     // to completely hide the ANTLR visitor we use an anonymous impl:
     new JavascriptBaseVisitor<Void>() {
       private final Deque<Type> typeStack = new ArrayDeque<>();
@@ -325,10 +372,7 @@ public final class JavascriptCompiler {
             externalsMap.put(text, index);
           }
 
-          gen.loadArg(0);
-          gen.push(index);
-          gen.arrayLoad(FUNCTION_VALUES_TYPE);
-          gen.invokeVirtual(FUNCTION_VALUES_TYPE, DOUBLE_VAL_METHOD);
+          pushVariable.accept(index);
           gen.cast(Type.DOUBLE_TYPE, typeStack.peek());
         } else {
           throwChecked(new ParseException("Invalid expression '" + sourceText + "': Unrecognized function call (" +
@@ -634,11 +678,6 @@ public final class JavascriptCompiler {
         throw (T) t;
       }
     }.visit(parseTree);
-    
-    gen.returnValue();
-    gen.endMethod();
-    
-    classWriter.visitEnd();
   }
 
   static String normalizeQuotes(String text) {
@@ -25,10 +25,14 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Rescorer;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortRescorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.similarities.ClassicSimilarity;
@@ -117,4 +121,46 @@ public class TestExpressionRescorer extends LuceneTestCase {
     assertTrue(expl.contains("= first pass score"));
     assertTrue(expl.contains("body:contents in"));
   }
+
+  public void testSameAsSortRescorer() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
+    int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(newTextField("body", random().nextBoolean() ? "contents" : "more contents", Field.Store.NO));
+      if (random().nextInt(5) != 0) {
+        doc.add(new NumericDocValuesField("popularity", random().nextInt(10)));
+      }
+      iw.addDocument(doc);
+    }
+    IndexReader r = iw.getReader();
+    iw.close();
+    IndexSearcher searcher = newSearcher(r);
+
+    Expression e = JavascriptCompiler.compile("sqrt(_score) + ln(popularity + 1)");
+    SimpleBindings bindings = new SimpleBindings();
+    bindings.add(new SortField("popularity", SortField.Type.INT));
+    bindings.add(new SortField("_score", SortField.Type.SCORE));
+
+    Query query = random().nextBoolean() ? new MatchAllDocsQuery() : new TermQuery(new Term("body", "more"));
+    TopDocs firstPass = searcher.search(query, numDocs);
+    int topN = 1 + random().nextInt(numDocs);
+    TopDocs expected = new SortRescorer(new Sort(e.getSortField(bindings, true))).rescore(searcher, firstPass, topN);
+    TopDocs actual = e.getRescorer(bindings).rescore(searcher, firstPass, topN);
+
+    assertEquals(expected.totalHits, actual.totalHits);
+    assertEquals(expected.getMaxScore(), actual.getMaxScore(), 0f);
+    assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+    for (int i = 0; i < expected.scoreDocs.length; i++) {
+      FieldDoc expectedHit = (FieldDoc) expected.scoreDocs[i];
+      FieldDoc actualHit = (FieldDoc) actual.scoreDocs[i];
+      assertEquals(expectedHit.doc, actualHit.doc);
+      assertEquals(expectedHit.score, actualHit.score, 0f);
+      assertEquals(expectedHit.fields[0], actualHit.fields[0]);
+    }
+
+    r.close();
+    dir.close();
+  }
 }
@@ -19,6 +19,7 @@ package org.apache.lucene.expressions.js;
 import java.text.ParseException;
 
 import org.apache.lucene.expressions.Expression;
+import org.apache.lucene.search.DoubleValues;
 import org.apache.lucene.util.LuceneTestCase;
 
 public class TestJavascriptCompiler extends LuceneTestCase {
@@ -195,4 +196,42 @@ public class TestJavascriptCompiler extends LuceneTestCase {
     x = JavascriptCompiler.compile("foo['\\\\'][\"\\\\\"]");
     assertEquals("foo['\\\\']['\\\\']", x.variables[0]);
   }
+
+  public void testBlockEvaluation() throws Exception {
+    String[] sources = {"x * 2 + y", "sqrt(x) + ln(y + 1) * (x > y ? 3 : -1)", "x | 3", "!x || y && x", "42", "x.y + x"};
+    for (String source : sources) {
+      Expression expr = JavascriptCompiler.compile(source);
+      int count = atLeast(10);
+      double[][] values = new double[expr.variables.length][count];
+      for (double[] column : values) {
+        for (int i = 0; i < count; i++) {
+          column[i] = random().nextInt(100) / 3.0;
+        }
+      }
+      double[] result = new double[count + 1];
+      result[count] = -1;
+      expr.evaluate(values, count, result);
+      assertEquals("must not write past count", -1, result[count], 0);
+
+      for (int i = 0; i < count; i++) {
+        final int doc = i;
+        DoubleValues[] functionValues = new DoubleValues[values.length];
+        for (int j = 0; j < values.length; j++) {
+          final double[] column = values[j];
+          functionValues[j] = new DoubleValues() {
+            @Override
+            public double doubleValue() {
+              return column[doc];
+            }
+
+            @Override
+            public boolean advanceExact(int target) {
+              return true;
+            }
+          };
+        }
+        assertEquals(source, expr.evaluate(functionValues), result[i], 0);
+      }
+    }
+  }
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * An {@link MMapDirectory} that passes the {@link MMapDirectory.ReadAdvice}
+ * of each mapped file on to the operating system with <code>madvise</code>.
+ *
+ * <p>This needs the <code>libNativePosixUtil.so</code> library described in
+ * {@link NativeUnixDirectory}. If it can not be loaded, the advice is
+ * silently ignored and this directory behaves exactly like
+ * {@link MMapDirectory}; use {@link #isNativeAdviceAvailable()} to check.
+ *
+ * @lucene.experimental
+ */
+public class NativeMMapDirectory extends MMapDirectory {
+
+  private static final boolean NATIVE_ADVICE_AVAILABLE;
+
+  static {
+    boolean available;
+    try {
+      // initializing the class loads the native library
+      Class.forName(NativePosixUtil.class.getName(), true, NativeMMapDirectory.class.getClassLoader());
+      available = true;
+    } catch (LinkageError | ClassNotFoundException e) {
+      available = false;
+    }
+    NATIVE_ADVICE_AVAILABLE = available;
+  }
+
+  /** Create a new NativeMMapDirectory for the named location.
+   *
+   * @param path the path of the directory
+   * @param lockFactory the lock factory to use
+   * @param maxChunkSize maximum chunk size used for memory mapping, see
+   *   {@link MMapDirectory#MMapDirectory(Path, LockFactory, int)}
+   * @throws IOException if there is a low-level I/O error
+   */
+  public NativeMMapDirectory(Path path, LockFactory lockFactory, int maxChunkSize) throws IOException {
+    super(path, lockFactory, maxChunkSize);
+  }
+
+  /** Create a new NativeMMapDirectory for the named location and {@link FSLockFactory#getDefault()}.
+   *
+   * @param path the path of the directory
+   * @throws IOException if there is a low-level I/O error
+   */
+  public NativeMMapDirectory(Path path) throws IOException {
+    this(path, FSLockFactory.getDefault(), DEFAULT_MAX_CHUNK_SIZE);
+  }
+
+  /** Returns true if the native library could be loaded, so that read advice is applied. */
+  public static boolean isNativeAdviceAvailable() {
+    return NATIVE_ADVICE_AVAILABLE;
+  }
+
+  @Override
+  protected void advise(MappedByteBuffer buffer, ReadAdvice advice) throws IOException {
+    if (NATIVE_ADVICE_AVAILABLE == false || buffer.capacity() == 0) {
+      return;
+    }
+    final int nativeAdvice;
+    switch (advice) {
+      case RANDOM:
+        nativeAdvice = NativePosixUtil.RANDOM;
+        break;
+      case SEQUENTIAL:
+        nativeAdvice = NativePosixUtil.SEQUENTIAL;
+        break;
+      default:
+        nativeAdvice = NativePosixUtil.NORMAL;
+        break;
+    }
+    NativePosixUtil.madvise(buffer, nativeAdvice);
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Tests NativeMMapDirectory; without the native library the advice is a no-op
+ */
+public class TestNativeMMapDirectory extends BaseDirectoryTestCase {
+
+  @Override
+  protected Directory getDirectory(Path path) throws IOException {
+    NativeMMapDirectory dir = new NativeMMapDirectory(path);
+    MMapDirectory.ReadAdvice[] advice = MMapDirectory.ReadAdvice.values();
+    // may be called from other threads than the test's
+    Random random = new Random(random().nextLong());
+    dir.setReadAdvice((name, context) -> advice[random.nextInt(advice.length)]);
+    return dir;
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    assumeTrue(MMapDirectory.UNMAP_NOT_SUPPORTED_REASON, MMapDirectory.UNMAP_SUPPORTED);
+  }
+}
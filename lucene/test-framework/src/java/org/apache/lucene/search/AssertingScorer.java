@@ -72,6 +72,30 @@ public class AssertingScorer extends Scorer {
     return score;
   }
 
+  @Override
+  public void setMinCompetitiveScore(float minScore) throws IOException {
+    assert needsScores;
+    assert minScore >= 0 : "minScore=" + minScore;
+    in.setMinCompetitiveScore(minScore);
+  }
+
+  @Override
+  public int advanceShallow(int target) throws IOException {
+    assert needsScores;
+    assert target >= docID() : "target=" + target + ", doc=" + docID();
+    final int upTo = in.advanceShallow(target);
+    assert upTo >= target : "upTo=" + upTo + ", target=" + target;
+    return upTo;
+  }
+
+  @Override
+  public float getMaxScore(int upTo) throws IOException {
+    assert needsScores;
+    final float maxScore = in.getMaxScore(upTo);
+    assert Float.isNaN(maxScore) == false;
+    return maxScore;
+  }
+
   @Override
   public Collection<ChildScorer> getChildren() {
     // We cannot hide that we hold a single child, else
@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Rescorer;
@@ -40,6 +41,12 @@ import org.apache.solr.search.SolrIndexSearcher;
  * */
 public class LTRRescorer extends Rescorer {
 
+  /**
+   * Maximum number of documents whose features are extracted before the model
+   * scores them all at once.
+   */
+  static final int FEATURE_BLOCK_SIZE = 64;
+
   LTRScoringQuery scoringQuery;
   public LTRRescorer(LTRScoringQuery scoringQuery) {
     this.scoringQuery = scoringQuery;
@@ -150,6 +157,27 @@ public class LTRRescorer extends Rescorer {
     int hitUpto = 0;
     final FeatureLogger featureLogger = scoringQuery.getFeatureLogger();
 
+    if (featureLogger == null) {
+      // nothing needs the features of individual documents, so all the
+      // hits can be scored up-front, a block at a time
+      scoreFeatureBlocks(modelWeight, hits, leaves);
+      for (; hitUpto < hits.length; hitUpto++) {
+        final ScoreDoc hit = hits[hitUpto];
+        if (hitUpto < topN) {
+          reranked[hitUpto] = hit;
+          continue;
+        }
+        if (hitUpto == topN) {
+          heapify(reranked, topN);
+        }
+        if (hit.score > reranked[0].score) {
+          reranked[0] = hit;
+          heapAdjust(reranked, topN, 0);
+        }
+      }
+      return;
+    }
+
     while (hitUpto < hits.length) {
       final ScoreDoc hit = hits[hitUpto];
       final int docID = hit.doc;
@@ -210,6 +238,54 @@ public class LTRRescorer extends Rescorer {
     }
   }
 
+  /**
+   * Replaces the score of every hit with the model's score. The hits must be
+   * sorted by docID. The features of up to {@link #FEATURE_BLOCK_SIZE} hits of
+   * a segment are extracted into a reused matrix which the model then scores
+   * in a single call, instead of scoring each document as soon as its
+   * features are known.
+   */
+  void scoreFeatureBlocks(LTRScoringQuery.ModelWeight modelWeight, ScoreDoc[] hits,
+      List<LeafReaderContext> leaves) throws IOException {
+    final int blockSize = Math.min(FEATURE_BLOCK_SIZE, hits.length);
+    final float[][] features = new float[blockSize][modelWeight.getNumModelFeatures()];
+    final float[] scores = new float[blockSize];
+
+    int readerUpto = -1;
+    int endDoc = 0;
+    int hitUpto = 0;
+    while (hitUpto < hits.length) {
+      LeafReaderContext readerContext = null;
+      while (hits[hitUpto].doc >= endDoc) {
+        readerUpto++;
+        readerContext = leaves.get(readerUpto);
+        endDoc = readerContext.docBase + readerContext.reader().maxDoc();
+      }
+      final int docBase = readerContext.docBase;
+      final LTRScoringQuery.ModelWeight.ModelScorer scorer = modelWeight.scorer(readerContext);
+      final DocIdSetIterator iterator = scorer.iterator();
+
+      int segmentEnd = hitUpto;
+      while (segmentEnd < hits.length && hits[segmentEnd].doc < endDoc) {
+        segmentEnd++;
+      }
+      while (hitUpto < segmentEnd) {
+        final int numDocs = Math.min(blockSize, segmentEnd - hitUpto);
+        for (int i = 0; i < numDocs; i++) {
+          final ScoreDoc hit = hits[hitUpto + i];
+          iterator.advance(hit.doc - docBase);
+          scorer.getDocInfo().setOriginalDocScore(new Float(hit.score));
+          scorer.fillNormalizedFeatures(features[i]);
+        }
+        modelWeight.scoreNormalizedFeatures(features, numDocs, scores);
+        for (int i = 0; i < numDocs; i++) {
+          hits[hitUpto + i].score = scores[i];
+        }
+        hitUpto += numDocs;
+      }
+    }
+  }
+
   @Override
   public Explanation explain(IndexSearcher searcher,
       Explanation firstPassExplanation, int docID) throws IOException {
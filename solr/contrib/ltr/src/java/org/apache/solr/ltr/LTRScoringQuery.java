@@ -404,19 +404,41 @@ public class LTRScoringQuery extends Query {
      * Then calculate and return the model's score.
      */
     private float makeNormalizedFeaturesAndScore() {
+      makeNormalizedFeatures(modelFeatureValuesNormalized);
+      return ltrScoringModel.score(modelFeatureValuesNormalized);
+    }
+
+    /**
+     * Copies the stored values of the features used by the model into
+     * <code>dest</code> and normalizes them in place.
+     */
+    private void makeNormalizedFeatures(float[] dest) {
       int pos = 0;
       for (final Feature.FeatureWeight feature : modelFeatureWeights) {
         final int featureId = feature.getIndex();
         FeatureInfo fInfo = featuresInfo[featureId];
         if (fInfo.isUsed()) { // not checking for finfo == null as that would be a bug we should catch
-          modelFeatureValuesNormalized[pos] = fInfo.getValue();
+          dest[pos] = fInfo.getValue();
         } else {
-          modelFeatureValuesNormalized[pos] = feature.getDefaultValue();
+          dest[pos] = feature.getDefaultValue();
         }
         pos++;
       }
-      ltrScoringModel.normalizeFeaturesInPlace(modelFeatureValuesNormalized);
-      return ltrScoringModel.score(modelFeatureValuesNormalized);
+      ltrScoringModel.normalizeFeaturesInPlace(dest);
+    }
+
+    /** Number of features used by the model, i.e. the length of a normalized feature vector */
+    public int getNumModelFeatures() {
+      return modelFeatureWeights.length;
+    }
+
+    /**
+     * Scores a block of documents whose normalized feature vectors were filled
+     * by {@link ModelScorer#fillNormalizedFeatures(float[])}, setting
+     * <code>scores[i]</code> to the model's score of <code>modelFeatureValuesNormalized[i]</code>.
+     */
+    public void scoreNormalizedFeatures(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+      ltrScoringModel.score(modelFeatureValuesNormalized, numDocs, scores);
     }
 
     @Override
@@ -493,7 +515,7 @@ public class LTRScoringQuery extends Query {
 
     public class ModelScorer extends Scorer {
       final private DocInfo docInfo;
-      final private Scorer featureTraversalScorer;
+      final private FeatureTraversalScorer featureTraversalScorer;
 
       public DocInfo getDocInfo() {
         return docInfo;
@@ -528,6 +550,18 @@ public class LTRScoringQuery extends Query {
         return featureTraversalScorer.score();
       }
 
+      /**
+       * Extracts the features of the current document and writes their
+       * normalized values, in model feature order, into <code>dest</code>
+       * without scoring them. This lets callers gather a block of documents
+       * and score them all at once with
+       * {@link ModelWeight#scoreNormalizedFeatures(float[][], int, float[])}.
+       */
+      public void fillNormalizedFeatures(float[] dest) throws IOException {
+        featureTraversalScorer.extractFeatures();
+        makeNormalizedFeatures(dest);
+      }
+
       @Override
       public int freq() throws IOException {
         return featureTraversalScorer.freq();
@@ -538,7 +572,23 @@ public class LTRScoringQuery extends Query {
         return featureTraversalScorer.iterator();
       }
 
-      private class SparseModelScorer extends Scorer {
+      private abstract class FeatureTraversalScorer extends Scorer {
+
+        FeatureTraversalScorer(Weight weight) {
+          super(weight);
+        }
+
+        /** Stores the values of the features matching the current document in featuresInfo */
+        abstract void extractFeatures() throws IOException;
+
+        @Override
+        public float score() throws IOException {
+          extractFeatures();
+          return makeNormalizedFeaturesAndScore();
+        }
+      }
+
+      private class SparseModelScorer extends FeatureTraversalScorer {
         final private DisiPriorityQueue subScorers;
         final private ScoringQuerySparseIterator itr;
 
@@ -567,7 +617,7 @@ public class LTRScoringQuery extends Query {
         }
 
         @Override
-        public float score() throws IOException {
+        void extractFeatures() throws IOException {
           final DisiWrapper topList = subScorers.topList();
           // If target doc we wanted to advance to matches the actual doc
           // the underlying features advanced to, perform the feature
@@ -584,7 +634,6 @@ public class LTRScoringQuery extends Query {
               featuresInfo[featureId].setUsed(true);
             }
           }
-          return makeNormalizedFeaturesAndScore();
         }
 
         @Override
@@ -644,7 +693,7 @@ public class LTRScoringQuery extends Query {
 
       }
 
-      private class DenseModelScorer extends Scorer {
+      private class DenseModelScorer extends FeatureTraversalScorer {
         private int activeDoc = -1; // The doc that our scorer's are actually at
         private int targetDoc = -1; // The doc we were most recently told to go to
         private int freq = -1;
@@ -662,7 +711,7 @@ public class LTRScoringQuery extends Query {
         }
 
         @Override
-        public float score() throws IOException {
+        void extractFeatures() throws IOException {
           reset();
           freq = 0;
           if (targetDoc == activeDoc) {
@@ -676,7 +725,6 @@ public class LTRScoringQuery extends Query {
               }
             }
           }
-          return makeNormalizedFeaturesAndScore();
         }
 
         @Override
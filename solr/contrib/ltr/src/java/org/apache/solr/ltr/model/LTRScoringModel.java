@@ -250,6 +250,25 @@ public abstract class LTRScoringModel {
    */
   public abstract float score(float[] modelFeatureValuesNormalized);
 
+  /**
+   * Scores several documents at once, setting <code>scores[i]</code> to the
+   * score of <code>modelFeatureValuesNormalized[i]</code> for each i &lt; numDocs.
+   * Models that can evaluate many documents more efficiently than one at a
+   * time should override this.
+   *
+   * @param modelFeatureValuesNormalized
+   *          Normalized feature values of each document, as for {@link #score(float[])}
+   * @param numDocs
+   *          Number of documents to score
+   * @param scores
+   *          Receives the score of each document
+   */
+  public void score(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+    for (int i = 0; i < numDocs; i++) {
+      scores[i] = score(modelFeatureValuesNormalized[i]);
+    }
+  }
+
   /**
    * Similar to the score() function, except it returns an explanation of how
    * the features were used to calculate the score.
@@ -17,6 +17,7 @@
 package org.apache.solr.ltr.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -93,6 +94,15 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
   private final HashMap<String,Integer> fname2index;
   private List<RegressionTree> trees;
 
+  // The trees flattened into arrays by validate(), which is what scoring uses.
+  // Nodes are stored in pre-order, so the left child of node i is node i+1.
+  private int[] treeRoot;
+  private float[] treeWeight;
+  private int[] nodeFeatureIndex; // -1 for leaves
+  private float[] nodeThreshold;
+  private float[] nodeValue;
+  private int[] nodeRight;
+
   private RegressionTree createRegressionTree(Map<String,Object> map) {
     final RegressionTree rt = new RegressionTree();
     if (map != null) {
@@ -319,17 +329,100 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
     for (RegressionTree tree : trees) {
       tree.validate();
     }
+    flatten();
+  }
+
+  private void flatten() {
+    int numNodes = 0;
+    for (final RegressionTree t : trees) {
+      numNodes += countNodes(t.root);
+    }
+    treeRoot = new int[trees.size()];
+    treeWeight = new float[trees.size()];
+    nodeFeatureIndex = new int[numNodes];
+    nodeThreshold = new float[numNodes];
+    nodeValue = new float[numNodes];
+    nodeRight = new int[numNodes];
+
+    int upto = 0;
+    for (int i = 0; i < treeRoot.length; i++) {
+      final RegressionTree t = trees.get(i);
+      treeRoot[i] = upto;
+      treeWeight[i] = t.weight.floatValue();
+      upto = flatten(t.root, upto);
+    }
+    assert upto == numNodes;
+  }
+
+  private static int countNodes(RegressionTreeNode node) {
+    if (node.isLeaf() || node.featureIndex < 0) {
+      return 1;
+    }
+    return 1 + countNodes(node.left) + countNodes(node.right);
+  }
+
+  private int flatten(RegressionTreeNode node, int upto) {
+    final int idx = upto++;
+    if (node.isLeaf() || node.featureIndex < 0) {
+      // a node on an unsupported feature scores 0, see RegressionTreeNode.score
+      nodeFeatureIndex[idx] = -1;
+      nodeValue[idx] = node.isLeaf() ? node.value : 0f;
+      return upto;
+    }
+    nodeFeatureIndex[idx] = node.featureIndex;
+    nodeThreshold[idx] = node.threshold.floatValue();
+    upto = flatten(node.left, upto);
+    nodeRight[idx] = upto;
+    return flatten(node.right, upto);
+  }
+
+  private float leafValue(int node, float[] featureVector) {
+    int featureIndex;
+    while ((featureIndex = nodeFeatureIndex[node]) >= 0) {
+      node = featureVector[featureIndex] <= nodeThreshold[node] ? node + 1 : nodeRight[node];
+    }
+    return nodeValue[node];
   }
 
   @Override
   public float score(float[] modelFeatureValuesNormalized) {
+    if (modelFeatureValuesNormalized.length < features.size()) {
+      // some nodes may look past the end of the vector, let the trees deal with it
+      float score = 0;
+      for (final RegressionTree t : trees) {
+        score += t.score(modelFeatureValuesNormalized);
+      }
+      return score;
+    }
     float score = 0;
-    for (final RegressionTree t : trees) {
-      score += t.score(modelFeatureValuesNormalized);
+    for (int t = 0; t < treeRoot.length; t++) {
+      score += treeWeight[t] * leafValue(treeRoot[t], modelFeatureValuesNormalized);
     }
     return score;
   }
 
+  /**
+   * Evaluates tree by tree rather than document by document, so that each
+   * tree's nodes stay in cache while all documents go through it.
+   */
+  @Override
+  public void score(float[][] modelFeatureValuesNormalized, int numDocs, float[] scores) {
+    for (int i = 0; i < numDocs; i++) {
+      if (modelFeatureValuesNormalized[i].length < features.size()) {
+        super.score(modelFeatureValuesNormalized, numDocs, scores);
+        return;
+      }
+    }
+    Arrays.fill(scores, 0, numDocs, 0f);
+    for (int t = 0; t < treeRoot.length; t++) {
+      final int root = treeRoot[t];
+      final float weight = treeWeight[t];
+      for (int i = 0; i < numDocs; i++) {
+        scores[i] += weight * leafValue(root, modelFeatureValuesNormalized[i]);
+      }
+    }
+  }
+
   // /////////////////////////////////////////
   // produces a string that looks like:
   // 40.0 = multipleadditivetreesmodel [ org.apache.solr.ltr.model.MultipleAdditiveTreesModel ]
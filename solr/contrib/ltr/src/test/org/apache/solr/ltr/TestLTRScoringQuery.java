@@ -18,6 +18,7 @@ package org.apache.solr.ltr;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -35,6 +36,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
@@ -43,6 +45,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.solr.core.SolrResourceLoader;
 import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.OriginalScoreFeature;
 import org.apache.solr.ltr.feature.ValueFeature;
 import org.apache.solr.ltr.model.LTRScoringModel;
 import org.apache.solr.ltr.model.ModelException;
@@ -316,4 +319,70 @@ public class TestLTRScoringQuery extends LuceneTestCase {
 
   }
 
+  @Test
+  public void testScoreFeatureBlocks() throws IOException, ModelException {
+    final Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(300);
+    for (int i = 0; i < numDocs; i++) {
+      final Document doc = new Document();
+      doc.add(newStringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(newTextField("field", random().nextBoolean() ? "wizard oz" : "wizard the the oz oz",
+          Field.Store.NO));
+      w.addDocument(doc);
+      if (random().nextInt(50) == 0) {
+        w.commit();
+      }
+    }
+    final IndexReader r = w.getReader();
+    w.close();
+
+    final IndexSearcher searcher = getSearcher(r);
+    final TermQuery originalQuery = new TermQuery(new Term("field", "oz"));
+    final TopDocs hits = searcher.search(originalQuery, numDocs);
+    for (ScoreDoc hit : hits.scoreDocs) {
+      // distinct first pass scores, so that every document gets its own model score
+      hit.score += hit.doc;
+    }
+    Arrays.sort(hits.scoreDocs, (a, b) -> a.doc - b.doc);
+
+    final List<Feature> features = makeFeatures(new int[] {0, 1, 2});
+    final Feature originalScore = Feature.getInstance(solrResourceLoader,
+        OriginalScoreFeature.class.getCanonicalName(), "originalScore", new HashMap<String,Object>());
+    originalScore.setIndex(3);
+    features.add(originalScore);
+    final List<Feature> allFeatures = new ArrayList<>(features);
+    final List<Normalizer> norms =
+        new ArrayList<Normalizer>(
+            Collections.nCopies(features.size(),IdentityNormalizer.INSTANCE));
+    final LTRScoringModel ltrScoringModel = TestLinearModel.createLinearModel("test",
+        features, norms, "test", allFeatures, makeFeatureWeights(features));
+    final LTRScoringQuery scoringQuery = new LTRScoringQuery(ltrScoringModel);
+    scoringQuery.setOriginalQuery(originalQuery);
+
+    // one document at a time
+    final LTRScoringQuery.ModelWeight modelWeight =
+        (LTRScoringQuery.ModelWeight) searcher.createNormalizedWeight(scoringQuery, true);
+    final float[] expected = new float[hits.scoreDocs.length];
+    for (int i = 0; i < expected.length; i++) {
+      final ScoreDoc hit = hits.scoreDocs[i];
+      final List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+      final LeafReaderContext context = leaves.get(ReaderUtil.subIndex(hit.doc, leaves));
+      final LTRScoringQuery.ModelWeight.ModelScorer scorer = modelWeight.scorer(context);
+      scorer.iterator().advance(hit.doc - context.docBase);
+      scorer.getDocInfo().setOriginalDocScore(hit.score);
+      expected[i] = scorer.score();
+    }
+
+    // a block of documents at a time
+    new LTRRescorer(scoringQuery).scoreFeatureBlocks(modelWeight, hits.scoreDocs,
+        searcher.getTopReaderContext().leaves());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], hits.scoreDocs[i].score, 0f);
+    }
+
+    r.close();
+    dir.close();
+  }
+
 }
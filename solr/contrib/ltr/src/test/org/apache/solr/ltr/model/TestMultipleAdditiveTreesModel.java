@@ -18,8 +18,17 @@ package org.apache.solr.ltr.model;
 
 import static org.junit.internal.matchers.StringContains.containsString;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.ltr.TestRerankBase;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.ValueFeature;
+import org.apache.solr.ltr.norm.IdentityNormalizer;
+import org.apache.solr.ltr.norm.Normalizer;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
@@ -240,4 +249,87 @@ public class TestMultipleAdditiveTreesModel extends TestRerankBase {
       assertEquals(expectedException.toString(), actualException.toString());
     }
   }
+
+  @Test
+  public void multipleAdditiveTreesTestRandomTrees() throws Exception {
+    final int numFeatures = random().nextInt(10) + 1;
+    final List<Feature> features = new ArrayList<>();
+    final List<Normalizer> norms = new ArrayList<>();
+    for (int i = 0; i < numFeatures; i++) {
+      final Map<String,Object> params = new HashMap<>();
+      params.put("value", i);
+      final Feature f = Feature.getInstance(solrResourceLoader,
+          ValueFeature.class.getCanonicalName(), "f" + i, params);
+      f.setIndex(i);
+      features.add(f);
+      norms.add(IdentityNormalizer.INSTANCE);
+    }
+
+    final List<Map<String,Object>> trees = new ArrayList<>();
+    final List<Map<String,Object>> roots = new ArrayList<>();
+    final float[] weights = new float[random().nextInt(50) + 1];
+    for (int t = 0; t < weights.length; t++) {
+      final Map<String,Object> tree = new HashMap<>();
+      final Map<String,Object> root = randomNode(random().nextInt(8), numFeatures);
+      weights[t] = random().nextFloat();
+      tree.put("weight", Float.toString(weights[t]));
+      tree.put("root", root);
+      trees.add(tree);
+      roots.add(root);
+    }
+    final Map<String,Object> params = new HashMap<>();
+    params.put("trees", trees);
+    final LTRScoringModel model = LTRScoringModel.getInstance(solrResourceLoader,
+        MultipleAdditiveTreesModel.class.getCanonicalName(),
+        "randomtrees", features, norms, "test", features, params);
+
+    final int numDocs = random().nextInt(100) + 1;
+    final float[][] featureVectors = new float[numDocs][numFeatures];
+    final float[] expected = new float[numDocs];
+    for (int d = 0; d < numDocs; d++) {
+      for (int i = 0; i < numFeatures; i++) {
+        featureVectors[d][i] = random().nextFloat();
+      }
+      for (int t = 0; t < weights.length; t++) {
+        expected[d] += weights[t] * score(roots.get(t), featureVectors[d]);
+      }
+      assertEquals(expected[d], model.score(featureVectors[d]), 0f);
+    }
+
+    final float[] scores = new float[numDocs];
+    model.score(featureVectors, numDocs, scores);
+    for (int d = 0; d < numDocs; d++) {
+      assertEquals(expected[d], scores[d], 0f);
+    }
+  }
+
+  private static Map<String,Object> randomNode(int depth, int numFeatures) {
+    final Map<String,Object> node = new HashMap<>();
+    if (depth == 0 || random().nextInt(5) == 0) {
+      node.put("value", Float.toString(random().nextFloat() * 10 - 5));
+    } else {
+      // sometimes a feature the model doesn't know about
+      node.put("feature", random().nextInt(10) == 0 ? "unknown" : "f" + random().nextInt(numFeatures));
+      node.put("threshold", Float.toString(random().nextFloat()));
+      node.put("left", randomNode(depth - 1, numFeatures));
+      node.put("right", randomNode(depth - 1, numFeatures));
+    }
+    return node;
+  }
+
+  // the children of a node are the maps built by randomNode
+  @SuppressWarnings("unchecked")
+  private static float score(Map<String,Object> node, float[] featureVector) {
+    if (!node.containsKey("feature")) {
+      return Float.parseFloat((String) node.get("value"));
+    }
+    final String feature = (String) node.get("feature");
+    if (feature.equals("unknown")) {
+      return 0f;
+    }
+    final float value = featureVector[Integer.parseInt(feature.substring(1))];
+    // same slack as the model applies to thresholds
+    final float threshold = Float.parseFloat((String) node.get("threshold")) + 1E-6f;
+    return score((Map<String,Object>) node.get(value <= threshold ? "left" : "right"), featureVector);
+  }
 }
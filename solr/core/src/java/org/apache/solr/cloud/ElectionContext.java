@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.fs.Path;
@@ -29,6 +31,7 @@ import org.apache.solr.cloud.overseer.OverseerAction;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.cloud.SolrZkClient;
@@ -414,6 +417,22 @@ final class ShardLeaderElectionContext extends ShardLeaderElectionContextBase {
           rejoinLeaderElection(core);
           return;
         }
+
+        if (isOnlyLeaderIndexes()) {
+          // stop copying the index from the old leader, and index what the last copy is missing
+          zkController.stopReplicationFromLeader(coreName);
+          if (ulog != null) {
+            Future<UpdateLog.RecoveryInfo> future = ulog.recoverFromCurrentLog();
+            if (future != null) {
+              log.info("Replaying tlog for {} before becoming the leader", coreName);
+              try {
+                future.get();
+              } catch (ExecutionException e) {
+                throw new SolrException(ErrorCode.SERVER_ERROR, "Could not replay tlog of " + coreName, e);
+              }
+            }
+          }
+        }
         
       }
       
@@ -678,12 +697,21 @@ final class ShardLeaderElectionContext extends ShardLeaderElectionContextBase {
     log.info("There may be a better leader candidate than us - going back into recovery");
     
     cancelElection();
+
+    if (isOnlyLeaderIndexes()) {
+      zkController.startReplicationFromLeader(core.getName());
+    }
     
     core.getUpdateHandler().getSolrCoreState().doRecovery(cc, core.getCoreDescriptor());
     
     leaderElector.joinElection(this, true);
   }
 
+  private boolean isOnlyLeaderIndexes() {
+    DocCollection docCollection = zkController.getClusterState().getCollectionOrNull(collection);
+    return docCollection != null && docCollection.getOnlyLeaderIndexes();
+  }
+
   private boolean shouldIBeLeader(ZkNodeProps leaderProps, SolrCore core, boolean weAreReplacement) {
     log.debug("Checking if I should try and be the leader.");
     
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.codahale.metrics.Timer;
@@ -43,6 +44,7 @@ import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkNodeProps;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.params.CollectionParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.IOUtils;
 import org.apache.solr.common.util.ObjectReleaseTracker;
 import org.apache.solr.common.util.Utils;
@@ -50,6 +52,7 @@ import org.apache.solr.core.CloudConfig;
 import org.apache.solr.handler.admin.CollectionsHandler;
 import org.apache.solr.handler.component.ShardHandler;
 import org.apache.solr.update.UpdateShardHandler;
+import org.apache.solr.util.DefaultSolrThreadFactory;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
@@ -66,6 +69,7 @@ public class Overseer implements Closeable {
 
   public static final int STATE_UPDATE_DELAY = 2000;  // delay between cloud state updates
   public static final int STATE_UPDATE_BATCH_SIZE = 10000;
+  public static final int STATE_WRITER_THREADS = 8;  // collections whose state is written to ZK at once
 
   public static final int NUM_RESPONSES_TO_STORE = 10000;
   
@@ -92,6 +96,9 @@ public class Overseer implements Closeable {
 
     private final Stats zkStats;
 
+    // writes the state.json of the collections updated in a batch concurrently
+    private final ExecutorService stateWriterExecutor;
+
     private boolean isClosed = false;
 
     public ClusterStateUpdater(final ZkStateReader reader, final String myId, Stats zkStats) {
@@ -104,6 +111,8 @@ public class Overseer implements Closeable {
       this.completedMap = getCompletedMap(zkClient);
       this.myId = myId;
       this.reader = reader;
+      this.stateWriterExecutor = ExecutorUtil.newMDCAwareFixedThreadPool(STATE_WRITER_THREADS,
+          new DefaultSolrThreadFactory("OverseerStateWriter"));
     }
 
     public Stats getStateUpdateQueueStats() {
@@ -143,7 +152,7 @@ public class Overseer implements Closeable {
             try {
               reader.updateClusterState();
               clusterState = reader.getClusterState();
-              zkStateWriter = new ZkStateWriter(reader, stats);
+              zkStateWriter = new ZkStateWriter(reader, stats, stateWriterExecutor);
               refreshClusterState = false;
 
               // if there were any errors while processing
@@ -254,6 +263,8 @@ public class Overseer implements Closeable {
         }
       } finally {
         log.info("Overseer Loop exiting : {}", LeaderElector.getNodeName(myId));
+        // like this thread, the writers only ever wait on ZK, so interrupt them as well
+        stateWriterExecutor.shutdownNow();
         //do this in a separate thread because any wait is interrupted in this main thread
         new Thread(this::checkIfIamStillLeader, "OverseerExitThread").start();
       }
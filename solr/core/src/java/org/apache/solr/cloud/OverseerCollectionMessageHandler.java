@@ -132,6 +132,8 @@ public class OverseerCollectionMessageHandler implements OverseerMessageHandler
       ZkStateReader.REPLICATION_FACTOR, "1",
       ZkStateReader.MAX_SHARDS_PER_NODE, "1",
       ZkStateReader.AUTO_ADD_REPLICAS, "false",
+      ZkStateReader.ONLY_LEADER_INDEXES, "false",
+      ZkStateReader.PER_REPLICA_STATE, "false",
       DocCollection.RULE, null,
       SNITCH, null));
 
@@ -38,6 +38,7 @@ import org.apache.solr.client.solrj.request.CoreAdminRequest.WaitForState;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.cloud.ZkCoreNodeProps;
@@ -361,6 +362,13 @@ public class RecoveryStrategy extends Thread implements Closeable {
       }
     }
 
+    DocCollection docCollection = zkStateReader.getClusterState()
+        .getCollectionOrNull(core.getCoreDescriptor().getCloudDescriptor().getCollectionName());
+    if (docCollection != null && docCollection.getOnlyLeaderIndexes()) {
+      // peersync would only bring our tlog up to date, the index has to be copied from the leader anyway
+      firstTime = false; // skip peersync
+    }
+
     Future<RecoveryInfo> replayFuture = null;
     while (!successfulRecovery && !isInterrupted() && !isClosed()) { // don't use interruption or it will close channels though
       try {
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.ZkCoreNodeProps;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.CoreDescriptor;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.IndexFetcher.IndexFetchResult;
+import org.apache.solr.handler.ReplicationHandler;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.update.CommitUpdateCommand;
+import org.apache.solr.update.UpdateLog;
+import org.apache.solr.util.DefaultSolrThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the index of a replica in a collection where only the leader indexes
+ * (see {@link org.apache.solr.common.cloud.DocCollection#getOnlyLeaderIndexes()})
+ * in sync with the index of the shard leader.
+ * <p>
+ * While following, the replica only writes the updates it receives to its transaction log, and
+ * periodically copies the segments of the latest commit point of the leader with the
+ * {@link ReplicationHandler}. After each copy the transaction log is switched, keeping only the
+ * updates that did not make it into the copied index yet; those are replayed into the index when
+ * the replica becomes the leader.
+ * <p>
+ * The leader is polled at half the configured <code>autoCommit</code> <code>maxTime</code>, since
+ * that is how often a new commit point can be expected, but not more often than once per second.
+ */
+public class ReplicateFromLeader {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  static final long DEFAULT_POLL_INTERVAL_MS = 1000;
+
+  private final CoreContainer cc;
+  private final String coreName;
+  private final long pollIntervalMs;
+  private final ScheduledExecutorService executor;
+  // held while fetching, so that stopping can wait for an ongoing fetch
+  private final ReentrantLock fetchLock = new ReentrantLock();
+
+  private volatile boolean following = true;
+
+  ReplicateFromLeader(CoreContainer cc, String coreName) {
+    this.cc = cc;
+    this.coreName = coreName;
+    this.pollIntervalMs = getPollInterval(cc, coreName);
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+        new DefaultSolrThreadFactory("replicateFromLeader_" + coreName));
+    this.executor.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  private static long getPollInterval(CoreContainer cc, String coreName) {
+    try (SolrCore core = cc.getCore(coreName)) {
+      if (core != null) {
+        int maxTime = core.getSolrConfig().getUpdateHandlerInfo().autoCommmitMaxTime;
+        if (maxTime > 0) {
+          return Math.max(DEFAULT_POLL_INTERVAL_MS, maxTime / 2);
+        }
+      }
+    }
+    return DEFAULT_POLL_INTERVAL_MS;
+  }
+
+  /** Returns true while updates of this replica are only logged, and the index is copied from the leader. */
+  public boolean isFollowing() {
+    return following;
+  }
+
+  /** Stops copying the index from the leader, waiting for an ongoing copy to finish. */
+  void stopFollowing() {
+    following = false;
+    fetchLock.lock();
+    fetchLock.unlock();
+  }
+
+  /** Starts copying the index from the leader again. */
+  void resumeFollowing() {
+    following = true;
+  }
+
+  void close() {
+    following = false;
+    ExecutorUtil.shutdownAndAwaitTermination(executor);
+  }
+
+  private void poll() {
+    fetchLock.lock();
+    try {
+      if (following) {
+        fetchFromLeader();
+      }
+    } catch (Exception e) {
+      SolrException.log(log, "Could not copy the index of " + coreName + " from its leader", e);
+    } finally {
+      fetchLock.unlock();
+    }
+  }
+
+  private void fetchFromLeader() throws InterruptedException {
+    try (SolrCore core = cc.getCore(coreName)) {
+      if (core == null || core.isClosed()) return;
+
+      UpdateLog ulog = core.getUpdateHandler().getUpdateLog();
+      if (ulog != null && ulog.getState() != UpdateLog.State.ACTIVE) {
+        // recovering, which copies the index itself
+        return;
+      }
+
+      ReplicationHandler replicationHandler = (ReplicationHandler) core.getRequestHandler(ReplicationHandler.PATH);
+      if (replicationHandler == null) {
+        log.warn("Can not copy the index of {} from its leader, no {} handler found", coreName, ReplicationHandler.PATH);
+        return;
+      }
+
+      CoreDescriptor cd = core.getCoreDescriptor();
+      Replica leader = cc.getZkController().getZkStateReader().getLeaderRetry(
+          cd.getCloudDescriptor().getCollectionName(), cd.getCloudDescriptor().getShardId());
+      if (leader.getName().equals(cd.getCloudDescriptor().getCoreNodeName())) {
+        // we are about to become the leader ourselves
+        return;
+      }
+      String leaderUrl = new ZkCoreNodeProps(leader).getCoreUrl();
+
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set(ReplicationHandler.MASTER_URL, leaderUrl);
+      IndexFetchResult result = replicationHandler.doFetch(params, false);
+      if (result == IndexFetchResult.INDEX_FETCH_SUCCESS) {
+        if (ulog != null) {
+          SolrQueryRequest req = new LocalSolrQueryRequest(core, new ModifiableSolrParams());
+          try {
+            CommitUpdateCommand cuc = new CommitUpdateCommand(req, false);
+            cuc.openSearcher = false;
+            cuc.waitSearcher = false;
+            ulog.commitAndSwitchToNewTlog(cuc);
+          } finally {
+            req.close();
+          }
+        }
+      } else if (!result.getSuccessful()) {
+        log.warn("Copying the index of {} from {} failed: {}", coreName, leaderUrl, result.getMessage());
+      }
+    }
+  }
+}
@@ -175,6 +175,9 @@ public class ZkController {
 
   private final Map<ContextKey, ElectionContext> electionContexts = Collections.synchronizedMap(new HashMap<>());
 
+  // replicas of collections where only the leader indexes, by core name
+  private final Map<String, ReplicateFromLeader> replicateFromLeaders = new ConcurrentHashMap<>();
+
   private final SolrZkClient zkClient;
   private final ZkCmdExecutor cmdExecutor;
   private final ZkStateReader zkStateReader;
@@ -528,6 +531,11 @@ public class ZkController {
   public void close() {
     this.isClosed = true;
     try {
+      for (ReplicateFromLeader replicateFromLeader : replicateFromLeaders.values()) {
+        replicateFromLeader.close();
+      }
+      replicateFromLeaders.clear();
+
       for (ElectionContext context : electionContexts.values()) {
         try {
           context.close();
@@ -878,6 +886,13 @@ public class ZkController {
           coreName, baseUrl, cloudDesc.getCollectionName(), shardId);
       
       ZkNodeProps leaderProps = new ZkNodeProps(props);
+
+      DocCollection docCollection = zkStateReader.getClusterState().getCollectionOrNull(collection);
+      boolean onlyLeaderIndexes = docCollection != null && docCollection.getOnlyLeaderIndexes();
+      if (onlyLeaderIndexes) {
+        // only log updates and copy the index from the leader, until the election makes us the leader
+        startReplicationFromLeader(coreName);
+      }
       
       try {
         // If we're a preferred leader, insert ourselves at the head of the queue
@@ -915,8 +930,9 @@ public class ZkController {
         
         UpdateLog ulog = core.getUpdateHandler().getUpdateLog();
         
-        // we will call register again after zk expiration and on reload
-        if (!afterExpiration && !core.isReloaded() && ulog != null) {
+        // we will call register again after zk expiration and on reload. If only the leader indexes,
+        // the logs are replayed when this replica becomes the leader instead.
+        if (!afterExpiration && !core.isReloaded() && ulog != null && !onlyLeaderIndexes) {
           // disable recovery in case shard is in construction state (for shard splits)
           Slice slice = getClusterState().getSlice(collection, shardId);
           if (slice.getState() != Slice.State.CONSTRUCTION || !isLeader) {
@@ -1080,6 +1096,27 @@ public class ZkController {
   }
 
 
+  /**
+   * Returns true if the given core belongs to a collection where only the leader indexes, and currently
+   * only logs the updates it receives, copying its index from the leader instead.
+   */
+  public boolean isFollowingLeader(String coreName) {
+    ReplicateFromLeader replicateFromLeader = replicateFromLeaders.get(coreName);
+    return replicateFromLeader != null && replicateFromLeader.isFollowing();
+  }
+
+  void startReplicationFromLeader(String coreName) {
+    replicateFromLeaders.computeIfAbsent(coreName, name -> new ReplicateFromLeader(cc, name)).resumeFollowing();
+  }
+
+  /** Stops copying the index from the leader, after which updates go to the index of the core again. */
+  void stopReplicationFromLeader(String coreName) {
+    ReplicateFromLeader replicateFromLeader = replicateFromLeaders.get(coreName);
+    if (replicateFromLeader != null) {
+      replicateFromLeader.stopFollowing();
+    }
+  }
+
   /**
    * Returns whether or not a recovery was started
    */
@@ -1248,6 +1285,11 @@ public class ZkController {
       return;
     }
 
+    ReplicateFromLeader replicateFromLeader = replicateFromLeaders.remove(coreName);
+    if (replicateFromLeader != null) {
+      replicateFromLeader.close();
+    }
+
     ElectionContext context = electionContexts.remove(new ContextKey(collection, coreNodeName));
 
     if (context != null) {
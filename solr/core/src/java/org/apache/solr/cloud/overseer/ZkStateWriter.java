@@ -17,18 +17,29 @@
 package org.apache.solr.cloud.overseer;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import com.codahale.metrics.Timer;
 import org.apache.solr.cloud.Overseer;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.PerReplicaStates;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.util.Utils;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +56,18 @@ import static java.util.Collections.singletonMap;
  * to reduce the number of writes to ZK. The buffered updates are flushed during <code>enqueueUpdate</code>
  * automatically if necessary. The {@link #writePendingUpdates()} can be used to force flush any pending updates.
  *
+ * Since all updates to a collection between two flushes are written at once, only their net change ends up in ZK:
+ * if a collection's state is the same as when it was last written (e.g. a replica went down and came back in
+ * the meantime, or a state was published again), its state.json is not written at all, which also spares every
+ * node watching the collection from reading it again.
+ *
+ * The replica states of collections created with {@link ZkStateReader#PER_REPLICA_STATE} are written to their
+ * {@link PerReplicaStates} znodes before the state.json. If nothing but replica states changed since the last flush,
+ * only the znodes of the replicas that changed their state are replaced and the state.json is not written at all.
+ *
+ * If the writer is given an {@link ExecutorService}, the state.json files of the collections that were updated
+ * in the same batch are written concurrently, since each of them is updated with its own compare-and-set.
+ *
  * If either {@link #enqueueUpdate(ClusterState, ZkWriteCommand, ZkWriteCallback)} or {@link #writePendingUpdates()}
  * throws a {@link org.apache.zookeeper.KeeperException.BadVersionException} then the internal buffered state of the
  * class is suspect and the current instance of the class should be discarded and a new instance should be created
@@ -61,8 +84,12 @@ public class ZkStateWriter {
 
   protected final ZkStateReader reader;
   protected final Overseer.Stats stats;
+  // writes the state of several stateFormat=2 collections at once, if not null
+  protected final ExecutorService executor;
 
   protected Map<String, DocCollection> updates = new HashMap<>();
+  // the state of each collection in updates as of the last flush, to skip writing it if it ends up unchanged
+  protected Map<String, DocCollection> flushedState = new HashMap<>();
   protected ClusterState clusterState = null;
   protected boolean isClusterStateModified = false;
   protected long lastUpdatedTime = 0;
@@ -78,10 +105,19 @@ public class ZkStateWriter {
   protected boolean invalidState = false;
 
   public ZkStateWriter(ZkStateReader zkStateReader, Overseer.Stats stats) {
+    this(zkStateReader, stats, null);
+  }
+
+  /**
+   * @param executor used to write the state of several collections concurrently, or <code>null</code>
+   *                 to write them one after the other. The executor is not shut down by this class.
+   */
+  public ZkStateWriter(ZkStateReader zkStateReader, Overseer.Stats stats, ExecutorService executor) {
     assert zkStateReader != null;
 
     this.reader = zkStateReader;
     this.stats = stats;
+    this.executor = executor;
     this.clusterState = zkStateReader.getClusterState();
   }
 
@@ -138,8 +174,12 @@ public class ZkStateWriter {
       }
       clusterState = prevState.copyWith(cmd.name, null);
       updates.put(cmd.name, null);
+      flushedState.remove(cmd.name);
     } else {
       if (!isCurrentlyStateFormat1) {
+        if (!updates.containsKey(cmd.name) && previousCollection != null && !wasPreviouslyStateFormat1) {
+          flushedState.put(cmd.name, previousCollection);
+        }
         updates.put(cmd.name, cmd.collection);
       }
       if (isCurrentlyStateFormat1 || wasPreviouslyStateFormat1) {
@@ -207,34 +247,29 @@ public class ZkStateWriter {
     boolean success = false;
     try {
       if (!updates.isEmpty()) {
+        List<Map.Entry<String, DocCollection>> writes = new ArrayList<>(updates.size());
         for (Map.Entry<String, DocCollection> entry : updates.entrySet()) {
-          String name = entry.getKey();
-          String path = ZkStateReader.getCollectionPath(name);
           DocCollection c = entry.getValue();
-
-          if (c == null) {
-            // let's clean up the collections path for this collection
-            log.debug("going to delete_collection {}", path);
-            reader.getZkClient().clean("/collections/" + name);
-          } else if (c.getStateFormat() > 1) {
-            byte[] data = Utils.toJSON(singletonMap(c.getName(), c));
-            if (reader.getZkClient().exists(path, true)) {
-              log.debug("going to update_collection {} version: {}", path, c.getZNodeVersion());
-              Stat stat = reader.getZkClient().setData(path, data, c.getZNodeVersion(), true);
-              DocCollection newCollection = new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), stat.getVersion(), path);
-              clusterState = clusterState.copyWith(name, newCollection);
-            } else {
-              log.debug("going to create_collection {}", path);
-              reader.getZkClient().create(path, data, CreateMode.PERSISTENT, true);
-              DocCollection newCollection = new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), 0, path);
-              clusterState = clusterState.copyWith(name, newCollection);
-            }
+          if (c == null || c.getStateFormat() > 1) {
+            writes.add(entry);
           } else if (c.getStateFormat() == 1) {
             isClusterStateModified = true;
           }
         }
 
+        if (executor == null || writes.size() == 1) {
+          for (Map.Entry<String, DocCollection> entry : writes) {
+            DocCollection newCollection = writeCollection(entry.getKey(), entry.getValue());
+            if (newCollection != null) {
+              clusterState = clusterState.copyWith(entry.getKey(), newCollection);
+            }
+          }
+        } else {
+          writeCollectionsConcurrently(writes);
+        }
+
         updates.clear();
+        flushedState.clear();
       }
 
       if (isClusterStateModified) {
@@ -264,6 +299,144 @@ public class ZkStateWriter {
     return clusterState;
   }
 
+  /**
+   * Writes the state.json of a stateFormat=2 collection, or removes the collection if <code>c</code> is null.
+   *
+   * @return the collection with the version of its written state.json, or null if it was removed
+   */
+  private DocCollection writeCollection(String name, DocCollection c) throws KeeperException, InterruptedException {
+    String path = ZkStateReader.getCollectionPath(name);
+    if (c == null) {
+      // let's clean up the collections path for this collection
+      log.debug("going to delete_collection {}", path);
+      reader.getZkClient().clean("/collections/" + name);
+      return null;
+    }
+    Stat existing = reader.getZkClient().exists(path, null, true);
+    if (existing != null) {
+      DocCollection flushed = flushedState.get(name);
+      // only if ZK still has the version we flushed; otherwise the write below fails the compare-and-set
+      if (flushed != null && flushed.getZNodeVersion() == c.getZNodeVersion() && existing.getVersion() == c.getZNodeVersion()) {
+        if (c.getPerReplicaState() && onlyReplicaStatesDiffer(flushed, c)) {
+          log.debug("going to update_replica_states {} version: {}", path, c.getZNodeVersion());
+          writeReplicaStates(name, c);
+          return c;
+        }
+        if (Arrays.equals(Utils.toJSON(singletonMap(c.getName(), c)), Utils.toJSON(singletonMap(flushed.getName(), flushed)))) {
+          log.debug("skipping update_collection {} version: {}, state is unchanged", path, c.getZNodeVersion());
+          return c;
+        }
+      }
+      if (c.getPerReplicaState()) {
+        writeReplicaStates(name, c);
+      }
+      log.debug("going to update_collection {} version: {}", path, c.getZNodeVersion());
+      Stat stat = reader.getZkClient().setData(path, Utils.toJSON(singletonMap(c.getName(), c)), c.getZNodeVersion(), true);
+      return new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), stat.getVersion(), path);
+    } else {
+      if (c.getPerReplicaState()) {
+        writeReplicaStates(name, c);
+      }
+      log.debug("going to create_collection {}", path);
+      reader.getZkClient().create(path, Utils.toJSON(singletonMap(c.getName(), c)), CreateMode.PERSISTENT, true);
+      return new DocCollection(name, c.getSlicesMap(), c.getProperties(), c.getRouter(), 0, path);
+    }
+  }
+
+  /**
+   * Replaces the per-replica state znodes of the replicas whose state differs from the one in ZK, in one transaction.
+   */
+  private void writeReplicaStates(String name, DocCollection c) throws KeeperException, InterruptedException {
+    SolrZkClient zkClient = reader.getZkClient();
+    PerReplicaStates states = PerReplicaStates.fetch(zkClient, name, null);
+    if (states.getVersion() == -1) {
+      zkClient.makePath(PerReplicaStates.getPath(name), false, true);
+    }
+    List<Op> ops = states.getUpdateOps(zkClient, c);
+    if (!ops.isEmpty()) {
+      zkClient.multi(ops, true);
+    }
+  }
+
+  /**
+   * @return true if the two collections have the same properties, slices and replicas, and the replicas differ
+   * in their state at most
+   */
+  private static boolean onlyReplicaStatesDiffer(DocCollection a, DocCollection b) {
+    if (!a.getProperties().equals(b.getProperties()) || !a.getSlicesMap().keySet().equals(b.getSlicesMap().keySet())) {
+      return false;
+    }
+    for (Slice sliceA : a) {
+      Slice sliceB = b.getSlice(sliceA.getName());
+      if (!withoutKey(sliceA.getProperties(), Slice.REPLICAS).equals(withoutKey(sliceB.getProperties(), Slice.REPLICAS))
+          || !sliceA.getReplicasMap().keySet().equals(sliceB.getReplicasMap().keySet())) {
+        return false;
+      }
+      for (Replica replicaA : sliceA) {
+        Replica replicaB = sliceB.getReplica(replicaA.getName());
+        if (!withoutKey(replicaA.getProperties(), ZkStateReader.STATE_PROP)
+            .equals(withoutKey(replicaB.getProperties(), ZkStateReader.STATE_PROP))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Map<String, Object> withoutKey(Map<String, Object> props, String key) {
+    Map<String, Object> copy = new HashMap<>(props);
+    copy.remove(key);
+    return copy;
+  }
+
+  /**
+   * Writes the given collections with the executor and waits for all of them, even if some fail. The
+   * cluster state is updated with the collections that were written before the first error is rethrown.
+   */
+  private void writeCollectionsConcurrently(List<Map.Entry<String, DocCollection>> writes)
+      throws KeeperException, InterruptedException {
+    List<Future<DocCollection>> futures = new ArrayList<>(writes.size());
+    for (Map.Entry<String, DocCollection> entry : writes) {
+      futures.add(executor.submit(() -> writeCollection(entry.getKey(), entry.getValue())));
+    }
+
+    Throwable firstExc = null;
+    InterruptedException interrupted = null;
+    for (Future<DocCollection> future : futures) {
+      try {
+        DocCollection newCollection = future.get();
+        if (newCollection != null) {
+          clusterState = clusterState.copyWith(newCollection.getName(), newCollection);
+        }
+      } catch (ExecutionException e) {
+        if (firstExc == null || e.getCause() instanceof KeeperException.BadVersionException) {
+          firstExc = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        // the Overseer is going away, interrupt the remaining writes as the sequential ones would be
+        interrupted = e;
+        break;
+      }
+    }
+    if (interrupted != null) {
+      for (Future<DocCollection> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    if (interrupted != null) {
+      throw interrupted;
+    } else if (firstExc instanceof KeeperException) {
+      throw (KeeperException) firstExc;
+    } else if (firstExc instanceof InterruptedException) {
+      throw (InterruptedException) firstExc;
+    } else if (firstExc instanceof RuntimeException) {
+      throw (RuntimeException) firstExc;
+    } else if (firstExc instanceof Error) {
+      throw (Error) firstExc;
+    }
+  }
+
   /**
    * @return time returned by System.nanoTime at which the main cluster state was last written to ZK or 0 if
    * never
@@ -147,6 +147,14 @@ public class CoreContainer {
   private ExecutorService coreContainerWorkExecutor = ExecutorUtil.newMDCAwareCachedThreadPool(
       new DefaultSolrThreadFactory("coreContainerWorkExecutor") );
 
+  private final ExecutorService facetExecutor;
+
+  /** Number of threads that sort segments for all /export requests with export.threads set together */
+  public static final int MAX_EXPORT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  private final ExecutorService exportExecutor = ExecutorUtil.newMDCAwareFixedThreadPool(
+      MAX_EXPORT_THREADS, new DefaultSolrThreadFactory("exportExecutor"));
+
   protected LogWatcher logging = null;
 
   private CloserThread backgroundCloser = null;
@@ -202,6 +210,19 @@ public class CoreContainer {
     return repository;
   }
 
+  /**
+   * Executor shared by all cores for collecting facets in parallel within a request, with
+   * {@link NodeConfig#getFacetThreadCount()} threads
+   */
+  public ExecutorService getFacetExecutor() {
+    return facetExecutor;
+  }
+
+  /** Executor shared by all cores for sorting the segments of /export requests in parallel */
+  public ExecutorService getExportExecutor() {
+    return exportExecutor;
+  }
+
   public ExecutorService getCoreZkRegisterExecutorService() {
     return zkSys.getCoreZkRegisterExecutorService();
   }
@@ -274,6 +295,8 @@ public class CoreContainer {
     this.loader = config.getSolrResourceLoader();
     this.solrHome = loader.getInstancePath().toString();
     this.cfg = requireNonNull(config);
+    this.facetExecutor = ExecutorUtil.newMDCAwareFixedThreadPool(
+        cfg.getFacetThreadCount(), new DefaultSolrThreadFactory("facetExecutor"));
     this.coresLocator = locator;
     this.containerProperties = new Properties(properties);
     this.asyncSolrCoreLoad = asyncSolrCoreLoad;
@@ -400,6 +423,7 @@ public class CoreContainer {
     coresLocator = null;
     cfg = null;
     containerProperties = null;
+    facetExecutor = null;
   }
 
   public static CoreContainer createAndLoad(Path solrHome) {
@@ -657,6 +681,8 @@ public class CoreContainer {
     isShutDown = true;
 
     ExecutorUtil.shutdownAndAwaitTermination(coreContainerWorkExecutor);
+    ExecutorUtil.shutdownAndAwaitTermination(facetExecutor);
+    ExecutorUtil.shutdownAndAwaitTermination(exportExecutor);
     if (metricManager != null) {
       metricManager.closeReporters(SolrMetricManager.getRegistryName(SolrInfoMBean.Group.node));
       metricManager.closeReporters(SolrMetricManager.getRegistryName(SolrInfoMBean.Group.jvm));
@@ -19,12 +19,22 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.LockFactory; // javadocs
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NativeMMapDirectory;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.StrUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,7 +47,16 @@ import org.slf4j.LoggerFactory;
  *  <li>unmap -- See {@link MMapDirectory#setUseUnmap(boolean)}</li>
  *  <li>preload -- See {@link MMapDirectory#setPreload(boolean)}</li>
  *  <li>maxChunkSize -- The Max chunk size.  See {@link MMapDirectory#MMapDirectory(Path, LockFactory, int)}</li>
+ *  <li>preloadExtensions -- Comma separated extensions of the files to preload, e.g. <code>tip,dvd</code>.
+ *  Ignored if preload is true.  See {@link MMapDirectory#preloadExtensions(Set)}</li>
+ *  <li>readAdvice -- Comma separated <code>extension:advice</code> pairs, e.g. <code>doc:random,pos:random</code>,
+ *  where advice is one of <code>normal</code>, <code>random</code> or <code>sequential</code>.
+ *  See {@link MMapDirectory#setReadAdvice(java.util.function.BiFunction)}</li>
+ *  <li>mergeReadAdvice -- Advice for files opened for merging, whatever their extension, e.g. <code>sequential</code></li>
  * </ul>
+ * <p>
+ * Read advice is passed to the operating system through {@link NativeMMapDirectory}, which needs the
+ * native library of the Lucene misc module; without it the advice is ignored.
  *
  **/
 public class MMapDirectoryFactory extends StandardDirectoryFactory {
@@ -45,6 +64,9 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
   boolean unmapHack;
   boolean preload;
   private int maxChunk;
+  Set<String> preloadExtensions;
+  Map<String,MMapDirectory.ReadAdvice> readAdvice;
+  MMapDirectory.ReadAdvice mergeReadAdvice;
 
   @Override
   public void init(NamedList args) {
@@ -56,18 +78,62 @@ public class MMapDirectoryFactory extends StandardDirectoryFactory {
     }
     unmapHack = params.getBool("unmap", true);
     preload = params.getBool("preload", false); //default turn-off
+    preloadExtensions = new HashSet<>(splitList(params.get("preloadExtensions", "")));
+    readAdvice = new HashMap<>();
+    for (String entry : splitList(params.get("readAdvice", ""))) {
+      final int colon = entry.indexOf(':');
+      if (colon <= 0) {
+        throw new IllegalArgumentException("readAdvice entries must look like extension:advice, got: " + entry);
+      }
+      readAdvice.put(entry.substring(0, colon).trim(), parseReadAdvice(entry.substring(colon + 1)));
+    }
+    final String mergeAdvice = params.get("mergeReadAdvice");
+    mergeReadAdvice = mergeAdvice == null ? null : parseReadAdvice(mergeAdvice);
+    if ((readAdvice.isEmpty() == false || mergeReadAdvice != null) && NativeMMapDirectory.isNativeAdviceAvailable() == false) {
+      log.warn("readAdvice/mergeReadAdvice are configured but the NativePosixUtil library could not be loaded; ignoring them");
+    }
+  }
+
+  private static List<String> splitList(String list) {
+    final List<String> values = new ArrayList<>();
+    for (String value : StrUtils.splitSmart(list, ',')) {
+      value = value.trim();
+      if (value.isEmpty() == false) {
+        values.add(value);
+      }
+    }
+    return values;
+  }
+
+  private static MMapDirectory.ReadAdvice parseReadAdvice(String advice) {
+    try {
+      return MMapDirectory.ReadAdvice.valueOf(advice.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown read advice: " + advice
+          + ", must be one of " + Arrays.toString(MMapDirectory.ReadAdvice.values()), e);
+    }
   }
 
   @Override
   protected Directory create(String path, LockFactory lockFactory, DirContext dirContext) throws IOException {
     // we pass NoLockFactory, because the real lock factory is set later by injectLockFactory:
-    MMapDirectory mapDirectory = new MMapDirectory(new File(path).toPath(), lockFactory, maxChunk);
+    final boolean advise = readAdvice.isEmpty() == false || mergeReadAdvice != null;
+    MMapDirectory mapDirectory = advise
+        ? new NativeMMapDirectory(new File(path).toPath(), lockFactory, maxChunk)
+        : new MMapDirectory(new File(path).toPath(), lockFactory, maxChunk);
     try {
       mapDirectory.setUseUnmap(unmapHack);
     } catch (IllegalArgumentException e) {
       log.warn("Unmap not supported on this JVM, continuing on without setting unmap", e);
     }
-    mapDirectory.setPreload(preload);
+    if (preload || preloadExtensions.isEmpty()) {
+      mapDirectory.setPreload(preload);
+    } else {
+      mapDirectory.setPreload(MMapDirectory.preloadExtensions(preloadExtensions));
+    }
+    if (advise) {
+      mapDirectory.setReadAdvice(MMapDirectory.readAdviceByExtension(readAdvice, mergeReadAdvice));
+    }
     return mapDirectory;
   }
   
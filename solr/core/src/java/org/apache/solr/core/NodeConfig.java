@@ -52,6 +52,8 @@ public class NodeConfig {
 
   private final Integer coreLoadThreads;
 
+  private final int facetThreads;
+
   @Deprecated
   // This should be part of the transientCacheConfig, remove in 7.0
   private final int transientCacheSize;
@@ -71,7 +73,7 @@ public class NodeConfig {
                      String coreAdminHandlerClass, String collectionsAdminHandlerClass,
                      String infoHandlerClass, String configSetsHandlerClass,
                      LogWatcherConfig logWatcherConfig, CloudConfig cloudConfig, Integer coreLoadThreads,
-                     int transientCacheSize, boolean useSchemaCache, String managementPath, SolrResourceLoader loader,
+                     int facetThreads, int transientCacheSize, boolean useSchemaCache, String managementPath, SolrResourceLoader loader,
                      Properties solrProperties, PluginInfo[] backupRepositoryPlugins,
                      PluginInfo[] metricReporterPlugins, PluginInfo transientCacheConfig) {
     this.nodeName = nodeName;
@@ -87,6 +89,7 @@ public class NodeConfig {
     this.logWatcherConfig = logWatcherConfig;
     this.cloudConfig = cloudConfig;
     this.coreLoadThreads = coreLoadThreads;
+    this.facetThreads = facetThreads;
     this.transientCacheSize = transientCacheSize;
     this.useSchemaCache = useSchemaCache;
     this.managementPath = managementPath;
@@ -100,6 +103,10 @@ public class NodeConfig {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
           "SolrCloud requires a value of at least 2 for coreLoadThreads (configured value = " + this.coreLoadThreads + ")");
     }
+    if (this.facetThreads < 1) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "facetThreads must be at least 1 (configured value = " + this.facetThreads + ")");
+    }
   }
 
   public String getNodeName() {
@@ -124,6 +131,11 @@ public class NodeConfig {
         : coreLoadThreads;
   }
 
+  /** Number of threads shared by all cores for collecting facets in parallel, and the most one facet can use */
+  public int getFacetThreadCount() {
+    return facetThreads;
+  }
+
   public String getSharedLibDirectory() {
     return sharedLibDirectory;
   }
@@ -203,6 +215,7 @@ public class NodeConfig {
     private LogWatcherConfig logWatcherConfig = new LogWatcherConfig(true, null, null, 50);
     private CloudConfig cloudConfig;
     private int coreLoadThreads = DEFAULT_CORE_LOAD_THREADS;
+    private int facetThreads = DEFAULT_FACET_THREADS;
     @Deprecated
     //Remove in 7.0 and put it all in the transientCache element in solrconfig.xml
     private int transientCacheSize = DEFAULT_TRANSIENT_CACHE_SIZE;
@@ -220,6 +233,8 @@ public class NodeConfig {
     //No:of core load threads in cloud mode is set to a default of 8
     public static final int DEFAULT_CORE_LOAD_THREADS_IN_CLOUD = 8;
 
+    public static final int DEFAULT_FACET_THREADS = Runtime.getRuntime().availableProcessors();
+
     public static final int DEFAULT_TRANSIENT_CACHE_SIZE = Integer.MAX_VALUE;
 
     private static final String DEFAULT_ADMINHANDLERCLASS = "org.apache.solr.handler.admin.CoreAdminHandler";
@@ -294,6 +309,11 @@ public class NodeConfig {
       return this;
     }
 
+    public NodeConfigBuilder setFacetThreads(int facetThreads) {
+      this.facetThreads = facetThreads;
+      return this;
+    }
+
     // Remove in Solr 7.0
     @Deprecated
     public NodeConfigBuilder setTransientCacheSize(int transientCacheSize) {
@@ -334,7 +354,7 @@ public class NodeConfig {
     public NodeConfig build() {
       return new NodeConfig(nodeName, coreRootDirectory, configSetBaseDirectory, sharedLibDirectory, shardHandlerFactoryConfig,
                             updateShardHandlerConfig, coreAdminHandlerClass, collectionsAdminHandlerClass, infoHandlerClass, configSetsHandlerClass,
-                            logWatcherConfig, cloudConfig, coreLoadThreads, transientCacheSize, useSchemaCache, managementPath, loader, solrProperties,
+                            logWatcherConfig, cloudConfig, coreLoadThreads, facetThreads, transientCacheSize, useSchemaCache, managementPath, loader, solrProperties,
                             backupRepositoryPlugins, metricReporterPlugins, transientCacheConfig);
     }
   }
@@ -24,8 +24,16 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexableField;
@@ -53,6 +61,7 @@ import org.apache.solr.common.PushWriter;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrRequestInfo;
@@ -82,6 +91,19 @@ import static org.apache.solr.common.util.Utils.makeMap;
 
 public class ExportWriter implements SolrCore.RawWriter, Closeable {
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * Number of threads used to sort the segments of the index. If greater than 1, each segment is sorted
+   * separately and the sorted runs are merged while the documents are written. At most
+   * {@link CoreContainer#MAX_EXPORT_THREADS}.
+   */
+  public static final String EXPORT_THREADS = "export.threads";
+
+  private static final int QUEUE_SIZE = 30000;
+  // the runs of all segments of a parallel export buffer at most as many docs as the queue of a serial one
+  private static final int MAX_BUFFERED_DOCS = QUEUE_SIZE;
+  private static final int MIN_RUN_SIZE = 500;
+
   private OutputStreamWriter respWriter;
   final SolrQueryRequest req;
   final SolrQueryResponse res;
@@ -212,11 +234,17 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       return;
     }
 
+    int threads = Math.min(params.getInt(EXPORT_THREADS, 1), CoreContainer.MAX_EXPORT_THREADS);
+
     writer.writeMap(m -> {
       m.put("responseHeader", singletonMap("status", 0));
       m.put("response", (MapWriter) mw -> {
         mw.put("numFound", totalHits);
-        mw.put("docs", (IteratorWriter) iw -> writeDocs(req, iw, sort));
+        if (threads > 1) {
+          mw.put("docs", (IteratorWriter) iw -> writeDocsParallel(req, iw, sort, threads));
+        } else {
+          mw.put("docs", (IteratorWriter) iw -> writeDocs(req, iw, sort));
+        }
       });
     });
 
@@ -225,9 +253,9 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   protected void writeDocs(SolrQueryRequest req, IteratorWriter.ItemWriter writer, Sort sort) throws IOException {
     //Write the data.
     List<LeafReaderContext> leaves = req.getSearcher().getTopReaderContext().leaves();
-    SortDoc sortDoc = getSortDoc(req.getSearcher(), sort.getSort());
+    SortDoc sortDoc = getSortDoc(req.getSearcher(), sort.getSort(), false);
     int count = 0;
-    int queueSize = 30000;
+    int queueSize = QUEUE_SIZE;
     SortQueue queue = new SortQueue(queueSize, sortDoc);
     SortDoc[] outDocs = new SortDoc[queueSize];
 
@@ -270,21 +298,265 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
           });
         }
       } catch(Throwable e) {
-        Throwable ex = e;
-        while(ex != null) {
-          String m = ex.getMessage();
-          if(m != null && m.contains("Broken pipe")) {
-            throw new IgnoreException();
+        throw toWriteException(e);
+      }
+    }
+  }
+
+  private IOException toWriteException(Throwable e) {
+    Throwable ex = e;
+    while(ex != null) {
+      String m = ex.getMessage();
+      if(m != null && m.contains("Broken pipe")) {
+        return new IgnoreException();
+      }
+      ex = ex.getCause();
+    }
+
+    if(e instanceof IOException) {
+      return (IOException)e;
+    } else {
+      return new IOException(e);
+    }
+  }
+
+  /**
+   * Like {@link #writeDocs} but the segments are sorted concurrently, in runs of their best remaining
+   * documents, on the export executor of the {@link CoreContainer}. The calling thread merges the runs and
+   * writes the docs, so a slow client stalls the merging, and each segment only sorts its next run once its
+   * previous one has been merged. Falls back to {@link #writeDocs} if there are too many segments to give each
+   * of them a useful run size.
+   */
+  protected void writeDocsParallel(SolrQueryRequest req, IteratorWriter.ItemWriter writer, Sort sort, int threads) throws IOException {
+    if (totalHits == 0) {
+      return;
+    }
+    List<LeafReaderContext> leaves = req.getSearcher().getTopReaderContext().leaves();
+    List<LeafReaderContext> matching = new ArrayList<>();
+    for (int i = 0; i < leaves.size(); i++) {
+      if (sets[i].length() > 0 && sets[i].nextSetBit(0) != DocIdSetIterator.NO_MORE_DOCS) {
+        matching.add(leaves.get(i));
+      }
+    }
+    // two runs per segment, one being merged and one being sorted
+    int runSize = MAX_BUFFERED_DOCS / (2 * Math.max(1, matching.size()));
+    if (runSize < MIN_RUN_SIZE) {
+      writeDocs(req, writer, sort);
+      return;
+    }
+
+    SortDoc sortDoc = getSortDoc(req.getSearcher(), sort.getSort(), true);
+    RunScheduler scheduler = new RunScheduler(req.getCore().getCoreContainer().getExportExecutor(), threads);
+    List<SegmentRuns> segments = new ArrayList<>(matching.size());
+    for (LeafReaderContext context : matching) {
+      FixedBitSet set = sets[context.ord];
+      segments.add(new SegmentRuns(context, set, sortDoc.copy(), Math.min(runSize, set.cardinality()), scheduler));
+    }
+
+    try {
+      mergeRuns(segments, leaves, writer);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw toWriteException(e.getCause());
+    } catch (Throwable e) {
+      throw toWriteException(e);
+    } finally {
+      for (SegmentRuns segment : segments) {
+        segment.cancel();
+      }
+    }
+  }
+
+  /** Merges the sorted runs of all segments and writes the merged docs. */
+  private void mergeRuns(List<SegmentRuns> segments, List<LeafReaderContext> leaves, IteratorWriter.ItemWriter writer)
+      throws IOException, InterruptedException, ExecutionException {
+    for (SegmentRuns segment : segments) {
+      segment.start();
+    }
+    PriorityQueue<SegmentRuns> queue = new PriorityQueue<SegmentRuns>(segments.size()) {
+      @Override
+      protected boolean lessThan(SegmentRuns a, SegmentRuns b) {
+        // the top of the queue is the segment whose current doc sorts first
+        return b.current().lessThan(a.current());
+      }
+    };
+    for (SegmentRuns segment : segments) {
+      if (segment.next()) {
+        queue.add(segment);
+      }
+    }
+
+    while (queue.size() > 0) {
+      SegmentRuns top = queue.top();
+      SortDoc doc = top.current();
+      int ord = top.ord;
+      int docId = doc.docId;
+      doc.reset();
+      writer.add((MapWriter) ew -> writeDoc(ord, docId, leaves, ew));
+      if (top.next()) {
+        queue.updateTop();
+      } else {
+        queue.pop();
+      }
+    }
+  }
+
+  /**
+   * Runs the sort tasks of one request on the shared export executor, at most {@code maxRunning} of them at
+   * once. Further tasks wait in this scheduler rather than in the executor, and are started by the task that
+   * finishes, so that no thread of the executor ever blocks on another request's tasks.
+   */
+  static class RunScheduler {
+    private final Executor executor;
+    private final int maxRunning;
+    private final ArrayDeque<FutureTask<?>> waiting = new ArrayDeque<>();
+    private int running;
+
+    RunScheduler(Executor executor, int maxRunning) {
+      this.executor = executor;
+      this.maxRunning = maxRunning;
+    }
+
+    <T> Future<T> submit(Callable<T> callable) {
+      FutureTask<T> task = new FutureTask<>(callable);
+      synchronized (this) {
+        if (running >= maxRunning) {
+          waiting.add(task);
+          return task;
+        }
+        running++;
+      }
+      execute(task);
+      return task;
+    }
+
+    private void execute(FutureTask<?> task) {
+      try {
+        executor.execute(() -> {
+          try {
+            task.run();
+          } finally {
+            runNext();
           }
-          ex = ex.getCause();
+        });
+      } catch (RejectedExecutionException e) {
+        // shutting down
+        task.cancel(false);
+        runNext();
+      }
+    }
+
+    private void runNext() {
+      FutureTask<?> next;
+      synchronized (this) {
+        next = waiting.poll();
+        if (next == null) {
+          running--;
+          return;
         }
+      }
+      execute(next);
+    }
+  }
 
-        if(e instanceof IOException) {
-          throw ((IOException)e);
-        } else {
-          throw new IOException(e);
+  /**
+   * The docs of one segment in sort order, produced in runs of its best remaining docs. Runs are sorted by
+   * a {@link RunScheduler}; while one run is merged, the next one is already being sorted. The docs of a run
+   * are removed from the segment's bit set, so only this object may access the bit set.
+   */
+  class SegmentRuns {
+    final int ord;
+    private final LeafReaderContext context;
+    private final FixedBitSet set;
+    private final SortDoc sortDoc;
+    private final int runSize;
+    private final RunScheduler scheduler;
+    // two queues so the next run can be sorted while the docs of the current one are merged;
+    // the second one is only allocated if the segment has more docs than fit in one run
+    private final SortQueue[] queues = new SortQueue[2];
+    private final SortDoc[][] runs = new SortDoc[2][];
+    private int current;
+    private int pos;
+    private boolean last;
+    private Future<Integer> pending;
+
+    SegmentRuns(LeafReaderContext context, FixedBitSet set, SortDoc sortDoc, int runSize, RunScheduler scheduler) {
+      this.ord = context.ord;
+      this.context = context;
+      this.set = set;
+      this.sortDoc = sortDoc;
+      this.runSize = runSize;
+      this.scheduler = scheduler;
+      this.current = 1;
+    }
+
+    /** Starts sorting the first run */
+    void start() {
+      pending = scheduler.submit(() -> sortRun(0));
+    }
+
+    SortDoc current() {
+      return runs[current][pos];
+    }
+
+    /** Moves to the next doc, returns false if there is none */
+    boolean next() throws InterruptedException, ExecutionException {
+      if (--pos >= 0) {
+        return true;
+      }
+      if (pending == null) {
+        return false;
+      }
+      int size = pending.get();
+      pending = null;
+      int consumed = current;
+      current = 1 - current;
+      pos = size - 1;
+      if (!last) {
+        pending = scheduler.submit(() -> sortRun(consumed));
+      }
+      return pos >= 0;
+    }
+
+    /** Sorts the best remaining docs into runs[q], worst first, and returns their number */
+    private int sortRun(int q) throws IOException {
+      if (queues[q] == null) {
+        queues[q] = new SortQueue(runSize, sortDoc);
+        runs[q] = new SortDoc[runSize];
+      }
+      SortQueue queue = queues[q];
+      queue.reset();
+      SortDoc top = queue.top();
+      sortDoc.setNextReader(context);
+      DocIdSetIterator it = new BitSetIterator(set, 0); // cost is not useful here
+      int docId;
+      while ((docId = it.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        sortDoc.setValues(docId);
+        if (top.lessThan(sortDoc)) {
+          top.setValues(sortDoc);
+          top = queue.updateTop();
         }
       }
+
+      SortDoc[] run = runs[q];
+      int size = 0;
+      for (int i = 0; i < run.length; i++) {
+        SortDoc s = queue.pop();
+        if (s.docId > -1) {
+          run[size++] = s;
+          set.clear(s.docId);
+        }
+      }
+      last = size < run.length || set.nextSetBit(0) == DocIdSetIterator.NO_MORE_DOCS;
+      return size;
+    }
+
+    void cancel() {
+      if (pending != null) {
+        pending.cancel(true);
+      }
     }
   }
 
@@ -295,10 +567,14 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     int ord = sortDoc.ord;
     FixedBitSet set = sets[ord];
     set.clear(sortDoc.docId);
+    writeDoc(ord, sortDoc.docId, leaves, ew);
+  }
+
+  protected void writeDoc(int ord, int docId, List<LeafReaderContext> leaves, EntryWriter ew) throws IOException {
     LeafReaderContext context = leaves.get(ord);
     int fieldIndex = 0;
     for (FieldWriter fieldWriter : fieldWriters) {
-      if (fieldWriter.write(sortDoc.docId, context.reader(), ew, fieldIndex)) {
+      if (fieldWriter.write(docId, context.reader(), ew, fieldIndex)) {
         ++fieldIndex;
       }
     }
@@ -372,7 +648,11 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     return writers;
   }
 
-  private SortDoc getSortDoc(SolrIndexSearcher searcher, SortField[] sortFields) throws IOException {
+  /**
+   * @param concurrent true if segments may be sorted by other threads than the calling one, see
+   *                   {@link StringValue#StringValue(SortedDocValues, String, IntComp, boolean)}
+   */
+  private SortDoc getSortDoc(SolrIndexSearcher searcher, SortField[] sortFields, boolean concurrent) throws IOException {
     SortValue[] sortValues = new SortValue[sortFields.length];
     IndexSchema schema = searcher.getSchema();
     for(int i=0; i<sortFields.length; ++i) {
@@ -414,9 +694,9 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
         LeafReader reader = searcher.getSlowAtomicReader();
         SortedDocValues vals =  reader.getSortedDocValues(field);
         if(reverse) {
-          sortValues[i] = new StringValue(vals, field, new IntDesc());
+          sortValues[i] = new StringValue(vals, field, new IntDesc(), concurrent);
         } else {
-          sortValues[i] = new StringValue(vals, field, new IntAsc());
+          sortValues[i] = new StringValue(vals, field, new IntAsc(), concurrent);
         }
       } else if (ft instanceof TrieDateField) {
         if (reverse) {
@@ -431,9 +711,9 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
         LeafReader reader = searcher.getSlowAtomicReader();
         SortedDocValues vals = reader.getSortedDocValues(field);
         if (reverse) {
-          sortValues[i] = new StringValue(vals, field, new IntDesc());
+          sortValues[i] = new StringValue(vals, field, new IntDesc(), concurrent);
         } else {
-          sortValues[i] = new StringValue(vals, field, new IntAsc());
+          sortValues[i] = new StringValue(vals, field, new IntAsc(), concurrent);
         }
       } else {
         throw new IOException("Sort fields must be one of the following types: int,float,long,double,string,date,boolean");
@@ -1205,9 +1485,20 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     protected int segment;
     protected int currentOrd;
     protected IntComp comp;
+    protected boolean concurrent;
 
     public StringValue(SortedDocValues vals, String field, IntComp comp)  {
+      this(vals, field, comp, false);
+    }
+
+    /**
+     * @param concurrent if true, the doc values of a segment are looked up by each {@link #setNextReader} call
+     *                   rather than taken from {@code vals}, whose doc values belong to the thread that created
+     *                   them, so that segments can be sorted by other threads
+     */
+    public StringValue(SortedDocValues vals, String field, IntComp comp, boolean concurrent)  {
       this.vals = vals;
+      this.concurrent = concurrent;
       if(vals instanceof  MultiDocValues.MultiSortedDocValues) {
         this.segmentVals = ((MultiDocValues.MultiSortedDocValues) vals).values;
         this.ordinalMap = ((MultiDocValues.MultiSortedDocValues) vals).mapping;
@@ -1218,7 +1509,7 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     }
 
     public StringValue copy() {
-      return new StringValue(vals, field, comp);
+      return new StringValue(vals, field, comp, concurrent);
     }
 
     public void setCurrentValue(int docId) {
@@ -1240,10 +1531,14 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
       this.currentOrd = v.currentOrd;
     }
 
-    public void setNextReader(LeafReaderContext context) {
+    public void setNextReader(LeafReaderContext context) throws IOException {
       segment = context.ord;
       if(ordinalMap != null) {
         globalOrds = ordinalMap.getGlobalOrds(segment);
+      }
+      if(concurrent) {
+        currentVals = DocValues.getSorted(context.reader(), field);
+      } else if(ordinalMap != null) {
         currentVals = segmentVals[segment];
       } else {
         currentVals = vals;
@@ -117,6 +117,8 @@ import static org.apache.solr.common.cloud.DocCollection.STATE_FORMAT;
 import static org.apache.solr.common.cloud.ZkStateReader.AUTO_ADD_REPLICAS;
 import static org.apache.solr.common.cloud.ZkStateReader.COLLECTION_PROP;
 import static org.apache.solr.common.cloud.ZkStateReader.MAX_SHARDS_PER_NODE;
+import static org.apache.solr.common.cloud.ZkStateReader.ONLY_LEADER_INDEXES;
+import static org.apache.solr.common.cloud.ZkStateReader.PER_REPLICA_STATE;
 import static org.apache.solr.common.cloud.ZkStateReader.PROPERTY_PROP;
 import static org.apache.solr.common.cloud.ZkStateReader.PROPERTY_VALUE_PROP;
 import static org.apache.solr.common.cloud.ZkStateReader.REPLICATION_FACTOR;
@@ -405,6 +407,8 @@ public class CollectionsHandler extends RequestHandlerBase implements Permission
           SHARDS_PROP,
           STATE_FORMAT,
           AUTO_ADD_REPLICAS,
+          ONLY_LEADER_INDEXES,
+          PER_REPLICA_STATE,
           RULE,
           SNITCH);
 
@@ -22,14 +22,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.http.client.HttpClient;
@@ -64,8 +64,10 @@ import org.slf4j.MDC;
 public class HttpShardHandler extends ShardHandler {
 
   private HttpShardHandlerFactory httpShardHandlerFactory;
-  private CompletionService<ShardResponse> completionService;
-  private Set<Future<ShardResponse>> pending;
+  // completed requests are added by completion callbacks and consumed by the request thread
+  private BlockingQueue<CompletableFuture<ShardResponse>> completed;
+  private Set<CompletableFuture<ShardResponse>> pending;
+  private int outstanding; // number of submitted requests whose response has not been taken yet
   private Map<String,List<String>> shardToURLs;
   private HttpClient httpClient;
 
@@ -74,8 +76,8 @@ public class HttpShardHandler extends ShardHandler {
   public HttpShardHandler(HttpShardHandlerFactory httpShardHandlerFactory, HttpClient httpClient) {
     this.httpClient = httpClient;
     this.httpShardHandlerFactory = httpShardHandlerFactory;
-    completionService = httpShardHandlerFactory.newCompletionService();
-    pending = new HashSet<>();
+    completed = new LinkedBlockingQueue<>();
+    pending = ConcurrentHashMap.newKeySet();
 
     // maps "localhost:8983|localhost:7574" to a shuffled List("http://localhost:8983","http://localhost:7574")
     // This is primarily to keep track of what order we should use to query the replicas of a shard
@@ -128,14 +130,49 @@ public class HttpShardHandler extends ShardHandler {
     // do this outside of the callable for thread safety reasons
     final List<String> urls = getURLs(shard);
 
-    Callable<ShardResponse> task = () -> {
-
-      ShardResponse srsp = new ShardResponse();
-      if (sreq.nodeName != null) {
-        srsp.setNodeName(sreq.nodeName);
+    try {
+      if (shard != null)  {
+        MDC.put("ShardRequest.shards", shard);
       }
-      srsp.setShardRequest(sreq);
-      srsp.setShard(shard);
+      if (urls != null && !urls.isEmpty())  {
+        MDC.put("ShardRequest.urlList", urls.toString());
+      }
+      final CompletableFuture<ShardResponse> future = sendRequest(sreq, shard, params, urls);
+      pending.add(future);
+      outstanding++;
+      future.whenComplete((rsp, t) -> {
+        pending.remove(future);
+        completed.add(future);
+      });
+    } finally {
+      MDC.remove("ShardRequest.shards");
+      MDC.remove("ShardRequest.urlList");
+    }
+  }
+
+  private static ShardResponse newShardResponse(final ShardRequest sreq, final String shard) {
+    ShardResponse srsp = new ShardResponse();
+    if (sreq.nodeName != null) {
+      srsp.setNodeName(sreq.nodeName);
+    }
+    srsp.setShardRequest(sreq);
+    srsp.setShard(shard);
+    return srsp;
+  }
+
+  /**
+   * Sends the request to one of the given urls and returns a future that is completed with
+   * the {@link ShardResponse}. Failures of the request must be reported through
+   * {@link ShardResponse#getException()} rather than by completing the future exceptionally.
+   * <p>
+   * This implementation runs a blocking request on the executor of the
+   * {@link HttpShardHandlerFactory}, so each pending request still takes a thread.
+   */
+  protected CompletableFuture<ShardResponse> sendRequest(final ShardRequest sreq, final String shard,
+                                                         final ModifiableSolrParams params, final List<String> urls) {
+    return CompletableFuture.supplyAsync(() -> {
+
+      ShardResponse srsp = newShardResponse(sreq, shard);
       SimpleSolrResponse ssr = new SimpleSolrResponse();
       srsp.setSolrResponse(ssr);
       long startTime = System.nanoTime();
@@ -183,20 +220,7 @@ public class HttpShardHandler extends ShardHandler {
       ssr.elapsedTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
 
       return transfomResponse(sreq, srsp, shard);
-    };
-
-    try {
-      if (shard != null)  {
-        MDC.put("ShardRequest.shards", shard);
-      }
-      if (urls != null && !urls.isEmpty())  {
-        MDC.put("ShardRequest.urlList", urls.toString());
-      }
-      pending.add( completionService.submit(task) );
-    } finally {
-      MDC.remove("ShardRequest.shards");
-      MDC.remove("ShardRequest.urlList");
-    }
+    }, httpShardHandlerFactory.getThreadPoolExecutor());
   }
   
   /**
@@ -235,10 +259,10 @@ public class HttpShardHandler extends ShardHandler {
   
   private ShardResponse take(boolean bailOnError) {
     
-    while (pending.size() > 0) {
+    while (outstanding > 0) {
       try {
-        Future<ShardResponse> future = completionService.take();
-        pending.remove(future);
+        CompletableFuture<ShardResponse> future = completed.take();
+        outstanding--;
         ShardResponse rsp = future.get();
         if (bailOnError && rsp.getException() != null) return rsp; // if exception, return immediately
         // add response to the response list... we do this after the take() and
@@ -263,7 +287,7 @@ public class HttpShardHandler extends ShardHandler {
 
   @Override
   public void cancelAll() {
-    for (Future<ShardResponse> future : pending) {
+    for (CompletableFuture<ShardResponse> future : pending) {
       future.cancel(false);
     }
   }
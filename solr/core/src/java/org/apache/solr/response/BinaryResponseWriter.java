@@ -30,13 +30,17 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.solr.client.solrj.impl.BinaryResponseParser;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.StrField;
+import org.apache.solr.schema.TextField;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.ReturnFields;
+import org.apache.solr.search.SolrDocumentFetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -98,6 +102,11 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
 
         IndexableField f = (IndexableField)o;
         SchemaField sf = schema.getFieldOrNull(f.name());
+        if (f instanceof SolrDocumentFetcher.Utf8StoredField && sf != null
+            && (sf.getType().getClass() == StrField.class || sf.getType().getClass() == TextField.class)) {
+          // the stored value is the external value, write its UTF-8 bytes as they were read from the index
+          return new ByteArrayUtf8CharSequence(((SolrDocumentFetcher.Utf8StoredField) f).utf8Value());
+        }
         try {
           o = DocsStreamer.getValue(sf, f);
         } catch (Exception e) {
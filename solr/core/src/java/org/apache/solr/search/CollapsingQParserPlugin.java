@@ -469,8 +469,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     private SortedDocValues segmentValues;
     private LongValues segmentOrdinalMap;
     private MultiDocValues.MultiSortedDocValues multiSortedDocValues;
-    private int[] ords;
-    private float[] scores;
+    private OrdScoreHeads heads;
     private int maxDoc;
     private int nullPolicy;
     private float nullScore = -Float.MAX_VALUE;
@@ -495,10 +494,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         this.multiSortedDocValues = (MultiDocValues.MultiSortedDocValues)collapseValues;
         this.ordinalMap = multiSortedDocValues.mapping;
       }
-      this.ords = new int[valueCount];
-      Arrays.fill(this.ords, -1);
-      this.scores = new float[valueCount];
-      Arrays.fill(this.scores, -Float.MAX_VALUE);
+      this.heads = new OrdScoreHeads(valueCount);
       this.nullPolicy = nullPolicy;
       if(nullPolicy == CollapsingPostFilter.NULL_POLICY_EXPAND) {
         nullScores = new FloatArrayList();
@@ -558,11 +554,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       }
 
       if(ord > -1) {
-        float score = scorer.score();
-        if(score > scores[ord]) {
-          ords[ord] = globalDoc;
-          scores[ord] = score;
-        }
+        heads.collect(ord, globalDoc, scorer.score());
       } else if(nullPolicy == CollapsingPostFilter.NULL_POLICY_COLLAPSE) {
         float score = scorer.score();
         if(score > nullScore) {
@@ -592,7 +584,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
           int ord = this.boostOrds.get(i);
           if(ord > -1) {
             //Remove any group heads that are in the same groups as boosted documents.
-            ords[ord] = -1;
+            heads.remove(ord);
           }
           //Add the boosted docs to the collapsedSet
           this.collapsedSet.set(boostDocs.get(i));
@@ -601,12 +593,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       }
 
       //Build the sorted DocSet of group heads.
-      for(int i=0; i<ords.length; i++) {
-        int doc = ords[i];
-        if(doc > -1) {
-          collapsedSet.set(doc);
-        }
-      }
+      heads.setHeads(collapsedSet);
 
       int currentContext = 0;
       int currentDocBase = 0;
@@ -654,7 +641,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         }
 
         if(ord > -1) {
-          dummy.score = scores[ord];
+          dummy.score = heads.score(ord);
         } else if(boosts && mergeBoost.boost(docId)) {
           //Ignore so it doesn't mess up the null scoring.
         } else if(this.nullPolicy == CollapsingPostFilter.NULL_POLICY_COLLAPSE) {
@@ -673,6 +660,213 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     }
   }
 
+  /*
+  * The highest scoring document of each ordinal, for the OrdScoreCollector.
+  *
+  * Arrays sized to the number of ordinals are expensive when collapsing on a field with many
+  * distinct values, while most queries only hit a small fraction of them. So for such fields the
+  * group heads are first kept in a hash map, with the score and document combined into a long as
+  * in the IntScoreCollector. Once the hits cover a good part of the ordinals, where the map would
+  * take more memory than the arrays, the group heads are moved to arrays indexed by ordinal.
+  */
+
+  static final class OrdScoreHeads {
+
+    // Below this many ordinals, the arrays are allocated right away
+    static final int SPARSE_MIN_VALUE_COUNT = 1 << 18;
+
+    private final int valueCount;
+    private IntLongHashMap sparseHeads;
+    private int maxSparseHeads;
+    private int[] ords;
+    private float[] scores;
+
+    OrdScoreHeads(int valueCount) {
+      this.valueCount = valueCount;
+      if(valueCount >= SPARSE_MIN_VALUE_COUNT) {
+        this.sparseHeads = new IntLongHashMap();
+        //Per entry, the map takes about twice the memory of the arrays.
+        this.maxSparseHeads = valueCount >>> 3;
+      } else {
+        toDense();
+      }
+    }
+
+    /** Makes the document the head of its group if it scores higher than the current head */
+    void collect(int ord, int doc, float score) {
+      if(sparseHeads == null) {
+        if(score > scores[ord]) {
+          ords[ord] = doc;
+          scores[ord] = score;
+        }
+        return;
+      }
+
+      final int idx;
+      if((idx = sparseHeads.indexOf(ord)) >= 0) {
+        if(score > score(sparseHeads.indexGet(idx))) {
+          sparseHeads.indexReplace(idx, scoreDoc(score, doc));
+        }
+      } else if(score > -Float.MAX_VALUE) {
+        sparseHeads.indexInsert(idx, ord, scoreDoc(score, doc));
+        if(sparseHeads.size() > maxSparseHeads) {
+          toDense();
+        }
+      }
+    }
+
+    /** Returns the score of the head of the group, -Float.MAX_VALUE if nothing was collected for it */
+    float score(int ord) {
+      if(sparseHeads == null) {
+        return scores[ord];
+      }
+      final int idx = sparseHeads.indexOf(ord);
+      return idx >= 0 ? score(sparseHeads.indexGet(idx)) : -Float.MAX_VALUE;
+    }
+
+    /** Removes the head of the group, but keeps its score */
+    void remove(int ord) {
+      if(sparseHeads == null) {
+        ords[ord] = -1;
+      } else {
+        final int idx = sparseHeads.indexOf(ord);
+        if(idx >= 0) {
+          sparseHeads.indexReplace(idx, scoreDoc(score(sparseHeads.indexGet(idx)), -1));
+        }
+      }
+    }
+
+    /** Sets the heads of all groups in the given bit set */
+    void setHeads(FixedBitSet collapsedSet) {
+      if(sparseHeads == null) {
+        for(int i=0; i<ords.length; i++) {
+          int doc = ords[i];
+          if(doc > -1) {
+            collapsedSet.set(doc);
+          }
+        }
+      } else {
+        for(IntLongCursor cursor : sparseHeads) {
+          int doc = (int)cursor.value;
+          if(doc > -1) {
+            collapsedSet.set(doc);
+          }
+        }
+      }
+    }
+
+    private void toDense() {
+      this.ords = new int[valueCount];
+      Arrays.fill(this.ords, -1);
+      this.scores = new float[valueCount];
+      Arrays.fill(this.scores, -Float.MAX_VALUE);
+      if(sparseHeads != null) {
+        for(IntLongCursor cursor : sparseHeads) {
+          ords[cursor.key] = (int)cursor.value;
+          scores[cursor.key] = score(cursor.value);
+        }
+        sparseHeads = null;
+      }
+    }
+
+    private static long scoreDoc(float score, int doc) {
+      return (((long)Float.floatToRawIntBits(score))<<32) | (doc & 0xFFFFFFFFL);
+    }
+
+    private static float score(long scoreDoc) {
+      return Float.intBitsToFloat((int)(scoreDoc>>>32));
+    }
+
+    boolean isSparse() {
+      return sparseHeads != null;
+    }
+  }
+
+  /*
+  * The slot of each collected ordinal in the group arrays of an OrdFieldValueStrategy.
+  *
+  * Below SPARSE_MIN_VALUE_COUNT ordinals, the slot of an ordinal is the ordinal itself and the
+  * arrays are allocated up front. Above that, the slots are handed out in the order in which the
+  * ordinals are first collected, so the arrays only grow with the number of groups that were hit.
+  * The slots are looked up in a hash map first, and, like OrdScoreHeads, in an array indexed by
+  * ordinal once more than 1/8 of the ordinals have one. The slots stay the same.
+  */
+
+  static final class OrdSlots {
+
+    private final int valueCount;
+    private IntIntHashMap sparseSlots;
+    private int maxSparseSlots;
+    private int[] denseSlots;
+    private int size;
+
+    OrdSlots(int valueCount) {
+      this.valueCount = valueCount;
+      if(valueCount >= OrdScoreHeads.SPARSE_MIN_VALUE_COUNT) {
+        this.sparseSlots = new IntIntHashMap();
+        this.maxSparseSlots = valueCount >>> 3;
+      } else {
+        this.size = valueCount;
+      }
+    }
+
+    /** The size the group arrays start with */
+    int initialSize() {
+      return sparseSlots == null ? valueCount : 16;
+    }
+
+    /** The number of slots handed out */
+    int size() {
+      return size;
+    }
+
+    /** Returns the slot of the ordinal, -1 if it was not collected */
+    int get(int ord) {
+      if(sparseSlots != null) {
+        final int idx = sparseSlots.indexOf(ord);
+        return idx >= 0 ? sparseSlots.indexGet(idx) : -1;
+      } else if(denseSlots != null) {
+        return denseSlots[ord];
+      }
+      return ord;
+    }
+
+    /** Returns the slot of the ordinal, which is the next free one if it was not collected before */
+    int getOrAdd(int ord) {
+      if(sparseSlots != null) {
+        final int idx;
+        if((idx = sparseSlots.indexOf(ord)) >= 0) {
+          return sparseSlots.indexGet(idx);
+        }
+        sparseSlots.indexInsert(idx, ord, size);
+        if(sparseSlots.size() > maxSparseSlots) {
+          toDense();
+        }
+        return size++;
+      } else if(denseSlots != null) {
+        int slot = denseSlots[ord];
+        if(slot == -1) {
+          slot = denseSlots[ord] = size++;
+        }
+        return slot;
+      }
+      return ord;
+    }
+
+    private void toDense() {
+      this.denseSlots = new int[valueCount];
+      Arrays.fill(this.denseSlots, -1);
+      for(IntIntCursor cursor : sparseSlots) {
+        denseSlots[cursor.key] = cursor.value;
+      }
+      sparseSlots = null;
+    }
+
+    boolean isSparse() {
+      return sparseSlots != null;
+    }
+  }
+
   /*
   * Collapses on an integer field using the score to select the group head.
   */
@@ -901,16 +1095,16 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       this.nullPolicy = nullPolicy;
       this.needsScores = needsScores;
       if (null != sortSpec) {
-        this.collapseStrategy = new OrdSortSpecStrategy(maxDoc, nullPolicy, new int[valueCount], groupHeadSelector, this.needsScores, boostDocs, sortSpec, searcher, collapseValues);
+        this.collapseStrategy = new OrdSortSpecStrategy(maxDoc, nullPolicy, valueCount, groupHeadSelector, this.needsScores, boostDocs, sortSpec, searcher, collapseValues);
       } else if (funcQuery != null) {
-        this.collapseStrategy =  new OrdValueSourceStrategy(maxDoc, nullPolicy, new int[valueCount], groupHeadSelector, this.needsScores, boostDocs, funcQuery, searcher, collapseValues);
+        this.collapseStrategy =  new OrdValueSourceStrategy(maxDoc, nullPolicy, valueCount, groupHeadSelector, this.needsScores, boostDocs, funcQuery, searcher, collapseValues);
       } else {
         if(fieldType instanceof TrieIntField || fieldType instanceof IntPointField) {
-          this.collapseStrategy = new OrdIntStrategy(maxDoc, nullPolicy, new int[valueCount], groupHeadSelector, this.needsScores, boostDocs, collapseValues);
+          this.collapseStrategy = new OrdIntStrategy(maxDoc, nullPolicy, valueCount, groupHeadSelector, this.needsScores, boostDocs, collapseValues);
         } else if(fieldType instanceof TrieFloatField || fieldType instanceof FloatPointField) {
-          this.collapseStrategy = new OrdFloatStrategy(maxDoc, nullPolicy, new int[valueCount], groupHeadSelector, this.needsScores, boostDocs, collapseValues);
+          this.collapseStrategy = new OrdFloatStrategy(maxDoc, nullPolicy, valueCount, groupHeadSelector, this.needsScores, boostDocs, collapseValues);
         } else if(fieldType instanceof TrieLongField || fieldType instanceof LongPointField) {
-          this.collapseStrategy =  new OrdLongStrategy(maxDoc, nullPolicy, new int[valueCount], groupHeadSelector, this.needsScores, boostDocs, collapseValues);
+          this.collapseStrategy =  new OrdLongStrategy(maxDoc, nullPolicy, valueCount, groupHeadSelector, this.needsScores, boostDocs, collapseValues);
         } else {
           throw new IOException("min/max must be either Int/Long/Float field types");
         }
@@ -971,7 +1165,6 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       DocIdSetIterator it = new BitSetIterator(collapseStrategy.getCollapsedSet(), 0); // cost is not useful here
       int globalDoc = -1;
       int nullScoreIndex = 0;
-      float[] scores = collapseStrategy.getScores();
       FloatArrayList nullScores = collapseStrategy.getNullScores();
       float nullScore = collapseStrategy.getNullScore();
 
@@ -1006,7 +1199,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
           }
 
           if(ord > -1) {
-            dummy.score = scores[ord];
+            dummy.score = collapseStrategy.getScore(ord);
           } else if (mergeBoost != null && mergeBoost.boost(globalDoc)) {
             //It's an elevated doc so no score is needed
             dummy.score = 0F;
@@ -1354,7 +1547,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
    */
   private static abstract class OrdFieldValueStrategy {
     protected int nullPolicy;
-    protected int[] ords; 
+    protected OrdSlots slots;
+    protected int[] docs;
     protected Scorer scorer;
     protected FloatArrayList nullScores;
     protected float nullScore;
@@ -1372,13 +1566,14 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     public abstract void setNextReader(LeafReaderContext context) throws IOException;
 
     public OrdFieldValueStrategy(int maxDoc,
-                                 int[] ords,
+                                 int valueCount,
                                  int nullPolicy,
                                  boolean needsScores,
                                  IntIntHashMap boostDocsMap,
                                  SortedDocValues values) {
-      this.ords = ords;
-      Arrays.fill(ords, -1);
+      this.slots = new OrdSlots(valueCount);
+      this.docs = new int[slots.initialSize()];
+      Arrays.fill(docs, -1);
       this.nullPolicy = nullPolicy;
       this.needsScores = needsScores;
       this.collapsedSet = new FixedBitSet(maxDoc);
@@ -1413,8 +1608,9 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         int s = boostOrds.size();
         for(int i=0; i<s; i++) {
           int ord = boostOrds.get(i);
-          if(ord > -1) {
-            ords[ord] = -1;
+          int slot = ord > -1 ? slots.get(ord) : -1;
+          if(slot > -1) {
+            docs[slot] = -1;
           }
           collapsedSet.set(boostDocs.get(i));
         }
@@ -1422,8 +1618,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
         mergeBoost.reset();
       }
 
-      for(int i=0; i<ords.length; i++) {
-        int doc = ords[i];
+      for(int i=0; i<slots.size(); i++) {
+        int doc = docs[i];
         if(doc > -1) {
           collapsedSet.set(doc);
         }
@@ -1432,6 +1628,31 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       return collapsedSet;
     }
 
+    /**
+     * Returns the slot of the ordinal in the group arrays, and makes room for it if the ordinal
+     * was not collected before.
+     */
+    protected int slot(int ord) {
+      int slot = slots.getOrAdd(ord);
+      if(slot == docs.length) {
+        int size = ArrayUtil.oversize(slot + 1, Integer.BYTES);
+        docs = Arrays.copyOf(docs, size);
+        Arrays.fill(docs, slot, size, -1);
+        if(scores != null) {
+          scores = Arrays.copyOf(scores, size);
+        }
+        grow(slot, size);
+      }
+      return slot;
+    }
+
+    /**
+     * Grows the group arrays of the strategy to the given size, and initializes the slots from
+     * the given one on.
+     */
+    protected void grow(int from, int size) {
+    }
+
     public void setScorer(Scorer scorer) throws IOException {
       this.scorer = scorer;
     }
@@ -1444,8 +1665,10 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       return this.nullScore;
     }
 
-    public float[] getScores() {
-      return scores;
+    /** Returns the score of the head of the ordinal's group, 0 if it has none */
+    public float getScore(int ord) {
+      int slot = slots.get(ord);
+      return slot > -1 ? scores[slot] : 0F;
     }
   }
 
@@ -1458,38 +1681,46 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     private NumericDocValues minMaxValues;
     private IntCompare comp;
     private int nullVal;
+    private int initialVal;
     private int[] ordVals;
 
     public OrdIntStrategy(int maxDoc,
                           int nullPolicy,
-                          int[] ords,
+                          int valueCount,
                           GroupHeadSelector groupHeadSelector,
                           boolean needsScores,
                           IntIntHashMap boostDocs,
                           SortedDocValues values) throws IOException {
-      super(maxDoc, ords, nullPolicy, needsScores, boostDocs, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostDocs, values);
       this.field = groupHeadSelector.selectorText;
-      this.ordVals = new int[ords.length];
+      this.ordVals = new int[docs.length];
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
       
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxIntComp();
-        Arrays.fill(ordVals, Integer.MIN_VALUE);
+        this.initialVal = Integer.MIN_VALUE;
       } else {
         comp = new MinIntComp();
-        Arrays.fill(ordVals, Integer.MAX_VALUE);
+        this.initialVal = Integer.MAX_VALUE;
         this.nullVal = Integer.MAX_VALUE;
       }
+      Arrays.fill(ordVals, initialVal);
 
       if(needsScores) {
-        this.scores = new float[ords.length];
+        this.scores = new float[docs.length];
         if(nullPolicy == CollapsingPostFilter.NULL_POLICY_EXPAND) {
           nullScores = new FloatArrayList();
         }
       }
     }
 
+    @Override
+    protected void grow(int from, int size) {
+      ordVals = Arrays.copyOf(ordVals, size);
+      Arrays.fill(ordVals, from, size, initialVal);
+    }
+
     public void setNextReader(LeafReaderContext context) throws IOException {
       this.minMaxValues = DocValues.getNumeric(context.reader(), this.field);
     }
@@ -1505,11 +1736,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       int currentVal = (int) minMaxValues.get(contextDoc);
 
       if(ord > -1) {
-        if(comp.test(currentVal, ordVals[ord])) {
-          ords[ord] = globalDoc;
-          ordVals[ord] = currentVal;
+        int slot = slot(ord);
+        if(comp.test(currentVal, ordVals[slot])) {
+          docs[slot] = globalDoc;
+          ordVals[slot] = currentVal;
           if(needsScores) {
-            scores[ord] = scorer.score();
+            scores[slot] = scorer.score();
           }
         }
       } else if(this.nullPolicy == CollapsingPostFilter.NULL_POLICY_COLLAPSE) {
@@ -1539,39 +1771,47 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     private NumericDocValues minMaxValues;
     private FloatCompare comp;
     private float nullVal;
+    private float initialVal;
     private float[] ordVals;
 
     public OrdFloatStrategy(int maxDoc,
                             int nullPolicy,
-                            int[] ords,
+                            int valueCount,
                             GroupHeadSelector groupHeadSelector,
                             boolean needsScores,
                             IntIntHashMap boostDocs,
                             SortedDocValues values) throws IOException {
-      super(maxDoc, ords, nullPolicy, needsScores, boostDocs, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostDocs, values);
       this.field = groupHeadSelector.selectorText;
-      this.ordVals = new float[ords.length];
+      this.ordVals = new float[docs.length];
       
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
 
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxFloatComp();
-        Arrays.fill(ordVals, -Float.MAX_VALUE);
+        this.initialVal = -Float.MAX_VALUE;
         this.nullVal = -Float.MAX_VALUE;
       } else {
         comp = new MinFloatComp();
-        Arrays.fill(ordVals, Float.MAX_VALUE);
+        this.initialVal = Float.MAX_VALUE;
         this.nullVal = Float.MAX_VALUE;
       }
+      Arrays.fill(ordVals, initialVal);
 
       if(needsScores) {
-        this.scores = new float[ords.length];
+        this.scores = new float[docs.length];
         if(nullPolicy == CollapsingPostFilter.NULL_POLICY_EXPAND) {
           nullScores = new FloatArrayList();
         }
       }
     }
 
+    @Override
+    protected void grow(int from, int size) {
+      ordVals = Arrays.copyOf(ordVals, size);
+      Arrays.fill(ordVals, from, size, initialVal);
+    }
+
     public void setNextReader(LeafReaderContext context) throws IOException {
       this.minMaxValues = DocValues.getNumeric(context.reader(), this.field);
     }
@@ -1588,11 +1828,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       float currentVal = Float.intBitsToFloat(currentMinMax);
 
       if(ord > -1) {
-        if(comp.test(currentVal, ordVals[ord])) {
-          ords[ord] = globalDoc;
-          ordVals[ord] = currentVal;
+        int slot = slot(ord);
+        if(comp.test(currentVal, ordVals[slot])) {
+          docs[slot] = globalDoc;
+          ordVals[slot] = currentVal;
           if(needsScores) {
-            scores[ord] = scorer.score();
+            scores[slot] = scorer.score();
           }
         }
       } else if(this.nullPolicy == CollapsingPostFilter.NULL_POLICY_COLLAPSE) {
@@ -1623,37 +1864,45 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     private NumericDocValues minMaxVals;
     private LongCompare comp;
     private long nullVal;
+    private long initialVal;
     private long[] ordVals;
 
     public OrdLongStrategy(int maxDoc,
                            int nullPolicy,
-                           int[] ords,
+                           int valueCount,
                            GroupHeadSelector groupHeadSelector,
                            boolean needsScores,
                            IntIntHashMap boostDocs, SortedDocValues values) throws IOException {
-      super(maxDoc, ords, nullPolicy, needsScores, boostDocs, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostDocs, values);
       this.field = groupHeadSelector.selectorText;
-      this.ordVals = new long[ords.length];
+      this.ordVals = new long[docs.length];
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
       
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxLongComp();
-        Arrays.fill(ordVals, Long.MIN_VALUE);
+        this.initialVal = Long.MIN_VALUE;
       } else {
         this.nullVal = Long.MAX_VALUE;
         comp = new MinLongComp();
-        Arrays.fill(ordVals, Long.MAX_VALUE);
+        this.initialVal = Long.MAX_VALUE;
       }
+      Arrays.fill(ordVals, initialVal);
 
       if(needsScores) {
-        this.scores = new float[ords.length];
+        this.scores = new float[docs.length];
         if(nullPolicy == CollapsingPostFilter.NULL_POLICY_EXPAND) {
           nullScores = new FloatArrayList();
         }
       }
     }
 
+    @Override
+    protected void grow(int from, int size) {
+      ordVals = Arrays.copyOf(ordVals, size);
+      Arrays.fill(ordVals, from, size, initialVal);
+    }
+
     public void setNextReader(LeafReaderContext context) throws IOException {
       this.minMaxVals = DocValues.getNumeric(context.reader(), this.field);
     }
@@ -1668,11 +1917,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
 
       long currentVal = minMaxVals.get(contextDoc);
       if(ord > -1) {
-        if(comp.test(currentVal, ordVals[ord])) {
-          ords[ord] = globalDoc;
-          ordVals[ord] = currentVal;
+        int slot = slot(ord);
+        if(comp.test(currentVal, ordVals[slot])) {
+          docs[slot] = globalDoc;
+          ordVals[slot] = currentVal;
           if(needsScores) {
-            scores[ord] = scorer.score();
+            scores[slot] = scorer.score();
           }
         }
       } else if(this.nullPolicy == CollapsingPostFilter.NULL_POLICY_COLLAPSE) {
@@ -1702,6 +1952,7 @@ public class CollapsingQParserPlugin extends QParserPlugin {
     private float nullVal;
     private ValueSource valueSource;
     private FunctionValues functionValues;
+    private float initialVal;
     private float[] ordVals;
     private Map rcontext;
     private final CollapseScore collapseScore = new CollapseScore();
@@ -1709,39 +1960,46 @@ public class CollapsingQParserPlugin extends QParserPlugin {
 
     public OrdValueSourceStrategy(int maxDoc,
                                   int nullPolicy,
-                                  int[] ords,
+                                  int valueCount,
                                   GroupHeadSelector groupHeadSelector,
                                   boolean needsScores,
                                   IntIntHashMap boostDocs,
                                   FunctionQuery funcQuery,
                                   IndexSearcher searcher,
                                   SortedDocValues values) throws IOException {
-      super(maxDoc, ords, nullPolicy, needsScores, boostDocs, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostDocs, values);
       this.valueSource = funcQuery.getValueSource();
       this.rcontext = ValueSource.newContext(searcher);
-      this.ordVals = new float[ords.length];
+      this.ordVals = new float[docs.length];
 
       assert GroupHeadSelectorType.MIN_MAX.contains(groupHeadSelector.type);
       
       if (GroupHeadSelectorType.MAX.equals(groupHeadSelector.type)) {
         comp = new MaxFloatComp();
-        Arrays.fill(ordVals, -Float.MAX_VALUE );
+        this.initialVal = -Float.MAX_VALUE;
       } else {
         this.nullVal = Float.MAX_VALUE;
         comp = new MinFloatComp();
-        Arrays.fill(ordVals, Float.MAX_VALUE);
+        this.initialVal = Float.MAX_VALUE;
       }
+      Arrays.fill(ordVals, initialVal);
 
       collapseScore.setupIfNeeded(groupHeadSelector, rcontext);
 
       if(this.needsScores) {
-        this.scores = new float[ords.length];
+        this.scores = new float[docs.length];
         if(nullPolicy == CollapsingPostFilter.NULL_POLICY_EXPAND) {
           nullScores = new FloatArrayList();
         }
       }
     }
 
+    @Override
+    protected void grow(int from, int size) {
+      ordVals = Arrays.copyOf(ordVals, size);
+      Arrays.fill(ordVals, from, size, initialVal);
+    }
+
     public void setNextReader(LeafReaderContext context) throws IOException {
       functionValues = this.valueSource.getValues(rcontext, context);
     }
@@ -1761,11 +2019,12 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       float currentVal = functionValues.floatVal(contextDoc);
 
       if(ord > -1) {
-        if(comp.test(currentVal, ordVals[ord])) {
-          ords[ord] = globalDoc;
-          ordVals[ord] = currentVal;
+        int slot = slot(ord);
+        if(comp.test(currentVal, ordVals[slot])) {
+          docs[slot] = globalDoc;
+          ordVals[slot] = currentVal;
           if(needsScores) {
-            scores[ord] = score;
+            scores[slot] = score;
           }
         }
       } else if(this.nullPolicy == CollapsingPostFilter.NULL_POLICY_COLLAPSE) {
@@ -1799,30 +2058,35 @@ public class CollapsingQParserPlugin extends QParserPlugin {
 
     public OrdSortSpecStrategy(int maxDoc,
                                int nullPolicy,
-                               int[] ords,
+                               int valueCount,
                                GroupHeadSelector groupHeadSelector,
                                boolean needsScores,
                                IntIntHashMap boostDocs,
                                SortSpec sortSpec,
                                IndexSearcher searcher,
                                SortedDocValues values) throws IOException {
-      super(maxDoc, ords, nullPolicy, needsScores, boostDocs, values);
+      super(maxDoc, valueCount, nullPolicy, needsScores, boostDocs, values);
       
       assert GroupHeadSelectorType.SORT.equals(groupHeadSelector.type);
       
       this.sortSpec = sortSpec;
       this.sort = rewriteSort(sortSpec, searcher);
       
-      this.compareState = new SortFieldsCompare(sort.getSort(), ords.length);
+      this.compareState = new SortFieldsCompare(sort.getSort(), docs.length);
 
       if (this.needsScores) {
-        this.scores = new float[ords.length];
+        this.scores = new float[docs.length];
         if(nullPolicy == CollapsingPostFilter.NULL_POLICY_EXPAND) {
           nullScores = new FloatArrayList();
         }
       }
     }
 
+    @Override
+    protected void grow(int from, int size) {
+      compareState.grow(size);
+    }
+
     @Override
     public void setNextReader(LeafReaderContext context) throws IOException {
       compareState.setNextReader(context);
@@ -1847,19 +2111,20 @@ public class CollapsingQParserPlugin extends QParserPlugin {
       }
 
       if (ord > -1) { // real collapseKey
-        if (-1 == ords[ord]) {
+        int slot = slot(ord);
+        if (-1 == docs[slot]) {
           // we've never seen this ord (aka: collapseKey) before, treat it as group head for now
-          compareState.setGroupValues(ord, contextDoc);
-          ords[ord] = globalDoc;
+          compareState.setGroupValues(slot, contextDoc);
+          docs[slot] = globalDoc;
           if (needsScores) {
-            scores[ord] = score;
+            scores[slot] = score;
           }
         } else {
           // test this ord to see if it's a new group leader
-          if (compareState.testAndSetGroupValues(ord, contextDoc)) {
-            ords[ord] = globalDoc;
+          if (compareState.testAndSetGroupValues(slot, contextDoc)) {
+            docs[slot] = globalDoc;
             if (needsScores) {
-              scores[ord] = score;
+              scores[slot] = score;
             }
           }
         }
@@ -86,7 +86,7 @@ public class DocSetCollector extends SimpleCollector {
     } else {
       // set the bits for ids that were collected in the array
       scratch.copyTo(bits);
-      return new BitDocSet(bits,pos);
+      return DocSetUtil.toLargeSet(bits, pos, maxDoc);
     }
   }
 
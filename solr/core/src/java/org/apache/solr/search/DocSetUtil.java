@@ -49,6 +49,28 @@ public class DocSetUtil {
     return (maxDoc>>6)+5;  // The +5 is for better test coverage for small sets
   }
 
+  /**
+   * If true, large sets are built as {@link RoaringDocSet} instead of {@link BitDocSet}
+   * when that takes at most half the memory, i.e. when the set is sparse in most blocks
+   * of 65536 docs.  Off unless the <code>solr.roaringDocSets</code> system property is set,
+   * since several callers have fast paths for BitDocSet.
+   * @lucene.experimental
+   */
+  public static volatile boolean roaringDocSets = Boolean.getBoolean("solr.roaringDocSets");
+
+  /**
+   * Returns the large set for <code>bits</code>: a {@link BitDocSet}, or a {@link RoaringDocSet}
+   * if {@link #roaringDocSets} is enabled and it is at least twice as small.
+   * @param size the number of set bits, or -1 if not known
+   * @lucene.internal
+   */
+  public static DocSet toLargeSet(FixedBitSet bits, int size, int maxDoc) {
+    if (roaringDocSets && RoaringDocSet.estimateBytes(bits, maxDoc) <= (long) bits.getBits().length << 2) {
+      return RoaringDocSet.fromBits(bits, maxDoc);
+    }
+    return size == -1 ? new BitDocSet(bits) : new BitDocSet(bits, size);
+  }
+
   /**
    * Iterates DocSets to test for equality - slow and for testing purposes only.
    * @lucene.internal
@@ -243,7 +265,7 @@ public class DocSetUtil {
       return smallSet;
     }
 
-    return docSet;
+    return toLargeSet(docSet.getBits(), sz, maxDoc);
   }
 
   public static DocSet toSmallSet(BitDocSet bitSet) {
@@ -0,0 +1,847 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * <code>RoaringDocSet</code> represents a set of Lucene Document Ids split into
+ * blocks of 65536 ids, like Lucene's <code>RoaringDocIdSet</code>.  Each block
+ * holds either a sorted array of the low 16 bits of its ids, when it has at most
+ * 4096 of them, or a bitmap.  A set that is sparse in most blocks therefore
+ * takes far less memory than a {@link BitDocSet} of maxDoc bits, while dense
+ * blocks keep word-at-a-time set operations.
+ * <p>
+ * Unlike Lucene's version this set is mutable: {@link #add} switches a block
+ * from an array to a bitmap when the array gets too large.  Ids must be less
+ * than the maxDoc the set was created with.
+ *
+ * @lucene.experimental
+ */
+public final class RoaringDocSet extends DocSetBase {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RoaringDocSet.class);
+
+  static final int BLOCK_SHIFT = 16;
+  static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+  static final int BLOCK_WORDS = 1 << (BLOCK_SHIFT - 6);
+  /** Above this many ids in a block a bitmap is smaller than an array of chars */
+  static final int MAX_ARRAY_LENGTH = 1 << (BLOCK_SHIFT - 4);
+
+  final int maxDoc;
+  // per block: the sorted low bits (when bitmaps[block] is null), the bitmap, and the number of ids
+  final char[][] arrays;
+  final long[][] bitmaps;
+  final int[] cardinalities;
+  int size;
+
+  /** Creates an empty set for ids less than <code>maxDoc</code> */
+  public RoaringDocSet(int maxDoc) {
+    this.maxDoc = maxDoc;
+    final int numBlocks = numBlocks(maxDoc);
+    this.arrays = new char[numBlocks][];
+    this.bitmaps = new long[numBlocks][];
+    this.cardinalities = new int[numBlocks];
+  }
+
+  private static int numBlocks(int maxDoc) {
+    return (int) (((long) maxDoc + BLOCK_MASK) >>> BLOCK_SHIFT);
+  }
+
+  /** Creates a set holding the bits set in <code>bits</code> below <code>maxDoc</code> */
+  public static RoaringDocSet fromBits(FixedBitSet bits, int maxDoc) {
+    final RoaringDocSet set = new RoaringDocSet(maxDoc);
+    final long[] words = bits.getBits();
+    final int numWords = Math.min(FixedBitSet.bits2words(bits.length()), FixedBitSet.bits2words(maxDoc));
+    for (int block = 0; block < set.cardinalities.length; block++) {
+      final int from = block * BLOCK_WORDS;
+      final int to = Math.min(from + BLOCK_WORDS, numWords);
+      int card = 0;
+      for (int i = from; i < to; i++) {
+        card += Long.bitCount(words[i]);
+      }
+      if (card == 0) {
+        continue;
+      }
+      if (card <= MAX_ARRAY_LENGTH) {
+        set.arrays[block] = toArray(words, from, to, card);
+      } else {
+        final long[] bitmap = new long[BLOCK_WORDS];
+        System.arraycopy(words, from, bitmap, 0, to - from);
+        set.bitmaps[block] = bitmap;
+      }
+      set.cardinalities[block] = card;
+      set.size += card;
+    }
+    return set;
+  }
+
+  /**
+   * Returns the approximate number of bytes the blocks of a set created with
+   * {@link #fromBits} would take, which is cheap compared to creating it.
+   */
+  public static long estimateBytes(FixedBitSet bits, int maxDoc) {
+    final long[] words = bits.getBits();
+    final int numWords = Math.min(FixedBitSet.bits2words(bits.length()), FixedBitSet.bits2words(maxDoc));
+    long bytes = 0;
+    for (int from = 0; from < numWords; from += BLOCK_WORDS) {
+      final int to = Math.min(from + BLOCK_WORDS, numWords);
+      int card = 0;
+      for (int i = from; i < to; i++) {
+        card += Long.bitCount(words[i]);
+      }
+      if (card > MAX_ARRAY_LENGTH) {
+        bytes += BLOCK_WORDS << 3;
+      } else if (card > 0) {
+        bytes += card << 1;
+      }
+    }
+    return bytes;
+  }
+
+  private static char[] toArray(long[] words, int from, int to, int card) {
+    final char[] array = new char[card];
+    int upto = 0;
+    for (int i = from; i < to; i++) {
+      long word = words[i];
+      final int base = (i - from) << 6;
+      while (word != 0) {
+        array[upto++] = (char) (base + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+    assert upto == card;
+    return array;
+  }
+
+  private static long[] toBitmap(char[] array, int card) {
+    final long[] bitmap = new long[BLOCK_WORDS];
+    for (int i = 0; i < card; i++) {
+      bitmap[array[i] >>> 6] |= 1L << array[i];
+    }
+    return bitmap;
+  }
+
+  /** Returns the index of the first set bit at or after <code>index</code> in the bitmap, or -1 */
+  private static int nextSetBit(long[] bitmap, int index) {
+    int i = index >>> 6;
+    if (i >= BLOCK_WORDS) {
+      return -1;
+    }
+    long word = bitmap[i] >>> index;
+    if (word != 0) {
+      return index + Long.numberOfTrailingZeros(word);
+    }
+    while (++i < BLOCK_WORDS) {
+      word = bitmap[i];
+      if (word != 0) {
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+      }
+    }
+    return -1;
+  }
+
+  /** Stores a block computed as a bitmap, switching to an array if that is smaller */
+  private void setBlock(int block, long[] bitmap, int card) {
+    if (card == 0) {
+      return;
+    }
+    if (card <= MAX_ARRAY_LENGTH) {
+      arrays[block] = toArray(bitmap, 0, BLOCK_WORDS, card);
+    } else {
+      bitmaps[block] = bitmap;
+    }
+    cardinalities[block] = card;
+    size += card;
+  }
+
+  private void setBlock(int block, char[] array, int card) {
+    if (card == 0) {
+      return;
+    }
+    arrays[block] = array;
+    cardinalities[block] = card;
+    size += card;
+  }
+
+  @Override
+  public void add(int doc) {
+    final int block = doc >>> BLOCK_SHIFT;
+    final int low = doc & BLOCK_MASK;
+    final long[] bitmap = bitmaps[block];
+    if (bitmap != null) {
+      final long mask = 1L << low;
+      if ((bitmap[low >>> 6] & mask) == 0) {
+        bitmap[low >>> 6] |= mask;
+        cardinalities[block]++;
+        size++;
+      }
+      return;
+    }
+
+    char[] array = arrays[block];
+    final int card = cardinalities[block];
+    int idx = array == null ? -1 : Arrays.binarySearch(array, 0, card, (char) low);
+    if (idx >= 0) {
+      return;
+    }
+    idx = -idx - 1;
+    if (card == MAX_ARRAY_LENGTH) {
+      final long[] newBitmap = toBitmap(array, card);
+      newBitmap[low >>> 6] |= 1L << low;
+      bitmaps[block] = newBitmap;
+      arrays[block] = null;
+    } else {
+      if (array == null) {
+        array = arrays[block] = new char[4];
+      } else if (card == array.length) {
+        array = arrays[block] = Arrays.copyOf(array, Math.min(MAX_ARRAY_LENGTH, ArrayUtil.oversize(card + 1, 2)));
+      }
+      System.arraycopy(array, idx, array, idx + 1, card - idx);
+      array[idx] = (char) low;
+    }
+    cardinalities[block]++;
+    size++;
+  }
+
+  @Override
+  public void addUnique(int doc) {
+    add(doc);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int doc) {
+    final int block = doc >>> BLOCK_SHIFT;
+    if (block >= cardinalities.length) {
+      return false;
+    }
+    final int low = doc & BLOCK_MASK;
+    final long[] bitmap = bitmaps[block];
+    if (bitmap != null) {
+      return (bitmap[low >>> 6] & (1L << low)) != 0;
+    }
+    final char[] array = arrays[block];
+    return array != null && Arrays.binarySearch(array, 0, cardinalities[block], (char) low) >= 0;
+  }
+
+  /** Iterates the set in order, with efficient advancing */
+  private final class Iter extends DocIdSetIterator {
+    private int doc = -1;
+    private int block = -1;
+    private int blockBase;
+    private char[] array;
+    private long[] bitmap;
+    private int card;
+    private int idx;
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    private void setBlock(int block) {
+      this.block = block;
+      blockBase = block << BLOCK_SHIFT;
+      bitmap = bitmaps[block];
+      array = arrays[block];
+      card = cardinalities[block];
+      idx = 0;
+    }
+
+    private int firstInBlock(int block) {
+      for (; block < cardinalities.length; block++) {
+        if (cardinalities[block] == 0) {
+          continue;
+        }
+        setBlock(block);
+        if (bitmap != null) {
+          return doc = blockBase | nextSetBit(bitmap, 0);
+        } else {
+          return doc = blockBase | array[0];
+        }
+      }
+      this.block = cardinalities.length;
+      return doc = NO_MORE_DOCS;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (block >= 0 && block < cardinalities.length) {
+        if (bitmap != null) {
+          final int low = nextSetBit(bitmap, (doc & BLOCK_MASK) + 1);
+          if (low != -1) {
+            return doc = blockBase | low;
+          }
+        } else if (++idx < card) {
+          return doc = blockBase | array[idx];
+        }
+      }
+      return firstInBlock(block + 1);
+    }
+
+    @Override
+    public int advance(int target) {
+      final int targetBlock = target >>> BLOCK_SHIFT;
+      if (targetBlock >= cardinalities.length) {
+        block = cardinalities.length;
+        return doc = NO_MORE_DOCS;
+      }
+      if (targetBlock != block) {
+        if (cardinalities[targetBlock] == 0) {
+          return firstInBlock(targetBlock + 1);
+        }
+        setBlock(targetBlock);
+      }
+      final int low = target & BLOCK_MASK;
+      if (bitmap != null) {
+        final int next = nextSetBit(bitmap, low);
+        if (next != -1) {
+          return doc = blockBase | next;
+        }
+      } else {
+        int i = Arrays.binarySearch(array, idx, card, (char) low);
+        if (i < 0) {
+          i = -i - 1;
+        }
+        if (i < card) {
+          idx = i;
+          return doc = blockBase | array[i];
+        }
+      }
+      return firstInBlock(block + 1);
+    }
+
+    @Override
+    public long cost() {
+      return size;
+    }
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      private final Iter iter = new Iter();
+      private int pos = iter.nextDoc();
+
+      @Override
+      public boolean hasNext() {
+        return pos != DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public int nextDoc() {
+        int old = pos;
+        pos = iter.nextDoc();
+        return old;
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  protected FixedBitSet getBits() {
+    final FixedBitSet bits = new FixedBitSet(maxDoc);
+    final long[] words = bits.getBits();
+    for (int block = 0; block < cardinalities.length; block++) {
+      final int from = block * BLOCK_WORDS;
+      if (bitmaps[block] != null) {
+        System.arraycopy(bitmaps[block], 0, words, from, Math.min(BLOCK_WORDS, words.length - from));
+      } else if (arrays[block] != null) {
+        final char[] array = arrays[block];
+        for (int i = 0, card = cardinalities[block]; i < card; i++) {
+          words[from + (array[i] >>> 6)] |= 1L << array[i];
+        }
+      }
+    }
+    return bits;
+  }
+
+  /** Returns the words of <code>bits</code> for a block, padded with zeros; <code>scratch</code> is used if padding is needed */
+  private static long[] blockWords(FixedBitSet bits, int block, long[] scratch) {
+    final long[] words = bits.getBits();
+    final int numWords = FixedBitSet.bits2words(bits.length());
+    final int from = block * BLOCK_WORDS;
+    if (from >= numWords) {
+      return null;
+    }
+    final int len = Math.min(BLOCK_WORDS, numWords - from);
+    System.arraycopy(words, from, scratch, 0, len);
+    Arrays.fill(scratch, len, BLOCK_WORDS, 0L);
+    return scratch;
+  }
+
+  private static int filter(char[] array, int card, long[] bitmap, boolean keepSet, char[] target) {
+    int count = 0;
+    for (int i = 0; i < card; i++) {
+      final char low = array[i];
+      if (((bitmap[low >>> 6] & (1L << low)) != 0) == keepSet) {
+        target[count++] = low;
+      }
+    }
+    return count;
+  }
+
+  private static int intersect(char[] a, int lena, char[] b, int lenb, char[] target) {
+    int i = 0, j = 0, count = 0;
+    while (i < lena && j < lenb) {
+      final char x = a[i], y = b[j];
+      if (x < y) {
+        i++;
+      } else if (x > y) {
+        j++;
+      } else {
+        if (target != null) target[count] = x;
+        count++;
+        i++;
+        j++;
+      }
+    }
+    return count;
+  }
+
+  private static int andNot(char[] a, int lena, char[] b, int lenb, char[] target) {
+    int i = 0, j = 0, count = 0;
+    while (i < lena) {
+      final char x = a[i];
+      while (j < lenb && b[j] < x) {
+        j++;
+      }
+      if (j == lenb || b[j] != x) {
+        target[count++] = x;
+      }
+      i++;
+    }
+    return count;
+  }
+
+  /** Returns the other set's bitmap for a block, or null if it is held as an array or empty */
+  private static long[] otherBitmap(DocSet other, int block, long[] scratch) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      return block < o.bitmaps.length ? o.bitmaps[block] : null;
+    }
+    return blockWords(((BitDocSet) other).bits, block, scratch);
+  }
+
+  private static boolean isBitsOrRoaring(DocSet other) {
+    return other instanceof RoaringDocSet || other instanceof BitDocSet;
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    if (!isBitsOrRoaring(other)) {
+      // the smaller sets are all implemented with exists()
+      if (other instanceof DocSetBase) {
+        return other.intersection(this);
+      }
+      final RoaringDocSet result = new RoaringDocSet(maxDoc);
+      for (DocIterator iter = iterator(); iter.hasNext(); ) {
+        final int doc = iter.nextDoc();
+        if (other.exists(doc)) result.add(doc);
+      }
+      return result;
+    }
+
+    final RoaringDocSet result = new RoaringDocSet(maxDoc);
+    final RoaringDocSet o = other instanceof RoaringDocSet ? (RoaringDocSet) other : null;
+    final long[] scratch = o == null ? new long[BLOCK_WORDS] : null;
+    for (int block = 0; block < cardinalities.length; block++) {
+      if (cardinalities[block] == 0) continue;
+      if (o != null && (block >= o.cardinalities.length || o.cardinalities[block] == 0)) continue;
+      final long[] bitmap = bitmaps[block];
+      final long[] otherBitmap = otherBitmap(other, block, scratch);
+      if (o == null && otherBitmap == null) continue;  // past the end of the bitset
+      if (bitmap != null && otherBitmap != null) {
+        final long[] words = new long[BLOCK_WORDS];
+        int card = 0;
+        for (int i = 0; i < BLOCK_WORDS; i++) {
+          card += Long.bitCount(words[i] = bitmap[i] & otherBitmap[i]);
+        }
+        result.setBlock(block, words, card);
+      } else if (bitmap != null) {
+        final char[] target = new char[o.cardinalities[block]];
+        result.setBlock(block, target, filter(o.arrays[block], o.cardinalities[block], bitmap, true, target));
+      } else if (otherBitmap != null) {
+        final char[] target = new char[cardinalities[block]];
+        result.setBlock(block, target, filter(arrays[block], cardinalities[block], otherBitmap, true, target));
+      } else if (o != null) {
+        final char[] target = new char[Math.min(cardinalities[block], o.cardinalities[block])];
+        result.setBlock(block, target, intersect(arrays[block], cardinalities[block], o.arrays[block], o.cardinalities[block], target));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    if (!isBitsOrRoaring(other)) {
+      if (other instanceof DocSetBase) {
+        return other.intersectionSize(this);
+      }
+      int count = 0;
+      for (DocIterator iter = iterator(); iter.hasNext(); ) {
+        if (other.exists(iter.nextDoc())) count++;
+      }
+      return count;
+    }
+
+    final RoaringDocSet o = other instanceof RoaringDocSet ? (RoaringDocSet) other : null;
+    final long[] scratch = o == null ? new long[BLOCK_WORDS] : null;
+    int count = 0;
+    for (int block = 0; block < cardinalities.length; block++) {
+      if (cardinalities[block] == 0) continue;
+      if (o != null && (block >= o.cardinalities.length || o.cardinalities[block] == 0)) continue;
+      final long[] bitmap = bitmaps[block];
+      final long[] otherBitmap = otherBitmap(other, block, scratch);
+      if (o == null && otherBitmap == null) continue;  // past the end of the bitset
+      if (bitmap != null && otherBitmap != null) {
+        for (int i = 0; i < BLOCK_WORDS; i++) {
+          count += Long.bitCount(bitmap[i] & otherBitmap[i]);
+        }
+      } else if (bitmap != null) {
+        count += countSet(o.arrays[block], o.cardinalities[block], bitmap);
+      } else if (otherBitmap != null) {
+        count += countSet(arrays[block], cardinalities[block], otherBitmap);
+      } else if (o != null) {
+        count += intersect(arrays[block], cardinalities[block], o.arrays[block], o.cardinalities[block], null);
+      }
+    }
+    return count;
+  }
+
+  private static int countSet(char[] array, int card, long[] bitmap) {
+    int count = 0;
+    for (int i = 0; i < card; i++) {
+      final char low = array[i];
+      if ((bitmap[low >>> 6] & (1L << low)) != 0) count++;
+    }
+    return count;
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    if (!isBitsOrRoaring(other) && other instanceof DocSetBase) {
+      return other.intersects(this);
+    }
+    return intersectionSize(other) > 0;
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    if (!isBitsOrRoaring(other)) {
+      final RoaringDocSet result = new RoaringDocSet(maxDoc);
+      for (DocIterator iter = iterator(); iter.hasNext(); ) {
+        final int doc = iter.nextDoc();
+        if (!other.exists(doc)) result.add(doc);
+      }
+      return result;
+    }
+
+    final RoaringDocSet result = new RoaringDocSet(maxDoc);
+    final RoaringDocSet o = other instanceof RoaringDocSet ? (RoaringDocSet) other : null;
+    final long[] scratch = o == null ? new long[BLOCK_WORDS] : null;
+    for (int block = 0; block < cardinalities.length; block++) {
+      final int card = cardinalities[block];
+      if (card == 0) continue;
+      final long[] bitmap = bitmaps[block];
+      final boolean otherEmpty = o != null && (block >= o.cardinalities.length || o.cardinalities[block] == 0);
+      final long[] otherBitmap = otherEmpty ? null : otherBitmap(other, block, scratch);
+      if (otherEmpty || (o == null && otherBitmap == null)) {
+        if (bitmap != null) {
+          result.setBlock(block, bitmap.clone(), card);
+        } else {
+          result.setBlock(block, Arrays.copyOf(arrays[block], card), card);
+        }
+      } else if (bitmap != null) {
+        final long[] words = bitmap.clone();
+        if (otherBitmap != null) {
+          for (int i = 0; i < BLOCK_WORDS; i++) {
+            words[i] &= ~otherBitmap[i];
+          }
+        } else {
+          final char[] otherArray = o.arrays[block];
+          for (int i = 0, otherCard = o.cardinalities[block]; i < otherCard; i++) {
+            words[otherArray[i] >>> 6] &= ~(1L << otherArray[i]);
+          }
+        }
+        int newCard = 0;
+        for (long word : words) {
+          newCard += Long.bitCount(word);
+        }
+        result.setBlock(block, words, newCard);
+      } else if (otherBitmap != null) {
+        final char[] target = new char[card];
+        result.setBlock(block, target, filter(arrays[block], card, otherBitmap, false, target));
+      } else {
+        final char[] target = new char[card];
+        result.setBlock(block, target, andNot(arrays[block], card, o.arrays[block], o.cardinalities[block], target));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    if (other instanceof BitDocSet) {
+      // the result is at least as dense as the bitset
+      final FixedBitSet otherBits = ((BitDocSet) other).bits;
+      final FixedBitSet newbits = FixedBitSet.ensureCapacity(otherBits.clone(), maxDoc);
+      addAllTo(newbits);
+      return new BitDocSet(newbits);
+    }
+    if (!(other instanceof RoaringDocSet)) {
+      final RoaringDocSet result = clone();
+      for (DocIterator iter = other.iterator(); iter.hasNext(); ) {
+        result.add(iter.nextDoc());
+      }
+      return result;
+    }
+
+    final RoaringDocSet o = (RoaringDocSet) other;
+    final RoaringDocSet result = new RoaringDocSet(Math.max(maxDoc, o.maxDoc));
+    for (int block = 0; block < result.cardinalities.length; block++) {
+      final int card = block < cardinalities.length ? cardinalities[block] : 0;
+      final int otherCard = block < o.cardinalities.length ? o.cardinalities[block] : 0;
+      if (card == 0 && otherCard == 0) {
+        continue;
+      } else if (otherCard == 0) {
+        result.setBlock(block, bitmaps[block] != null ? bitmaps[block].clone() : null, arrays[block], card);
+      } else if (card == 0) {
+        result.setBlock(block, o.bitmaps[block] != null ? o.bitmaps[block].clone() : null, o.arrays[block], otherCard);
+      } else if (bitmaps[block] == null && o.bitmaps[block] == null && card + otherCard <= MAX_ARRAY_LENGTH) {
+        final char[] target = new char[card + otherCard];
+        result.setBlock(block, target, union(arrays[block], card, o.arrays[block], otherCard, target));
+      } else {
+        final long[] words = bitmaps[block] != null ? bitmaps[block].clone() : toBitmap(arrays[block], card);
+        if (o.bitmaps[block] != null) {
+          final long[] otherBitmap = o.bitmaps[block];
+          for (int i = 0; i < BLOCK_WORDS; i++) {
+            words[i] |= otherBitmap[i];
+          }
+        } else {
+          final char[] otherArray = o.arrays[block];
+          for (int i = 0; i < otherCard; i++) {
+            words[otherArray[i] >>> 6] |= 1L << otherArray[i];
+          }
+        }
+        int newCard = 0;
+        for (long word : words) {
+          newCard += Long.bitCount(word);
+        }
+        result.setBlock(block, words, newCard);
+      }
+    }
+    return result;
+  }
+
+  private void setBlock(int block, long[] bitmap, char[] array, int card) {
+    if (bitmap != null) {
+      bitmaps[block] = bitmap;
+      cardinalities[block] = card;
+      size += card;
+    } else {
+      setBlock(block, Arrays.copyOf(array, card), card);
+    }
+  }
+
+  private static int union(char[] a, int lena, char[] b, int lenb, char[] target) {
+    int i = 0, j = 0, count = 0;
+    while (i < lena && j < lenb) {
+      final char x = a[i], y = b[j];
+      if (x < y) {
+        target[count++] = x;
+        i++;
+      } else if (x > y) {
+        target[count++] = y;
+        j++;
+      } else {
+        target[count++] = x;
+        i++;
+        j++;
+      }
+    }
+    while (i < lena) target[count++] = a[i++];
+    while (j < lenb) target[count++] = b[j++];
+    return count;
+  }
+
+  private void addAllTo(FixedBitSet bits) {
+    final long[] words = bits.getBits();
+    for (int block = 0; block < cardinalities.length; block++) {
+      final int from = block * BLOCK_WORDS;
+      if (bitmaps[block] != null) {
+        final long[] bitmap = bitmaps[block];
+        for (int i = 0, len = Math.min(BLOCK_WORDS, words.length - from); i < len; i++) {
+          words[from + i] |= bitmap[i];
+        }
+      } else if (arrays[block] != null) {
+        final char[] array = arrays[block];
+        for (int i = 0, card = cardinalities[block]; i < card; i++) {
+          words[from + (array[i] >>> 6)] |= 1L << array[i];
+        }
+      }
+    }
+  }
+
+  @Override
+  public void addAllTo(DocSet target) {
+    if (target instanceof BitDocSet) {
+      final BitDocSet bitDocSet = (BitDocSet) target;
+      addAllTo(bitDocSet.bits);
+      bitDocSet.invalidateSize();
+    } else {
+      super.addAllTo(target);
+    }
+  }
+
+  @Override
+  public RoaringDocSet clone() {
+    final RoaringDocSet clone = new RoaringDocSet(maxDoc);
+    for (int block = 0; block < cardinalities.length; block++) {
+      if (cardinalities[block] != 0) {
+        clone.setBlock(block, bitmaps[block] != null ? bitmaps[block].clone() : null, arrays[block], cardinalities[block]);
+      }
+    }
+    return clone;
+  }
+
+  @Override
+  public Filter getTopFilter() {
+    return new Filter() {
+      final RoaringDocSet set = RoaringDocSet.this;
+
+      @Override
+      public DocIdSet getDocIdSet(final LeafReaderContext context, final Bits acceptDocs) {
+        LeafReader reader = context.reader();
+        // all Solr DocSets that are used as filters only include live docs
+        final Bits acceptDocs2 = acceptDocs == null ? null : (reader.getLiveDocs() == acceptDocs ? null : acceptDocs);
+
+        final int base = context.docBase;
+        final int max = base + reader.maxDoc();   // one past the max doc in this segment.
+
+        return BitsFilteredDocIdSet.wrap(new DocIdSet() {
+          @Override
+          public DocIdSetIterator iterator() {
+            return new DocIdSetIterator() {
+              final Iter iter = set.new Iter();
+              int adjustedDoc = -1;
+
+              @Override
+              public int docID() {
+                return adjustedDoc;
+              }
+
+              @Override
+              public int nextDoc() {
+                final int pos = adjustedDoc == -1 ? iter.advance(base) : iter.nextDoc();
+                return adjustedDoc = pos < max ? pos - base : NO_MORE_DOCS;
+              }
+
+              @Override
+              public int advance(int target) {
+                if (target == NO_MORE_DOCS) return adjustedDoc = NO_MORE_DOCS;
+                final int adjusted = target + base;
+                if (adjusted >= max) return adjustedDoc = NO_MORE_DOCS;
+                final int pos = iter.advance(adjusted);
+                return adjustedDoc = pos < max ? pos - base : NO_MORE_DOCS;
+              }
+
+              @Override
+              public long cost() {
+                // pro-rated for the segment
+                return (long) ((double) size * (max - base) / Math.max(1, maxDoc));
+              }
+            };
+          }
+
+          @Override
+          public long ramBytesUsed() {
+            return set.ramBytesUsed();
+          }
+
+          @Override
+          public Bits bits() {
+            // lookups in array blocks are binary searches, so prefer the iterator
+            return null;
+          }
+
+        }, acceptDocs2);
+      }
+
+      @Override
+      public String toString(String field) {
+        return "RoaringDocSetTopFilter";
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        return sameClassAs(other) && set == getClass().cast(other).set;
+      }
+
+      @Override
+      public int hashCode() {
+        return classHash() * 31 + System.identityHashCode(set);
+      }
+    };
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long bytes = BASE_RAM_BYTES_USED
+        + RamUsageEstimator.sizeOf(cardinalities)
+        + 2 * RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+            + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * cardinalities.length);
+    for (int block = 0; block < cardinalities.length; block++) {
+      if (bitmaps[block] != null) {
+        bytes += RamUsageEstimator.sizeOf(bitmaps[block]);
+      } else if (arrays[block] != null) {
+        bytes += RamUsageEstimator.sizeOf(arrays[block]);
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+}
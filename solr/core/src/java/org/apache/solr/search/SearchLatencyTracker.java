@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.index.LatencyAwareMergeScheduler;
+
+/**
+ * Tracks how long the searches of a core take, to let a {@link LatencyAwareMergeScheduler}
+ * hold back merging while searches are slow.
+ * <p>
+ * Every read of {@link #getLatencyMillis()} starts a new interval: it returns the
+ * average latency of the searches since the previous read, smoothed with the earlier
+ * intervals. Intervals without searches count as 0, so the latency decays once the
+ * traffic stops.
+ */
+public class SearchLatencyTracker implements LatencyAwareMergeScheduler.LatencySignal {
+
+  /** Weight of the latest interval in the smoothed latency */
+  private static final double ALPHA = 0.5;
+
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  private double latencyMillis;
+
+  /** Records a search that took the given number of nanoseconds. */
+  public void record(long elapsedNanos) {
+    count.increment();
+    totalNanos.add(elapsedNanos);
+  }
+
+  @Override
+  public synchronized double getLatencyMillis() {
+    long searches = count.sumThenReset();
+    long nanos = totalNanos.sumThenReset();
+    double intervalMillis = searches == 0 ? 0 : nanos / 1000000.0 / searches;
+    latencyMillis = ALPHA * intervalMillis + (1 - ALPHA) * latencyMillis;
+    return latencyMillis;
+  }
+}
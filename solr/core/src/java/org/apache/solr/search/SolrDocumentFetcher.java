@@ -37,6 +37,7 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.LazyDocument;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DirectoryReader;
@@ -242,6 +243,49 @@ public class SolrDocumentFetcher {
       }
       return status;
     }
+
+    @Override
+    public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
+      // logic from Lucene's DocumentStoredFieldVisitor, but the UTF-8 bytes are kept
+      final FieldType ft = new FieldType(TextField.TYPE_STORED);
+      ft.setStoreTermVectors(fieldInfo.hasVectors());
+      ft.setOmitNorms(fieldInfo.omitsNorms());
+      ft.setIndexOptions(fieldInfo.getIndexOptions());
+      doc.add(new Utf8StoredField(fieldInfo.name, value, ft));
+    }
+  }
+
+  /** A stored string field that holds the UTF-8 bytes read from the index and only decodes them
+   * when {@link #stringValue()} is called. Response writers that write UTF-8 can use
+   * {@link #utf8Value()} directly. */
+  public static final class Utf8StoredField extends StoredField {
+    private final byte[] utf8;
+
+    Utf8StoredField(String name, byte[] utf8, FieldType type) {
+      super(name, type);
+      this.utf8 = utf8;
+    }
+
+    /** The UTF-8 encoded value; must not be modified. */
+    public byte[] utf8Value() {
+      return utf8;
+    }
+
+    @Override
+    public String stringValue() {
+      // racy but safe: the decoded value is always the same immutable String
+      String s = (String) fieldsData;
+      if (s == null) {
+        fieldsData = s = new String(utf8, StandardCharsets.UTF_8);
+      }
+      return s;
+    }
+
+    @Override
+    public String toString() {
+      stringValue();
+      return super.toString();
+    }
   }
 
   /** @see SolrIndexSearcher#doc(int, StoredFieldVisitor) */
@@ -286,6 +330,8 @@ public class SolrDocumentFetcher {
       // must be String
       if (f instanceof LargeLazyField) { // optimization to avoid premature string conversion
         visitor.stringField(info, toByteArrayUnwrapIfPossible(((LargeLazyField) f).readBytes()));
+      } else if (f instanceof Utf8StoredField) {
+        visitor.stringField(info, ((Utf8StoredField) f).utf8Value());
       } else {
         visitor.stringField(info, f.stringValue().getBytes(StandardCharsets.UTF_8));
       }
@@ -80,6 +80,7 @@ import org.apache.solr.search.facet.UnInvertedField;
 import org.apache.solr.search.stats.StatsSource;
 import org.apache.solr.uninverting.UninvertingReader;
 import org.apache.solr.update.IndexFingerprint;
+import org.apache.solr.update.SolrCoreState;
 import org.apache.solr.update.SolrIndexConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -563,7 +564,15 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   }
 
   public QueryResult search(QueryResult qr, QueryCommand cmd) throws IOException {
-    getDocListC(qr, cmd);
+    final long startNanos = System.nanoTime();
+    try {
+      getDocListC(qr, cmd);
+    } finally {
+      SolrCoreState coreState = core.getSolrCoreState();
+      if (coreState != null) {
+        coreState.getSearchLatency().record(System.nanoTime() - startNanos);
+      }
+    }
     return qr;
   }
 
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SolrCache based on the W-TinyLFU policy of the Caffeine cache.
+ * <p>
+ * New entries are first added to a small LRU window. When they are pushed out of it, they
+ * only enter the main space of the cache, a segmented LRU, if a frequency sketch estimates
+ * that they have been requested more often than the entry they would replace. This way a
+ * burst of queries that are only run once cannot push hot entries out of the cache.
+ * <p>
+ * Lookups do not block and evictions are done by the calling thread: each write only looks
+ * at a constant number of entries, there are no sweeps over the whole cache and no threads
+ * are created for cleanup.
+ * <p>
+ * The cache is bounded by <code>size</code> entries, or by <code>maxRamMB</code> megabytes
+ * if set. Autowarming regenerates the most frequently used entries of the old cache.
+ *
+ * @see org.apache.solr.search.FastLRUCache
+ * @see org.apache.solr.search.SolrCache
+ */
+public class TinyLFUCache<K, V> extends SolrCacheBase implements SolrCache<K,V>, Accountable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(TinyLFUCache.class);
+
+  // contains the statistics objects for all open caches of the same type
+  private List<Stats> statsList;
+
+  private long warmupTime = 0;
+
+  private String description = "TinyLFU Cache";
+  private Cache<K,V> cache;
+  private final Stats stats = new Stats();
+  private volatile boolean islive = false;
+  private int showItems = 0;
+
+  private long maxRamBytes;
+
+  @Override
+  public Object init(Map args, Object persistence, CacheRegenerator regenerator) {
+    super.init(args, regenerator);
+    String str = (String) args.get("size");
+    int limit = str == null ? 1024 : Integer.parseInt(str);
+    if (limit <= 0) limit = 1;
+
+    str = (String) args.get("initialSize");
+    final int initialSize = str == null ? limit : Integer.parseInt(str);
+
+    str = (String) args.get("showItems");
+    showItems = str == null ? 0 : Integer.parseInt(str);
+
+    Caffeine<K, V> builder = Caffeine.newBuilder()
+        .initialCapacity(initialSize)
+        .executor(Runnable::run) // evict in the calling thread instead of a separate executor
+        .removalListener((K key, V value, RemovalCause cause) -> {
+          if (cause.wasEvicted()) {
+            stats.evictionCounter.increment();
+          }
+        });
+
+    str = (String) args.get("maxRamMB");
+    this.maxRamBytes = str == null ? Long.MAX_VALUE : (long) (Double.parseDouble(str) * 1024L * 1024L);
+    if (maxRamBytes != Long.MAX_VALUE) {
+      description = generateDescription(maxRamBytes, initialSize);
+      cache = builder
+          .maximumWeight(maxRamBytes)
+          .weigher((K key, V value) -> (int) Math.min(ramBytesUsed(key, value), Integer.MAX_VALUE))
+          .build();
+    } else {
+      description = generateDescription(limit, initialSize);
+      cache = builder
+          .maximumSize(limit)
+          .build();
+    }
+
+    statsList = (List<Stats>) persistence;
+    if (statsList == null) {
+      // must be the first time a cache of this type is being created
+      // Use a CopyOnWriteArrayList since puts are very rare and iteration may be a frequent operation
+      // because it is used in getStatistics()
+      statsList = new CopyOnWriteArrayList<>();
+
+      // the first entry will be for cumulative stats of caches that have been closed.
+      statsList.add(new Stats());
+    }
+    statsList.add(stats);
+    return statsList;
+  }
+
+  private static long ramBytesUsed(Object key, Object value) {
+    long ramBytes = LRUCache.HASHTABLE_RAM_BYTES_PER_ENTRY;
+    ramBytes += key instanceof Accountable ? ((Accountable) key).ramBytesUsed() : LRUCache.DEFAULT_RAM_BYTES_USED;
+    ramBytes += value instanceof Accountable ? ((Accountable) value).ramBytesUsed() : LRUCache.DEFAULT_RAM_BYTES_USED;
+    return ramBytes;
+  }
+
+  /**
+   * @return Returns the description of this Cache.
+   */
+  protected String generateDescription(int limit, int initialSize) {
+    String description = "TinyLFU Cache(maxSize=" + limit + ", initialSize=" + initialSize;
+    if (isAutowarmingOn()) {
+      description += ", " + getAutowarmDescription();
+    }
+    description += ')';
+    return description;
+  }
+
+  protected String generateDescription(long maxRamBytes, int initialSize) {
+    String description = "TinyLFU Cache(ramMaxSize=" + maxRamBytes + ", initialSize=" + initialSize;
+    if (isAutowarmingOn()) {
+      description += ", " + getAutowarmDescription();
+    }
+    description += ')';
+    return description;
+  }
+
+  @Override
+  public int size() {
+    return (int) cache.estimatedSize();
+  }
+
+  @Override
+  public V put(K key, V value) {
+    if (islive) {
+      stats.putCounter.increment();
+    } else {
+      stats.nonLivePutCounter.increment();
+    }
+    return cache.asMap().put(key, value);
+  }
+
+  @Override
+  public V get(K key) {
+    V value = cache.getIfPresent(key);
+    if (islive) {
+      if (value == null) {
+        stats.missCounter.increment();
+      } else {
+        stats.hitCounter.increment();
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  @Override
+  public void setState(State state) {
+    super.setState(state);
+    islive = state == State.LIVE;
+  }
+
+  @Override
+  public void warm(SolrIndexSearcher searcher, SolrCache old) {
+    if (regenerator == null) return;
+    long warmingStartTime = System.nanoTime();
+    TinyLFUCache other = (TinyLFUCache) old;
+    // warm entries
+    if (isAutowarmingOn()) {
+      int sz = autowarm.getWarmCount(other.size());
+      Map items = other.hottest(sz);
+      Map.Entry[] itemsArr = new Map.Entry[items.size()];
+      int counter = 0;
+      for (Object mapEntry : items.entrySet()) {
+        itemsArr[counter++] = (Map.Entry) mapEntry;
+      }
+      // regenerate the hottest entries last so that they are the most recently used
+      for (int i = itemsArr.length - 1; i >= 0; i--) {
+        try {
+          boolean continueRegen = regenerator.regenerateItem(searcher,
+                  this, old, itemsArr[i].getKey(), itemsArr[i].getValue());
+          if (!continueRegen) break;
+        }
+        catch (Exception e) {
+          SolrException.log(log, "Error during auto-warming of key:" + itemsArr[i].getKey(), e);
+        }
+      }
+    }
+    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns up to <code>n</code> entries of this cache, ordered from the most to
+   * the least likely to be retained.
+   */
+  Map<K,V> hottest(int n) {
+    return cache.policy().eviction().get().hottest(n);
+  }
+
+  @Override
+  public void close() {
+    // add the stats to the cumulative stats object (the first in the statsList)
+    statsList.get(0).add(stats);
+    statsList.remove(stats);
+    cache.invalidateAll();
+  }
+
+  //////////////////////// SolrInfoMBeans methods //////////////////////
+  @Override
+  public String getName() {
+    return TinyLFUCache.class.getName();
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public String getSource() {
+    return null;
+  }
+
+
+  @Override
+  public NamedList<Serializable> getStatistics() {
+    NamedList<Serializable> lst = new SimpleOrderedMap<>();
+    if (cache == null)  return lst;
+    long lookups = stats.getCumulativeLookups();
+    long hits = stats.getCumulativeHits();
+    long inserts = stats.getCumulativePuts();
+    long evictions = stats.getCumulativeEvictions();
+    long size = cache.estimatedSize();
+    long clookups = 0;
+    long chits = 0;
+    long cinserts = 0;
+    long cevictions = 0;
+
+    // NOTE: It is safe to iterate on a CopyOnWriteArrayList
+    for (Stats statistics : statsList) {
+      clookups += statistics.getCumulativeLookups();
+      chits += statistics.getCumulativeHits();
+      cinserts += statistics.getCumulativePuts();
+      cevictions += statistics.getCumulativeEvictions();
+    }
+
+    lst.add("lookups", lookups);
+    lst.add("hits", hits);
+    lst.add("hitratio", calcHitRatio(lookups, hits));
+    lst.add("inserts", inserts);
+    lst.add("evictions", evictions);
+    lst.add("size", size);
+    if (maxRamBytes != Long.MAX_VALUE) {
+      lst.add("maxRamMB", maxRamBytes / 1024L / 1024L);
+      lst.add("ramBytesUsed", ramBytesUsed());
+    }
+
+    lst.add("warmupTime", warmupTime);
+    lst.add("cumulative_lookups", clookups);
+    lst.add("cumulative_hits", chits);
+    lst.add("cumulative_hitratio", calcHitRatio(clookups, chits));
+    lst.add("cumulative_inserts", cinserts);
+    lst.add("cumulative_evictions", cevictions);
+
+    if (showItems != 0) {
+      Map<K,V> items = hottest(showItems == -1 ? Integer.MAX_VALUE : showItems);
+      for (Map.Entry<K,V> e : items.entrySet()) {
+        lst.add("item_" + e.getKey(), e.getValue().toString());
+      }
+    }
+
+    return lst;
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricManager manager, String registry, String scope) {
+    MetricsMap metrics = new MetricsMap((detailed, map) -> {
+      NamedList<Serializable> nl = getStatistics();
+      map.putAll(nl.asMap(5));
+    });
+    manager.registerGauge(registry, metrics, true, scope, getCategory().toString());
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    Policy.Eviction<K,V> eviction = cache.policy().eviction().get();
+    if (eviction.isWeighted()) {
+      return BASE_RAM_BYTES_USED + eviction.weightedSize().getAsLong();
+    }
+    long ramBytes = BASE_RAM_BYTES_USED;
+    for (Map.Entry<K,V> e : cache.asMap().entrySet()) {
+      ramBytes += ramBytesUsed(e.getKey(), e.getValue());
+    }
+    return ramBytes;
+  }
+
+  @Override
+  public String toString() {
+    return name() + getStatistics().toString();
+  }
+
+  /** Statistics of a {@link TinyLFUCache}, which can be accumulated across caches. */
+  public static class Stats {
+    private final LongAdder hitCounter = new LongAdder();
+    private final LongAdder missCounter = new LongAdder();
+    private final LongAdder putCounter = new LongAdder();
+    private final LongAdder nonLivePutCounter = new LongAdder();
+    private final LongAdder evictionCounter = new LongAdder();
+
+    public long getCumulativeLookups() {
+      return hitCounter.longValue() + missCounter.longValue();
+    }
+
+    public long getCumulativeHits() {
+      return hitCounter.longValue();
+    }
+
+    public long getCumulativePuts() {
+      return putCounter.longValue();
+    }
+
+    public long getCumulativeEvictions() {
+      return evictionCounter.longValue();
+    }
+
+    public long getCumulativeNonLivePuts() {
+      return nonLivePutCounter.longValue();
+    }
+
+    public long getCumulativeMisses() {
+      return missCounter.longValue();
+    }
+
+    public void add(Stats other) {
+      hitCounter.add(other.hitCounter.longValue());
+      missCounter.add(other.missCounter.longValue());
+      putCounter.add(other.putCounter.longValue());
+      nonLivePutCounter.add(other.nonLivePutCounter.longValue());
+      evictionCounter.add(other.evictionCounter.longValue());
+    }
+  }
+
+}
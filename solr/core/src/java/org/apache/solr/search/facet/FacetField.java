@@ -60,6 +60,10 @@ public class FacetField extends FacetRequestSorted {
   // experimental - force perSeg collection when using dv method, currently for testing purposes only.
   Boolean perSeg;
 
+  // number of threads to collect the domain with, each collecting a group of segments (dv method only),
+  // at most the facetThreads of solr.xml
+  int threads;
+
   {
     // defaults for FacetRequestSorted
     mincount = 1;
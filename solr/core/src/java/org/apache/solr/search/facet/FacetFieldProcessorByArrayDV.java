@@ -17,8 +17,12 @@
 package org.apache.solr.search.facet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
@@ -118,11 +122,122 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
     final List<LeafReaderContext> leaves = fcontext.searcher.getIndexReader().leaves();
     Filter filter = fcontext.base.getTopFilter();
 
+    int maxThreads = fcontext.req.getCore().getCoreContainer().getConfig().getFacetThreadCount();
+    int threads = Math.min(Math.min(freq.threads, maxThreads), leaves.size());
+    if (threads > 1 && allBucketsAcc == null && countAcc.canMerge() && (collectAcc == null || collectAcc.canMerge())) {
+      collectDocsParallel(leaves, filter, threads, accumSeg, canDoPerSeg);
+      return;
+    }
+
+    SegmentCollector collector = new SegmentCollector(countAcc, collectAcc, allBucketsAcc);
     for (int subIdx = 0; subIdx < leaves.size(); subIdx++) {
       LeafReaderContext subCtx = leaves.get(subIdx);
 
       setNextReaderFirstPhase(subCtx);
 
+      collector.collectSegment(subCtx, filter, accumSeg, canDoPerSeg);
+    }
+  }
+
+  /**
+   * Collects groups of segments in parallel, each into its own accumulators, and merges
+   * those into the accumulators of this processor.
+   */
+  private void collectDocsParallel(List<LeafReaderContext> leaves, Filter filter, int threads,
+                                   boolean accumSeg, boolean canDoPerSeg) throws IOException {
+    // biggest segments first, each to the group with the fewest docs so far
+    List<LeafReaderContext> bySize = new ArrayList<>(leaves);
+    bySize.sort((a, b) -> Integer.compare(b.reader().maxDoc(), a.reader().maxDoc()));
+    List<List<LeafReaderContext>> groups = new ArrayList<>(threads);
+    long[] groupDocs = new long[threads];
+    for (int i = 0; i < threads; i++) {
+      groups.add(new ArrayList<>());
+    }
+    for (LeafReaderContext subCtx : bySize) {
+      int smallest = 0;
+      for (int i = 1; i < threads; i++) {
+        if (groupDocs[i] < groupDocs[smallest]) smallest = i;
+      }
+      groups.get(smallest).add(subCtx);
+      groupDocs[smallest] += subCtx.reader().maxDoc();
+    }
+
+    AggValueSource collectAgg = collectAcc == null ? null : freq.getFacetStats().get(freq.sortVariable);
+    ExecutorService executor = fcontext.req.getCore().getCoreContainer().getFacetExecutor();
+    List<SegmentCollector> collectors = new ArrayList<>(threads);
+    List<Future<?>> futures = new ArrayList<>(threads);
+    try {
+      for (List<LeafReaderContext> group : groups) {
+        // accumulators are created here, on the request thread, but only used by one other thread
+        FacetContext groupContext = fcontext.copy();
+        SlotAcc groupCollectAcc = null;
+        if (collectAgg != null) {
+          groupCollectAcc = collectAgg.createSlotAcc(groupContext, nDocs, maxSlots);
+          groupCollectAcc.key = collectAcc.key;
+        }
+        SegmentCollector collector = new SegmentCollector(new CountSlotArrAcc(groupContext, maxSlots), groupCollectAcc, null);
+        collectors.add(collector);
+        futures.add(executor.submit(() -> {
+          for (LeafReaderContext subCtx : group) {
+            if (collector.collectAcc != null) {
+              collector.collectAcc.setNextReader(subCtx);
+            }
+            collector.collectSegment(subCtx, filter, accumSeg, canDoPerSeg);
+          }
+          return null;
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Interrupted while collecting facet " + freq.field, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Error collecting facet " + freq.field, cause);
+    } finally {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+
+    for (SegmentCollector collector : collectors) {
+      countAcc.merge(collector.countAcc);
+      if (collectAcc != null) {
+        collectAcc.merge(collector.collectAcc);
+        collector.collectAcc.close();
+      }
+    }
+  }
+
+  @Override
+  protected BytesRef lookupOrd(int ord) throws IOException {
+    return si.lookupOrd(ord);
+  }
+
+  /**
+   * Collects segments into a set of first phase accumulators. All collection happens
+   * on a single thread at a time.
+   */
+  private class SegmentCollector {
+    final CountSlotAcc countAcc;
+    final SlotAcc collectAcc;  // may be null
+    final SlotAcc allBucketsAcc;  // may be null
+    private int[] reuse;
+
+    SegmentCollector(CountSlotAcc countAcc, SlotAcc collectAcc, SlotAcc allBucketsAcc) {
+      this.countAcc = countAcc;
+      this.collectAcc = collectAcc;
+      this.allBucketsAcc = allBucketsAcc;
+    }
+
+    /** setNextReader must already have been called on the accumulators */
+    void collectSegment(LeafReaderContext subCtx, Filter filter, boolean accumSeg, boolean canDoPerSeg) throws IOException {
       DocIdSet dis = filter.getDocIdSet(subCtx, null); // solr docsets already exclude any deleted docs
       DocIdSetIterator disi = dis.iterator();
 
@@ -146,7 +261,7 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
         }
       }
 
-      LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subIdx);
+      LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subCtx.ord);
 
       if (singleDv != null) {
         if (accumSeg) {
@@ -171,122 +286,114 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
       }
     }
 
-    reuse = null;  // better GC
-  }
+    private void collectPerSeg(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+      int segMax = singleDv.getValueCount() + 1;
+      final int[] counts = getCountArr( segMax );
 
-  @Override
-  protected BytesRef lookupOrd(int ord) throws IOException {
-    return si.lookupOrd(ord);
-  }
-
-  private void collectPerSeg(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
-    int segMax = singleDv.getValueCount() + 1;
-    final int[] counts = getCountArr( segMax );
-
-    int doc;
-    while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-      counts[ singleDv.getOrd(doc) + 1 ]++;
-    }
-
-    for (int i=1; i<segMax; i++) {
-      int segCount = counts[i];
-      if (segCount > 0) {
-        int slot = toGlobal == null ? (i - 1) : (int) toGlobal.get(i - 1);
-        countAcc.incrementCount(slot, segCount);
+      int doc;
+      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        counts[ singleDv.getOrd(doc) + 1 ]++;
       }
-    }
-  }
 
-  private void collectPerSeg(SortedSetDocValues multiDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
-    int segMax = (int)multiDv.getValueCount();
-    final int[] counts = getCountArr( segMax );
-
-    int doc;
-    while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-      multiDv.setDocument(doc);
-      for(;;) {
-        int segOrd = (int)multiDv.nextOrd();
-        if (segOrd < 0) break;
-        counts[segOrd]++;
+      for (int i=1; i<segMax; i++) {
+        int segCount = counts[i];
+        if (segCount > 0) {
+          int slot = toGlobal == null ? (i - 1) : (int) toGlobal.get(i - 1);
+          countAcc.incrementCount(slot, segCount);
+        }
       }
     }
 
-    for (int i=0; i<segMax; i++) {
-      int segCount = counts[i];
-      if (segCount > 0) {
-        int slot = toGlobal == null ? (i) : (int) toGlobal.get(i);
-        countAcc.incrementCount(slot, segCount);
+    private void collectPerSeg(SortedSetDocValues multiDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+      int segMax = (int)multiDv.getValueCount();
+      final int[] counts = getCountArr( segMax );
+
+      int doc;
+      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        multiDv.setDocument(doc);
+        for(;;) {
+          int segOrd = (int)multiDv.nextOrd();
+          if (segOrd < 0) break;
+          counts[segOrd]++;
+        }
       }
-    }
-  }
 
-  private int[] reuse;
-  private int[] getCountArr(int maxNeeded) {
-    if (reuse == null) {
-      // make the count array large enough for any segment
-      // FUTURE: (optionally) directly use the array of the CountAcc for an optimized index..
-      reuse = new int[(int) si.getValueCount() + 1];
-    } else {
-      Arrays.fill(reuse, 0, maxNeeded, 0);
+      for (int i=0; i<segMax; i++) {
+        int segCount = counts[i];
+        if (segCount > 0) {
+          int slot = toGlobal == null ? (i) : (int) toGlobal.get(i);
+          countAcc.incrementCount(slot, segCount);
+        }
+      }
     }
-    return reuse;
-  }
 
-  private void collectDocs(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
-    int doc;
-    while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-      int segOrd = singleDv.getOrd(doc);
-      if (segOrd < 0) continue;
-      collect(doc, segOrd, toGlobal);
-    }
-  }
-
-  private void collectCounts(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
-    int doc;
-    while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-      int segOrd = singleDv.getOrd(doc);
-      if (segOrd < 0) continue;
-      int ord = (int)toGlobal.get(segOrd);
-      countAcc.incrementCount(ord, 1);
+    private int[] getCountArr(int maxNeeded) {
+      if (reuse == null) {
+        // make the count array large enough for any segment
+        // FUTURE: (optionally) directly use the array of the CountAcc for an optimized index..
+        reuse = new int[(int) si.getValueCount() + 1];
+      } else {
+        Arrays.fill(reuse, 0, maxNeeded, 0);
+      }
+      return reuse;
     }
-  }
 
-  private void collectDocs(SortedSetDocValues multiDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
-    int doc;
-    while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-      multiDv.setDocument(doc);
-      for(;;) {
-        int segOrd = (int)multiDv.nextOrd();
-        if (segOrd < 0) break;
+    private void collectDocs(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+      int doc;
+      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        int segOrd = singleDv.getOrd(doc);
+        if (segOrd < 0) continue;
         collect(doc, segOrd, toGlobal);
       }
     }
-  }
 
-  private void collectCounts(SortedSetDocValues multiDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
-    int doc;
-    while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-      multiDv.setDocument(doc);
-      for(;;) {
-        int segOrd = (int)multiDv.nextOrd();
-        if (segOrd < 0) break;
+    private void collectCounts(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+      int doc;
+      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        int segOrd = singleDv.getOrd(doc);
+        if (segOrd < 0) continue;
         int ord = (int)toGlobal.get(segOrd);
         countAcc.incrementCount(ord, 1);
       }
     }
-  }
 
-  private void collect(int doc, int segOrd, LongValues toGlobal) throws IOException {
-    int ord = (toGlobal != null && segOrd >= 0) ? (int)toGlobal.get(segOrd) : segOrd;
+    private void collectDocs(SortedSetDocValues multiDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+      int doc;
+      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        multiDv.setDocument(doc);
+        for(;;) {
+          int segOrd = (int)multiDv.nextOrd();
+          if (segOrd < 0) break;
+          collect(doc, segOrd, toGlobal);
+        }
+      }
+    }
 
-    int arrIdx = ord - startTermIndex;
-    if (arrIdx >= 0 && arrIdx < nTerms) {
-      countAcc.incrementCount(arrIdx, 1);
-      if (collectAcc != null) {
-        collectAcc.collect(doc, arrIdx);
+    private void collectCounts(SortedSetDocValues multiDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+      int doc;
+      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+        multiDv.setDocument(doc);
+        for(;;) {
+          int segOrd = (int)multiDv.nextOrd();
+          if (segOrd < 0) break;
+          int ord = (int)toGlobal.get(segOrd);
+          countAcc.incrementCount(ord, 1);
+        }
       }
-      if (allBucketsAcc != null) {
-        allBucketsAcc.collect(doc, arrIdx);
+    }
+
+    private void collect(int doc, int segOrd, LongValues toGlobal) throws IOException {
+      int ord = (toGlobal != null && segOrd >= 0) ? (int)toGlobal.get(segOrd) : segOrd;
+
+      int arrIdx = ord - startTermIndex;
+      if (arrIdx >= 0 && arrIdx < nTerms) {
+        countAcc.incrementCount(arrIdx, 1);
+        if (collectAcc != null) {
+          collectAcc.collect(doc, arrIdx);
+        }
+        if (allBucketsAcc != null) {
+          allBucketsAcc.collect(doc, arrIdx);
+        }
       }
     }
   }
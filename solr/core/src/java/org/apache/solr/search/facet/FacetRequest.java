@@ -282,6 +282,27 @@ class FacetContext {
 
     return ctx;
   }
+
+  /**
+   * Returns a copy of this context for collecting the same domain on another thread. The copy
+   * has its own {@link QueryContext}, so that value sources don't share per-request state across threads.
+   */
+  public FacetContext copy() {
+    FacetContext ctx = new FacetContext();
+    ctx.facetInfo = facetInfo;
+    ctx.parent = parent;
+    ctx.base = base;
+    ctx.filter = filter;
+    ctx.flags = flags;
+    ctx.req = req;
+    ctx.searcher = searcher;
+    ctx.qcontext = new QueryContext(qcontext.indexSearcher());
+    Map<?,?> entries = qcontext;
+    @SuppressWarnings("unchecked") // QueryContext is a raw map, like the ValueSource contexts it stands in for
+    Map<Object,Object> copied = ctx.qcontext;
+    copied.putAll(entries);
+    return ctx;
+  }
 }
 
 
@@ -712,6 +733,7 @@ class FacetFieldParser extends FacetParser<FacetField> {
       facet.refine = FacetField.RefineMethod.fromObj(m.get("refine"));
 
       facet.perSeg = (Boolean)m.get("perSeg");
+      facet.threads = (int)getLong(m, "threads", facet.threads);
 
       // facet.sort may depend on a facet stat...
       // should we be parsing / validating this here, or in the execution environment?
@@ -98,6 +98,23 @@ public abstract class SlotAcc implements Closeable {
 
   public abstract void resize(Resizer resizer);
 
+  /**
+   * Returns true if this accumulator supports {@link #merge}, so that a set of documents
+   * can be collected by several accumulators in parallel.
+   */
+  public boolean canMerge() {
+    return false;
+  }
+
+  /**
+   * Adds the statistics of another accumulator into this one. The other accumulator was created
+   * by the same aggregation with the same number of slots, and has collected a set of documents
+   * disjoint from the ones collected by this accumulator.
+   */
+  public void merge(SlotAcc other) throws IOException {
+    throw new UnsupportedOperationException(getClass().getSimpleName() + " can not be merged");
+  }
+
   @Override
   public void close() throws IOException {}
 
@@ -265,6 +282,19 @@ class SumSlotAcc extends DoubleFuncSlotAcc {
     double val = values.doubleVal(doc);  // todo: worth trying to share this value across multiple stats that need it?
     result[slotNum] += val;
   }
+
+  @Override
+  public boolean canMerge() {
+    return true;
+  }
+
+  @Override
+  public void merge(SlotAcc other) {
+    double[] otherResult = ((SumSlotAcc) other).result;
+    for (int i = 0; i < result.length; i++) {
+      result[i] += otherResult[i];
+    }
+  }
 }
 
 class SumsqSlotAcc extends DoubleFuncSlotAcc {
@@ -278,6 +308,19 @@ class SumsqSlotAcc extends DoubleFuncSlotAcc {
     val = val * val;
     result[slotNum] += val;
   }
+
+  @Override
+  public boolean canMerge() {
+    return true;
+  }
+
+  @Override
+  public void merge(SlotAcc other) {
+    double[] otherResult = ((SumsqSlotAcc) other).result;
+    for (int i = 0; i < result.length; i++) {
+      result[i] += otherResult[i];
+    }
+  }
 }
 
 class MinSlotAcc extends DoubleFuncSlotAcc {
@@ -295,6 +338,22 @@ class MinSlotAcc extends DoubleFuncSlotAcc {
       result[slotNum] = val;
     }
   }
+
+  @Override
+  public boolean canMerge() {
+    return true;
+  }
+
+  @Override
+  public void merge(SlotAcc other) {
+    double[] otherResult = ((MinSlotAcc) other).result;
+    for (int i = 0; i < result.length; i++) {
+      double val = otherResult[i];
+      if (!Double.isNaN(val) && !(val >= result[i])) { // !(val >= NaN) if we have no value yet
+        result[i] = val;
+      }
+    }
+  }
 }
 
 class MaxSlotAcc extends DoubleFuncSlotAcc {
@@ -313,6 +372,21 @@ class MaxSlotAcc extends DoubleFuncSlotAcc {
     }
   }
 
+  @Override
+  public boolean canMerge() {
+    return true;
+  }
+
+  @Override
+  public void merge(SlotAcc other) {
+    double[] otherResult = ((MaxSlotAcc) other).result;
+    for (int i = 0; i < result.length; i++) {
+      double val = otherResult[i];
+      if (!Double.isNaN(val) && !(val <= result[i])) { // !(val <= NaN) if we have no value yet
+        result[i] = val;
+      }
+    }
+  }
 }
 
 class AvgSlotAcc extends DoubleFuncSlotAcc {
@@ -371,6 +445,20 @@ class AvgSlotAcc extends DoubleFuncSlotAcc {
     super.resize(resizer);
     counts = resizer.resize(counts, 0);
   }
+
+  @Override
+  public boolean canMerge() {
+    return true;
+  }
+
+  @Override
+  public void merge(SlotAcc other) {
+    AvgSlotAcc o = (AvgSlotAcc) other;
+    for (int i = 0; i < result.length; i++) {
+      result[i] += o.result[i];
+      counts[i] += o.counts[i];
+    }
+  }
 }
 
 class VarianceSlotAcc extends DoubleFuncSlotAcc {
@@ -433,6 +521,21 @@ class VarianceSlotAcc extends DoubleFuncSlotAcc {
       sum[slot] += val;
     }
   }
+
+  @Override
+  public boolean canMerge() {
+    return true;
+  }
+
+  @Override
+  public void merge(SlotAcc other) {
+    VarianceSlotAcc o = (VarianceSlotAcc) other;
+    for (int i = 0; i < result.length; i++) {
+      counts[i] += o.counts[i];
+      result[i] += o.result[i];
+      sum[i] += o.sum[i];
+    }
+  }
 }
 
 class StddevSlotAcc extends DoubleFuncSlotAcc {
@@ -495,63 +598,20 @@ class StddevSlotAcc extends DoubleFuncSlotAcc {
       sum[slot] += val;
     }
   }
-}
-
-abstract class CountSlotAcc extends SlotAcc {
-  public CountSlotAcc(FacetContext fcontext) {
-    super(fcontext);
-  }
-
-  public abstract void incrementCount(int slot, int count);
-
-  public abstract int getCount(int slot);
-}
-
-class CountSlotArrAcc extends CountSlotAcc {
-  int[] result;
-
-  public CountSlotArrAcc(FacetContext fcontext, int numSlots) {
-    super(fcontext);
-    result = new int[numSlots];
-  }
-
-  @Override
-  public void collect(int doc, int slotNum) { // TODO: count arrays can use fewer bytes based on the number of docs in
-                                              // the base set (that's the upper bound for single valued) - look at ttf?
-    result[slotNum]++;
-  }
-
-  @Override
-  public int compare(int slotA, int slotB) {
-    return Integer.compare(result[slotA], result[slotB]);
-  }
-
-  @Override
-  public Object getValue(int slotNum) throws IOException {
-    return result[slotNum];
-  }
-
-  public void incrementCount(int slot, int count) {
-    result[slot] += count;
-  }
-
-  public int getCount(int slot) {
-    return result[slot];
-  }
-
-  // internal and expert
-  int[] getCountArray() {
-    return result;
-  }
 
   @Override
-  public void reset() {
-    Arrays.fill(result, 0);
+  public boolean canMerge() {
+    return true;
   }
 
   @Override
-  public void resize(Resizer resizer) {
-    resizer.resize(result, 0);
+  public void merge(SlotAcc other) {
+    StddevSlotAcc o = (StddevSlotAcc) other;
+    for (int i = 0; i < result.length; i++) {
+      counts[i] += o.counts[i];
+      result[i] += o.result[i];
+      sum[i] += o.sum[i];
+    }
   }
 }
 
@@ -156,4 +156,24 @@ abstract class UniqueSlotAcc extends SlotAcc {
   public void resize(Resizer resizer) {
     arr = resizer.resize(arr, null);
   }
+
+  @Override
+  public boolean canMerge() {
+    return true;
+  }
+
+  @Override
+  public void merge(SlotAcc other) {
+    FixedBitSet[] otherArr = ((UniqueSlotAcc) other).arr;
+    for (int i = 0; i < arr.length; i++) {
+      FixedBitSet bits = otherArr[i];
+      if (bits == null) continue;
+      if (arr[i] == null) {
+        arr[i] = bits;
+      } else {
+        arr[i].or(bits);
+      }
+    }
+    counts = null;
+  }
 }
\ No newline at end of file
@@ -34,15 +34,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 /**
  * Obtains float field values from an external file.
+ * <p>
+ * The values are cached per segment, for as long as the external file does not change:
+ * a new searcher only maps the keys of the file onto the segments it does not share
+ * with the previous searcher.
  *
  * @see org.apache.solr.schema.ExternalFileField
  * @see org.apache.solr.schema.ExternalFileFieldReloader
@@ -78,14 +86,13 @@ public class FileFloatSource extends ValueSource {
 
   @Override
   public FunctionValues getValues(Map context, LeafReaderContext readerContext) throws IOException {
-    final int off = readerContext.docBase;
     IndexReaderContext topLevelContext = ReaderUtil.getTopLevelContext(readerContext);
 
-    final float[] arr = getCachedFloats(topLevelContext.reader());
+    final float[] arr = getCachedFloats(topLevelContext.reader())[readerContext.ord];
     return new FloatDocValues(this) {
       @Override
       public float floatVal(int doc) {
-        return arr[doc + off];
+        return arr[doc];
       }
 
       @Override
@@ -123,6 +130,9 @@ public class FileFloatSource extends ValueSource {
    */
   public static void resetCache(){
     floatCache.resetCache();
+    synchronized (fileValuesCache) {
+      fileValuesCache.clear();
+    }
   }
 
   /**
@@ -137,8 +147,9 @@ public class FileFloatSource extends ValueSource {
     log.info("FileFloatSource cache for field {} reloaded", this.field.getName());
   }
 
-  private final float[] getCachedFloats(IndexReader reader) {
-    return (float[])floatCache.get(reader, new Entry(this));
+  /** Returns the values of each segment of the reader, by leaf ord */
+  private final float[][] getCachedFloats(IndexReader reader) {
+    return (float[][])floatCache.get(reader, new Entry(this));
   }
 
   static Cache floatCache = new Cache() {
@@ -237,10 +248,172 @@ public class FileFloatSource extends ValueSource {
 
 
 
-  private static float[] getFloats(FileFloatSource ffs, IndexReader reader) {
-    float[] vals = new float[reader.maxDoc()];
+  /**
+   * The values of the latest version of each external file.  Values are dropped when their segment is closed,
+   * and so is the whole entry once none of its segments are left.  Package private for testing.
+   */
+  static final Map<FileKey,FileValues> fileValuesCache = new HashMap<>();
+
+  /** The core cache keys of the segments that have a listener that drops their values; guarded by fileValuesCache */
+  private static final Set<Object> listenedSegments = Collections.newSetFromMap(new WeakHashMap<>());
+
+  private static float[][] getFloats(FileFloatSource ffs, IndexReader reader) {
+    String fname = "external_" + ffs.field.getName();
+    File file = VersionedFile.getLatestVersion(ffs.dataDir, fname);
+    // a new version of the file is either a new file or a file that was rewritten in place, possibly with the
+    // same length and within the resolution of its modification time, so the content tells them apart
+    String checksum = null;
+    if (file != null) {
+      try {
+        checksum = checksum(file);
+      } catch (IOException e) {
+        log.error("Error reading external value source file: " + e);
+      }
+    }
+    String version = file == null ? null : file.getName() + ':' + checksum;
+
+    FileValues fileValues;
+    FileKey key = new FileKey(ffs);
+    synchronized (fileValuesCache) {
+      fileValues = fileValuesCache.get(key);
+      if (fileValues == null || !Objects.equals(fileValues.version, version)) {
+        fileValues = new FileValues(version, checksum);
+        fileValuesCache.put(key, fileValues);
+      }
+      for (LeafReaderContext leaf : reader.leaves()) {
+        if (listenedSegments.add(leaf.reader().getCoreCacheKey())) {
+          leaf.reader().addCoreClosedListener(FileFloatSource::dropSegment);
+        }
+      }
+    }
+    return fileValues.getFloats(ffs, reader);
+  }
+
+  private static String checksum(File file) throws IOException {
+    try (CheckedInputStream in = new CheckedInputStream(new FileInputStream(file), new CRC32())) {
+      byte[] buffer = new byte[8192];
+      while (in.read(buffer) != -1) {
+        // just update the checksum
+      }
+      return Long.toHexString(in.getChecksum().getValue());
+    }
+  }
+
+  private static void dropSegment(Object coreCacheKey) {
+    synchronized (fileValuesCache) {
+      listenedSegments.remove(coreCacheKey);
+      for (Iterator<FileValues> it = fileValuesCache.values().iterator(); it.hasNext();) {
+        if (it.next().drop(coreCacheKey)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Identifies an external file and how its keys are read.  Only holds strings, so that the cache does
+   * not keep the schema, and the resource loader of a closed core.
+   */
+  static final class FileKey {
+    final String dataDir;
+    final String field;
+    final String keyField;
+    final String keyType;
+    final float defVal;
+
+    FileKey(FileFloatSource ffs) {
+      this.dataDir = ffs.dataDir;
+      this.field = ffs.field.getName();
+      this.keyField = ffs.keyField.getName();
+      this.keyType = ffs.keyField.getType().getTypeName();
+      this.defVal = ffs.defVal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof FileKey)) return false;
+      FileKey other = (FileKey)o;
+      return dataDir.equals(other.dataDir)
+          && field.equals(other.field)
+          && keyField.equals(other.keyField)
+          && Objects.equals(keyType, other.keyType)
+          && defVal == other.defVal;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(dataDir, field, keyField);
+    }
+  }
+
+  /** The values of one version of an external file, per segment. */
+  static final class FileValues {
+    final String version;
+    // the checksum of the file's content, or null if it could not be read
+    final String checksum;
+    // keyed by the core cache key of the segments, so that deletes don't matter; guarded by itself
+    private final Map<Object,float[]> segmentValues = new WeakHashMap<>();
+
+    FileValues(String version, String checksum) {
+      this.version = version;
+      this.checksum = checksum;
+    }
+
+    /** Drops the values of a closed segment, and returns true if no segment is left */
+    boolean drop(Object coreCacheKey) {
+      synchronized (segmentValues) {
+        segmentValues.remove(coreCacheKey);
+        return segmentValues.isEmpty();
+      }
+    }
+
+    // one load at a time, so that the file is only read once for new segments
+    synchronized float[][] getFloats(FileFloatSource ffs, IndexReader reader) {
+      List<LeafReaderContext> leaves = reader.leaves();
+      float[][] vals = new float[leaves.size()][];
+      List<LeafReaderContext> newLeaves = new ArrayList<>();
+      synchronized (segmentValues) {
+        for (LeafReaderContext leaf : leaves) {
+          vals[leaf.ord] = segmentValues.get(leaf.reader().getCoreCacheKey());
+          if (vals[leaf.ord] == null) {
+            newLeaves.add(leaf);
+          }
+        }
+      }
+      if (newLeaves.isEmpty()) {
+        return vals;
+      }
+
+      float[][] newVals = new float[newLeaves.size()][];
+      for (int i = 0; i < newVals.length; i++) {
+        newVals[i] = new float[newLeaves.get(i).reader().maxDoc()];
+        vals[newLeaves.get(i).ord] = newVals[i];
+      }
+      if (loadFloats(ffs, newLeaves, newVals, newLeaves.size() == leaves.size(), checksum)) {
+        synchronized (segmentValues) {
+          for (int i = 0; i < newVals.length; i++) {
+            segmentValues.put(newLeaves.get(i).reader().getCoreCacheKey(), newVals[i]);
+          }
+        }
+      }
+      // else only the reader that asked keeps these values, the next one reads the file again
+      return vals;
+    }
+  }
+
+  /**
+   * Reads the external file once and sets the values of all the given segments.
+   * Missing keys are only logged if the segments make up the whole index.
+   * @param checksum the checksum the file is expected to have, or null if unknown
+   * @return false if the file could not be read, in which case some values may be left at their defaults, or if
+   * its content does not have the expected checksum
+   */
+  private static boolean loadFloats(FileFloatSource ffs, List<LeafReaderContext> leaves, float[][] vals, boolean allLeaves,
+                                    String checksum) {
     if (ffs.defVal != 0) {
-      Arrays.fill(vals, ffs.defVal);
+      for (float[] segmentVals : vals) {
+        Arrays.fill(segmentVals, ffs.defVal);
+      }
     }
     InputStream is;
     String fname = "external_" + ffs.field.getName();
@@ -249,10 +422,11 @@ public class FileFloatSource extends ValueSource {
     } catch (IOException e) {
       // log, use defaults
       log.error("Error opening external value source file: " +e);
-      return vals;
+      return false;
     }
 
-    BufferedReader r = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+    CheckedInputStream checked = new CheckedInputStream(is, new CRC32());
+    BufferedReader r = new BufferedReader(new InputStreamReader(checked, StandardCharsets.UTF_8));
 
     String idName = ffs.keyField.getName();
     FieldType idType = ffs.keyField.getType();
@@ -270,7 +444,11 @@ public class FileFloatSource extends ValueSource {
     BytesRefBuilder internalKey = new BytesRefBuilder();
 
     try {
-      TermsEnum termsEnum = MultiFields.getTerms(reader, idName).iterator();
+      TermsEnum[] termsEnums = new TermsEnum[leaves.size()];
+      for (int i = 0; i < termsEnums.length; i++) {
+        Terms terms = leaves.get(i).reader().terms(idName);
+        termsEnums[i] = terms == null ? null : terms.iterator();
+      }
       PostingsEnum postingsEnum = null;
 
       // removing deleted docs shouldn't matter
@@ -297,35 +475,53 @@ public class FileFloatSource extends ValueSource {
           continue;  // go to next line in file.. leave values as default.
         }
 
-        if (!termsEnum.seekExact(internalKey.get())) {
+        boolean found = false;
+        for (int i = 0; i < termsEnums.length; i++) {
+          if (termsEnums[i] == null || !termsEnums[i].seekExact(internalKey.get())) {
+            continue;
+          }
+          found = true;
+          postingsEnum = termsEnums[i].postings(postingsEnum, PostingsEnum.NONE);
+          float[] segmentVals = vals[i];
+          int doc;
+          while ((doc = postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            segmentVals[doc] = fval;
+          }
+        }
+
+        if (!found) {
           if (notFoundCount<10) {  // collect first 10 not found for logging
             notFound.add(key);
           }
           notFoundCount++;
-          continue;
         }
+      }
 
-        postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.NONE);
-        int doc;
-        while ((doc = postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-          vals[doc] = fval;
-        }
+      if (!Long.toHexString(checked.getChecksum().getValue()).equals(checksum)) {
+        // the file changed since its version was taken, keep these values to the reader that asked
+        log.info("External value source " + fname + " changed while it was loaded");
+        return false;
       }
 
     } catch (IOException e) {
       // log, use defaults
       log.error("Error loading external value source: " +e);
+      return false;
     } finally {
       // swallow exceptions on close so we don't override any
       // exceptions that happened in the loop
       try{r.close();}catch(Exception e){}
     }
 
-    log.info("Loaded external value source " + fname
-      + (notFoundCount==0 ? "" : " :"+notFoundCount+" missing keys "+notFound)
-    );
+    if (allLeaves) {
+      log.info("Loaded external value source " + fname
+        + (notFoundCount==0 ? "" : " :"+notFoundCount+" missing keys "+notFound)
+      );
+    } else {
+      log.info("Loaded external value source " + fname + " for " + leaves.size() + " new segments");
+    }
 
-    return vals;
+    return true;
   }
 
   public static class ReloadCacheRequestHandler extends RequestHandlerBase {
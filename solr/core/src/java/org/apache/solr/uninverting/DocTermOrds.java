@@ -22,19 +22,30 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.PostingsFormat; // javadocs
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterLeafReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RandomAccessInput;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.PagedBytes;
 import org.apache.lucene.util.StringHelper;
 
@@ -73,7 +84,10 @@ import org.apache.lucene.util.StringHelper;
  * {@link #getOrdTermsEnum} method then provides this
  * wrapped enum.
  *
- * The RAM consumption of this class can be high!
+ * The RAM consumption of this class can be high!  Instances
+ * created with {@link #offHeap} keep the per-document ords in
+ * a file instead, which is reused for as long as the segment
+ * is open.
  *
  * @lucene.experimental
  */
@@ -168,6 +182,20 @@ public class DocTermOrds implements Accountable {
    * Normally, docValues should be used in preference to DocTermOrds. */
   protected boolean checkForDocValues = true;
 
+  static final String OFF_HEAP_CODEC = "DocTermOrds";
+  static final int OFF_HEAP_VERSION_START = 0;
+  static final int OFF_HEAP_VERSION_CURRENT = OFF_HEAP_VERSION_START;
+  static final String OFF_HEAP_EXTENSION = "dto";
+
+  // Off-heap form: index and tnums live in offHeapInput rather than in the
+  // arrays above.  The file is laid out as header, term index, int[maxDoc]
+  // index, the 256 tnums arrays (each prefixed with its length) and footer.
+  private IndexInput offHeapInput;
+  private long offHeapIndexStart;
+  private long[] offHeapTnumsStart;
+  private Directory offHeapDir;
+  private String offHeapFile;
+
   /** Returns total bytes used. */
   public long ramBytesUsed() {
     // can cache the mem size since it shouldn't change
@@ -178,6 +206,7 @@ public class DocTermOrds implements Accountable {
       for (byte[] arr : tnums)
         if (arr != null) sz += arr.length;
     }
+    if (offHeapTnumsStart != null) sz += offHeapTnumsStart.length * 8;
     memsz = sz;
     return sz;
   }
@@ -257,7 +286,238 @@ public class DocTermOrds implements Accountable {
    * Returns {@code true} if no terms were indexed.
    */
   public boolean isEmpty() {
-    return index == null;
+    return index == null && offHeapInput == null;
+  }
+
+  /**
+   * Inverts all terms starting w/ prefix like {@link #DocTermOrds(LeafReader, Bits, String, BytesRef)}
+   * without liveDocs, but keeps the per-document ords in a file in <code>dir</code>
+   * instead of on the heap; only the term index stays in RAM.  The file is named
+   * after the segment (name and id), so a file left by an earlier instance for the
+   * same segment is reused instead of uninverting again.  The file is deleted when
+   * the segment's core is closed.
+   * <p>
+   * The reader must be (or wrap) a {@link SegmentReader}; otherwise the field is
+   * uninverted on the heap as usual.  Call {@link #releaseOffHeap} once the instance
+   * is no longer used.
+   */
+  public static DocTermOrds offHeap(LeafReader reader, String field, BytesRef termPrefix, Directory dir) throws IOException {
+    final LeafReader unwrapped = FilterLeafReader.unwrap(reader);
+    if (!(unwrapped instanceof SegmentReader)) {
+      return new DocTermOrds(reader, null, field, termPrefix);
+    }
+    final SegmentInfo si = ((SegmentReader) unwrapped).getSegmentInfo().info;
+    final String fileName = offHeapFileName(si, field, termPrefix);
+    // registered once per file, since listeners are kept in a set
+    unwrapped.addCoreClosedListener(new OffHeapFileDeleter(dir, fileName));
+
+    DocTermOrds dto = new DocTermOrds(field, Integer.MAX_VALUE, DEFAULT_INDEX_INTERVAL_BITS);
+    if (Arrays.asList(dir.listAll()).contains(fileName)) {
+      try {
+        dto.openOffHeap(dir, fileName, si, termPrefix, true);
+        return dto;
+      } catch (IOException e) {
+        // stale or damaged: build it again
+        dir.deleteFile(fileName);
+        dto = new DocTermOrds(field, Integer.MAX_VALUE, DEFAULT_INDEX_INTERVAL_BITS);
+      }
+    }
+
+    dto.uninvert(reader, null, termPrefix);
+    if (dto.isEmpty()) {
+      return dto;
+    }
+    // write to a temp file first so that a concurrent reader never sees a partial file
+    boolean success = false;
+    String tempFile = null;
+    try {
+      try (IndexOutput out = dir.createTempOutput(fileName, "tmp", IOContext.DEFAULT)) {
+        tempFile = out.getName();
+        dto.writeOffHeap(out, si);
+      }
+      dir.rename(tempFile, fileName);
+      success = true;
+    } finally {
+      if (!success && tempFile != null) {
+        IOUtils.deleteFilesIgnoringExceptions(dir, tempFile);
+      }
+    }
+
+    // drops the heap arrays
+    dto.openOffHeap(dir, fileName, si, termPrefix, false);
+    return dto;
+  }
+
+  static String offHeapFileName(SegmentInfo si, String field, BytesRef termPrefix) {
+    // the field name and prefix are verified against the file's contents on open,
+    // so hashing them here is only about producing a safe file name
+    String name = si.name + "_" + StringHelper.idToString(si.getId())
+        + "_" + Integer.toHexString(field.hashCode());
+    if (termPrefix != null) {
+      name += "_" + Integer.toHexString(termPrefix.hashCode());
+    }
+    return name + "." + OFF_HEAP_EXTENSION;
+  }
+
+  private void writeOffHeap(IndexOutput out, SegmentInfo si) throws IOException {
+    CodecUtil.writeIndexHeader(out, OFF_HEAP_CODEC, OFF_HEAP_VERSION_CURRENT, si.getId(), "");
+    out.writeString(field);
+    if (prefix == null) {
+      out.writeVInt(0);
+    } else {
+      out.writeVInt(prefix.length + 1);
+      out.writeBytes(prefix.bytes, prefix.offset, prefix.length);
+    }
+    out.writeVInt(index.length);
+    out.writeVInt(indexIntervalBits);
+    out.writeVInt(numTermsInField);
+    out.writeVLong(termInstances);
+    out.writeVInt(ordBase);
+    out.writeVLong(sizeOfIndexedStrings);
+    out.writeVInt(indexedTermsArray.length);
+    for (BytesRef term : indexedTermsArray) {
+      out.writeVInt(term.length);
+      out.writeBytes(term.bytes, term.offset, term.length);
+    }
+    for (int code : index) {
+      out.writeInt(code);
+    }
+    for (byte[] arr : tnums) {
+      if (arr == null) {
+        out.writeVInt(0);
+      } else {
+        out.writeVInt(arr.length);
+        out.writeBytes(arr, 0, arr.length);
+      }
+    }
+    CodecUtil.writeFooter(out);
+  }
+
+  private void openOffHeap(Directory dir, String fileName, SegmentInfo si, BytesRef termPrefix, boolean verify) throws IOException {
+    final IndexInput in = dir.openInput(fileName, IOContext.READ);
+    boolean success = false;
+    try {
+      if (verify) {
+        // a file from an earlier run; cheap compared to uninverting again
+        CodecUtil.checksumEntireFile(in);
+        in.seek(0);
+      }
+      CodecUtil.checkIndexHeader(in, OFF_HEAP_CODEC, OFF_HEAP_VERSION_START, OFF_HEAP_VERSION_CURRENT, si.getId(), "");
+      final String storedField = in.readString();
+      final int prefixLength = in.readVInt();
+      BytesRef storedPrefix = null;
+      if (prefixLength > 0) {
+        storedPrefix = new BytesRef(prefixLength - 1);
+        storedPrefix.length = prefixLength - 1;
+        in.readBytes(storedPrefix.bytes, 0, storedPrefix.length);
+      }
+      if (!field.equals(storedField) || (storedPrefix == null ? termPrefix != null : !storedPrefix.equals(termPrefix))) {
+        throw new CorruptIndexException("field " + storedField + " does not match " + field, in);
+      }
+      final int maxDoc = in.readVInt();
+      if (maxDoc != si.maxDoc()) {
+        throw new CorruptIndexException("maxDoc " + maxDoc + " does not match segment maxDoc " + si.maxDoc(), in);
+      }
+      if (in.readVInt() != indexIntervalBits) {
+        throw new CorruptIndexException("index interval does not match", in);
+      }
+      numTermsInField = in.readVInt();
+      termInstances = in.readVLong();
+      ordBase = in.readVInt();
+      sizeOfIndexedStrings = in.readVLong();
+      final BytesRef[] indexedTerms = new BytesRef[in.readVInt()];
+      for (int i = 0; i < indexedTerms.length; i++) {
+        final BytesRef term = new BytesRef(in.readVInt());
+        term.length = term.bytes.length;
+        in.readBytes(term.bytes, 0, term.length);
+        indexedTerms[i] = term;
+      }
+
+      final long indexStart = in.getFilePointer();
+      in.seek(indexStart + 4L * maxDoc);
+      final long[] tnumsStart = new long[256];
+      for (int pass = 0; pass < tnumsStart.length; pass++) {
+        final int length = in.readVInt();
+        tnumsStart[pass] = in.getFilePointer();
+        in.seek(tnumsStart[pass] + length);
+      }
+      if (in.getFilePointer() != in.length() - CodecUtil.footerLength()) {
+        throw new CorruptIndexException("unexpected file length", in);
+      }
+      CodecUtil.retrieveChecksum(in);
+
+      prefix = termPrefix == null ? null : BytesRef.deepCopyOf(termPrefix);
+      indexedTermsArray = indexedTerms;
+      index = null;
+      tnums = null;
+      offHeapInput = in;
+      offHeapIndexStart = indexStart;
+      offHeapTnumsStart = tnumsStart;
+      offHeapDir = dir;
+      offHeapFile = fileName;
+      success = true;
+    } finally {
+      if (!success) {
+        IOUtils.closeWhileHandlingException(in);
+      }
+    }
+  }
+
+  /**
+   * Closes the file backing an instance created with {@link #offHeap}; the file itself
+   * stays until the segment's core is closed, for other instances of the same segment.
+   * Iterators must not be used afterwards.  This is a no-op for instances that are on the heap.
+   */
+  public void releaseOffHeap() throws IOException {
+    if (offHeapInput == null) {
+      return;
+    }
+    offHeapInput.close();
+  }
+
+  /**
+   * Deletes the files of off-heap instances from <code>dir</code>, including partially
+   * written ones.  Since the files are deleted when their segment's core is closed, any
+   * such file found when the directory is first opened was left by a process that did
+   * not shut down cleanly.
+   */
+  public static void deleteOffHeapFiles(Directory dir) throws IOException {
+    final List<String> files = new ArrayList<>();
+    for (String file : dir.listAll()) {
+      // temp files are named after the file they become, see offHeap()
+      if (file.endsWith("." + OFF_HEAP_EXTENSION) || file.contains("." + OFF_HEAP_EXTENSION + "_")) {
+        files.add(file);
+      }
+    }
+    IOUtils.deleteFilesIgnoringExceptions(dir, files);
+  }
+
+  /** Deletes the file of off-heap instances once the segment's core is closed. */
+  private static final class OffHeapFileDeleter implements LeafReader.CoreClosedListener {
+    private final Directory dir;
+    private final String fileName;
+
+    OffHeapFileDeleter(Directory dir, String fileName) {
+      this.dir = dir;
+      this.fileName = fileName;
+    }
+
+    @Override
+    public void onClose(Object ownerCoreCacheKey) {
+      IOUtils.deleteFilesIgnoringExceptions(dir, fileName);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof OffHeapFileDeleter
+          && dir == ((OffHeapFileDeleter) other).dir
+          && fileName.equals(((OffHeapFileDeleter) other).fileName);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(dir) + fileName.hashCode();
+    }
   }
 
   /** Subclass can override this */
@@ -759,11 +1019,17 @@ public class DocTermOrds implements Accountable {
     
     private int tnum;
     private int upto;
+    private boolean inline;
     private byte[] arr;
+
+    // only used when the ords are off-heap
+    private final RandomAccessInput offHeap;
+    private long tnumsStart;
     
     Iterator(LeafReader reader) throws IOException {
       this.reader = reader;
       this.te = termsEnum();
+      this.offHeap = offHeapInput == null ? null : offHeapInput.randomAccessSlice(0, offHeapInput.length());
     }
     
     @Override
@@ -784,7 +1050,7 @@ public class DocTermOrds implements Accountable {
      *  less than buffer.length then that is the end. */
     int read(int[] buffer) {
       int bufferUpto = 0;
-      if (arr == null) {
+      if (inline) {
         // code is inlined into upto
         //System.out.println("inlined");
         int code = upto;
@@ -800,6 +1066,26 @@ public class DocTermOrds implements Accountable {
           }
           code >>>= 8;
         }
+      } else if (offHeap != null) {
+        // code is a pointer into the file
+        try {
+          for(;;) {
+            int delta = 0;
+            for(;;) {
+              byte b = offHeap.readByte(tnumsStart + upto++);
+              delta = (delta << 7) | (b & 0x7f);
+              if ((b & 0x80) == 0) break;
+            }
+            if (delta == 0) break;
+            tnum += delta - TNUM_OFFSET;
+            buffer[bufferUpto++] = ordBase+tnum;
+            if (bufferUpto == buffer.length) {
+              break;
+            }
+          }
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
       } else {
         // code is a pointer
         for(;;) {
@@ -827,15 +1113,30 @@ public class DocTermOrds implements Accountable {
     @Override
     public void setDocument(int docID) {
       tnum = 0;
-      final int code = index[docID];
+      final int code;
+      if (offHeap == null) {
+        code = index[docID];
+      } else {
+        try {
+          code = offHeap.readInt(offHeapIndexStart + ((long) docID << 2));
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
       if ((code & 0xff)==1) {
         // a pointer
+        inline = false;
         upto = code>>>8;
         //System.out.println("    pointer!  upto=" + upto);
         int whichArray = (docID >>> 16) & 0xff;
-        arr = tnums[whichArray];
+        if (offHeap == null) {
+          arr = tnums[whichArray];
+        } else {
+          tnumsStart = offHeapTnumsStart[whichArray];
+        }
       } else {
         //System.out.println("    inline!");
+        inline = true;
         arr = null;
         upto = code;
       }
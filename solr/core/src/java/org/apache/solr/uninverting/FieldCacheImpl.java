@@ -18,6 +18,8 @@ package org.apache.solr.uninverting;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -43,6 +45,8 @@ import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.Bits;
@@ -53,6 +57,8 @@ import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.packed.GrowableWriter;
 import org.apache.lucene.util.packed.PackedInts;
 import org.apache.lucene.util.packed.PackedLongValues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Expert: The default cache implementation, storing all values in memory.
@@ -62,9 +68,40 @@ import org.apache.lucene.util.packed.PackedLongValues;
  */
 class FieldCacheImpl implements FieldCache {
 
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * System property naming a directory in which uninverted multi-valued fields
+   * keep their per-document ords, instead of on the heap.  See {@link DocTermOrds#offHeap}.
+   * The directory must not be shared with other processes: files left in it are deleted on startup.
+   */
+  public static final String OFF_HEAP_DIR_PROPERTY = "solr.uninverting.offHeapDir";
+
   private Map<Class<?>,Cache> caches;
+  private volatile Directory offHeapDir;
+
   FieldCacheImpl() {
     init();
+    final String offHeapPath = System.getProperty(OFF_HEAP_DIR_PROPERTY);
+    if (offHeapPath != null) {
+      try {
+        final Directory dir = FSDirectory.open(Paths.get(offHeapPath));
+        DocTermOrds.deleteOffHeapFiles(dir);
+        offHeapDir = dir;
+      } catch (IOException | RuntimeException e) {
+        log.warn("Cannot open " + OFF_HEAP_DIR_PROPERTY + "=" + offHeapPath + ", uninverted fields stay on the heap", e);
+      }
+    }
+  }
+
+  /** Sets the directory for off-heap {@link DocTermOrds}, or null to keep them on the heap.
+   *  Only affects fields uninverted afterwards. */
+  void setOffHeapDirectory(Directory dir) {
+    offHeapDir = dir;
+  }
+
+  Directory getOffHeapDirectory() {
+    return offHeapDir;
   }
 
   private synchronized void init() {
@@ -78,6 +115,7 @@ class FieldCacheImpl implements FieldCache {
 
   @Override
   public synchronized void purgeAllCaches() {
+    ((DocTermOrdsCache) caches.get(DocTermOrds.class)).releaseAll();
     init();
   }
 
@@ -1063,8 +1101,46 @@ class FieldCacheImpl implements FieldCache {
     protected Accountable createValue(LeafReader reader, CacheKey key, boolean setDocsWithField /* ignored */)
         throws IOException {
       BytesRef prefix = (BytesRef) key.custom;
+      final Directory offHeapDir = wrapper.offHeapDir;
+      if (offHeapDir != null) {
+        return DocTermOrds.offHeap(reader, key.field, prefix, offHeapDir);
+      }
       return new DocTermOrds(reader, null, key.field, prefix);
     }
+
+    @Override
+    public void purgeByCacheKey(Object coreCacheKey) {
+      final Map<CacheKey,Accountable> innerCache;
+      synchronized(readerCache) {
+        innerCache = readerCache.remove(coreCacheKey);
+      }
+      if (innerCache != null) {
+        release(innerCache.values());
+      }
+    }
+
+    void releaseAll() {
+      final List<Accountable> values = new ArrayList<>();
+      synchronized(readerCache) {
+        for (Map<CacheKey,Accountable> innerCache : readerCache.values()) {
+          values.addAll(innerCache.values());
+        }
+        readerCache.clear();
+      }
+      release(values);
+    }
+
+    private static void release(Collection<Accountable> values) {
+      for (Accountable value : values) {
+        if (value instanceof DocTermOrds) {
+          try {
+            ((DocTermOrds) value).releaseOffHeap();
+          } catch (IOException e) {
+            log.warn("Error releasing off-heap uninverted field", e);
+          }
+        }
+      }
+    }
   }
 
   private volatile PrintStream infoStream;
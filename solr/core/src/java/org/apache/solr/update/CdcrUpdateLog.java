@@ -243,6 +243,7 @@ public class CdcrUpdateLog extends UpdateLog {
       if (tlog == null) {
         String newLogName = String.format(Locale.ROOT, LOG_FILENAME_PATTERN, TLOG_NAME, id, absoluteVersion);
         tlog = new CdcrTransactionLog(new File(tlogDir, newLogName), globalStrings);
+        configureReads(tlog);
       }
 
       // push the new tlog to the opened readers
@@ -333,6 +334,7 @@ public class CdcrUpdateLog extends UpdateLog {
       File f = new File(tlogDir, oldLogName);
       try {
         oldLog = newTransactionLog(f, null, true);
+        configureReads(oldLog);
         addOldLog(oldLog, false);  // don't remove old logs on startup since more than one may be uncapped.
       } catch (Exception e) {
         SolrException.log(log, "Failure to open existing log file (non fatal) " + f, e);
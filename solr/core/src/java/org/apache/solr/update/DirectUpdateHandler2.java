@@ -48,6 +48,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.SolrConfig.UpdateHandlerInfo;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.metrics.SolrMetricManager;
@@ -220,6 +221,12 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
     addCommands.increment();
     addCommandsCumulative.mark();
 
+    if ((cmd.getFlags() & UpdateCommand.IGNORE_INDEXWRITER) != 0) {
+      // the index is copied from the leader, the update only has to be logged
+      if (ulog != null) ulog.add(cmd);
+      return 1;
+    }
+
     // if there is no ID field, don't overwrite
     if (idField == null) {
       cmd.overwrite = false;
@@ -397,6 +404,11 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
     deleteByIdCommands.increment();
     deleteByIdCommandsCumulative.mark();
 
+    if ((cmd.getFlags() & UpdateCommand.IGNORE_INDEXWRITER) != 0) {
+      if (ulog != null) ulog.delete(cmd);
+      return;
+    }
+
     Term deleteTerm = new Term(idField.getName(), cmd.getIndexedId());
     // SolrCore.verbose("deleteDocuments",deleteTerm,writer);
     RefCounted<IndexWriter> iw = solrCoreState.getIndexWriter(core);
@@ -454,6 +466,16 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
   public void deleteByQuery(DeleteUpdateCommand cmd) throws IOException {
     deleteByQueryCommands.increment();
     deleteByQueryCommandsCumulative.mark();
+
+    if ((cmd.getFlags() & UpdateCommand.IGNORE_INDEXWRITER) != 0) {
+      if (ulog != null) {
+        synchronized (solrCoreState.getUpdateLock()) {
+          ulog.deleteByQuery(cmd);
+        }
+      }
+      return;
+    }
+
     boolean madeIt=false;
     try {
       Query q = getQuery(cmd);
@@ -783,6 +805,12 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
 
   public static boolean commitOnClose = true;  // TODO: make this a real config option or move it to TestInjection
 
+  /** Returns true if this core only logs updates and copies its index from the shard leader. */
+  private boolean isFollowingLeader() {
+    CoreContainer cc = core.getCoreContainer();
+    return cc != null && cc.isZooKeeperAware() && cc.getZkController().isFollowingLeader(core.getName());
+  }
+
   // IndexWriterCloser interface method - called from solrCoreState.decref(this)
   @Override
   public void closeWriter(IndexWriter writer) throws IOException {
@@ -812,8 +840,10 @@ public class DirectUpdateHandler2 extends UpdateHandler implements SolrCoreState
         return;
       }
 
-      // do a commit before we quit?     
-      boolean tryToCommit = writer != null && ulog != null && ulog.hasUncommittedChanges() && ulog.getState() == UpdateLog.State.ACTIVE;
+      // do a commit before we quit?  Not if the index is copied from the leader: a local commit would
+      // force a full copy of the index later on, and the logged updates are not in the index anyway.
+      boolean tryToCommit = writer != null && ulog != null && ulog.hasUncommittedChanges()
+          && ulog.getState() == UpdateLog.State.ACTIVE && !isFollowingLeader();
 
       try {
         if (tryToCommit) {
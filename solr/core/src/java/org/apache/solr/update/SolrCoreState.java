@@ -30,6 +30,7 @@ import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.CoreDescriptor;
 import org.apache.solr.core.DirectoryFactory;
 import org.apache.solr.core.SolrCore;
+import org.apache.solr.search.SearchLatencyTracker;
 import org.apache.solr.util.RefCounted;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,7 @@ public abstract class SolrCoreState {
   protected boolean closed = false;
   private final Object updateLock = new Object();
   private final Object reloadLock = new Object();
+  private final SearchLatencyTracker searchLatency = new SearchLatencyTracker();
   
   public Object getUpdateLock() {
     return updateLock;
@@ -53,6 +55,11 @@ public abstract class SolrCoreState {
   public Object getReloadLock() {
     return reloadLock;
   }
+
+  /** Latency of the searches on the index, which is kept across reloads like the IndexWriter. */
+  public SearchLatencyTracker getSearchLatency() {
+    return searchLatency;
+  }
   
   
   private int solrCoreStateRefCnt = 1;
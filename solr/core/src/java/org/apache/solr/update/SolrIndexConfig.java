@@ -27,6 +27,7 @@ import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
 import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.IndexWriter.IndexReaderWarmer;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LatencyAwareMergeScheduler;
 import org.apache.lucene.index.LogMergePolicy;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
@@ -251,6 +252,10 @@ public class SolrIndexConfig implements MapSerializable {
     MergePolicy mergePolicy = buildMergePolicy(schema);
     iwc.setMergePolicy(mergePolicy);
     MergeScheduler mergeScheduler = buildMergeScheduler(schema);
+    if (mergeScheduler instanceof LatencyAwareMergeScheduler && core.getSolrCoreState() != null) {
+      // throttle merging on the latency of the searches on this index
+      ((LatencyAwareMergeScheduler) mergeScheduler).setLatencySignal(core.getSolrCoreState().getSearchLatency());
+    }
     iwc.setMergeScheduler(mergeScheduler);
     iwc.setInfoStream(infoStream);
 
@@ -33,8 +33,16 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NoLockFactory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.Constants;
+import org.apache.lucene.util.IOUtils;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.util.DataInputInputStream;
@@ -86,6 +94,31 @@ public class TransactionLog implements Closeable {
   long snapshot_size;
   int snapshot_numRecords;
 
+  // group commit: callers of finish(FSYNC) wait for a sync that covers their records, and only one of
+  // them syncs at a time, on behalf of everyone who wrote before it started. All guarded by syncLock.
+  private final Object syncLock = new Object();
+  private long syncedSize;      // the log is durable up to this position
+  private boolean syncing;      // a caller is currently syncing the log
+  private int syncGeneration;   // incremented on rollback, so a concurrent sync can't mark truncated data as synced
+
+  /** Whether reads are served from a memory mapping of the log by default; like FSDirectory.open, only on 64-bit non-Windows JVMs */
+  public static final boolean DEFAULT_MMAP_READS = Constants.JRE_IS_64BIT && !Constants.WINDOWS;
+
+  // only remap a growing log once it has doubled in size since the current mapping, and at least this much
+  // has been appended; reads of the newest records go through the channel until then
+  static final long REMAP_MIN_GROWTH = 1 << 20;
+
+  protected volatile boolean mmapReads;
+  protected volatile boolean checkRecordSizes;
+  // read-only mapping of the start of the file, replaced as the log grows. Reads copy out of it while holding
+  // the read lock, so that rollback and close can wait for them before unmapping or truncating the mapped file.
+  private final ReentrantReadWriteLock mapLock = new ReentrantReadWriteLock();
+  private final Object remapLock = new Object();
+  private volatile IndexInput mapped;
+  // every mapping of the log that has not been unmapped yet, including the ones replaced by a larger mapping
+  private final List<IndexInput> mappings = new ArrayList<>();
+  private MMapDirectory mapDirectory;
+
   // write a BytesRef as a byte array
   static final JavaBinCodec.ObjectResolver resolver = new JavaBinCodec.ObjectResolver() {
     @Override
@@ -247,10 +280,22 @@ public class TransactionLog implements Closeable {
     synchronized (this) {
       assert snapshot_size == pos;
       fos.flush();
-      raf.setLength(pos);
+      Lock writeLock = mapLock.writeLock();
+      writeLock.lock();
+      try {
+        // the mapping must not outlive the data it covers, nor be read while the file shrinks under it
+        unmap();
+        raf.setLength(pos);
+      } finally {
+        writeLock.unlock();
+      }
       fos.setWritten(pos);
       assert fos.size() == pos;
       numRecords = snapshot_numRecords;
+      synchronized (syncLock) {
+        syncedSize = Math.min(syncedSize, pos);
+        syncGeneration++;
+      }
     }
   }
 
@@ -523,9 +568,13 @@ public class TransactionLog implements Closeable {
         ***/
       }
 
-      ChannelFastInputStream fis = new ChannelFastInputStream(channel, pos);
+      ChannelFastInputStream fis = new ChannelFastInputStream(channel, pos, this);
       LogCodec codec = new LogCodec(resolver);
-      return codec.readVal(fis);
+      Object o = codec.readVal(fis);
+      if (checkRecordSizes) {
+        checkRecordSize(pos, fis.readInt(), fis.position() - pos - 4);
+      }
+      return o;
     } catch (IOException e) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
     }
@@ -563,19 +612,175 @@ public class TransactionLog implements Closeable {
   public void finish(UpdateLog.SyncLevel syncLevel) {
     if (syncLevel == UpdateLog.SyncLevel.NONE) return;
     try {
+      long size;
       synchronized (this) {
         fos.flushBuffer();
+        size = fos.size();
       }
 
       if (syncLevel == UpdateLog.SyncLevel.FSYNC) {
+        sync(size);
+      }
+
+    } catch (IOException e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+    }
+  }
+
+  /**
+   * Makes sure the log is durable up to the given position. If another caller is already syncing, this waits
+   * for it to finish, and then only syncs if that sync didn't cover the position. The next sync covers all
+   * records written by the waiting callers, so under concurrent updates there is one sync per group of
+   * callers instead of one per caller.
+   */
+  private void sync(long size) throws IOException {
+    boolean interrupted = false;
+    int generation;
+    try {
+      synchronized (syncLock) {
+        while (syncedSize < size && syncing) {
+          try {
+            syncLock.wait();
+          } catch (InterruptedException e) {
+            // the records must be durable before we return
+            interrupted = true;
+          }
+        }
+        if (syncedSize >= size) {
+          return;
+        }
+        syncing = true;
+        generation = syncGeneration;
+      }
+
+      long syncSize = size;
+      boolean success = false;
+      try {
+        synchronized (this) {
+          // include the records written since this caller flushed
+          fos.flushBuffer();
+          syncSize = fos.size();
+        }
         // Since fsync is outside of synchronized block, we can end up with a partial
         // last record on power failure (which is OK, and does not represent an error...
         // we just need to be aware of it when reading).
-        raf.getFD().sync();
+        syncFile();
+        success = true;
+      } finally {
+        synchronized (syncLock) {
+          syncing = false;
+          if (success && generation == syncGeneration) {
+            syncedSize = Math.max(syncedSize, syncSize);
+          }
+          syncLock.notifyAll();
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
       }
+    }
+  }
 
-    } catch (IOException e) {
-      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+  /** Forces the log to disk; package private so that tests can count the syncs. */
+  void syncFile() throws IOException {
+    // Not FileChannel.force(), which would close the channel if this thread was interrupted.
+    raf.getFD().sync();
+  }
+
+  /**
+   * Serve reads of this log from a read-only memory mapping of the file instead of positional channel reads.
+   * The mapping covers the log as of the last time it was (re)mapped; reads past it fall back to the channel.
+   */
+  public void setMmapReads(boolean mmapReads) {
+    this.mmapReads = mmapReads;
+  }
+
+  /**
+   * Check the size that trails every record against the bytes actually decoded when reading records forward.
+   * This is not a checksum: it catches records that are cut short or misaligned, not bytes changed within a record.
+   */
+  public void setCheckRecordSizes(boolean checkRecordSizes) {
+    this.checkRecordSizes = checkRecordSizes;
+  }
+
+  /**
+   * Copies up to <code>len</code> bytes of the log starting at the given position out of its memory mapping,
+   * returning the number of bytes copied, or -1 if the position should be read through the channel instead.
+   */
+  int readMapped(long pos, byte[] target, int offset, int len) throws IOException {
+    if (!mmapReads) return -1;
+    Lock readLock = mapLock.readLock();
+    readLock.lock();
+    try {
+      IndexInput m = getMapping(pos);
+      if (m == null) return -1;
+      // a copy out of the page cache, without a read syscall
+      int n = (int) Math.min(len, m.length() - pos);
+      IndexInput src = m.clone();
+      src.seek(pos);
+      src.readBytes(target, offset, n);
+      return n;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Returns a read-only mapping of the log that contains the given position, or null if the position should
+   * be read through the channel. Must be called with the read lock of mapLock held. A mapping that is replaced
+   * by a larger one may still be read from, so it is only unmapped on rollback or close, which is why a growing
+   * log is remapped geometrically rather than every time some data has been appended.
+   */
+  private IndexInput getMapping(long pos) throws IOException {
+    IndexInput m = mapped;
+    if (m != null && pos < m.length()) return m;
+
+    synchronized (remapLock) {
+      m = mapped;
+      if (m != null && pos < m.length()) return m;
+      // closed, or mapping failed before
+      if (!mmapReads) return null;
+
+      long size = channel.size();
+      if (pos >= size || (m != null && size - m.length() < Math.max(REMAP_MIN_GROWTH, m.length()))) {
+        return null;
+      }
+      try {
+        if (mapDirectory == null) {
+          mapDirectory = new MMapDirectory(tlogFile.getParentFile().toPath(), NoLockFactory.INSTANCE);
+        }
+        m = mapDirectory.openInput(tlogFile.getName(), IOContext.READ);
+      } catch (IOException e) {
+        log.warn("Could not map " + tlogFile + ", falling back to channel reads", e);
+        mmapReads = false;
+        return null;
+      }
+      mappings.add(m);
+      mapped = m;
+      return m;
+    }
+  }
+
+  /**
+   * Unmaps all mappings of the log, like closing an input of an {@link MMapDirectory} does, rather than leaving
+   * them to the garbage collector. Must be called with the write lock of mapLock held, so no reader is using them.
+   */
+  private void unmap() throws IOException {
+    synchronized (remapLock) {
+      mapped = null;
+      try {
+        IOUtils.close(mappings);
+      } finally {
+        mappings.clear();
+      }
+    }
+  }
+
+  private void checkRecordSize(long pos, int recordedSize, long readSize) throws IOException {
+    if (recordedSize != readSize) {
+      throw new IOException("Corrupt record in " + tlogFile + " at position " + pos + ": record size is " + recordedSize
+          + " but read " + readSize + " bytes");
     }
   }
 
@@ -590,6 +795,15 @@ public class TransactionLog implements Closeable {
         fos.close();
       }
 
+      Lock writeLock = mapLock.writeLock();
+      writeLock.lock();
+      try {
+        mmapReads = false;
+        unmap();
+      } finally {
+        writeLock.unlock();
+      }
+
       if (deleteOnClose) {
         try {
           Files.deleteIfExists(tlogFile.toPath());
@@ -643,7 +857,7 @@ public class TransactionLog implements Closeable {
 
     public LogReader(long startingPos) {
       incref();
-      fis = new ChannelFastInputStream(channel, startingPos);
+      fis = new ChannelFastInputStream(channel, startingPos, TransactionLog.this);
     }
 
     // for classes that extend
@@ -685,6 +899,9 @@ public class TransactionLog implements Closeable {
 
       // skip over record size
       int size = fis.readInt();
+      if (checkRecordSizes) {
+        checkRecordSize(pos, size, fis.position() - pos - 4);
+      }
       assert size == fis.position() - pos - 4;
 
       return o;
@@ -757,7 +974,7 @@ public class TransactionLog implements Closeable {
         assert sz == channel.size();
       }
 
-      fis = new ChannelFastInputStream(channel, 0);
+      fis = new ChannelFastInputStream(channel, 0, TransactionLog.this);
       if (sz >=4) {
         // readHeader(fis);  // should not be needed
         prevPos = sz - 4;
@@ -832,16 +1049,26 @@ public class TransactionLog implements Closeable {
 
 class ChannelFastInputStream extends FastInputStream {
   private FileChannel ch;
+  private TransactionLog mappedLog;  // if non-null, read from its mapping where possible
 
   public ChannelFastInputStream(FileChannel ch, long chPosition) {
+    this(ch, chPosition, null);
+  }
+
+  public ChannelFastInputStream(FileChannel ch, long chPosition, TransactionLog mappedLog) {
     // super(null, new byte[10],0,0);    // a small buffer size for testing purposes
     super(null);
     this.ch = ch;
+    this.mappedLog = mappedLog;
     super.readFromStream = chPosition;
   }
 
   @Override
   public int readWrappedStream(byte[] target, int offset, int len) throws IOException {
+    if (mappedLog != null) {
+      int n = mappedLog.readMapped(readFromStream, target, offset, len);
+      if (n >= 0) return n;
+    }
     ByteBuffer bb = ByteBuffer.wrap(target, offset, len);
     int ret = ch.read(bb, readFromStream);
     return ret;
@@ -27,6 +27,7 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -192,12 +193,16 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
   protected Map<BytesRef,LogPtr> prevMap2;  // used while committing/reopening is happening
   protected TransactionLog prevMapLog;  // the transaction log used to look up entries found in prevMap
   protected TransactionLog prevMapLog2;  // the transaction log used to look up entries found in prevMap2
+  protected TransactionLog carriedOverLog;  // the log the last switch to a new log carried updates over to
+  protected int numCarriedOver;  // number of records at the start of carriedOverLog that were carried over
 
   protected final int numDeletesToKeep = 1000;
   protected final int numDeletesByQueryToKeep = 100;
   protected int numRecordsToKeep;
   protected int maxNumLogsToKeep;
   protected int numVersionBuckets; // This should only be used to initialize VersionInfo... the actual number of buckets may be rounded up to a power of two.
+  protected boolean mmapReads = TransactionLog.DEFAULT_MMAP_READS;
+  protected boolean checkRecordSizes;
   protected Long maxVersionFromIndex = null;
 
   // keep track of deletes only... this is not updated on an add
@@ -317,6 +322,13 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     else return def;
   }
 
+  protected static boolean objToBoolean(Object obj, boolean def) {
+    if (obj != null) {
+      return Boolean.parseBoolean(obj.toString());
+    }
+    else return def;
+  }
+
   @Override
   public void init(PluginInfo info) {
     dataDir = (String)info.initArgs.get("dir");
@@ -328,9 +340,11 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     if (numVersionBuckets <= 0)
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
           "Number of version buckets must be greater than 0!");
+    mmapReads = objToBoolean(info.initArgs.get("mmapReads"), TransactionLog.DEFAULT_MMAP_READS);
+    checkRecordSizes = objToBoolean(info.initArgs.get("checkRecordSizes"), false);
 
-    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={}",
-        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets);
+    log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={} mmapReads={} checkRecordSizes={}",
+        dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets, mmapReads, checkRecordSizes);
   }
 
   /* Note, when this is called, uhandler is not completely constructed.
@@ -367,6 +381,7 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
       File f = new File(tlogDir, oldLogName);
       try {
         oldLog = newTransactionLog(f, null, true);
+        configureReads(oldLog);
         addOldLog(oldLog, false);  // don't remove old logs on startup since more than one may be uncapped.
       } catch (Exception e) {
         SolrException.log(log, "Failure to open existing log file (non fatal) " + f, e);
@@ -1097,14 +1112,203 @@ public class UpdateLog implements PluginInfoInitialized, SolrMetricProducer {
     return cs.submit(replayer, recoveryInfo);
   }
 
+  /**
+   * Replays the current transaction log into the index.  This is used when a replica that only logged its updates,
+   * and copied its index from the leader, becomes the leader itself: the current log holds exactly the updates the
+   * last copied index is missing (see {@link #commitAndSwitchToNewTlog(CommitUpdateCommand)}).  If no update was
+   * logged since startup, the incomplete logs found on startup are replayed instead.
+   *
+   * @return the Future to wait on, or null if no replay was needed
+   */
+  public Future<RecoveryInfo> recoverFromCurrentLog() {
+    TransactionLog currLog;
+    versionInfo.blockUpdates();
+    try {
+      synchronized (this) {
+        currLog = tlog;
+        if (currLog == null) {
+          // nothing logged since startup
+          return recoverFromLog();
+        }
+        currLog.incref();
+
+        recoveryInfo = new RecoveryInfo();
+        state = State.REPLAYING;
+
+        // the logged updates never made it to the index, so forget about them; otherwise the version checks
+        // in the update processor would drop them as duplicates of themselves.
+        map.clear();
+        clearOldMaps();
+        deleteByQueries.clear();
+        oldDeletes.clear();
+        maxVersionFromIndex = null;
+        getMaxVersionFromIndex();
+      }
+    } finally {
+      versionInfo.unblockUpdates();
+    }
+
+    if (recoveryExecutor.isShutdown()) {
+      currLog.decref();
+      throw new RuntimeException("executor is not running...");
+    }
+    ExecutorCompletionService<RecoveryInfo> cs = new ExecutorCompletionService<>(recoveryExecutor);
+    LogReplayer replayer = new LogReplayer(Collections.singletonList(currLog), false);
+    return cs.submit(replayer, recoveryInfo);
+  }
+
+  /**
+   * Closes off the current transaction log like a hard commit does, after the index of this core has been replaced
+   * by a copy of the leader's index.  Updates of the closed log that the copied index does not contain yet are
+   * carried over to the new log, so that the current log always holds what a replay would have to apply on top of
+   * the index.  Does nothing if the log is not {@link State#ACTIVE}.
+   */
+  public void commitAndSwitchToNewTlog(CommitUpdateCommand cmd) {
+    versionInfo.blockUpdates();
+    try {
+      synchronized (this) {
+        if (tlog == null || state != State.ACTIVE) return;
+
+        // the version lookups below have to see the copied index
+        openRealtimeSearcher();
+        preCommit(cmd);
+        try {
+          copyOverUncommittedUpdates(prevTlog);
+        } finally {
+          postCommit(cmd);
+        }
+      }
+    } finally {
+      versionInfo.unblockUpdates();
+    }
+  }
+
+  /**
+   * Re-logs the updates of the given log that are newer than anything in the index, or that target a document
+   * the index only has in an older version.  Versions are not ordered with commits across buckets, so the copied
+   * index may also miss an older update of a document it does not have at all.  Such updates are carried over
+   * once: the index copied next is a commit the leader started after it had applied them, so a document that is
+   * still missing then has been deleted, and re-logging it would only grow every following log.  Must be called
+   * while updates are blocked.
+   */
+  private void copyOverUncommittedUpdates(TransactionLog oldLog) {
+    int numCarriedBefore = oldLog == carriedOverLog ? numCarriedOver : 0;
+    carriedOverLog = null;
+    numCarriedOver = 0;
+    if (oldLog == null) return;
+
+    long maxVersionInIndex;
+    RefCounted<SolrIndexSearcher> holder = uhandler.core.getRealtimeSearcher();
+    try {
+      maxVersionInIndex = versionInfo.getMaxVersionFromIndex(holder.get());
+    } catch (IOException e) {
+      log.warn("Could not read the max version from the index, carrying over all updates", e);
+      maxVersionInIndex = 0L;
+    } finally {
+      holder.decref();
+    }
+
+    SolrQueryRequest req = new LocalSolrQueryRequest(uhandler.core, new ModifiableSolrParams());
+    TransactionLog.LogReader logReader = oldLog.getReader(0);
+    int copied = 0;
+    int read = 0;
+    Object o = null;
+    try {
+      while ((o = logReader.next()) != null) {
+        boolean carriedBefore = read++ < numCarriedBefore;
+        try {
+          List entry = (List) o;
+          int oper = (Integer) entry.get(FLAGS_IDX) & OPERATION_MASK;
+          long version = (Long) entry.get(VERSION_IDX);
+          boolean newer = Math.abs(version) > maxVersionInIndex;
+
+          switch (oper) {
+            case UPDATE_INPLACE:
+            case ADD: {
+              AddUpdateCommand cmd = convertTlogEntryToAddUpdateCommand(req, entry, oper, version);
+              if (newer || isMissedByIndex(cmd.getIndexedId(), version, carriedBefore)) {
+                add(cmd);
+                copied++;
+              }
+              break;
+            }
+            case DELETE: {
+              BytesRef idBytes = new BytesRef((byte[]) entry.get(2));
+              if (newer || isMissedByIndex(idBytes, -version, carriedBefore)) {
+                DeleteUpdateCommand cmd = new DeleteUpdateCommand(req);
+                cmd.setIndexedId(idBytes);
+                cmd.setVersion(version);
+                delete(cmd);
+                copied++;
+              }
+              break;
+            }
+            case DELETE_BY_QUERY: {
+              if (newer) {
+                DeleteUpdateCommand cmd = new DeleteUpdateCommand(req);
+                cmd.query = (String) entry.get(2);
+                cmd.setVersion(version);
+                deleteByQuery(cmd);
+                copied++;
+              }
+              break;
+            }
+            case COMMIT:
+              break;
+            default:
+              throw new SolrException(ErrorCode.SERVER_ERROR, "Unknown Operation! " + oper);
+          }
+        } catch (ClassCastException e) {
+          log.warn("Unexpected log entry or corrupt log.  Entry=" + o, e);
+        }
+      }
+    } catch (IOException e) {
+      log.error("Exception reading log " + oldLog, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Interrupted while reading log " + oldLog, e);
+    } finally {
+      logReader.close();
+      req.close();
+    }
+
+    if (copied > 0) {
+      carriedOverLog = tlog;
+      numCarriedOver = copied;
+    }
+
+    if (debug) {
+      log.debug("TLOG: carried over {} updates from {} to {}", copied, oldLog, tlog);
+    }
+  }
+
+  /**
+   * Returns true if the index holds the document in an older version than the given one, or does not hold it at
+   * all and the update was not carried over before.
+   */
+  private boolean isMissedByIndex(BytesRef indexedId, long version, boolean carriedBefore) {
+    Long indexVersion = versionInfo.getVersionFromIndex(indexedId);
+    if (indexVersion == null) {
+      return !carriedBefore;
+    }
+    return Math.abs(indexVersion) < version;
+  }
+
 
   protected void ensureLog() {
     if (tlog == null) {
       String newLogName = String.format(Locale.ROOT, LOG_FILENAME_PATTERN, TLOG_NAME, id);
       tlog = newTransactionLog(new File(tlogDir, newLogName), globalStrings, false);
+      configureReads(tlog);
     }
   }
 
+  /** Applies the configured read options to a newly opened log */
+  protected void configureReads(TransactionLog log) {
+    log.setMmapReads(mmapReads);
+    log.setCheckRecordSizes(checkRecordSizes);
+  }
+
 
   private void doClose(TransactionLog theLog, boolean writeCommit) {
     if (theLog != null) {
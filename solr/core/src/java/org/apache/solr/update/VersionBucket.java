@@ -16,17 +16,45 @@
  */
 package org.apache.solr.update;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
 // TODO: make inner?
 // TODO: store the highest possible in the index on a commit (but how to not block adds?)
 // TODO: could also store highest possible in the transaction log after a commit.
 // Or on a new index, just scan "version" for the max?
-/** @lucene.internal */
+/**
+ * Updates of ids that hash to the same bucket synchronize on the bucket. The highest version
+ * is only ever raised, with a compare-and-set, so it can also be read and seeded without
+ * holding the bucket's monitor.
+ *
+ * @lucene.internal
+ */
 public class VersionBucket {
-  public long highest;
+  private static final AtomicLongFieldUpdater<VersionBucket> HIGHEST =
+      AtomicLongFieldUpdater.newUpdater(VersionBucket.class, "highest");
 
+  public volatile long highest;
+
+  /** Raises the highest version to the given version, unless the highest version is not known yet (0). */
   public void updateHighest(long val) {
-    if (highest != 0) {
-      highest = Math.max(highest, Math.abs(val));
-    }
+    long version = Math.abs(val);
+    long current;
+    do {
+      current = highest;
+      if (current == 0 || current >= version) {
+        return;
+      }
+    } while (!HIGHEST.compareAndSet(this, current, version));
+  }
+
+  /** Raises the highest version to the given version, also if it is not known yet. */
+  public void seedHighest(long val) {
+    long current;
+    do {
+      current = highest;
+      if (current >= val) {
+        return;
+      }
+    } while (!HIGHEST.compareAndSet(this, current, val));
   }
 }
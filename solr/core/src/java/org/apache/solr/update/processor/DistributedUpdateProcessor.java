@@ -976,14 +976,28 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
  
   // must be synchronized by bucket
   private void doLocalAdd(AddUpdateCommand cmd) throws IOException {
+    if (isFollowingLeader()) {
+      cmd.setFlags(cmd.getFlags() | UpdateCommand.IGNORE_INDEXWRITER);
+    }
     super.processAdd(cmd);
   }
 
   // must be synchronized by bucket
   private void doLocalDelete(DeleteUpdateCommand cmd) throws IOException {
+    if (isFollowingLeader()) {
+      cmd.setFlags(cmd.getFlags() | UpdateCommand.IGNORE_INDEXWRITER);
+    }
     super.processDelete(cmd);
   }
 
+  /**
+   * Returns true if this core only logs updates, and copies its index from the leader of its shard.
+   * See {@link org.apache.solr.common.cloud.DocCollection#getOnlyLeaderIndexes()}.
+   */
+  private boolean isFollowingLeader() {
+    return zkEnabled && zkController.isFollowingLeader(req.getCore().getName());
+  }
+
   /**
    * @return whether or not to drop this cmd
    * @throws IOException If there is a low-level I/O error.
@@ -1890,7 +1904,9 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
     }
     try {
 
-      if (ulog == null || ulog.getState() == UpdateLog.State.ACTIVE || (cmd.getFlags() & UpdateCommand.REPLAY) != 0) {
+      if (isFollowingLeader()) {
+        log.debug("Ignoring commit, the index is copied from the leader");
+      } else if (ulog == null || ulog.getState() == UpdateLog.State.ACTIVE || (cmd.getFlags() & UpdateCommand.REPLAY) != 0) {
         super.processCommit(cmd);
       } else {
         log.info("Ignoring commit while not ACTIVE - state: " + ulog.getState() + " replay: " + ((cmd.getFlags() & UpdateCommand.REPLAY) != 0));
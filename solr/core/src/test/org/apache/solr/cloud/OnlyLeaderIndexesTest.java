@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.client.solrj.embedded.JettySolrRunner;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
+import org.apache.solr.util.TimeOut;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class OnlyLeaderIndexesTest extends SolrCloudTestCase {
+
+  private static final String COLLECTION = "collection1";
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    System.setProperty("solr.directoryFactory", "solr.StandardDirectoryFactory");
+    System.setProperty("solr.ulog.numRecordsToKeep", "1000");
+
+    configureCluster(3)
+        .addConfig("config", TEST_PATH().resolve("configsets").resolve("cloud-minimal").resolve("conf"))
+        .configure();
+
+    CollectionAdminRequest
+        .createCollection(COLLECTION, "config", 1, 3)
+        .setOnlyLeaderIndexes(true)
+        .process(cluster.getSolrClient());
+    AbstractDistribZkTestBase.waitForRecoveriesToFinish(COLLECTION, cluster.getSolrClient().getZkStateReader(),
+        false, true, 30);
+  }
+
+  @Test
+  public void test() throws Exception {
+    CloudSolrClient cloudClient = cluster.getSolrClient();
+    assertTrue(getCollectionState(COLLECTION).getOnlyLeaderIndexes());
+
+    Replica leader = getCollectionState(COLLECTION).getSlice("shard1").getLeader();
+    for (Replica replica : getCollectionState(COLLECTION).getReplicas()) {
+      JettySolrRunner jetty = getReplicaJetty(replica);
+      assertEquals(!replica.getName().equals(leader.getName()),
+          jetty.getCoreContainer().getZkController().isFollowingLeader(replica.getCoreName()));
+    }
+
+    for (int i = 0; i < 10; i++) {
+      cloudClient.add(COLLECTION, sdoc("id", String.valueOf(i)));
+    }
+    cloudClient.commit(COLLECTION);
+    assertNumDocsOnAllReplicas(10);
+
+    cloudClient.deleteById(COLLECTION, "0");
+    cloudClient.deleteByQuery(COLLECTION, "id:1");
+    cloudClient.commit(COLLECTION);
+    assertNumDocsOnAllReplicas(8);
+
+    // not committed on the leader, so the followers only have these in their logs
+    for (int i = 10; i < 15; i++) {
+      cloudClient.add(COLLECTION, sdoc("id", String.valueOf(i)));
+    }
+    cloudClient.deleteById(COLLECTION, "2");
+
+    JettySolrRunner oldLeaderJetty = getReplicaJetty(leader);
+    ChaosMonkey.stop(oldLeaderJetty);
+    waitForState("No new leader was elected", COLLECTION, (liveNodes, collectionState) -> {
+      Replica newLeader = collectionState.getSlice("shard1").getLeader();
+      return newLeader != null && !newLeader.getName().equals(leader.getName())
+          && newLeader.isActive(liveNodes);
+    });
+
+    Replica newLeader = getCollectionState(COLLECTION).getSlice("shard1").getLeader();
+    assertFalse(getReplicaJetty(newLeader).getCoreContainer().getZkController()
+        .isFollowingLeader(newLeader.getCoreName()));
+
+    cloudClient.commit(COLLECTION);
+    // the new leader replayed its log; the remaining follower catches up with its next copy
+    assertNumDocsOnAllReplicas(12);
+
+    ChaosMonkey.start(oldLeaderJetty);
+    waitForState("Old leader did not come back", COLLECTION, clusterShape(1, 3));
+    cloudClient.add(COLLECTION, sdoc("id", "15"));
+    cloudClient.commit(COLLECTION);
+    assertNumDocsOnAllReplicas(13);
+  }
+
+  @Test
+  public void testUncommittedAddOlderThanCopiedCommit() throws Exception {
+    final String collection = "collection2";
+    CloudSolrClient cloudClient = cluster.getSolrClient();
+    CollectionAdminRequest
+        .createCollection(collection, "config", 1, 2)
+        .setOnlyLeaderIndexes(true)
+        .process(cloudClient);
+    AbstractDistribZkTestBase.waitForRecoveriesToFinish(collection, cloudClient.getZkStateReader(),
+        false, true, 30);
+
+    cloudClient.add(collection, sdoc("id", "1"));
+    cloudClient.commit(collection);
+    long version = (Long) cloudClient.getById(collection, "1").getFieldValue("_version_");
+
+    Replica leader = getCollectionState(collection).getSlice("shard1").getLeader();
+    Replica follower = null;
+    for (Replica replica : getCollectionState(collection).getReplicas()) {
+      if (!replica.getName().equals(leader.getName())) {
+        follower = replica;
+      }
+    }
+    assertNotNull(follower);
+    JettySolrRunner followerJetty = getReplicaJetty(follower);
+
+    // an add the leader sent before committing a higher version, but that did not make it into that commit
+    UpdateRequest ur = new UpdateRequest();
+    ur.add(sdoc("id", "2", "_version_", version + 1));
+    ur.setParam("update.distrib", "FROMLEADER");
+    ur.setParam("distrib.from", leader.getCoreUrl());
+    try (HttpSolrClient followerClient = getHttpSolrClient(follower.getCoreUrl())) {
+      ur.process(followerClient);
+    }
+
+    cloudClient.add(collection, sdoc("id", "3"));
+    cloudClient.commit(collection);
+    assertTrue((Long) cloudClient.getById(collection, "3").getFieldValue("_version_") > version + 1);
+    assertNumDocs(collection, follower, 2);
+    // waits for the tlog switch that follows the copy
+    followerJetty.getCoreContainer().getZkController().stopReplicationFromLeader(follower.getCoreName());
+
+    JettySolrRunner leaderJetty = getReplicaJetty(leader);
+    ChaosMonkey.stop(leaderJetty);
+    final String followerName = follower.getName();
+    waitForState("The follower was not elected", collection, (liveNodes, collectionState) -> {
+      Replica newLeader = collectionState.getSlice("shard1").getLeader();
+      return newLeader != null && newLeader.getName().equals(followerName) && newLeader.isActive(liveNodes);
+    });
+
+    cloudClient.commit(collection);
+    assertEquals(3, cloudClient.query(collection, params("q", "*:*")).getResults().getNumFound());
+    assertNotNull(cloudClient.getById(collection, "2"));
+
+    ChaosMonkey.start(leaderJetty);
+    waitForState("Old leader did not come back", collection, clusterShape(1, 2));
+    waitForState("collection1 did not recover", COLLECTION, clusterShape(1, 3));
+    CollectionAdminRequest.deleteCollection(collection).process(cloudClient);
+  }
+
+  private void assertNumDocsOnAllReplicas(int numDocs) throws Exception {
+    DocCollection docCollection = getCollectionState(COLLECTION);
+    for (Replica replica : docCollection.getReplicas()) {
+      if (!replica.isActive(cluster.getSolrClient().getZkStateReader().getClusterState().getLiveNodes())) {
+        continue;
+      }
+      assertNumDocs(COLLECTION, replica, numDocs);
+    }
+  }
+
+  /** Like {@link MiniSolrCloudCluster#getReplicaJetty}, but skips stopped jettys, which have no url. */
+  private JettySolrRunner getReplicaJetty(Replica replica) {
+    for (JettySolrRunner jetty : cluster.getJettySolrRunners()) {
+      if (jetty.isRunning() && replica.getNodeName().equals(jetty.getNodeName())) {
+        return jetty;
+      }
+    }
+    throw new IllegalArgumentException("No running jetty for replica " + replica.getName() + " on " + replica.getNodeName());
+  }
+
+  private void assertNumDocs(String collection, Replica replica, int numDocs) throws Exception {
+    JettySolrRunner jetty = getReplicaJetty(replica);
+    TimeOut timeOut = new TimeOut(30, TimeUnit.SECONDS);
+    long found = -1;
+    while (!timeOut.hasTimedOut()) {
+      try (SolrCore core = jetty.getCoreContainer().getCore(replica.getCoreName())) {
+        RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+        try {
+          found = searcher.get().getIndexReader().numDocs();
+        } finally {
+          searcher.decref();
+        }
+      }
+      if (found == numDocs) break;
+      Thread.sleep(100);
+    }
+    assertEquals("Wrong number of docs in " + collection + " on " + replica.getName(), numDocs, found);
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.solr.cloud.ZkTestServer;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.DocRouter;
+import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkStateReader;
 import org.apache.solr.common.util.Utils;
@@ -228,4 +229,53 @@ public class ZkStateReaderTest extends SolrTestCaseJ4 {
 
     }
   }
+
+  public void testWatchedReplicaStatesAreApplied() throws Exception {
+    String zkDir = createTempDir("testWatchedReplicaStatesAreApplied").toFile().getAbsolutePath();
+
+    ZkTestServer server = new ZkTestServer(zkDir);
+
+    SolrZkClient zkClient = null;
+    ZkStateReader reader = null;
+
+    try {
+      server.run();
+      AbstractZkTestCase.tryCleanSolrZkNode(server.getZkHost());
+      AbstractZkTestCase.makeSolrZkNode(server.getZkHost());
+
+      zkClient = new SolrZkClient(server.getZkAddress(), OverseerTest.DEFAULT_CONNECTION_TIMEOUT);
+      ZkController.createClusterZkNodes(zkClient);
+
+      reader = new ZkStateReader(zkClient);
+      reader.createClusterStateWatchersAndUpdate();
+      reader.registerCore("c1");
+
+      ZkStateWriter writer = new ZkStateWriter(reader, new Overseer.Stats());
+
+      zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/c1", true);
+
+      ClusterState state = writer.enqueueUpdate(reader.getClusterState(), new ZkWriteCommand("c1",
+          ZkStateWriterTest.collectionWithReplicaStates("c1", "1", 0, Replica.State.DOWN, Replica.State.DOWN)), null);
+      state = writer.writePendingUpdates();
+      int version = state.getCollection("c1").getZNodeVersion();
+      reader.waitForState("c1", TIMEOUT, TimeUnit.SECONDS, (n, c) -> c != null);
+
+      // the watched state follows replica state changes, while state.json is not read again
+      for (Replica.State replicaState : new Replica.State[] {Replica.State.RECOVERING, Replica.State.ACTIVE}) {
+        state = writer.enqueueUpdate(state, new ZkWriteCommand("c1",
+            ZkStateWriterTest.collectionWithReplicaStates("c1", "1", version, Replica.State.DOWN, replicaState)), null);
+        state = writer.writePendingUpdates();
+        reader.waitForState("c1", TIMEOUT, TimeUnit.SECONDS,
+            (n, c) -> c != null && c.getReplica("core_node2").getState() == replicaState);
+
+        DocCollection collection = reader.getClusterState().getCollection("c1");
+        assertFalse(reader.getClusterState().getCollectionRef("c1").isLazilyLoaded());
+        assertEquals(version, collection.getZNodeVersion());
+        assertEquals(Replica.State.DOWN, collection.getReplica("core_node1").getState());
+      }
+    } finally {
+      IOUtils.close(reader, zkClient);
+      server.shutdown();
+    }
+  }
 }
@@ -18,7 +18,10 @@ package org.apache.solr.cloud.overseer;
 
 import java.lang.invoke.MethodHandles;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.util.IOUtils;
 import org.apache.solr.SolrTestCaseJ4;
@@ -30,10 +33,14 @@ import org.apache.solr.cloud.ZkTestServer;
 import org.apache.solr.common.cloud.ClusterState;
 import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.DocRouter;
+import org.apache.solr.common.cloud.PerReplicaStates;
+import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.cloud.SolrZkClient;
 import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.Utils;
+import org.apache.solr.util.DefaultSolrThreadFactory;
 import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -371,4 +378,230 @@ public class ZkStateWriterTest extends SolrTestCaseJ4 {
       server.shutdown();
     }
   }
+
+  public void testConcurrentWrites() throws Exception {
+    String zkDir = createTempDir("testConcurrentWrites").toFile().getAbsolutePath();
+
+    ZkTestServer server = new ZkTestServer(zkDir);
+
+    SolrZkClient zkClient = null;
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(3, new DefaultSolrThreadFactory("testConcurrentWrites"));
+
+    try {
+      server.run();
+      AbstractZkTestCase.tryCleanSolrZkNode(server.getZkHost());
+      AbstractZkTestCase.makeSolrZkNode(server.getZkHost());
+
+      zkClient = new SolrZkClient(server.getZkAddress(), OverseerTest.DEFAULT_CONNECTION_TIMEOUT);
+      ZkController.createClusterZkNodes(zkClient);
+
+      try (ZkStateReader reader = new ZkStateReader(zkClient)) {
+        reader.createClusterStateWatchersAndUpdate();
+
+        ZkStateWriter writer = new ZkStateWriter(reader, new Overseer.Stats(), executor);
+
+        int numCollections = 5;
+        ZkWriteCommand[] commands = new ZkWriteCommand[numCollections];
+        for (int i = 0; i < numCollections; i++) {
+          String name = "c" + i;
+          zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/" + name, true);
+          commands[i] = new ZkWriteCommand(name,
+              new DocCollection(name, new HashMap<String, Slice>(), new HashMap<String, Object>(), DocRouter.DEFAULT, 0, ZkStateReader.getCollectionPath(name)));
+        }
+
+        // the first write is flushed immediately, the others are batched and written together
+        ClusterState state = reader.getClusterState();
+        for (ZkWriteCommand cmd : commands) {
+          state = writer.enqueueUpdate(state, cmd, null);
+        }
+        state = writer.writePendingUpdates();
+        assertFalse(writer.hasPendingUpdates());
+
+        for (int i = 0; i < numCollections; i++) {
+          String path = ZkStateReader.getCollectionPath("c" + i);
+          Map map = (Map) Utils.fromJSON(zkClient.getData(path, null, null, true));
+          assertNotNull(map.get("c" + i));
+          assertEquals(zkClient.exists(path, null, true).getVersion(), state.getCollection("c" + i).getZNodeVersion());
+        }
+
+        // update all collections again, with the versions they were written with
+        for (int i = 0; i < numCollections; i++) {
+          state = writer.enqueueUpdate(state, new ZkWriteCommand("c" + i, state.getCollection("c" + i)), null);
+        }
+        state = writer.writePendingUpdates();
+        for (int i = 0; i < numCollections; i++) {
+          assertEquals(zkClient.exists(ZkStateReader.getCollectionPath("c" + i), null, true).getVersion(),
+              state.getCollection("c" + i).getZNodeVersion());
+        }
+
+        // Simulate an external modification to one of the collections
+        String path = ZkStateReader.getCollectionPath("c2");
+        zkClient.setData(path, zkClient.getData(path, null, null, true), true);
+
+        try {
+          for (int i = 0; i < numCollections; i++) {
+            state = writer.enqueueUpdate(state, new ZkWriteCommand("c" + i, state.getCollection("c" + i)), null);
+          }
+          writer.writePendingUpdates();
+          fail("writePendingUpdates should not have succeeded");
+        } catch (KeeperException.BadVersionException bve) {
+          // expected
+        }
+
+        try {
+          writer.writePendingUpdates();
+          fail("writePendingUpdates after BadVersionException should not have succeeded");
+        } catch (IllegalStateException e) {
+          // expected
+        }
+      }
+    } finally {
+      IOUtils.close(zkClient);
+      server.shutdown();
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
+  public void testUnchangedCollectionIsNotWritten() throws Exception {
+    String zkDir = createTempDir("testUnchangedCollectionIsNotWritten").toFile().getAbsolutePath();
+
+    ZkTestServer server = new ZkTestServer(zkDir);
+
+    SolrZkClient zkClient = null;
+
+    try {
+      server.run();
+      AbstractZkTestCase.tryCleanSolrZkNode(server.getZkHost());
+      AbstractZkTestCase.makeSolrZkNode(server.getZkHost());
+
+      zkClient = new SolrZkClient(server.getZkAddress(), OverseerTest.DEFAULT_CONNECTION_TIMEOUT);
+      ZkController.createClusterZkNodes(zkClient);
+
+      try (ZkStateReader reader = new ZkStateReader(zkClient)) {
+        reader.createClusterStateWatchersAndUpdate();
+
+        ZkStateWriter writer = new ZkStateWriter(reader, new Overseer.Stats());
+
+        zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/c1", true);
+        String path = ZkStateReader.getCollectionPath("c1");
+
+        // the first write is flushed immediately
+        ClusterState state = writer.enqueueUpdate(reader.getClusterState(), new ZkWriteCommand("c1", collectionWithProp("c1", "1", 0)), null);
+        assertFalse(writer.hasPendingUpdates());
+        int version = zkClient.exists(path, null, true).getVersion();
+        assertEquals(version, state.getCollection("c1").getZNodeVersion());
+
+        // a change that is reverted before the flush is not written
+        state = writer.enqueueUpdate(state, new ZkWriteCommand("c1", collectionWithProp("c1", "2", version)), null);
+        state = writer.enqueueUpdate(state, new ZkWriteCommand("c1", collectionWithProp("c1", "1", version)), null);
+        assertTrue(writer.hasPendingUpdates());
+        state = writer.writePendingUpdates();
+        assertEquals(version, zkClient.exists(path, null, true).getVersion());
+        assertEquals(version, state.getCollection("c1").getZNodeVersion());
+
+        // a change that remains is written
+        state = writer.enqueueUpdate(state, new ZkWriteCommand("c1", collectionWithProp("c1", "1", version)), null);
+        state = writer.enqueueUpdate(state, new ZkWriteCommand("c1", collectionWithProp("c1", "2", version)), null);
+        state = writer.writePendingUpdates();
+        assertEquals(version + 1, zkClient.exists(path, null, true).getVersion());
+        assertEquals(version + 1, state.getCollection("c1").getZNodeVersion());
+        Map map = (Map) Utils.fromJSON(zkClient.getData(path, null, null, true));
+        assertEquals("2", ((Map) map.get("c1")).get("prop"));
+      }
+    } finally {
+      IOUtils.close(zkClient);
+      server.shutdown();
+    }
+  }
+
+  public void testReplicaStateChangeOnlyWritesReplicaStates() throws Exception {
+    String zkDir = createTempDir("testReplicaStateChangeOnlyWritesReplicaStates").toFile().getAbsolutePath();
+
+    ZkTestServer server = new ZkTestServer(zkDir);
+
+    SolrZkClient zkClient = null;
+
+    try {
+      server.run();
+      AbstractZkTestCase.tryCleanSolrZkNode(server.getZkHost());
+      AbstractZkTestCase.makeSolrZkNode(server.getZkHost());
+
+      zkClient = new SolrZkClient(server.getZkAddress(), OverseerTest.DEFAULT_CONNECTION_TIMEOUT);
+      ZkController.createClusterZkNodes(zkClient);
+
+      try (ZkStateReader reader = new ZkStateReader(zkClient)) {
+        reader.createClusterStateWatchersAndUpdate();
+
+        ZkStateWriter writer = new ZkStateWriter(reader, new Overseer.Stats());
+
+        zkClient.makePath(ZkStateReader.COLLECTIONS_ZKNODE + "/c1", true);
+        String path = ZkStateReader.getCollectionPath("c1");
+        String statesPath = PerReplicaStates.getPath("c1");
+
+        // creating the collection writes the state.json and a state for each replica
+        ClusterState state = writer.enqueueUpdate(reader.getClusterState(),
+            new ZkWriteCommand("c1", collectionWithReplicaStates("c1", "1", 0, Replica.State.ACTIVE, Replica.State.ACTIVE)), null);
+        state = writer.writePendingUpdates();
+        int version = zkClient.exists(path, null, true).getVersion();
+        assertEquals(version, state.getCollection("c1").getZNodeVersion());
+        assertEquals(2, zkClient.getChildren(statesPath, null, true).size());
+
+        // a replica going down only replaces its own state
+        for (int i = 1; i <= 3; i++) {
+          Replica.State flapped = i % 2 == 1 ? Replica.State.DOWN : Replica.State.ACTIVE;
+          state = writer.enqueueUpdate(state,
+              new ZkWriteCommand("c1", collectionWithReplicaStates("c1", "1", version, Replica.State.ACTIVE, flapped)), null);
+          state = writer.writePendingUpdates();
+          assertEquals(version, zkClient.exists(path, null, true).getVersion());
+          assertEquals(version, state.getCollection("c1").getZNodeVersion());
+
+          List<String> children = zkClient.getChildren(statesPath, null, true);
+          assertEquals(children.toString(), 2, children.size());
+          assertTrue(children.toString(), children.contains("core_node2:" + flapped + ":" + i));
+          DocCollection live = ZkStateReader.getCollectionLive(reader, "c1");
+          assertEquals(version, live.getZNodeVersion());
+          assertEquals(Replica.State.ACTIVE, live.getReplica("core_node1").getState());
+          assertEquals(flapped, live.getReplica("core_node2").getState());
+        }
+
+        // any other change still rewrites the state.json
+        state = writer.enqueueUpdate(state,
+            new ZkWriteCommand("c1", collectionWithReplicaStates("c1", "2", version, Replica.State.ACTIVE, Replica.State.DOWN)), null);
+        state = writer.writePendingUpdates();
+        assertEquals(version + 1, zkClient.exists(path, null, true).getVersion());
+        DocCollection live = ZkStateReader.getCollectionLive(reader, "c1");
+        assertEquals("2", live.getStr("prop"));
+        assertEquals(Replica.State.DOWN, live.getReplica("core_node2").getState());
+      }
+    } finally {
+      IOUtils.close(zkClient);
+      server.shutdown();
+    }
+  }
+
+  /**
+   * @return a collection with per-replica states and one shard, which has a replica in each of the given states
+   */
+  static DocCollection collectionWithReplicaStates(String name, String prop, int version, Replica.State... states) {
+    Map<String, Replica> replicas = new LinkedHashMap<>();
+    for (int i = 0; i < states.length; i++) {
+      Map<String, Object> replicaProps = new HashMap<>();
+      replicaProps.put(ZkStateReader.NODE_NAME_PROP, "node" + (i + 1));
+      replicaProps.put(ZkStateReader.CORE_NAME_PROP, name + "_shard1_replica" + (i + 1));
+      replicaProps.put(ZkStateReader.STATE_PROP, states[i].toString());
+      replicas.put("core_node" + (i + 1), new Replica("core_node" + (i + 1), replicaProps));
+    }
+    Map<String, Slice> slices = new HashMap<>();
+    slices.put("shard1", new Slice("shard1", replicas, null));
+    Map<String, Object> props = new HashMap<>();
+    props.put("prop", prop);
+    props.put(ZkStateReader.PER_REPLICA_STATE, "true");
+    return new DocCollection(name, slices, props, DocRouter.DEFAULT, version, ZkStateReader.getCollectionPath(name));
+  }
+
+  private static DocCollection collectionWithProp(String name, String prop, int version) {
+    Map<String, Object> props = new HashMap<>();
+    props.put("prop", prop);
+    return new DocCollection(name, new HashMap<String, Slice>(), props, DocRouter.DEFAULT, version, ZkStateReader.getCollectionPath(name));
+  }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.junit.Test;
+
+/**
+ * Tests how {@link HttpShardHandler} hands out the responses of its requests, with requests that are
+ * completed by the test instead of being sent.
+ */
+public class TestHttpShardHandler extends SolrTestCaseJ4 {
+
+  private static class TestShardHandler extends HttpShardHandler {
+    final Map<String,CompletableFuture<ShardResponse>> requests = new HashMap<>();
+
+    TestShardHandler() {
+      super(new HttpShardHandlerFactory(), null);
+    }
+
+    @Override
+    protected CompletableFuture<ShardResponse> sendRequest(ShardRequest sreq, String shard,
+                                                           ModifiableSolrParams params, List<String> urls) {
+      CompletableFuture<ShardResponse> future = new CompletableFuture<>();
+      requests.put(shard, future);
+      return future;
+    }
+
+    void respond(ShardRequest sreq, String shard, Exception e) {
+      ShardResponse rsp = new ShardResponse();
+      rsp.setShardRequest(sreq);
+      rsp.setShard(shard);
+      if (e != null) {
+        rsp.setException(e);
+        rsp.setResponseCode(500);
+      }
+      requests.get(shard).complete(rsp);
+    }
+  }
+
+  private static ShardRequest submit(TestShardHandler handler, String... shards) {
+    ShardRequest sreq = new ShardRequest();
+    sreq.actualShards = shards;
+    for (String shard : shards) {
+      handler.submit(sreq, shard, new ModifiableSolrParams());
+    }
+    return sreq;
+  }
+
+  @Test
+  public void testTakeCompleted() throws Exception {
+    TestShardHandler handler = new TestShardHandler();
+    ShardRequest sreq = submit(handler, "a:8983/solr", "b:8983/solr");
+    handler.respond(sreq, "b:8983/solr", null);
+    handler.respond(sreq, "a:8983/solr", null);
+    ShardResponse rsp = handler.takeCompletedOrError();
+    assertSame(sreq, rsp.getShardRequest());
+    assertEquals(2, sreq.responses.size());
+    assertEquals("b:8983/solr", sreq.responses.get(0).getShard());
+    assertNull(handler.takeCompletedOrError());
+  }
+
+  @Test
+  public void testTakeError() throws Exception {
+    TestShardHandler handler = new TestShardHandler();
+    ShardRequest sreq = submit(handler, "a:8983/solr", "b:8983/solr");
+    handler.respond(sreq, "a:8983/solr", new SolrException(SolrException.ErrorCode.SERVER_ERROR, "boom"));
+    ShardResponse rsp = handler.takeCompletedOrError();
+    assertEquals("a:8983/solr", rsp.getShard());
+    assertNotNull(rsp.getException());
+
+    // the failed response was not added to the request, so it never completes
+    handler.respond(sreq, "b:8983/solr", null);
+    assertNull(handler.takeCompletedIncludingErrors());
+    assertEquals(1, sreq.responses.size());
+    assertEquals("b:8983/solr", sreq.responses.get(0).getShard());
+  }
+
+  @Test
+  public void testCancelAll() throws Exception {
+    TestShardHandler handler = new TestShardHandler();
+    ShardRequest sreq = submit(handler, "a:8983/solr", "b:8983/solr");
+    handler.respond(sreq, "a:8983/solr", null);
+    handler.cancelAll();
+    assertTrue(handler.requests.get("b:8983/solr").isCancelled());
+    // as with the executor's futures before, taking a cancelled request fails instead of waiting for it
+    expectThrows(CancellationException.class, handler::takeCompletedIncludingErrors);
+    assertEquals(1, sreq.responses.size());
+    assertEquals("a:8983/solr", sreq.responses.get(0).getShard());
+  }
+
+  @Test
+  public void testUnexpectedException() throws Exception {
+    TestShardHandler handler = new TestShardHandler();
+    submit(handler, "a:8983/solr");
+    handler.requests.get("a:8983/solr").completeExceptionally(new IllegalStateException("bug"));
+    SolrException e = expectThrows(SolrException.class, handler::takeCompletedIncludingErrors);
+    assertEquals(SolrException.ErrorCode.SERVER_ERROR.code, e.code());
+    assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+  }
+}
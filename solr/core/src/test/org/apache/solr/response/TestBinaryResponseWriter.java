@@ -18,6 +18,9 @@ package org.apache.solr.response;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
@@ -28,6 +31,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.BinaryResponseWriter.Resolver;
 import org.apache.solr.search.SolrReturnFields;
 import org.apache.solr.util.AbstractSolrTestCase;
@@ -71,6 +75,53 @@ public class TestBinaryResponseWriter extends AbstractSolrTestCase {
     req.close();
   }
 
+  /**
+   * Tests that stored strings, which are written from the UTF-8 bytes read from the index,
+   * survive the round trip, whether the document is read from the index or from the document cache
+   */
+  public void testStoredStrings() throws Exception {
+    List<String> uniq = Arrays.asList("ascii", "\u00e9t\u00e9", "\u6771\u4eac", "\ud83d\ude00 surrogate pair");
+    String subject = "t\u00eaxt \u00fcber \ud834\udd1e";
+    assertU(adoc("id", "201", "uniq", uniq.get(0), "uniq", uniq.get(1), "uniq", uniq.get(2), "uniq", uniq.get(3),
+        "subject", subject));
+    assertU(commit());
+    try {
+      for (int i = 0; i < 2; i++) {
+        NamedList res = writeAndRead(null, "q", "id:201", "fl", "id,uniq,subject");
+        SolrDocumentList docs = (SolrDocumentList) res.get("response");
+        assertEquals(1, docs.size());
+        assertStoredStrings(uniq, subject, docs.get(0));
+      }
+
+      NamedList res = writeAndRead("/get", "id", "201", "fl", "uniq,subject");
+      assertStoredStrings(uniq, subject, (SolrDocument) res.get("doc"));
+    } finally {
+      assertU(delI("201"));
+      assertU(commit());
+    }
+  }
+
+  private static void assertStoredStrings(List<String> uniq, String subject, SolrDocument document) {
+    assertEquals(uniq, new ArrayList<>(document.getFieldValues("uniq")));
+    for (Object value : document.getFieldValues("uniq")) {
+      assertEquals("Returned object must be a string", String.class, value.getClass());
+    }
+    assertEquals(subject, document.getFieldValue("subject"));
+  }
+
+  private NamedList writeAndRead(String handler, String... params) throws Exception {
+    SolrQueryRequest req = req(params);
+    try {
+      SolrQueryResponse rsp = h.queryAndResponse(handler, req);
+      BinaryQueryResponseWriter writer = (BinaryQueryResponseWriter) h.getCore().getQueryResponseWriter("javabin");
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      writer.write(baos, req, rsp);
+      return (NamedList) new JavaBinCodec().unmarshal(new ByteArrayInputStream(baos.toByteArray()));
+    } finally {
+      req.close();
+    }
+  }
+
   public void testResolverSolrDocumentPartialFields() throws Exception {
     LocalSolrQueryRequest req = lrf.makeRequest("q", "*:*",
                                                 "fl", "id,xxx,ddd_s"); 
@@ -173,6 +173,23 @@ public class TestExportWriter extends SolrTestCaseJ4 {
     assertJsonEquals(s, "{\"responseHeader\": {\"status\": 0}, \"response\":{\"numFound\":1, \"docs\":[{\"stringdv\":\"chello \\\"world\\\"\"}]}}");
   }
 
+  @Test
+  public void testParallelSortingOutput() throws Exception {
+    // the index has several segments, the parallel export has to merge them in the same order
+    String[] sorts = {"intdv asc", "intdv desc", "stringdv desc,intdv asc", "stringdv asc,intdv desc",
+        "floatdv asc,intdv desc", "doubledv desc,intdv asc", "floatdv asc,stringdv desc,intdv asc", "longdv desc,intdv desc"};
+    String[] queries = {"*:*", "id:(1 2 3)", "intdv:[2 TO 1000]", "stringdv:blah"};
+    for (String sort : sorts) {
+      for (String q : queries) {
+        String expected = h.query(req("q", q, "qt", "/export", "fl", "intdv,stringdv,floatdv_m", "sort", sort));
+        // more threads than the export executor has are capped
+        String threads = random().nextBoolean() ? "3" : "1000";
+        String actual = h.query(req("q", q, "qt", "/export", "fl", "intdv,stringdv,floatdv_m", "sort", sort, "export.threads", threads));
+        assertJsonEquals(actual, expected);
+      }
+    }
+  }
+
   private void assertJsonEquals(String actual, String expected) {
     assertEquals(Utils.toJSONString(Utils.fromJSONString(expected)), Utils.toJSONString(Utils.fromJSONString(actual)));
   }
@@ -23,12 +23,15 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.search.CollapsingQParserPlugin.GroupHeadSelector;
 import org.apache.solr.search.CollapsingQParserPlugin.GroupHeadSelectorType;
+import org.apache.solr.search.CollapsingQParserPlugin.OrdScoreHeads;
+import org.apache.solr.search.CollapsingQParserPlugin.OrdSlots;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -915,4 +918,81 @@ public class TestCollapseQParserPlugin extends SolrTestCaseJ4 {
     
   }
 
+  public void testOrdScoreHeads() {
+    int valueCount = OrdScoreHeads.SPARSE_MIN_VALUE_COUNT;
+    int maxDoc = 1 << 20;
+    OrdScoreHeads heads = new OrdScoreHeads(valueCount);
+    assertTrue(heads.isSparse());
+
+    int[] expectedDocs = new int[valueCount];
+    Arrays.fill(expectedDocs, -1);
+    float[] expectedScores = new float[valueCount];
+    Arrays.fill(expectedScores, -Float.MAX_VALUE);
+
+    // first a few groups, then enough of them to switch to arrays
+    for (int numGroups : new int[] {100, valueCount}) {
+      int iters = atLeast(numGroups / 2);
+      for (int i = 0; i < iters; i++) {
+        int ord = random().nextInt(numGroups);
+        int doc = random().nextInt(maxDoc);
+        float score = random().nextFloat() * 10 - 5;
+        heads.collect(ord, doc, score);
+        if (score > expectedScores[ord]) {
+          expectedDocs[ord] = doc;
+          expectedScores[ord] = score;
+        }
+      }
+      int ord = random().nextInt(numGroups);
+      heads.remove(ord);
+      expectedDocs[ord] = -1;
+
+      FixedBitSet expectedHeads = new FixedBitSet(maxDoc);
+      for (int i = 0; i < valueCount; i++) {
+        assertEquals(expectedScores[i], heads.score(i), 0f);
+        if (expectedDocs[i] > -1) {
+          expectedHeads.set(expectedDocs[i]);
+        }
+      }
+      FixedBitSet collapsedSet = new FixedBitSet(maxDoc);
+      heads.setHeads(collapsedSet);
+      assertEquals(expectedHeads, collapsedSet);
+      assertEquals(numGroups == 100, heads.isSparse());
+    }
+  }
+
+  public void testOrdSlots() {
+    int valueCount = OrdScoreHeads.SPARSE_MIN_VALUE_COUNT;
+    OrdSlots slots = new OrdSlots(valueCount);
+    assertTrue(slots.isSparse());
+    assertTrue(slots.initialSize() < valueCount);
+
+    int[] expectedSlots = new int[valueCount];
+    Arrays.fill(expectedSlots, -1);
+    int numSlots = 0;
+
+    // first a few groups, then enough of them to look the slots up by ordinal
+    for (int numGroups : new int[] {100, valueCount}) {
+      int iters = atLeast(numGroups / 2);
+      for (int i = 0; i < iters; i++) {
+        int ord = random().nextInt(numGroups);
+        if (expectedSlots[ord] == -1) {
+          expectedSlots[ord] = numSlots++;
+        }
+        assertEquals(expectedSlots[ord], slots.getOrAdd(ord));
+      }
+      for (int i = 0; i < valueCount; i++) {
+        assertEquals(expectedSlots[i], slots.get(i));
+      }
+      assertEquals(numSlots, slots.size());
+      assertEquals(numGroups == 100, slots.isSparse());
+    }
+
+    // few ordinals are their own slots
+    slots = new OrdSlots(100);
+    assertFalse(slots.isSparse());
+    assertEquals(100, slots.initialSize());
+    assertEquals(100, slots.size());
+    assertEquals(42, slots.get(42));
+    assertEquals(42, slots.getOrAdd(42));
+  }
 }
@@ -110,6 +110,18 @@ public class TestDocSet extends LuceneTestCase {
     return new BitDocSet(bs);
   }
 
+  public DocSet getRoaringDocSet(FixedBitSet bs) {
+    if (rand.nextBoolean()) {
+      return RoaringDocSet.fromBits(bs, bs.length());
+    }
+    RoaringDocSet set = new RoaringDocSet(bs.length());
+    BitSetIterator iter = new BitSetIterator(bs, 0);
+    for (int doc = iter.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iter.nextDoc()) {
+      set.add(doc);
+    }
+    return set;
+  }
+
   public DocSet getDocSlice(FixedBitSet bs) {
     int len = bs.cardinality();
     int[] arr = new int[len+5];
@@ -128,7 +140,7 @@ public class TestDocSet extends LuceneTestCase {
 
 
   public DocSet getDocSet(FixedBitSet bs) {
-    switch(rand.nextInt(10)) {
+    switch(rand.nextInt(11)) {
       case 0: return getHashDocSet(bs);
 
       case 1: return getBitDocSet(bs);
@@ -142,6 +154,8 @@ public class TestDocSet extends LuceneTestCase {
       case 8: return getIntDocSet(bs);
 
       case 9: return getDocSlice(bs);
+
+      case 10: return getRoaringDocSet(bs);
     }
     return null;
   }
@@ -220,6 +234,54 @@ public class TestDocSet extends LuceneTestCase {
     // doMany(130, 1000000);
   }
 
+  public void testRoaringDocSets() {
+    // spans several blocks, each empty, sparse (array) or dense (bitmap)
+    for (int i = 0; i < 20; i++) {
+      int maxDoc = rand.nextInt(300000) + 1;
+      FixedBitSet bs1 = getRandomBlockSet(maxDoc);
+      FixedBitSet bs2 = getRandomBlockSet(maxDoc);
+
+      DocSet a1 = getRoaringDocSet(bs1);
+      DocSet a2 = rand.nextBoolean() ? getRoaringDocSet(bs2) : (rand.nextBoolean() ? getBitDocSet(bs2.clone()) : getIntDocSet(bs2));
+
+      checkEqual(bs1, a1);
+      iter(new BitDocSet(bs1), a1);
+      assertEquals(bs1, ((DocSetBase) a1).getBits());
+
+      FixedBitSet a_and = bs1.clone(); a_and.and(bs2);
+      FixedBitSet a_or = bs1.clone(); a_or.or(bs2);
+      FixedBitSet a_andn = bs1.clone(); a_andn.andNot(bs2);
+
+      checkEqual(a_and, a1.intersection(a2));
+      checkEqual(a_and, a2.intersection(a1));
+      checkEqual(a_or, a1.union(a2));
+      checkEqual(a_andn, a1.andNot(a2));
+
+      assertEquals(a_and.cardinality(), a1.intersectionSize(a2));
+      assertEquals(a_and.cardinality(), a2.intersectionSize(a1));
+      assertEquals(a_and.cardinality() > 0, a1.intersects(a2));
+      assertEquals(a_or.cardinality(), a1.unionSize(a2));
+      assertEquals(a_andn.cardinality(), a1.andNotSize(a2));
+    }
+  }
+
+  private FixedBitSet getRandomBlockSet(int maxDoc) {
+    FixedBitSet bs = new FixedBitSet(maxDoc);
+    for (int from = 0; from < maxDoc; from += 1 << 16) {
+      int len = Math.min(1 << 16, maxDoc - from);
+      int n;
+      switch (rand.nextInt(3)) {
+        case 0: n = 0; break;
+        case 1: n = rand.nextInt(100); break;
+        default: n = rand.nextInt(len); break;
+      }
+      for (int i = 0; i < n; i++) {
+        bs.set(from + rand.nextInt(len));
+      }
+    }
+    return bs;
+  }
+
   public DocSet getRandomDocSet(int n, int maxDoc) {
     FixedBitSet obs = new FixedBitSet(maxDoc);
     int[] a = new int[n];
@@ -529,7 +591,7 @@ public class TestDocSet extends LuceneTestCase {
     IndexReaderContext topLevelContext = reader.getContext();
     FixedBitSet bs = getRandomSet(reader.maxDoc(), rand.nextInt(reader.maxDoc()+1));
     DocSet a = new BitDocSet(bs);
-    DocSet b = getIntDocSet(bs);
+    DocSet b = rand.nextBoolean() ? getIntDocSet(bs) : getRoaringDocSet(bs);
 
     Filter fa = a.getTopFilter();
     Filter fb = b.getTopFilter();
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Test for TinyLFUCache
+ *
+ * @see org.apache.solr.search.TinyLFUCache
+ */
+public class TestTinyLFUCache extends LuceneTestCase {
+
+  public void testSimple() {
+    TinyLFUCache<Object, Object> cache = new TinyLFUCache<>();
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    params.put("initialSize", "10");
+    params.put("autowarmCount", "25");
+    CacheRegenerator cr = new NoOpRegenerator();
+    Object o = cache.init(params, null, cr);
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i + 1, "" + (i + 1));
+    }
+    // make some entries more frequently used than the others
+    for (int i = 0; i < 3; i++) {
+      for (int j = 51; j <= 75; j++) {
+        assertEquals("" + j, cache.get(j));
+      }
+    }
+    assertEquals(null, cache.get(110));
+    NamedList<Serializable> nl = cache.getStatistics();
+    assertEquals(76L, nl.get("lookups"));
+    assertEquals(75L, nl.get("hits"));
+    assertEquals(100L, nl.get("inserts"));
+    assertEquals(100L, nl.get("size"));
+
+    TinyLFUCache<Object, Object> cacheNew = new TinyLFUCache<>();
+    cacheNew.init(params, o, cr);
+    cacheNew.warm(null, cache);
+    cacheNew.setState(SolrCache.State.LIVE);
+    cache.close();
+    assertEquals(25, cacheNew.size());
+    // the most frequently used entries are the ones that are autowarmed
+    for (int j = 51; j <= 75; j++) {
+      assertEquals("" + j, cacheNew.get(j));
+    }
+    assertEquals(null, cacheNew.get(1));
+    nl = cacheNew.getStatistics();
+    assertEquals(26L, nl.get("lookups"));
+    assertEquals(25L, nl.get("hits"));
+    assertEquals(0L, nl.get("inserts"));
+    assertEquals(0L, nl.get("evictions"));
+    assertEquals(102L, nl.get("cumulative_lookups"));
+    assertEquals(100L, nl.get("cumulative_hits"));
+    assertEquals(100L, nl.get("cumulative_inserts"));
+    cacheNew.close();
+  }
+
+  public void testPercentageAutowarm() {
+    TinyLFUCache<Object, Object> cache = new TinyLFUCache<>();
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    params.put("autowarmCount", "100%");
+    CacheRegenerator cr = new NoOpRegenerator();
+    Object o = cache.init(params, null, cr);
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i + 1, "" + (i + 1));
+    }
+    TinyLFUCache<Object, Object> cacheNew = new TinyLFUCache<>();
+    cacheNew.init(params, o, cr);
+    cacheNew.warm(null, cache);
+    cacheNew.setState(SolrCache.State.LIVE);
+    cache.close();
+    assertEquals(100, cacheNew.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals("" + (i + 1), cacheNew.get(i + 1));
+    }
+    cacheNew.close();
+  }
+
+  private static TinyLFUCache<Integer, Integer> newCache(int size) {
+    TinyLFUCache<Integer, Integer> cache = new TinyLFUCache<>();
+    Map<String, String> params = new HashMap<>();
+    params.put("size", String.valueOf(size));
+    cache.init(params, null, new NoOpRegenerator());
+    cache.setState(SolrCache.State.LIVE);
+    return cache;
+  }
+
+  public void testScanResistance() {
+    TinyLFUCache<Integer, Integer> cache = newCache(100);
+    // a working set of hot entries
+    for (int i = 0; i < 50; i++) {
+      cache.put(i, i);
+    }
+    // push the last hot entry out of the admission window
+    cache.put(-1, -1);
+    for (int iter = 0; iter < 5; iter++) {
+      for (int i = 0; i < 50; i++) {
+        assertEquals(Integer.valueOf(i), cache.get(i));
+      }
+    }
+    // a scan of entries that are only requested once
+    for (int i = 1000; i < 1000 + atLeast(1000); i++) {
+      if (cache.get(i) == null) {
+        cache.put(i, i);
+      }
+      assertTrue(cache.size() <= 100);
+    }
+    for (int i = 0; i < 50; i++) {
+      assertEquals(Integer.valueOf(i), cache.get(i));
+    }
+    assertTrue((Long) cache.getStatistics().get("evictions") > 0);
+    cache.close();
+  }
+
+  public void testMaxRamSize() {
+    TinyLFUCache<Integer, Accountable> cache = new TinyLFUCache<>();
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "5");
+    params.put("maxRamMB", "0.1");
+    params.put("initialSize", "10");
+    cache.init(params, null, new NoOpRegenerator());
+    cache.setState(SolrCache.State.LIVE);
+    final long maxRamBytes = 100 * 1024;
+    final Accountable value = () -> 1024;
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, value);
+      // allow for the overhead of the cache itself and of its frequency sketch
+      assertTrue(cache.ramBytesUsed() + " > " + maxRamBytes, cache.ramBytesUsed() <= maxRamBytes + 4096);
+    }
+    // the entry count is only bounded by RAM usage
+    assertTrue(cache.size() > 5);
+    assertTrue(cache.size() < 100);
+    NamedList<Serializable> nl = cache.getStatistics();
+    assertEquals(1000L, nl.get("inserts"));
+    assertEquals(1000L - cache.size(), nl.get("evictions"));
+    cache.close();
+  }
+
+  public void testRandom() {
+    int sz = random().nextInt(100) + 5;
+    int keyrange = random().nextInt(sz * 3) + 1;
+    TinyLFUCache<Integer, Integer> cache = newCache(sz);
+    for (int i = 0; i < 10000; i++) {
+      Integer key = random().nextInt(keyrange);
+      cache.put(key, key);
+      key = random().nextInt(keyrange);
+      Integer v = cache.get(key);
+      assertTrue(v == null || v.equals(key));
+      assertTrue(cache.size() <= sz);
+    }
+    cache.clear();
+    assertEquals(0, cache.size());
+    cache.close();
+  }
+
+  public void testConcurrency() throws Exception {
+    final int sz = 50 + random().nextInt(50);
+    final int keyrange = sz * 4;
+    final TinyLFUCache<Integer, Integer> cache = newCache(sz);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    Thread[] threads = new Thread[2 + random().nextInt(6)];
+    for (int t = 0; t < threads.length; t++) {
+      final long seed = random().nextLong();
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          Random r = new Random(seed);
+          try {
+            for (int i = 0; i < 20000; i++) {
+              // skewed key distribution
+              Integer key = r.nextBoolean() ? r.nextInt(sz / 2) : r.nextInt(keyrange);
+              Integer v = cache.get(key);
+              if (v == null) {
+                cache.put(key, key);
+              } else {
+                assertEquals(key, v);
+              }
+            }
+          } catch (Throwable e) {
+            error.compareAndSet(null, e);
+          }
+        }
+      };
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (error.get() != null) {
+      throw new AssertionError(error.get());
+    }
+    assertTrue(cache.size() <= sz);
+    NamedList<Serializable> nl = cache.getStatistics();
+    assertEquals(threads.length * 20000L, nl.get("lookups"));
+    cache.close();
+  }
+
+}
@@ -252,6 +252,27 @@ public class TestJsonFacets extends SolrTestCaseHS {
              );
   }
   
+  public void testParallelCollection() throws Exception {
+    Client client = Client.localClient();
+    indexSimple(client);
+
+    // the sort stat is collected in parallel per group of segments, then merged
+    assertJQ(req("q", "*:*", "rows", "0",
+                 "json.facet", ""
+                 + "{f1:{type:terms, field:cat_s, method:dv, threads:3, sort:'x desc',"
+                 + "     facet:{x:'sum(num_d)', y:'min(num_d)', u:'unique(where_s)'} },"
+                 + " f2:{type:terms, field:cat_s, method:dv, threads:3, sort:'y asc',"
+                 + "     facet:{y:'min(num_d)', z:'max(num_d)'} },"
+                 + " f3:{type:terms, field:where_s, method:dv, threads:3, sort:'a desc', facet:{a:'avg(num_i)'} },"
+                 + " f4:{type:terms, field:where_s, method:dv, threads:3} }")
+             , "facets=={count:6, "
+             + " f1:{ buckets:[{ val:A, count:2, x:6.0, y:2.0, u:2 }, { val:B, count:3, x:-3.0, y:-9.0, u:2 }] },"
+             + " f2:{ buckets:[{ val:B, count:3, y:-9.0, z:11.0 }, { val:A, count:2, y:2.0, z:4.0 }] },"
+             + " f3:{ buckets:[{ val:NJ, count:3, a:1.6666666666666667 }, { val:NY, count:2, a:-1.5 }] },"
+             + " f4:{ buckets:[{ val:NJ, count:3 }, { val:NY, count:2 }] } }"
+             );
+  }
+
   public void testNestedJoinDomain() throws Exception {
     Client client = Client.localClient();
 
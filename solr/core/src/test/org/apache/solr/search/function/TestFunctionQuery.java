@@ -16,19 +16,29 @@
  */
 package org.apache.solr.search.function;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FieldInvertState;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.search.similarities.TFIDFSimilarity;
+import org.apache.lucene.store.Directory;
 import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.schema.IndexSchema;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -303,6 +313,106 @@ public class TestFunctionQuery extends SolrTestCaseJ4 {
     singleTest(extField,"\0",991,543210,992,-8,993,250);
   }
 
+  @Test
+  public void testExternalFileFieldNewSegments() throws Exception {
+    final String extField = "bar_extfs";
+    final String keyField = "sfile_s";
+    assertU(adoc("id", "994", keyField, "DDD"));
+    assertU(adoc("id", "995", keyField, "EEE"));
+    assertU(commit());
+    makeExternalFile(extField, "DDD=4\nEEE=5\nFFF=6");
+    singleTest(extField,"\0",994,4,995,5);
+
+    // the file did not change, only the new segment needs its values
+    assertU(adoc("id", "996", keyField, "FFF"));
+    assertU(commit());
+    singleTest(extField,"\0",994,4,995,5,996,6);
+
+    makeExternalFile(extField, "DDD=40\nFFF=60");
+    assertU(h.query("/reloadCache",lrf.makeRequest("","")));
+    singleTest(extField,"\0",994,40,995,1,996,60);
+  }
+
+  @Test
+  public void testExternalFileFieldSegmentReuse() throws Exception {
+    IndexSchema schema = h.getCore().getLatestSchema();
+    String dataDir = createTempDir().toFile().getAbsolutePath();
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(dataDir, "external_baz_extfs")), StandardCharsets.UTF_8)) {
+      out.write("AAA=4\nBBB=5");
+    }
+    FileFloatSource source = new FileFloatSource(schema.getField("baz_extfs"), schema.getField("sfile_s"), 1, dataDir);
+
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+    Document doc = new Document();
+    doc.add(new StringField("sfile_s", "AAA", Field.Store.NO));
+    w.addDocument(doc);
+    DirectoryReader r1 = DirectoryReader.open(w);
+    assertEquals(4, source.getValues(new HashMap(), r1.leaves().get(0)).floatVal(0), 0);
+    float[][] vals1 = (float[][]) FileFloatSource.onlyForTesting;
+
+    doc = new Document();
+    doc.add(new StringField("sfile_s", "BBB", Field.Store.NO));
+    w.addDocument(doc);
+    DirectoryReader r2 = DirectoryReader.openIfChanged(r1);
+    assertEquals(2, r2.leaves().size());
+    assertEquals(5, source.getValues(new HashMap(), r2.leaves().get(1)).floatVal(0), 0);
+    float[][] vals2 = (float[][]) FileFloatSource.onlyForTesting;
+    assertNotSame(vals1, vals2);
+    // the file did not change, so the first segment was not read again
+    assertSame(vals1[0], vals2[0]);
+
+    r1.close();
+    r2.close();
+    w.close();
+    dir.close();
+    // the values are dropped with their segments
+    synchronized (FileFloatSource.fileValuesCache) {
+      for (FileFloatSource.FileKey key : FileFloatSource.fileValuesCache.keySet()) {
+        assertFalse(dataDir.equals(key.dataDir));
+      }
+    }
+  }
+
+  @Test
+  public void testExternalFileFieldSameLengthRewrite() throws Exception {
+    IndexSchema schema = h.getCore().getLatestSchema();
+    String dataDir = createTempDir().toFile().getAbsolutePath();
+    File file = new File(dataDir, "external_baz_extfs");
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+      out.write("AAA=1.5\nBBB=5");
+    }
+    long lastModified = file.lastModified();
+    FileFloatSource source = new FileFloatSource(schema.getField("baz_extfs"), schema.getField("sfile_s"), 1, dataDir);
+
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+    Document doc = new Document();
+    doc.add(new StringField("sfile_s", "AAA", Field.Store.NO));
+    w.addDocument(doc);
+    DirectoryReader r1 = DirectoryReader.open(w);
+    assertEquals(1.5f, source.getValues(new HashMap(), r1.leaves().get(0)).floatVal(0), 0);
+
+    // rewritten in place with the same length, within the resolution of the modification time
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+      out.write("AAA=2.5\nBBB=5");
+    }
+    assertTrue(file.setLastModified(lastModified));
+
+    // a commit, without /reloadCache
+    doc = new Document();
+    doc.add(new StringField("sfile_s", "BBB", Field.Store.NO));
+    w.addDocument(doc);
+    DirectoryReader r2 = DirectoryReader.openIfChanged(r1);
+    assertEquals(2.5f, source.getValues(new HashMap(), r2.leaves().get(0)).floatVal(0), 0);
+    assertEquals(5f, source.getValues(new HashMap(), r2.leaves().get(1)).floatVal(0), 0);
+
+    r1.close();
+    r2.close();
+    w.close();
+    dir.close();
+  }
+
   @Test
   public void testGeneral() throws Exception {
     clearIndex();
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.MockAnalyzer;
@@ -47,6 +48,9 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum.SeekStatus;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LegacyNumericUtils;
 import org.apache.lucene.util.LuceneTestCase;
@@ -224,6 +228,82 @@ public class TestDocTermOrds extends LuceneTestCase {
     dir.close();
   }
 
+  public void testOffHeap() throws Exception {
+    Directory dir = newDirectory();
+    final AtomicInteger written = new AtomicInteger();
+    Directory offHeapDir = new FilterDirectory(newFSDirectory(createTempDir())) {
+      @Override
+      public IndexOutput createTempOutput(String prefix, String suffix, IOContext context) throws IOException {
+        written.incrementAndGet();
+        return super.createTempOutput(prefix, suffix, context);
+      }
+    };
+    IndexWriterConfig conf = newIndexWriterConfig(new MockAnalyzer(random()));
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir, conf);
+    final int numDocs = atLeast(200);
+    for (int id = 0; id < numDocs; id++) {
+      Document doc = new Document();
+      final int termCount = random().nextInt(10);
+      for (int i = 0; i < termCount; i++) {
+        doc.add(newStringField("field", TestUtil.randomSimpleString(random(), 1, 3), Field.Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    final DirectoryReader r = w.getReader();
+    w.close();
+
+    for (LeafReaderContext ctx : r.leaves()) {
+      final LeafReader leaf = ctx.reader();
+      final DocTermOrds onHeap = new DocTermOrds(leaf, null, "field");
+      final DocTermOrds offHeap = DocTermOrds.offHeap(leaf, "field", null, offHeapDir);
+      assertEquals(onHeap.isEmpty(), offHeap.isEmpty());
+      assertEquals(onHeap.numTerms(), offHeap.numTerms());
+      assertSameOrds(leaf, onHeap.iterator(leaf), offHeap.iterator(leaf));
+      offHeap.releaseOffHeap();
+
+      // the file is still there while the segment is open, and is reused rather than written again
+      final int numWritten = written.get();
+      final DocTermOrds reopened = DocTermOrds.offHeap(leaf, "field", null, offHeapDir);
+      assertEquals(numWritten, written.get());
+      assertSameOrds(leaf, onHeap.iterator(leaf), reopened.iterator(leaf));
+      reopened.releaseOffHeap();
+    }
+    assertTrue(countOffHeapFiles(offHeapDir) > 0);
+
+    // closing the segments deletes their files
+    r.close();
+    assertEquals(0, countOffHeapFiles(offHeapDir));
+
+    dir.close();
+    offHeapDir.close();
+  }
+
+  private static int countOffHeapFiles(Directory dir) throws IOException {
+    int count = 0;
+    for (String file : dir.listAll()) {
+      if (file.endsWith("." + DocTermOrds.OFF_HEAP_EXTENSION)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void assertSameOrds(LeafReader reader, SortedSetDocValues expected, SortedSetDocValues actual) {
+    assertEquals(expected.getValueCount(), actual.getValueCount());
+    for (int docID = 0; docID < reader.maxDoc(); docID++) {
+      expected.setDocument(docID);
+      actual.setDocument(docID);
+      long ord;
+      do {
+        ord = expected.nextOrd();
+        assertEquals(ord, actual.nextOrd());
+      } while (ord != SortedSetDocValues.NO_MORE_ORDS);
+    }
+    for (long ord = 0; ord < expected.getValueCount(); ord++) {
+      assertEquals(expected.lookupOrd(ord), actual.lookupOrd(ord));
+    }
+  }
+
   public void testRandomWithPrefix() throws Exception {
     Directory dir = newDirectory();
 
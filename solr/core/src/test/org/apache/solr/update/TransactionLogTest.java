@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.junit.Test;
+
+public class TransactionLogTest extends SolrTestCaseJ4 {
+
+  @Test
+  public void testConcurrentFsync() throws Exception {
+    File tlogFile = new File(createTempDir().toFile(),
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0));
+    AtomicInteger syncs = new AtomicInteger();
+    TransactionLog tlog = new TransactionLog(tlogFile, null) {
+      @Override
+      void syncFile() throws IOException {
+        syncs.incrementAndGet();
+        // a slow disk, so that callers pile up behind an ongoing sync
+        try {
+          Thread.sleep(2);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        super.syncFile();
+      }
+    };
+    try {
+      int numThreads = atLeast(4);
+      int numUpdates = atLeast(50);
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        final int thread = t;
+        threads.add(new Thread(() -> {
+          for (int i = 0; i < numUpdates; i++) {
+            DeleteUpdateCommand cmd = new DeleteUpdateCommand(null);
+            cmd.setIndexedId(new BytesRef(thread + "_" + i));
+            cmd.setVersion(thread * numUpdates + i + 1);
+            tlog.writeDelete(cmd, 0);
+            tlog.finish(UpdateLog.SyncLevel.FSYNC);
+          }
+        }));
+      }
+      for (Thread thread : threads) {
+        thread.start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      // every record made it to the log exactly once
+      Set<Long> versions = new HashSet<>();
+      TransactionLog.LogReader reader = tlog.getReader(0);
+      try {
+        for (Object o = reader.next(); o != null; o = reader.next()) {
+          assertTrue(versions.add((Long) ((List) o).get(1)));
+        }
+      } finally {
+        reader.close();
+      }
+      assertEquals(numThreads * numUpdates, versions.size());
+
+      // callers that were waiting for a sync share the next one
+      assertTrue("every caller synced on its own: " + syncs.get(), syncs.get() < numThreads * numUpdates);
+    } finally {
+      tlog.decref();
+    }
+  }
+
+  @Test
+  public void testMappedReads() throws Exception {
+    File tlogFile = new File(createTempDir().toFile(),
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0));
+    TransactionLog tlog = new TransactionLog(tlogFile, null);
+    tlog.setMmapReads(true);
+    tlog.setCheckRecordSizes(true);
+    try {
+      // enough data that the growing log gets remapped along the way
+      int numUpdates = atLeast(2000);
+      byte[] filler = new byte[random().nextInt(1000) + 1];
+      long[] positions = new long[numUpdates];
+      for (int i = 0; i < numUpdates; i++) {
+        DeleteUpdateCommand cmd = new DeleteUpdateCommand(null);
+        random().nextBytes(filler);
+        filler[0] = (byte) i;
+        cmd.setIndexedId(new BytesRef(filler));
+        cmd.setVersion(i + 1);
+        positions[i] = tlog.writeDelete(cmd, 0);
+        if (random().nextInt(10) == 0) {
+          // lookups while the log is still growing
+          int j = random().nextInt(i + 1);
+          assertEquals((long) (j + 1), ((List) tlog.lookup(positions[j])).get(1));
+        }
+      }
+      tlog.finish(UpdateLog.SyncLevel.FLUSH);
+
+      for (int i = 0; i < numUpdates; i++) {
+        assertEquals((long) (i + 1), ((List) tlog.lookup(positions[i])).get(1));
+      }
+
+      TransactionLog.LogReader reader = tlog.getReader(0);
+      try {
+        long version = 0;
+        for (Object o = reader.next(); o != null; o = reader.next()) {
+          assertEquals(++version, ((List) o).get(1));
+        }
+        assertEquals(numUpdates, version);
+      } finally {
+        reader.close();
+      }
+
+      TransactionLog.ReverseReader reverseReader = tlog.getReverseReader();
+      try {
+        long version = numUpdates;
+        for (Object o = reverseReader.next(); o != null; o = reverseReader.next()) {
+          assertEquals(version--, ((List) o).get(1));
+        }
+        assertEquals(0, version);
+      } finally {
+        reverseReader.close();
+      }
+
+      // corrupt the size that trails the last record
+      try (RandomAccessFile raf = new RandomAccessFile(tlogFile, "rw")) {
+        raf.seek(raf.length() - 4);
+        raf.writeInt(Integer.MAX_VALUE);
+      }
+      expectThrows(SolrException.class, () -> tlog.lookup(positions[numUpdates - 1]));
+    } finally {
+      tlog.decref();
+    }
+  }
+
+  @Test
+  public void testRollbackWithMappedReads() throws Exception {
+    File tlogFile = new File(createTempDir().toFile(),
+        String.format(Locale.ROOT, UpdateLog.LOG_FILENAME_PATTERN, UpdateLog.TLOG_NAME, 0));
+    TransactionLog tlog = new TransactionLog(tlogFile, null);
+    tlog.setMmapReads(true);
+    try {
+      byte[] filler = new byte[1000];
+      int numKept = atLeast(100);
+      long[] positions = new long[numKept];
+      for (int i = 0; i < numKept; i++) {
+        positions[i] = writeDelete(tlog, filler, i + 1);
+      }
+      long snapshot = tlog.snapshot();
+      // roll back more than the log held before, so that the mapping covers the discarded records
+      long lastPos = snapshot;
+      long lastVersion = 0;
+      while (lastPos < 3 * TransactionLog.REMAP_MIN_GROWTH) {
+        lastPos = writeDelete(tlog, filler, --lastVersion);
+      }
+      tlog.finish(UpdateLog.SyncLevel.FLUSH);
+      assertEquals(lastVersion, ((List) tlog.lookup(lastPos)).get(1));
+
+      // readers of the kept records while the log is rolled back
+      AtomicBoolean done = new AtomicBoolean();
+      AtomicReference<Throwable> failure = new AtomicReference<>();
+      Random readerRandom = new Random(random().nextLong());
+      Thread reader = new Thread(() -> {
+        try {
+          while (!done.get()) {
+            int j = readerRandom.nextInt(numKept);
+            assertEquals((long) (j + 1), ((List) tlog.lookup(positions[j])).get(1));
+          }
+        } catch (Throwable t) {
+          failure.set(t);
+        }
+      });
+      reader.start();
+      Thread.sleep(random().nextInt(50));
+      tlog.rollback(snapshot);
+      Thread.sleep(random().nextInt(50));
+      done.set(true);
+      reader.join();
+      assertNull(failure.get());
+
+      // records written after the rollback are read back, not the discarded ones
+      long pos = writeDelete(tlog, filler, numKept + 1);
+      assertEquals(snapshot, pos);
+      tlog.finish(UpdateLog.SyncLevel.FLUSH);
+      assertEquals((long) (numKept + 1), ((List) tlog.lookup(pos)).get(1));
+      for (int i = 0; i < numKept; i++) {
+        assertEquals((long) (i + 1), ((List) tlog.lookup(positions[i])).get(1));
+      }
+    } finally {
+      tlog.decref();
+    }
+  }
+
+  private static long writeDelete(TransactionLog tlog, byte[] filler, long version) {
+    DeleteUpdateCommand cmd = new DeleteUpdateCommand(null);
+    random().nextBytes(filler);
+    cmd.setIndexedId(new BytesRef(filler));
+    cmd.setVersion(version);
+    return tlog.writeDelete(cmd, 0);
+  }
+}
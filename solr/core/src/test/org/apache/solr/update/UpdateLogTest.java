@@ -197,6 +197,47 @@ public class UpdateLogTest extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testSwitchToNewTlogDoesNotCarryOverDeletedDocsRepeatedly() throws Exception {
+    DirectUpdateHandler2 uhandler = (DirectUpdateHandler2) h.getCore().getUpdateHandler();
+    uhandler.getCommitTracker().setTimeUpperBound(-1);
+    try {
+      // settles whatever earlier tests left in the log
+      addAndDeleteDoc(0);
+      ulogSwitchToNewTlog(ulog);
+
+      for (int round = 1; round <= 5; round++) {
+        addAndDeleteDoc(round);
+        ulogSwitchToNewTlog(ulog);
+        // the add and delete of this round, but not the ones carried over by the previous switch (plus the header)
+        assertEquals("round " + round, 3, ulog.tlog == null ? 0 : ulog.tlog.numRecords());
+      }
+    } finally {
+      uhandler.getCommitTracker().setTimeUpperBound(100);
+      assertU(delQ("id:switch_*"));
+      assertU(commit());
+    }
+  }
+
+  /** Adds and deletes one document, then adds one that stays so that the index has the latest version */
+  private static void addAndDeleteDoc(int round) {
+    assertU(adoc("id", "switch_deleted_" + round));
+    assertU(delI("switch_deleted_" + round));
+    assertU(adoc("id", "switch_live_" + round));
+  }
+
+  /**
+   * Simulate replacing the index of a follower by the one of its leader, which already contains everything
+   * indexed so far
+   */
+  private static void ulogSwitchToNewTlog(UpdateLog ulog) {
+    try (SolrQueryRequest req = req()) {
+      CommitUpdateCommand commitCmd = new CommitUpdateCommand(req, false);
+      commitCmd.openSearcher = false;
+      ulog.commitAndSwitchToNewTlog(commitCmd);
+    }
+  }
+
   /**
    * Simulate a commit on a given updateLog
    */
@@ -45,6 +45,21 @@ public class VersionInfoTest extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testBucketHighest() throws Exception {
+    VersionBucket bucket = new VersionBucket();
+    // not known yet, so not raised
+    bucket.updateHighest(5);
+    assertEquals(0, bucket.highest);
+    bucket.seedHighest(10);
+    assertEquals(10, bucket.highest);
+    bucket.updateHighest(-20);
+    assertEquals(20, bucket.highest);
+    bucket.updateHighest(15);
+    bucket.seedHighest(5);
+    assertEquals(20, bucket.highest);
+  }
+
   protected void testMaxVersionLogic(SolrQueryRequest req) throws Exception {
     UpdateHandler uhandler = req.getCore().getUpdateHandler();
     UpdateLog ulog = uhandler.getUpdateLog();
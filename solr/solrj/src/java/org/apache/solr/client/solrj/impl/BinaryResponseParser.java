@@ -33,12 +33,25 @@ public class BinaryResponseParser extends ResponseParser {
   public static final String BINARY_CONTENT_TYPE = "application/octet-stream";
 
   private JavaBinCodec.StringCache stringCache;
+  private boolean readStringAsCharSeq;
 
   public BinaryResponseParser setStringCache(JavaBinCodec.StringCache cache) {
     this.stringCache = cache;
     return this;
   }
 
+  /**
+   * If set, string field values of returned documents are
+   * {@link org.apache.solr.common.util.ByteArrayUtf8CharSequence}s that are only decoded
+   * when used, instead of {@link String}s.
+   *
+   * @see JavaBinCodec#setReadStringAsCharSeq(boolean)
+   */
+  public BinaryResponseParser setReadStringAsCharSeq(boolean readStringAsCharSeq) {
+    this.readStringAsCharSeq = readStringAsCharSeq;
+    return this;
+  }
+
   @Override
   public String getWriterType() {
     return "javabin";
@@ -47,7 +60,11 @@ public class BinaryResponseParser extends ResponseParser {
   @Override
   public NamedList<Object> processResponse(InputStream body, String encoding) {
     try {
-      return (NamedList<Object>) new JavaBinCodec(null,stringCache).unmarshal(body);
+      JavaBinCodec codec = new JavaBinCodec(null,stringCache).setReadStringAsCharSeq(readStringAsCharSeq);
+      // a javabin response is always written as a NamedList with String keys
+      @SuppressWarnings("unchecked")
+      NamedList<Object> response = (NamedList<Object>) codec.unmarshal(body);
+      return response;
     } catch (IOException e) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "parsing error", e);
 
@@ -368,6 +368,8 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
 
     private Properties properties;
     protected Boolean autoAddReplicas;
+    protected Boolean onlyLeaderIndexes;
+    protected Boolean perReplicaState;
     protected Integer stateFormat;
     private String[] rule , snitch;
 
@@ -409,6 +411,8 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
     public Create setNumShards(Integer numShards) {this.numShards = numShards; return this; }
     public Create setMaxShardsPerNode(Integer numShards) { this.maxShardsPerNode = numShards; return this; }
     public Create setAutoAddReplicas(boolean autoAddReplicas) { this.autoAddReplicas = autoAddReplicas; return this; }
+    public Create setOnlyLeaderIndexes(boolean onlyLeaderIndexes) { this.onlyLeaderIndexes = onlyLeaderIndexes; return this; }
+    public Create setPerReplicaState(boolean perReplicaState) { this.perReplicaState = perReplicaState; return this; }
     @Deprecated
     public Create setReplicationFactor(Integer repl) { this.replicationFactor = repl; return this; }
     public Create setStateFormat(Integer stateFormat) { this.stateFormat = stateFormat; return this; }
@@ -423,6 +427,8 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
     public Integer getMaxShardsPerNode() { return maxShardsPerNode; }
     public Integer getReplicationFactor() { return replicationFactor; }
     public Boolean getAutoAddReplicas() { return autoAddReplicas; }
+    public Boolean getOnlyLeaderIndexes() { return onlyLeaderIndexes; }
+    public Boolean getPerReplicaState() { return perReplicaState; }
     public Integer getStateFormat() { return stateFormat; }
     
     /**
@@ -509,6 +515,12 @@ public abstract class CollectionAdminRequest<T extends CollectionAdminResponse>
       if (autoAddReplicas != null) {
         params.set(ZkStateReader.AUTO_ADD_REPLICAS, autoAddReplicas);
       }
+      if (onlyLeaderIndexes != null) {
+        params.set(ZkStateReader.ONLY_LEADER_INDEXES, onlyLeaderIndexes);
+      }
+      if (perReplicaState != null) {
+        params.set(ZkStateReader.PER_REPLICA_STATE, perReplicaState);
+      }
       if(properties != null) {
         addProperties(params, properties);
       }
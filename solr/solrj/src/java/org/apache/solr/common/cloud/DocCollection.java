@@ -32,6 +32,8 @@ import org.noggit.JSONUtil;
 import org.noggit.JSONWriter;
 
 import static org.apache.solr.common.cloud.ZkStateReader.AUTO_ADD_REPLICAS;
+import static org.apache.solr.common.cloud.ZkStateReader.ONLY_LEADER_INDEXES;
+import static org.apache.solr.common.cloud.ZkStateReader.PER_REPLICA_STATE;
 import static org.apache.solr.common.cloud.ZkStateReader.MAX_SHARDS_PER_NODE;
 import static org.apache.solr.common.cloud.ZkStateReader.REPLICATION_FACTOR;
 
@@ -47,6 +49,7 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
   public static final String SNITCH = "snitch";
 
   private final int znodeVersion;
+  private final int replicaStatesVersion;
 
   private final String name;
   private final Map<String, Slice> slices;
@@ -59,6 +62,8 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
   private final Integer replicationFactor;
   private final Integer maxShardsPerNode;
   private final Boolean autoAddReplicas;
+  private final boolean onlyLeaderIndexes;
+  private final boolean perReplicaState;
 
 
   public DocCollection(String name, Map<String, Slice> slices, Map<String, Object> props, DocRouter router) {
@@ -71,9 +76,20 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
    * @param props  The properties of the slice.  This is used directly and a copy is not made.
    */
   public DocCollection(String name, Map<String, Slice> slices, Map<String, Object> props, DocRouter router, int zkVersion, String znode) {
+    this(name, slices, props, router, zkVersion, znode, -1);
+  }
+
+  /**
+   * @param replicaStatesVersion the version of the {@link PerReplicaStates} that were applied to the slices,
+   *                             or -1 if none were
+   * @see #DocCollection(String, Map, Map, DocRouter, int, String)
+   */
+  public DocCollection(String name, Map<String, Slice> slices, Map<String, Object> props, DocRouter router, int zkVersion, String znode,
+                       int replicaStatesVersion) {
     super(props==null ? props = new HashMap<>() : props);
     // -1 means any version in ZK CAS, so we choose Integer.MAX_VALUE instead to avoid accidental overwrites
     this.znodeVersion = zkVersion == -1 ? Integer.MAX_VALUE : zkVersion;
+    this.replicaStatesVersion = replicaStatesVersion;
     this.name = name;
 
     this.slices = slices;
@@ -84,6 +100,8 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
     this.maxShardsPerNode = (Integer) verifyProp(props, MAX_SHARDS_PER_NODE);
     Boolean autoAddReplicas = (Boolean) verifyProp(props, AUTO_ADD_REPLICAS);
     this.autoAddReplicas = autoAddReplicas == null ? Boolean.FALSE : autoAddReplicas;
+    this.onlyLeaderIndexes = Boolean.TRUE.equals(verifyProp(props, ONLY_LEADER_INDEXES));
+    this.perReplicaState = Boolean.TRUE.equals(verifyProp(props, PER_REPLICA_STATE));
     verifyProp(props, RULE);
     verifyProp(props, SNITCH);
     Iterator<Map.Entry<String, Slice>> iter = slices.entrySet().iterator();
@@ -128,6 +146,8 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
       case REPLICATION_FACTOR:
         return Integer.parseInt(o.toString());
       case AUTO_ADD_REPLICAS:
+      case ONLY_LEADER_INDEXES:
+      case PER_REPLICA_STATE:
         return Boolean.parseBoolean(o.toString());
       case "snitch":
       case "rule":
@@ -143,7 +163,7 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
    * @return the resulting DocCollection
    */
   public DocCollection copyWithSlices(Map<String, Slice> slices){
-    return new DocCollection(getName(), slices, propMap, router, znodeVersion,znode);
+    return new DocCollection(getName(), slices, propMap, router, znodeVersion,znode, replicaStatesVersion);
   }
 
   /**
@@ -204,6 +224,13 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
     return znodeVersion;
   }
 
+  /**
+   * @return the version of the {@link PerReplicaStates} applied to this collection, or -1 if none were
+   */
+  public int getReplicaStatesVersion() {
+    return replicaStatesVersion;
+  }
+
   public int getStateFormat() {
     return ZkStateReader.CLUSTER_STATE.equals(znode) ? 1 : 2;
   }
@@ -218,6 +245,21 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
   public boolean getAutoAddReplicas() {
     return autoAddReplicas;
   }
+
+  /**
+   * @return true if only the shard leaders index documents, and the other
+   *         replicas copy the index from their leader instead
+   */
+  public boolean getOnlyLeaderIndexes() {
+    return onlyLeaderIndexes;
+  }
+
+  /**
+   * @return true if the state of each replica is kept in its own znode, see {@link PerReplicaStates}
+   */
+  public boolean getPerReplicaState() {
+    return perReplicaState;
+  }
   
   public int getMaxShardsPerNode() {
     if (maxShardsPerNode == null) {
@@ -318,7 +360,8 @@ public class DocCollection extends ZkNodeProps implements Iterable<Slice> {
     if (that instanceof DocCollection == false)
       return false;
     DocCollection other = (DocCollection) that;
-    return super.equals(that) && Objects.equals(this.znode, other.znode) && this.znodeVersion == other.znodeVersion;
+    return super.equals(that) && Objects.equals(this.znode, other.znode) && this.znodeVersion == other.znodeVersion
+        && this.replicaStatesVersion == other.replicaStatesVersion;
   }
 
 }
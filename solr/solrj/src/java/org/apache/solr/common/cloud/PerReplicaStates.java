@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.cloud;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * The states of the replicas of a collection created with {@link ZkStateReader#PER_REPLICA_STATE}. Each replica's
+ * state is kept in a small znode of its own under <code>/collections/&lt;collection&gt;/replica_states</code>, so a
+ * replica changing its state creates and deletes one empty znode instead of rewriting the collection's state.json.
+ * <p>
+ * The children are named <code>&lt;replica&gt;:&lt;state&gt;:&lt;version&gt;</code>; if a replica has more than one,
+ * the one with the highest version wins. These states override the ones in state.json, which is only rewritten
+ * for other changes.
+ */
+public class PerReplicaStates {
+
+  public static final String REPLICA_STATES_ZNODE = "replica_states";
+
+  private static final char SEPARATOR = ':';
+
+  private final String path;
+  // the children version of the znode, which changes with every child that is created or deleted
+  private final int cversion;
+  // replica name -> its newest child
+  private final Map<String, ReplicaState> states;
+  // the children that are superseded by a newer one of the same replica
+  private final List<String> superseded;
+
+  private PerReplicaStates(String path, int cversion, List<String> children) {
+    this.path = path;
+    this.cversion = cversion;
+    this.states = new HashMap<>(children.size());
+    this.superseded = new ArrayList<>();
+    for (String child : children) {
+      ReplicaState state = ReplicaState.parse(child);
+      if (state == null) {
+        continue;
+      }
+      ReplicaState previous = states.put(state.replica, state);
+      if (previous != null) {
+        if (previous.version > state.version) {
+          states.put(previous.replica, previous);
+          superseded.add(state.child);
+        } else {
+          superseded.add(previous.child);
+        }
+      }
+    }
+  }
+
+  public static String getPath(String collection) {
+    return ZkStateReader.getCollectionPathRoot(collection) + "/" + REPLICA_STATES_ZNODE;
+  }
+
+  /**
+   * Reads the replica states of a collection, and leaves the watcher on the list of children if it is not null.
+   * If the collection has no replica states yet, the states are empty and their version is -1.
+   */
+  public static PerReplicaStates fetch(SolrZkClient zkClient, String collection, Watcher watcher)
+      throws KeeperException, InterruptedException {
+    String path = getPath(collection);
+    try {
+      Stat stat = new Stat();
+      List<String> children = zkClient.getChildren(path, watcher, stat, true);
+      return new PerReplicaStates(path, stat.getCversion(), children);
+    } catch (KeeperException.NoNodeException e) {
+      return new PerReplicaStates(path, -1, Collections.<String>emptyList());
+    }
+  }
+
+  /**
+   * @return the children version of the replica states znode, or -1 if it does not exist
+   */
+  public int getVersion() {
+    return cversion;
+  }
+
+  /**
+   * @return the state of the given replica, or null if it has none here
+   */
+  public Replica.State getState(String replica) {
+    ReplicaState state = states.get(replica);
+    return state == null ? null : state.state;
+  }
+
+  /**
+   * Returns a copy of the collection with these replica states. Only the replicas whose state differs and their
+   * slices are created anew; the other slices and replicas are shared with the given collection.
+   */
+  public DocCollection applyTo(DocCollection collection) {
+    Map<String, Slice> slices = null;
+    for (Slice slice : collection) {
+      Map<String, Replica> replicas = null;
+      for (Replica replica : slice) {
+        ReplicaState state = states.get(replica.getName());
+        if (state == null || state.state == replica.getState()) {
+          continue;
+        }
+        if (replicas == null) {
+          replicas = new LinkedHashMap<>(slice.getReplicasMap());
+        }
+        Map<String, Object> props = new LinkedHashMap<>(replica.getProperties());
+        props.put(ZkStateReader.STATE_PROP, state.state.toString());
+        replicas.put(replica.getName(), new Replica(replica.getName(), props));
+      }
+      if (replicas != null) {
+        if (slices == null) {
+          slices = new LinkedHashMap<>(collection.getSlicesMap());
+        }
+        slices.put(slice.getName(), new Slice(slice.getName(), replicas, slice.getProperties()));
+      }
+    }
+    return new DocCollection(collection.getName(), slices == null ? collection.getSlicesMap() : slices,
+        collection.getProperties(), collection.getRouter(), collection.getZNodeVersion(), collection.getZNode(), cversion);
+  }
+
+  /**
+   * Returns the operations that make these replica states match the replicas of the given collection: a new child
+   * for every replica whose state changed, and the deletion of the children that are replaced, superseded or
+   * belong to replicas the collection no longer has.
+   */
+  public List<Op> getUpdateOps(SolrZkClient zkClient, DocCollection collection) {
+    List<Op> ops = new ArrayList<>();
+    Map<String, ReplicaState> remaining = new HashMap<>(states);
+    for (Slice slice : collection) {
+      for (Replica replica : slice) {
+        ReplicaState current = remaining.remove(replica.getName());
+        if (current != null && current.state == replica.getState()) {
+          continue;
+        }
+        String child = path + "/" + replica.getName() + SEPARATOR + replica.getState() + SEPARATOR
+            + (current == null ? 0 : current.version + 1);
+        ops.add(Op.create(child, null, zkClient.getZkACLProvider().getACLsToAdd(child), CreateMode.PERSISTENT));
+        if (current != null) {
+          ops.add(Op.delete(path + "/" + current.child, -1));
+        }
+      }
+    }
+    for (ReplicaState removed : remaining.values()) {
+      ops.add(Op.delete(path + "/" + removed.child, -1));
+    }
+    for (String child : superseded) {
+      ops.add(Op.delete(path + "/" + child, -1));
+    }
+    return ops;
+  }
+
+  @Override
+  public String toString() {
+    return "PerReplicaStates(" + path + "/" + cversion + ")=" + states.values();
+  }
+
+  private static class ReplicaState {
+    final String child;
+    final String replica;
+    final Replica.State state;
+    final int version;
+
+    ReplicaState(String child, String replica, Replica.State state, int version) {
+      this.child = child;
+      this.replica = replica;
+      this.state = state;
+      this.version = version;
+    }
+
+    // returns null for a child that is not a replica state
+    static ReplicaState parse(String child) {
+      int versionStart = child.lastIndexOf(SEPARATOR);
+      int stateStart = versionStart <= 0 ? -1 : child.lastIndexOf(SEPARATOR, versionStart - 1);
+      if (stateStart <= 0) {
+        return null;
+      }
+      try {
+        return new ReplicaState(child, child.substring(0, stateStart),
+            Replica.State.getState(child.substring(stateStart + 1, versionStart)),
+            Integer.parseInt(child.substring(versionStart + 1)));
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return child;
+    }
+  }
+}
@@ -95,6 +95,8 @@ public class ZkStateReader implements Closeable {
   public static final String REPLICATION_FACTOR = "replicationFactor";
   public static final String MAX_SHARDS_PER_NODE = "maxShardsPerNode";
   public static final String AUTO_ADD_REPLICAS = "autoAddReplicas";
+  public static final String ONLY_LEADER_INDEXES = "onlyLeaderIndexes";
+  public static final String PER_REPLICA_STATE = "perReplicaState";
   public static final String MAX_CORES_PER_NODE = "maxCoresPerNode";
 
   public static final String ROLES = "/roles.json";
@@ -130,6 +132,9 @@ public class ZkStateReader implements Closeable {
   /** Collections with format2 state.json, not "interesting" and not actively watched. */
   private final ConcurrentHashMap<String, LazyCollectionRef> lazyCollectionStates = new ConcurrentHashMap<>();
 
+  /** Watched collections with per-replica states that have a watch on their replica states znode. */
+  private final Set<String> watchedReplicaStates = ConcurrentHashMap.newKeySet();
+
   private volatile Set<String> liveNodes = emptySet();
 
   private volatile Map<String, Object> clusterProperties = Collections.emptyMap();
@@ -995,6 +1000,76 @@ public class ZkStateReader implements Closeable {
     }
   }
 
+  /**
+   * Watches the replica states of a collection with per-replica states, and applies them to the state.json that
+   * was read last.
+   */
+  class ReplicaStatesWatcher implements Watcher {
+    private final String coll;
+
+    ReplicaStatesWatcher(String coll) {
+      this.coll = coll;
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+      // session events are not change events, and do not remove the watcher
+      if (EventType.None.equals(event.getType())) {
+        return;
+      }
+      watchedReplicaStates.remove(coll);
+
+      if (!collectionWatches.containsKey(coll)) {
+        // This collection is no longer interesting, stop watching.
+        LOG.debug("Uninteresting collection {}", coll);
+        return;
+      }
+
+      LOG.debug("A replica state change: [{}] for collection [{}] has occurred - updating...", event, coll);
+      refreshAndWatch();
+    }
+
+    /**
+     * Refresh the replica states from ZK and leave a watch for future changes. Unlike {@link StateWatcher}, this
+     * does not read state.json again, but only replaces the replicas whose state changed.
+     */
+    public void refreshAndWatch() {
+      try {
+        PerReplicaStates states = fetchReplicaStates(coll, true);
+        boolean updated = false;
+        // CAS update loop
+        while (true) {
+          DocCollection oldState = watchedCollectionStates.get(coll);
+          if (oldState == null || !oldState.getPerReplicaState()
+              || oldState.getReplicaStatesVersion() >= states.getVersion()) {
+            break;
+          }
+          DocCollection newState = states.applyTo(oldState);
+          if (watchedCollectionStates.replace(coll, oldState, newState)) {
+            LOG.debug("Updating replica states for [{}] from [{}] to [{}]", coll,
+                oldState.getReplicaStatesVersion(), newState.getReplicaStatesVersion());
+            updated = true;
+            break;
+          }
+        }
+        if (updated) {
+          synchronized (getUpdateLock()) {
+            constructState(Collections.singleton(coll));
+          }
+        }
+
+      } catch (KeeperException.SessionExpiredException | KeeperException.ConnectionLossException e) {
+        LOG.warn("ZooKeeper watch triggered, but Solr cannot talk to ZK: [{}]", e.getMessage());
+      } catch (KeeperException e) {
+        LOG.error("Unwatched replica states of collection: [{}]", coll, e);
+        throw new ZooKeeperException(ErrorCode.SERVER_ERROR, "A ZK error has occurred", e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LOG.error("Unwatched replica states of collection: [{}]", coll, e);
+      }
+    }
+  }
+
   /** Watches the legacy clusterstate.json. */
   class LegacyClusterStateWatcher implements Watcher {
 
@@ -1111,7 +1186,11 @@ public class ZkStateReader implements Closeable {
         ClusterState state = ClusterState.load(stat.getVersion(), data,
             Collections.<String>emptySet(), collectionPath);
         ClusterState.CollectionRef collectionRef = state.getCollectionStates().get(coll);
-        return collectionRef == null ? null : collectionRef.get();
+        DocCollection collection = collectionRef == null ? null : collectionRef.get();
+        if (collection != null && collection.getPerReplicaState()) {
+          collection = fetchReplicaStates(coll, watcher != null).applyTo(collection);
+        }
+        return collection;
       } catch (KeeperException.NoNodeException e) {
         if (watcher != null) {
           // Leave an exists watch in place in case a state.json is created later.
@@ -1127,6 +1206,26 @@ public class ZkStateReader implements Closeable {
     }
   }
   
+  /**
+   * Fetches the replica states of a collection. If <code>watch</code> is true, a {@link ReplicaStatesWatcher} is left
+   * on them unless one is already in place, since state.json and the replica states change independently.
+   */
+  private PerReplicaStates fetchReplicaStates(String coll, boolean watch) throws KeeperException, InterruptedException {
+    if (!watch || !watchedReplicaStates.add(coll)) {
+      return PerReplicaStates.fetch(zkClient, coll, null);
+    }
+    boolean success = false;
+    try {
+      PerReplicaStates states = PerReplicaStates.fetch(zkClient, coll, new ReplicaStatesWatcher(coll));
+      success = true;
+      return states;
+    } finally {
+      if (!success) {
+        watchedReplicaStates.remove(coll);
+      }
+    }
+  }
+
   public static String getCollectionPathRoot(String coll) {
     return COLLECTIONS_ZKNODE+"/"+coll;
   }
@@ -1311,7 +1410,8 @@ public class ZkStateReader implements Closeable {
           break;
         }
       } else {
-        if (oldState.getZNodeVersion() >= newState.getZNodeVersion()) {
+        if (oldState.getZNodeVersion() > newState.getZNodeVersion() || (oldState.getZNodeVersion() == newState.getZNodeVersion()
+            && oldState.getReplicaStatesVersion() >= newState.getReplicaStatesVersion())) {
           // no change to state, but we might have been triggered by the addition of a
           // state watcher, so run notifications
           updated = true;
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+/**
+ * A {@link CharSequence} backed by UTF-8 encoded bytes. The bytes are only decoded
+ * (once) when the characters are actually accessed, so a value that is just passed
+ * through (e.g. from stored fields to a {@link JavaBinCodec} stream) is never
+ * converted to UTF-16 and back.
+ * <p>
+ * The bytes are not copied and must not be modified after construction.
+ */
+public final class ByteArrayUtf8CharSequence implements CharSequence, Comparable<ByteArrayUtf8CharSequence> {
+
+  private final byte[] buf;
+  private final int offset;
+  private final int size;
+  private int hash;
+  private String utf16;
+
+  public ByteArrayUtf8CharSequence(byte[] buf, int offset, int size) {
+    this.buf = buf;
+    this.offset = offset;
+    this.size = size;
+  }
+
+  public ByteArrayUtf8CharSequence(byte[] buf) {
+    this(buf, 0, buf.length);
+  }
+
+  /** The array holding the UTF-8 bytes */
+  public byte[] getBuf() {
+    return buf;
+  }
+
+  /** Offset of the first UTF-8 byte in {@link #getBuf()} */
+  public int offset() {
+    return offset;
+  }
+
+  /** Number of UTF-8 bytes */
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public int length() {
+    return toString().length();
+  }
+
+  @Override
+  public char charAt(int index) {
+    return toString().charAt(index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+
+  @Override
+  public String toString() {
+    String s = utf16;
+    if (s == null) {
+      utf16 = s = ByteUtils.UTF8toUTF16(buf, offset, size);
+    }
+    return s;
+  }
+
+  @Override
+  public int compareTo(ByteArrayUtf8CharSequence other) {
+    // UTF-8 byte order is the same as code point order
+    final int end = offset + Math.min(size, other.size);
+    for (int i = offset, j = other.offset; i < end; i++, j++) {
+      int cmp = (buf[i] & 0xff) - (other.buf[j] & 0xff);
+      if (cmp != 0) return cmp;
+    }
+    return size - other.size;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) return true;
+    if (!(other instanceof ByteArrayUtf8CharSequence)) return false;
+    ByteArrayUtf8CharSequence that = (ByteArrayUtf8CharSequence) other;
+    if (size != that.size) return false;
+    for (int i = 0; i < size; i++) {
+      if (buf[offset + i] != that.buf[that.offset + i]) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0) {
+      hash = h = Hash.murmurhash3_x86_32(buf, offset, size, 0);
+    }
+    return h;
+  }
+}
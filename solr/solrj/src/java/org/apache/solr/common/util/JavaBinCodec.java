@@ -106,6 +106,8 @@ public class JavaBinCodec implements PushWriter {
   private WritableDocFields writableDocFields;
   private boolean alreadyMarshalled;
   private boolean alreadyUnmarshalled;
+  private boolean readStringAsCharSeq;
+  private boolean readingDocFieldValue;
 
   public JavaBinCodec() {
     resolver =null;
@@ -136,6 +138,16 @@ public class JavaBinCodec implements PushWriter {
     this.stringCache = stringCache;
   }
 
+  /**
+   * If set, string values of {@link SolrDocument} fields are read as {@link ByteArrayUtf8CharSequence}
+   * instead of {@link String}, so they are only decoded if they are actually used. Field names and
+   * all other strings are still read as {@link String}.
+   */
+  public JavaBinCodec setReadStringAsCharSeq(boolean readStringAsCharSeq) {
+    this.readStringAsCharSeq = readStringAsCharSeq;
+    return this;
+  }
+
   public ObjectResolver getResolver() {
     return resolver;
   }
@@ -258,7 +270,7 @@ public class JavaBinCodec implements PushWriter {
     // OK, try type + size in single byte
     switch (tagByte >>> 5) {
       case STR >>> 5:
-        return readStr(dis);
+        return readingDocFieldValue ? readUtf8(dis) : readStr(dis);
       case SINT >>> 5:
         return readSmallInt(dis);
       case SLONG >>> 5:
@@ -522,7 +534,18 @@ public class JavaBinCodec implements PushWriter {
       } else {
         fieldName = (String)obj;
       }
-      Object fieldVal = readVal(dis);
+      Object fieldVal;
+      if (readStringAsCharSeq) {
+        boolean prev = readingDocFieldValue;
+        readingDocFieldValue = true;
+        try {
+          fieldVal = readVal(dis);
+        } finally {
+          readingDocFieldValue = prev;
+        }
+      } else {
+        fieldVal = readVal(dis);
+      }
       doc.setField(fieldName, fieldVal);
     }
     return doc;
@@ -797,6 +820,11 @@ public class JavaBinCodec implements PushWriter {
       writeTag(NULL);
       return;
     }
+    if (s instanceof ByteArrayUtf8CharSequence) {
+      ByteArrayUtf8CharSequence utf8 = (ByteArrayUtf8CharSequence) s;
+      writeUTF8Str(utf8.getBuf(), utf8.offset(), utf8.size());
+      return;
+    }
     int end = s.length();
     int maxSize = end * ByteUtils.MAX_UTF8_BYTES_PER_CHAR;
 
@@ -814,6 +842,14 @@ public class JavaBinCodec implements PushWriter {
     }
   }
 
+  /**
+   * write a string that is already UTF-8 encoded, without going through UTF-16
+   */
+  public void writeUTF8Str(byte[] utf8, int offset, int len) throws IOException {
+    writeTag(STR, len);
+    daos.write(utf8, offset, len);
+  }
+
   byte[] bytes;
   CharArr arr = new CharArr();
   private StringBytes bytesRef = new StringBytes(bytes,0,0);
@@ -835,6 +871,16 @@ public class JavaBinCodec implements PushWriter {
     }
   }
 
+  /**
+   * reads a string as a {@link ByteArrayUtf8CharSequence}, which is decoded lazily
+   */
+  public ByteArrayUtf8CharSequence readUtf8(DataInputInputStream dis) throws IOException {
+    int sz = readSize(dis);
+    byte[] utf8 = new byte[sz];
+    dis.readFully(utf8, 0, sz);
+    return new ByteArrayUtf8CharSequence(utf8, 0, sz);
+  }
+
   public void writeInt(int val) throws IOException {
     if (val > 0) {
       int b = SINT | (val & 0x0f);
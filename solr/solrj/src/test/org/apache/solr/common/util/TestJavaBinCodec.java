@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -355,6 +356,47 @@ public class TestJavaBinCodec extends SolrTestCaseJ4 {
 
   }
 
+  @Test
+  public void testUtf8CharSequence() throws Exception {
+    for (int i = 0; i < 1000 * RANDOM_MULTIPLIER; i++) {
+      String s = TestUtil.randomUnicodeString(random());
+      byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+      // pre-encoded strings are written as is, and read back as plain strings by default
+      assertEquals(s, getObject(getBytes(new ByteArrayUtf8CharSequence(utf8))));
+      ByteArrayUtf8CharSequence copy = new ByteArrayUtf8CharSequence(Arrays.copyOf(utf8, utf8.length));
+      assertEquals(new ByteArrayUtf8CharSequence(utf8), copy);
+      assertEquals(new ByteArrayUtf8CharSequence(utf8).hashCode(), copy.hashCode());
+      assertEquals(0, new ByteArrayUtf8CharSequence(utf8).compareTo(copy));
+      assertEquals(s, copy.toString());
+      assertEquals(s.length(), copy.length());
+    }
+
+    SolrDocument doc = new SolrDocument();
+    doc.addField("id", new ByteArrayUtf8CharSequence("1".getBytes(StandardCharsets.UTF_8)));
+    doc.addField("cat", Arrays.asList("a", "bé"));
+    doc.addField("count", 3);
+    SolrDocumentList list = new SolrDocumentList();
+    list.add(doc);
+    NamedList<Object> rsp = new NamedList<>();
+    rsp.add("status", "ok");
+    rsp.add("response", list);
+    byte[] bytes = getBytes(rsp);
+
+    NamedList<?> result = (NamedList<?>) new JavaBinCodec().setReadStringAsCharSeq(true).unmarshal(new ByteArrayInputStream(bytes));
+    // only document field values are read lazily
+    assertEquals("ok", result.get("status"));
+    SolrDocument resultDoc = ((SolrDocumentList) result.get("response")).get(0);
+    assertTrue(resultDoc.getFieldValue("id") instanceof ByteArrayUtf8CharSequence);
+    assertEquals("1", resultDoc.getFieldValue("id").toString());
+    List<?> cats = (List<?>) resultDoc.getFieldValue("cat");
+    assertTrue(cats.get(1) instanceof ByteArrayUtf8CharSequence);
+    assertEquals("bé", cats.get(1).toString());
+    assertEquals(3, resultDoc.getFieldValue("count"));
+
+    result = (NamedList<?>) new JavaBinCodec().unmarshal(new ByteArrayInputStream(bytes));
+    assertEquals("1", ((SolrDocumentList) result.get("response")).get(0).getFieldValue("id"));
+  }
+
   public void genBinaryFiles() throws IOException {
 
     Object data = generateAllDataTypes();
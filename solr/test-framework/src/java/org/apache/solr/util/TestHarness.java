@@ -203,6 +203,7 @@ public class TestHarness extends BaseTestHarness {
         .setCloudConfig(cloudConfig)
         .setUpdateShardHandlerConfig(updateShardHandlerConfig)
         .setMetricReporterPlugins(new PluginInfo[] {defaultPlugin})
+        .setFacetThreads(4) // collect facets in parallel even on machines with a single processor
         .build();
   }
 